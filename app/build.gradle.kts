@@ -16,6 +16,27 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Number of generated reviews served instead of the fake ones, for load testing:
+        // ./gradlew installDebug -PsyntheticReviews=1000000
+        val syntheticReviews = (project.findProperty("syntheticReviews") as String?)?.toInt() ?: 0
+        buildConfigField("int", "SYNTHETIC_REVIEW_COUNT", syntheticReviews.toString())
+
+        // URL of a review server (see the server module) used instead of the fake API:
+        // ./gradlew installDebug -PreviewServer=http://10.0.2.2:8080
+        val reviewServer = (project.findProperty("reviewServer") as String?) ?: ""
+        buildConfigField("String", "REVIEW_SERVER_URL", "\"$reviewServer\"")
+
+        // Records every API call to files/traces, to replay with the server module:
+        // ./gradlew installDebug -PrecordWorkload=true
+        // adb shell run-as com.openclassrooms.tajmahal cat files/traces/<name>.trace > workload.trace
+        val recordWorkload = (project.findProperty("recordWorkload") as String?)?.toBoolean() ?: false
+        buildConfigField("boolean", "RECORD_WORKLOAD", recordWorkload.toString())
+
+        // Heap budget of the reviews of a scrolled list, in KB; colder pages spill to disk:
+        // ./gradlew installDebug -PreviewCacheHeapKb=256
+        val reviewCacheHeapKb = (project.findProperty("reviewCacheHeapKb") as String?)?.toInt() ?: 512
+        buildConfigField("int", "REVIEW_CACHE_HEAP_KB", reviewCacheHeapKb.toString())
     }
 
     buildTypes {
@@ -34,6 +55,7 @@ android {
 
     buildFeatures {
         viewBinding = true
+        buildConfig = true
     }
 }
 
@@ -44,6 +66,8 @@ dependencies {
     //Hilt
     implementation("com.google.dagger:hilt-android:${hiltVersion}")
     annotationProcessor("com.google.dagger:hilt-compiler:${hiltVersion}")
+    implementation("androidx.hilt:hilt-work:1.0.0")
+    annotationProcessor("androidx.hilt:hilt-compiler:1.0.0")
 
     implementation("androidx.appcompat:appcompat:1.6.1")
     implementation("com.google.android.material:material:1.8.0")
@@ -51,6 +75,8 @@ dependencies {
     implementation("androidx.work:work-runtime:2.8.1")
     implementation("androidx.core:core-splashscreen:1.0.0")
     implementation("com.github.bumptech.glide:glide:4.16.0")
+    implementation("androidx.recyclerview:recyclerview:1.3.0")
+    implementation("androidx.asynclayoutinflater:asynclayoutinflater:1.0.0")
 
     testImplementation("junit:junit:4.13.2")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
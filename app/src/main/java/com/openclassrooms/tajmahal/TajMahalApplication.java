@@ -2,6 +2,14 @@ package com.openclassrooms.tajmahal;
 
 import android.app.Application;
 
+import androidx.annotation.NonNull;
+import androidx.hilt.work.HiltWorkerFactory;
+import androidx.work.Configuration;
+
+import com.openclassrooms.tajmahal.data.scheduler.DailyRollupWorker;
+
+import javax.inject.Inject;
+
 import dagger.hilt.android.HiltAndroidApp;
 
 /**
@@ -23,8 +31,30 @@ import dagger.hilt.android.HiltAndroidApp;
  * Dependency injection allows objects to receive other objects (dependencies)
  * that they need from an external source rather than creating them internally.
  *
+ * <p>
+ * It also provides the WorkManager configuration, so that background jobs such as the
+ * {@link DailyRollupWorker} get their dependencies injected, and schedules those jobs.
+ * </p>
+ *
  * @see <a href="https://developer.android.com/training/dependency-injection/hilt-android">Hilt's official documentation</a>
  */
 @HiltAndroidApp
-public class TajMahalApplication extends Application {
+public class TajMahalApplication extends Application implements Configuration.Provider {
+
+    @Inject
+    HiltWorkerFactory workerFactory;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        DailyRollupWorker.schedule(this);
+    }
+
+    @NonNull
+    @Override
+    public Configuration getWorkManagerConfiguration() {
+        return new Configuration.Builder()
+                .setWorkerFactory(workerFactory)
+                .build();
+    }
 }
@@ -1,5 +1,6 @@
 package com.openclassrooms.tajmahal.adapter;
 
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,6 +9,9 @@ import android.widget.RatingBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
@@ -15,27 +19,94 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.openclassrooms.tajmahal.R;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.ui.avatar.InitialsAvatarRenderer;
+import com.openclassrooms.tajmahal.ui.text.CommentTextCache;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Adapter class for RecyclerView that manage list of reviews
  * Bind data of reviews using ViewHolders
+ * <p>
+ * Comments are measured off the main thread by the {@link CommentTextCache}, starting as soon as a
+ * list is submitted, and long comments are collapsed until the user taps them.
+ * </p>
+ * <p>
+ * Rows are taken from the {@link ReviewRowPrewarmer} when it inflated some ahead of time. Its
+ * ViewHolders do not depend on the adapter, so review lists can share them.
+ * </p>
  */
 public class ReviewAdapter extends ListAdapter<Review, ReviewAdapter.ViewHolder> {
 
+    /** View type of the review rows, the only one. */
+    public static final int VIEW_TYPE_REVIEW = 0;
+
+    /**
+     * Receives the long presses on the rows, typically to offer actions on the review.
+     */
+    public interface OnReviewLongClickListener {
+
+        /**
+         * Called when the user long-presses a loaded review.
+         *
+         * @param review the review of the row
+         * @param row    the row, to anchor a menu
+         */
+        void onReviewLongClick(Review review, View row);
+    }
+
+    private final InitialsAvatarRenderer avatarRenderer;
+    private final CommentTextCache commentTextCache;
+    private final ReviewRowPrewarmer rowPrewarmer;
+
+    // Text metrics of the comment rows, known once a row was created
+    private PrecomputedTextCompat.Params commentParams;
+
+    // Reviews whose comment the user expanded
+    private final Set<Long> expandedReviewIds = new HashSet<>();
+
+    // Told of the long presses, or null if the rows offer no action
+    private OnReviewLongClickListener onReviewLongClickListener;
+
     // --- Constructor ---
 
     /**
      * Constructs a new ReviewAdapter.
      * Uses ItemCallback for efficient list comparison.
+     *
+     * @param avatarRenderer   draws the avatars shown while pictures load or when they are unavailable
+     * @param commentTextCache measures the comments off the main thread
+     * @param rowPrewarmer     provides the rows inflated ahead of time
      */
-    public ReviewAdapter() {
+    public ReviewAdapter(InitialsAvatarRenderer avatarRenderer, CommentTextCache commentTextCache,
+                         ReviewRowPrewarmer rowPrewarmer) {
         super(new ItemCallback());
+        this.avatarRenderer = avatarRenderer;
+        this.commentTextCache = commentTextCache;
+        this.rowPrewarmer = rowPrewarmer;
+    }
+
+    /**
+     * Sets the listener told when the user long-presses a row.
+     *
+     * @param listener the listener, or null to ignore long presses
+     */
+    public void setOnReviewLongClickListener(OnReviewLongClickListener listener) {
+        this.onReviewLongClickListener = listener;
     }
 
     // --- RecyclerView.Adapter methods ---
 
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE_REVIEW;
+    }
+
     /**
-     * Creates a new ViewHolder for a review item.
+     * Creates a new ViewHolder for a review item, from a row inflated ahead of time if any.
      *
      * @param parent   the parent ViewGroup
      * @param viewType the view type (unused here)
@@ -44,8 +115,11 @@ public class ReviewAdapter extends ListAdapter<Review, ReviewAdapter.ViewHolder>
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View itemView = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_review, parent, false);
-        return new ViewHolder(itemView);
+        View itemView = rowPrewarmer.takeRow();
+        if (itemView == null) {
+            itemView = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_review, parent, false);
+        }
+        return new ViewHolder(itemView, avatarRenderer, commentTextCache);
     }
 
     /**
@@ -56,7 +130,78 @@ public class ReviewAdapter extends ListAdapter<Review, ReviewAdapter.ViewHolder>
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        holder.bind(getItem(position));
+        if (commentParams == null) {
+            // First row: measure the comments already submitted with its text metrics
+            commentParams = holder.commentParams;
+            commentTextCache.prefetch(getCurrentList(), commentParams);
+        }
+        Review review = getItem(position);
+        if (review == null) {
+            // Page evicted from memory, loaded back as it scrolls into view
+            holder.bindPlaceholder();
+            return;
+        }
+        holder.bind(review, expandedReviewIds.contains(review.getId()));
+    }
+
+    /**
+     * Starts measuring the comments of the reviews new to the list, before their rows are bound.
+     *
+     * @param previousList the list displayed before
+     * @param currentList  the list displayed now
+     */
+    @Override
+    public void onCurrentListChanged(@NonNull List<Review> previousList, @NonNull List<Review> currentList) {
+        if (commentParams == null) {
+            return;
+        }
+        // Next page appended: the reviews already displayed are measured
+        boolean appended = currentList.size() > previousList.size()
+                && !previousList.isEmpty()
+                && Objects.equals(currentList.get(previousList.size() - 1), previousList.get(previousList.size() - 1));
+        commentTextCache.prefetch(appended ? currentList.subList(previousList.size(), currentList.size())
+                : currentList, commentParams);
+    }
+
+    /**
+     * Tells the listener that a row was long-pressed.
+     *
+     * @param holder the long-pressed row
+     * @return true if the listener handled the long press
+     */
+    boolean longClickReview(ViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        if (onReviewLongClickListener == null || position == RecyclerView.NO_POSITION) {
+            return false;
+        }
+        Review review = getItem(position);
+        if (review == null) {
+            return false;
+        }
+        onReviewLongClickListener.onReviewLongClick(review, holder.itemView);
+        return true;
+    }
+
+    /**
+     * Expands a collapsed comment or collapses an expanded one.
+     *
+     * @param holder the row displaying the comment
+     */
+    void toggleComment(ViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        Review review = getItem(position);
+        if (review == null) {
+            return;
+        }
+        long id = review.getId();
+        boolean expanded = expandedReviewIds.add(id);
+        if (!expanded) {
+            expandedReviewIds.remove(id);
+        }
+        holder.setCommentExpanded(expanded);
     }
 
     // --- ViewHolder ---
@@ -66,39 +211,108 @@ public class ReviewAdapter extends ListAdapter<Review, ReviewAdapter.ViewHolder>
      */
 
     static class ViewHolder extends RecyclerView.ViewHolder {
+        private static final float PENDING_ALPHA = 0.6f;
+        // Lines of a comment shown until the user expands it
+        private static final int COLLAPSED_MAX_LINES = 4;
+
         // Déclare les variables pour chaque élément du layout
         private final TextView tvReviewerName;
-        private final TextView tvReviewerComment;
+        private final AppCompatTextView tvReviewerComment;
         private final RatingBar rbReviewRating;
         private final ImageView ivReviewerAvatar;
+        private final TextView tvReviewStatus;
+        private final InitialsAvatarRenderer avatarRenderer;
+        private final CommentTextCache commentTextCache;
+        final PrecomputedTextCompat.Params commentParams;
 
         /**
          * Constructs a ViewHolder and initializes view references.
          *
-         * @param itemView the item view
+         * @param itemView         the item view
+         * @param avatarRenderer   draws the local avatars of the reviewers
+         * @param commentTextCache measures the comments off the main thread
          */
-        public ViewHolder(@NonNull View itemView) {
+        public ViewHolder(@NonNull View itemView, InitialsAvatarRenderer avatarRenderer,
+                          CommentTextCache commentTextCache) {
             super(itemView);
+            this.avatarRenderer = avatarRenderer;
+            this.commentTextCache = commentTextCache;
             tvReviewerName = itemView.findViewById(R.id.tvReviewerName);
             tvReviewerComment = itemView.findViewById(R.id.tvReviewerComment);
             rbReviewRating = itemView.findViewById(R.id.rbReviewRating);
             ivReviewerAvatar = itemView.findViewById(R.id.ivReviewerAvatar);
+            tvReviewStatus = itemView.findViewById(R.id.tvReviewStatus);
+            commentParams = TextViewCompat.getTextMetricsParams(tvReviewerComment);
+            // The adapter is looked up on each tap, as pooled rows move between review lists
+            tvReviewerComment.setOnClickListener(v -> {
+                RecyclerView.Adapter<?> adapter = getBindingAdapter();
+                if (adapter instanceof ReviewAdapter) {
+                    ((ReviewAdapter) adapter).toggleComment(this);
+                }
+            });
+            // The comment handles its own touches, so it forwards the long presses of the row
+            View.OnLongClickListener longClickListener = v -> {
+                RecyclerView.Adapter<?> adapter = getBindingAdapter();
+                return adapter instanceof ReviewAdapter && ((ReviewAdapter) adapter).longClickReview(this);
+            };
+            itemView.setOnLongClickListener(longClickListener);
+            tvReviewerComment.setOnLongClickListener(longClickListener);
         }
 
         /**
          * Binds review data to the views.
          *
-         * @param review the review to display
+         * @param review          the review to display
+         * @param commentExpanded true to show the whole comment, false to collapse it
          */
-        public void bind(Review review) {
+        public void bind(Review review, boolean commentExpanded) {
             // Remplit les TextView, ImageView, RatingBar avec les données de review
             tvReviewerName.setText(review.getUsername());
-            tvReviewerComment.setText(review.getComment());
+            // The comment is measured in the background and only laid out here
+            tvReviewerComment.setTextFuture(commentTextCache.get(review, commentParams));
+            setCommentExpanded(commentExpanded);
             rbReviewRating.setRating(review.getRate());
+
+            // The initials avatar is shown at once, then replaced by the picture if it loads
+            Drawable avatar = avatarRenderer.drawable(review.getUsername(),
+                    ivReviewerAvatar.getLayoutParams().width);
             Glide.with(itemView.getContext())
                     .load(review.getPicture())
+                    .placeholder(avatar)
+                    .error(avatar)
+                    .fallback(avatar)
                     .circleCrop()
                     .into(ivReviewerAvatar);
+
+            // Reviews still being stored are dimmed and labelled
+            boolean pending = review.isPending();
+            tvReviewStatus.setVisibility(pending ? View.VISIBLE : View.GONE);
+            itemView.setAlpha(pending ? PENDING_ALPHA : 1f);
+        }
+
+        /**
+         * Clears the views of a row whose review is not loaded yet.
+         */
+        void bindPlaceholder() {
+            Glide.with(itemView.getContext()).clear(ivReviewerAvatar);
+            ivReviewerAvatar.setImageDrawable(null);
+            tvReviewerName.setText("");
+            // Drops the comment still being measured for the previous review
+            tvReviewerComment.setTextFuture(null);
+            tvReviewerComment.setText("");
+            rbReviewRating.setRating(0);
+            tvReviewStatus.setVisibility(View.GONE);
+            itemView.setAlpha(1f);
+        }
+
+        /**
+         * Shows the whole comment or its first lines. The measured text is kept, so only
+         * the line count of the layout changes.
+         *
+         * @param expanded true to show the whole comment
+         */
+        void setCommentExpanded(boolean expanded) {
+            tvReviewerComment.setMaxLines(expanded ? Integer.MAX_VALUE : COLLAPSED_MAX_LINES);
         }
     }
 
@@ -111,21 +325,21 @@ public class ReviewAdapter extends ListAdapter<Review, ReviewAdapter.ViewHolder>
     private static class ItemCallback extends DiffUtil.ItemCallback<Review> {
 
         /**
-         * Checks if two review items represent the same object.
-         * Compares by reference (memory address).
+         * Checks if two review items represent the same review.
+         * Compares by reference (memory address), or by identifier once assigned.
          *
          * @param oldItem the old review
          * @param newItem the new review
-         * @return true if they are the same object
+         * @return true if they represent the same review
          */
         @Override
         public boolean areItemsTheSame(@NonNull Review oldItem, @NonNull Review newItem) {
-            return oldItem == newItem;
+            return oldItem == newItem || (oldItem.getId() != 0 && oldItem.getId() == newItem.getId());
         }
 
         /**
          * Checks if two review items have the same content.
-         * Compares all fields of the review objects.
+         * Compares the content of the reviews, and their sync state, shown on the row.
          *
          * @param oldItem the old review
          * @param newItem the new review
@@ -133,7 +347,7 @@ public class ReviewAdapter extends ListAdapter<Review, ReviewAdapter.ViewHolder>
          */
         @Override
         public boolean areContentsTheSame(@NonNull Review oldItem, @NonNull Review newItem) {
-            return oldItem.equals(newItem);
+            return oldItem.equals(newItem) && oldItem.getSyncState() == newItem.getSyncState();
         }
 
     }
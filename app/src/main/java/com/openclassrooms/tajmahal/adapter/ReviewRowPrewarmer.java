@@ -0,0 +1,115 @@
+package com.openclassrooms.tajmahal.adapter;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.openclassrooms.tajmahal.R;
+
+import java.util.ArrayDeque;
+
+import javax.inject.Inject;
+
+import dagger.hilt.android.qualifiers.ActivityContext;
+import dagger.hilt.android.scopes.ActivityScoped;
+
+/**
+ * Inflates the rows of the review lists ahead of time, so that opening the reviews screen
+ * does not inflate any row during the transition.
+ * <p>
+ * {@link #prewarm()} is called from the details screen: rows are inflated on the thread of an
+ * {@link AsyncLayoutInflater} while the user is still reading the details. When the reviews
+ * screen sets up its lists, {@link #attach(RecyclerView, ReviewAdapter)} turns the inflated rows
+ * into ViewHolders in a {@link RecyclerView.RecycledViewPool} shared by every review list of the
+ * activity, so the first frame of the lists only binds rows.
+ * </p>
+ * <p>
+ * Rows are inflated with the activity context, hence the activity scope. This class must be
+ * used from the main thread.
+ * </p>
+ */
+@ActivityScoped
+public class ReviewRowPrewarmer {
+
+    // Rows inflated ahead of time, enough to fill the reviews screen
+    static final int PREWARM_COUNT = 8;
+    // ViewHolders kept by the shared pool, for the two review lists of the reviews screen
+    private static final int POOL_CAPACITY = 2 * PREWARM_COUNT;
+
+    // --- Fields ---
+
+    private final Context context;
+    private final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+    private final ArrayDeque<View> inflatedRows = new ArrayDeque<>();
+    private AsyncLayoutInflater inflater;
+    // Provides the layout params of the rows inflated in the background
+    private RecyclerView inflationParent;
+    private int inflatingCount;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs the prewarmer.
+     *
+     * @param context the activity context, whose theme the rows are inflated with
+     */
+    @Inject
+    public ReviewRowPrewarmer(@ActivityContext Context context) {
+        this.context = context;
+        pool.setMaxRecycledViews(ReviewAdapter.VIEW_TYPE_REVIEW, POOL_CAPACITY);
+    }
+
+    // --- Prewarming ---
+
+    /**
+     * Starts inflating in the background the rows missing to fill the reviews screen.
+     * Cheap to call every time the details screen is displayed.
+     */
+    public void prewarm() {
+        int missing = PREWARM_COUNT - inflatedRows.size() - inflatingCount
+                - pool.getRecycledViewCount(ReviewAdapter.VIEW_TYPE_REVIEW);
+        if (missing <= 0) {
+            return;
+        }
+        if (inflater == null) {
+            inflater = new AsyncLayoutInflater(context);
+            inflationParent = new RecyclerView(context);
+            inflationParent.setLayoutManager(new LinearLayoutManager(context));
+        }
+        for (int i = 0; i < missing; i++) {
+            inflatingCount++;
+            inflater.inflate(R.layout.item_review, inflationParent, (view, resid, parent) -> {
+                inflatingCount--;
+                inflatedRows.add(view);
+            });
+        }
+    }
+
+    /**
+     * Gives a row inflated ahead of time.
+     *
+     * @return an inflated row, or null if there is none left
+     */
+    View takeRow() {
+        return inflatedRows.poll();
+    }
+
+    /**
+     * Makes a review list share the pool of ViewHolders, and fills the pool with the rows
+     * inflated so far.
+     *
+     * @param recyclerView the review list
+     * @param adapter      the adapter of the list, creating ViewHolders from the inflated rows
+     */
+    public void attach(RecyclerView recyclerView, ReviewAdapter adapter) {
+        recyclerView.setRecycledViewPool(pool);
+        while (!inflatedRows.isEmpty()
+                && pool.getRecycledViewCount(ReviewAdapter.VIEW_TYPE_REVIEW) < POOL_CAPACITY) {
+            // createViewHolder takes the next inflated row and sets the view type of the holder
+            pool.putRecycledView(adapter.createViewHolder(recyclerView, ReviewAdapter.VIEW_TYPE_REVIEW));
+        }
+    }
+}
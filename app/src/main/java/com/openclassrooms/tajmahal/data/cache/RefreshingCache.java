@@ -0,0 +1,285 @@
+package com.openclassrooms.tajmahal.data.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * In-memory cache of a single resource with stale-while-revalidate semantics.
+ * <p>
+ * The cached value is always returned immediately, even when it is older than its
+ * time-to-live: a stale value only triggers a refresh in the background, and the
+ * {@link Listener} receives the new value once it is loaded. This way screens render
+ * at once from the cache and update when fresh data arrives.
+ * </p>
+ * <p>
+ * Refreshes are coalesced: while a load is in flight, every refresh request shares it
+ * instead of starting another one. A value written locally with {@link #update(Object)}
+ * while a load is in flight wins over that load, whose result may predate the write.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @param <T> the type of the cached resource
+ */
+public class RefreshingCache<T> {
+
+    /**
+     * Receives the outcome of the background refreshes.
+     * Called on the thread of the executor that ran the load.
+     *
+     * @param <T> the type of the cached resource
+     */
+    public interface Listener<T> {
+
+        /**
+         * Called when a refresh loaded a new value.
+         *
+         * @param value the new value, already stored in the cache
+         */
+        void onRefreshed(T value);
+
+        /**
+         * Called when a refresh failed. The cache keeps its previous value.
+         *
+         * @param error the error thrown by the loader
+         */
+        void onRefreshFailed(Exception error);
+    }
+
+    /**
+     * Source of the current time, replaceable in tests.
+     */
+    public interface Clock {
+
+        /** Clock reading {@link System#currentTimeMillis()}. */
+        Clock SYSTEM = System::currentTimeMillis;
+
+        /**
+         * Returns the current time.
+         *
+         * @return the current time in milliseconds
+         */
+        long now();
+    }
+
+    // --- Fields ---
+
+    private final long ttlMillis;
+    private final Callable<T> loader;
+    private final Executor executor;
+    private final Clock clock;
+    private Listener<T> listener;
+
+    private T value;
+    // Time of the load that produced the value, or Long.MIN_VALUE to force a refresh
+    private long loadedAt = Long.MIN_VALUE;
+    // Incremented by every local write, to discard loads that started before it
+    private long writeVersion;
+    private FutureTask<T> inFlight;
+
+    // --- Constructors ---
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param ttlMillis how long a loaded value stays fresh, in milliseconds
+     * @param loader    loads the resource from its source
+     * @param executor  runs the loads in the background
+     */
+    public RefreshingCache(long ttlMillis, Callable<T> loader, Executor executor) {
+        this(ttlMillis, loader, executor, Clock.SYSTEM);
+    }
+
+    /**
+     * Constructs an empty cache with a custom clock.
+     *
+     * @param ttlMillis how long a loaded value stays fresh, in milliseconds
+     * @param loader    loads the resource from its source
+     * @param executor  runs the loads in the background
+     * @param clock     the source of the current time
+     */
+    public RefreshingCache(long ttlMillis, Callable<T> loader, Executor executor, Clock clock) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttlMillis must be >= 0");
+        }
+        this.ttlMillis = ttlMillis;
+        this.loader = loader;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    // --- Configuration ---
+
+    /**
+     * Sets the listener notified of background refreshes.
+     *
+     * @param listener the listener, or null to remove it
+     */
+    public synchronized void setListener(Listener<T> listener) {
+        this.listener = listener;
+    }
+
+    // --- Reads ---
+
+    /**
+     * Returns the cached value at once and starts a background refresh if it is stale.
+     *
+     * @return the cached value, possibly stale, or null if nothing was loaded yet
+     */
+    public T get() {
+        T cached;
+        synchronized (this) {
+            cached = value;
+        }
+        refreshIfStale();
+        return cached;
+    }
+
+    /**
+     * Returns the cached value without triggering any refresh.
+     *
+     * @return the cached value, or null if nothing was loaded yet
+     */
+    public synchronized T peek() {
+        return value;
+    }
+
+    /**
+     * Tells whether the cached value is older than its time-to-live.
+     *
+     * @return true if the value is stale or missing
+     */
+    public synchronized boolean isStale() {
+        return loadedAt == Long.MIN_VALUE || clock.now() - loadedAt >= ttlMillis;
+    }
+
+    /**
+     * Tells whether a load is currently running.
+     *
+     * @return true if a refresh is in flight
+     */
+    public synchronized boolean isRefreshing() {
+        return inFlight != null;
+    }
+
+    // --- Loads ---
+
+    /**
+     * Loads the value in the calling thread and stores it, without notifying the listener.
+     * Used to fill an empty cache when the caller cannot render without data.
+     *
+     * @return the loaded value
+     * @throws Exception if the loader fails
+     */
+    public T load() throws Exception {
+        long version;
+        synchronized (this) {
+            version = writeVersion;
+        }
+        T loaded = loader.call();
+        store(loaded, version);
+        return loaded;
+    }
+
+    /**
+     * Starts a background refresh if the cached value is stale.
+     *
+     * @return the in-flight refresh, or null if the value is still fresh
+     */
+    public Future<T> refreshIfStale() {
+        synchronized (this) {
+            if (!isStale()) {
+                return null;
+            }
+        }
+        return refresh();
+    }
+
+    /**
+     * Starts a background refresh, or joins the one already in flight.
+     *
+     * @return the in-flight refresh
+     */
+    public Future<T> refresh() {
+        FutureTask<T> task;
+        synchronized (this) {
+            if (inFlight != null) {
+                return inFlight;
+            }
+            final long version = writeVersion;
+            task = new FutureTask<>(() -> runLoad(version));
+            inFlight = task;
+        }
+        executor.execute(task);
+        return task;
+    }
+
+    // --- Writes ---
+
+    /**
+     * Replaces the cached value after a local write, keeping its load time.
+     * Any load in flight is discarded when it completes, since it may predate the write.
+     *
+     * @param value the new value
+     */
+    public synchronized void update(T value) {
+        this.value = value;
+        writeVersion++;
+    }
+
+    /**
+     * Marks the cached value as stale, so that the next read refreshes it.
+     */
+    public synchronized void invalidate() {
+        loadedAt = Long.MIN_VALUE;
+    }
+
+    // --- Internals ---
+
+    private T runLoad(long version) throws Exception {
+        Listener<T> target;
+        T loaded;
+        try {
+            loaded = loader.call();
+        } catch (Exception e) {
+            synchronized (this) {
+                inFlight = null;
+                target = listener;
+            }
+            if (target != null) {
+                target.onRefreshFailed(e);
+            }
+            throw e;
+        }
+        boolean stored;
+        synchronized (this) {
+            inFlight = null;
+            stored = store(loaded, version);
+            target = listener;
+        }
+        if (stored && target != null) {
+            target.onRefreshed(loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Stores a loaded value unless a local write happened since the load started. A loader
+     * may itself write the value it returns, as an incremental sync does: it is stored then.
+     *
+     * @return true if the value was stored
+     */
+    private synchronized boolean store(T loaded, long version) {
+        if (version != writeVersion && loaded != value) {
+            // The load may miss the local write: keep the written value, refresh later
+            loadedAt = Long.MIN_VALUE;
+            return false;
+        }
+        value = loaded;
+        loadedAt = clock.now();
+        return true;
+    }
+}
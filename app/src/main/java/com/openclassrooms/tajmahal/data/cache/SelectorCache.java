@@ -0,0 +1,102 @@
+package com.openclassrooms.tajmahal.data.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Memoizes the values derived from a snapshot, such as the reviews of one author or a
+ * sorted view of the reviews.
+ * <p>
+ * Each {@link #publish(Object) published} snapshot gets a new version. A selector is computed
+ * at most once per version: every caller asking for it before the next snapshot gets the same
+ * result, whatever screen or ViewModel it comes from. Selectors are the keys of the cache, so
+ * they must be reused instances, typically constants, and must not modify the snapshot.
+ * </p>
+ * <p>
+ * This class is thread-safe. Selectors run outside the lock: two threads missing the same
+ * selector at once may both compute it, and the result of an older version never replaces
+ * the result of a newer one.
+ * </p>
+ *
+ * @param <S> the type of the snapshots
+ */
+public class SelectorCache<S> {
+
+    /**
+     * Value computed by a selector, with the version of the snapshot it was computed from.
+     */
+    private static final class Entry {
+        final long version;
+        final Object value;
+
+        Entry(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    // --- Fields ---
+
+    private final Map<Function<? super S, ?>, Entry> entries = new HashMap<>();
+    private S snapshot;
+    private long version;
+
+    // --- Snapshots ---
+
+    /**
+     * Replaces the current snapshot. Every memoized value becomes stale.
+     *
+     * @param snapshot the new snapshot, which must not be modified afterwards
+     * @return the version of the new snapshot
+     */
+    public synchronized long publish(S snapshot) {
+        this.snapshot = snapshot;
+        return ++version;
+    }
+
+    /**
+     * Returns the version of the current snapshot.
+     *
+     * @return the version, 0 if nothing was published yet
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // --- Selection ---
+
+    /**
+     * Returns the value of a selector for the current snapshot, computing it only if it was
+     * not computed yet for that snapshot.
+     *
+     * @param selector the function deriving the value from the snapshot
+     * @param <T>      the type of the derived value
+     * @return the derived value, or null if nothing was published yet
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T select(Function<? super S, ? extends T> selector) {
+        S current;
+        long currentVersion;
+        synchronized (this) {
+            if (version == 0) {
+                return null;
+            }
+            Entry entry = entries.get(selector);
+            if (entry != null && entry.version == version) {
+                return (T) entry.value;
+            }
+            current = snapshot;
+            currentVersion = version;
+        }
+
+        T value = selector.apply(current);
+        synchronized (this) {
+            Entry entry = entries.get(selector);
+            if (entry == null || entry.version < currentVersion) {
+                entries.put(selector, new Entry(currentVersion, value));
+            }
+        }
+        return value;
+    }
+}
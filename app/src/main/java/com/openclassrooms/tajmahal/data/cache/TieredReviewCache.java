@@ -0,0 +1,500 @@
+package com.openclassrooms.tajmahal.data.cache;
+
+import com.openclassrooms.tajmahal.data.io.ReviewSpillFile;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Memory-bounded cache of a long review list loaded page by page, such as the list the user
+ * scrolls on the reviews screen.
+ * <p>
+ * Pages are kept in three tiers. The pages around the visible rows, and the most recently used
+ * ones, stay on the heap, up to a ceiling in bytes that does not depend on the number of reviews
+ * loaded. Colder pages are evicted to a {@link ReviewSpillFile}, and read back when their rows
+ * come back into view; without a spill file, or if it fails, they are loaded again from the
+ * page source instead.
+ * </p>
+ * <p>
+ * When the source changes, {@link #invalidate()} keeps the number of loaded rows but drops their
+ * pages, and loads again only the pages around the visible rows: the other rows are loaded when
+ * they are scrolled back into view, so a change costs the same whatever the length of the list.
+ * Pages loaded again from the source are recognized by their first and last reviews; if they
+ * changed, rows shifted since they were loaded, and the list is invalidated the same way.
+ * </p>
+ * <p>
+ * The list is published as immutable {@link Snapshot}s, in which the rows of evicted pages are
+ * null until they are loaded again. This class is not thread-safe; snapshots can be read from
+ * any thread.
+ * </p>
+ */
+public class TieredReviewCache implements Closeable {
+
+    /**
+     * Loads the pages of the list.
+     */
+    public interface PageSource {
+
+        /**
+         * Loads one page of the list.
+         *
+         * @param offset the position of the first review of the page
+         * @param limit  the maximum number of reviews of the page
+         * @return the page
+         */
+        ReviewPage load(int offset, int limit);
+    }
+
+    // Rows kept on the heap on each side of the visible ones, so that they are loaded
+    // before they are scrolled into view
+    private static final int WINDOW_MARGIN = 40;
+
+    // Estimated heap size of a review besides its texts: the review, its three strings and
+    // their arrays, and its slot in the page
+    private static final int REVIEW_OVERHEAD_BYTES = 160;
+
+    /**
+     * Reviews of one loaded page, on the heap or evicted.
+     */
+    private static final class Run {
+        final int start;
+        final int size;
+        final long heapBytes;
+        // Identifiers of the first and last reviews, to recognize the page when loaded again
+        final long firstId;
+        final long lastId;
+        // Null while evicted
+        List<Review> reviews;
+        // Offset of the evicted copy in the spill file, -1 if none
+        long spillOffset = -1;
+
+        Run(int start, List<Review> reviews) {
+            this.start = start;
+            this.size = reviews.size();
+            this.reviews = reviews;
+            this.firstId = reviews.get(0).getId();
+            this.lastId = reviews.get(size - 1).getId();
+            long bytes = 0;
+            for (Review review : reviews) {
+                bytes += REVIEW_OVERHEAD_BYTES + 2L * (length(review.getUsername())
+                        + length(review.getPicture()) + length(review.getComment()));
+            }
+            this.heapBytes = bytes;
+        }
+
+        private static int length(String text) {
+            return text == null ? 0 : text.length();
+        }
+
+        /**
+         * Tells whether reviews loaded again from the source are the ones of this page.
+         */
+        boolean isSamePage(List<Review> loaded) {
+            return loaded.size() == size && loaded.get(0).getId() == firstId
+                    && loaded.get(size - 1).getId() == lastId;
+        }
+    }
+
+    /**
+     * Immutable state of the list at one time: every loaded position, with null for the rows
+     * of the pages evicted from the heap.
+     */
+    public static final class Snapshot extends AbstractList<Review> {
+        private final int size;
+        private final long generation;
+        private final int[] starts;
+        private final List<List<Review>> runs;
+
+        private Snapshot(int size, long generation, int[] starts, List<List<Review>> runs) {
+            this.size = size;
+            this.generation = generation;
+            this.starts = starts;
+            this.runs = runs;
+        }
+
+        /**
+         * Gets the review at a position.
+         *
+         * @param index the position
+         * @return the review, or null if its page is not on the heap
+         */
+        @Override
+        public Review get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+            }
+            // Last run starting at or before the index
+            int low = 0;
+            int high = starts.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= index) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            if (high < 0) {
+                return null;
+            }
+            List<Review> run = runs.get(high);
+            int offset = index - starts[high];
+            return offset < run.size() ? run.get(offset) : null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Gets the generation of the list, incremented each time it is reset or invalidated.
+         * Snapshots of the same generation only differ by appended pages, by the pages on the
+         * heap, and by the rows cut when the source turns out to end before them.
+         *
+         * @return the generation
+         */
+        public long getGeneration() {
+            return generation;
+        }
+    }
+
+    // --- Fields ---
+
+    private final PageSource source;
+    private ReviewSpillFile spillFile;
+    private final long maxHeapBytes;
+
+    // Every page loaded, by position of its first review
+    private final TreeMap<Integer, Run> runs = new TreeMap<>();
+    // Pages on the heap, least recently used first
+    private final LinkedHashMap<Integer, Run> hotRuns = new LinkedHashMap<>(16, 0.75f, true);
+    private long heapBytes;
+    private int size;
+    private boolean hasMore = true;
+    private long generation;
+    // Limit of the last page loaded, the size of the pages loaded again after an invalidation
+    private int pageLimit;
+    // Positions never evicted: the visible rows and their margins
+    private int windowFrom;
+    private int windowTo = WINDOW_MARGIN;
+    private Snapshot snapshot;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param source       the source of the pages
+     * @param spillFile    the file the evicted pages are written to, or null to load them again
+     *                     from the source; closed with the cache
+     * @param maxHeapBytes the estimated heap size above which pages are evicted. The pages around
+     *                     the visible rows and the last page are never evicted, even above it
+     */
+    public TieredReviewCache(PageSource source, ReviewSpillFile spillFile, long maxHeapBytes) {
+        this.source = source;
+        this.spillFile = spillFile;
+        this.maxHeapBytes = maxHeapBytes;
+    }
+
+    // --- Loading ---
+
+    /**
+     * Drops every page, to load the list again from the start, typically with a new order or
+     * filter. Starts a new generation.
+     */
+    public void reset() {
+        runs.clear();
+        hotRuns.clear();
+        heapBytes = 0;
+        size = 0;
+        hasMore = true;
+        generation++;
+        windowFrom = 0;
+        windowTo = WINDOW_MARGIN;
+        snapshot = null;
+        if (spillFile != null) {
+            try {
+                spillFile.clear();
+            } catch (IOException e) {
+                disableSpillFile();
+            }
+        }
+    }
+
+    /**
+     * Loads the next page from the source, after the loaded ones.
+     *
+     * @param limit the maximum number of reviews of the page
+     * @return true if reviews were appended, false at the end of the list
+     */
+    public boolean loadMore(int limit) {
+        if (!hasMore) {
+            return false;
+        }
+        pageLimit = limit;
+        ReviewPage page = source.load(size, limit);
+        hasMore = page.hasMore() && !page.getReviews().isEmpty();
+        if (page.getReviews().isEmpty()) {
+            return false;
+        }
+        Run run = new Run(size, page.getReviews());
+        runs.put(run.start, run);
+        hotRuns.put(run.start, run);
+        heapBytes += run.heapBytes;
+        size += run.size;
+        evict();
+        snapshot = null;
+        return true;
+    }
+
+    /**
+     * Tells the cache that the source changed, for instance when a review was added: every page
+     * is dropped, but the number of loaded rows is kept, and only the pages around the visible
+     * rows are loaded again. The other rows are null until they are scrolled into view. Starts a
+     * new generation.
+     */
+    public void invalidate() {
+        int loadedCount = size;
+        int from = windowFrom;
+        int to = windowTo;
+        reset();
+        size = loadedCount;
+        windowFrom = Math.min(from, size);
+        windowTo = Math.min(to, size);
+        loadWindow();
+    }
+
+    /**
+     * Tells which rows are visible: the pages around them are loaded back on the heap if they
+     * were evicted, and kept there. If the source changed since a page was loaded, the list is
+     * {@link #invalidate() invalidated}.
+     *
+     * @param first the position of the first visible row
+     * @param last  the position of the last visible row
+     * @return true if pages were loaded back, so that a new snapshot must be displayed
+     */
+    public boolean setVisibleRange(int first, int last) {
+        windowFrom = Math.max(0, first - WINDOW_MARGIN);
+        windowTo = Math.min(size, last + 1 + WINDOW_MARGIN);
+        return loadWindow();
+    }
+
+    /**
+     * Puts the pages of the window on the heap: evicted pages are read back, and the rows left
+     * without a page by an invalidation are loaded from the source.
+     *
+     * @return true if pages were loaded
+     */
+    private boolean loadWindow() {
+        boolean loaded = false;
+        int position = windowFrom;
+        while (position < windowTo) {
+            Map.Entry<Integer, Run> entry = runs.floorEntry(position);
+            Run run = entry == null ? null : entry.getValue();
+            if (run == null || run.start + run.size <= position) {
+                // Invalidated rows: the page is loaded again, unless the list got shorter
+                loadGap(position, run == null ? 0 : run.start + run.size);
+                loaded = true;
+                continue;
+            }
+            if (run.reviews == null) {
+                List<Review> reviews = reload(run);
+                if (reviews == null) {
+                    invalidate();
+                    return true;
+                }
+                run.reviews = reviews;
+                heapBytes += run.heapBytes;
+                hotRuns.put(run.start, run);
+                loaded = true;
+            } else {
+                // Most recently used
+                hotRuns.get(run.start);
+            }
+            position = run.start + run.size;
+        }
+        evict();
+        if (loaded) {
+            snapshot = null;
+        }
+        return loaded;
+    }
+
+    /**
+     * Loads from the source the page of a row without one, aligned on the page size and
+     * within the gap between the loaded pages around it. If the source has fewer rows than
+     * the gap, the list is cut at its new end.
+     *
+     * @param position the row to load
+     * @param gapStart the end of the page before the row, 0 if none
+     */
+    private void loadGap(int position, int gapStart) {
+        Integer next = runs.higherKey(position);
+        int gapEnd = next == null ? size : next;
+        int start = Math.max(gapStart, position - position % pageLimit);
+        int limit = Math.min(pageLimit, gapEnd - start);
+        List<Review> reviews = source.load(start, limit).getReviews();
+        if (!reviews.isEmpty()) {
+            Run run = new Run(start, new ArrayList<>(reviews));
+            runs.put(run.start, run);
+            hotRuns.put(run.start, run);
+            heapBytes += run.heapBytes;
+        }
+        if (reviews.size() < limit) {
+            truncate(start + reviews.size());
+        }
+    }
+
+    // The source ends before the loaded rows: the rows and pages after its end are dropped
+    private void truncate(int end) {
+        Iterator<Run> iterator = runs.tailMap(end, true).values().iterator();
+        while (iterator.hasNext()) {
+            Run run = iterator.next();
+            if (hotRuns.remove(run.start) != null) {
+                heapBytes -= run.heapBytes;
+            }
+            iterator.remove();
+        }
+        size = end;
+        hasMore = false;
+        windowTo = Math.min(windowTo, size);
+    }
+
+    /**
+     * Reads an evicted page back, from the spill file or else from the source.
+     *
+     * @return the reviews of the page, or null if the source changed since it was loaded
+     */
+    private List<Review> reload(Run run) {
+        if (spillFile != null && run.spillOffset >= 0) {
+            try {
+                return spillFile.read(run.spillOffset);
+            } catch (IOException e) {
+                disableSpillFile();
+            }
+        }
+        List<Review> reviews = source.load(run.start, run.size).getReviews();
+        return run.isSamePage(reviews) ? new ArrayList<>(reviews) : null;
+    }
+
+    // --- Eviction ---
+
+    private void evict() {
+        Iterator<Run> iterator = hotRuns.values().iterator();
+        while (heapBytes > maxHeapBytes && iterator.hasNext()) {
+            Run run = iterator.next();
+            // The last page, just appended, is about to be scrolled into view
+            if (run.start < windowTo && run.start + run.size > windowFrom
+                    || run.start + run.size == size) {
+                continue;
+            }
+            spill(run);
+            iterator.remove();
+            run.reviews = null;
+            heapBytes -= run.heapBytes;
+            snapshot = null;
+        }
+    }
+
+    // Pages are never modified once loaded: a page is written at most once per generation
+    private void spill(Run run) {
+        if (spillFile == null || run.spillOffset >= 0) {
+            return;
+        }
+        try {
+            run.spillOffset = spillFile.write(run.reviews);
+        } catch (IOException e) {
+            disableSpillFile();
+        }
+    }
+
+    // Evicted pages are loaded from the source from now on
+    private void disableSpillFile() {
+        try {
+            spillFile.close();
+        } catch (IOException e) {
+            // Already unusable
+        }
+        spillFile = null;
+        for (Run run : runs.values()) {
+            run.spillOffset = -1;
+        }
+    }
+
+    // --- State ---
+
+    /**
+     * Gets the current state of the list.
+     *
+     * @return an immutable snapshot, the same instance until the list or its heap tier changes
+     */
+    public Snapshot getReviews() {
+        if (snapshot == null) {
+            int[] starts = new int[hotRuns.size()];
+            List<List<Review>> hot = new ArrayList<>(hotRuns.size());
+            for (Run run : runs.values()) {
+                if (run.reviews != null) {
+                    starts[hot.size()] = run.start;
+                    hot.add(run.reviews);
+                }
+            }
+            snapshot = new Snapshot(size, generation, starts, hot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the number of loaded positions.
+     *
+     * @return the number of reviews loaded, on the heap or evicted
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether the source has more reviews after the loaded ones.
+     *
+     * @return true if {@link #loadMore(int)} may append reviews
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Gets the estimated heap size of the pages on the heap.
+     *
+     * @return the size, in bytes
+     */
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    /**
+     * Drops every page and deletes the spill file.
+     *
+     * @throws IOException if the spill file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        runs.clear();
+        hotRuns.clear();
+        heapBytes = 0;
+        snapshot = null;
+        if (spillFile != null) {
+            ReviewSpillFile file = spillFile;
+            spillFile = null;
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.openclassrooms.tajmahal.data.index;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hash index from review authors to the identifiers of their reviews.
+ * <p>
+ * Answers "has this user already reviewed the restaurant?" and "which reviews did this user
+ * write?" in O(1), instead of scanning the whole review list. Author names are compared
+ * ignoring case and surrounding spaces.
+ * </p>
+ * <p>
+ * The index must be told about every change of the review list: {@link #add(Review)} on insert,
+ * {@link #remove(Review)} on delete and {@link #move(String, Review)} when an edit changes the
+ * author of a review. This class is not thread-safe.
+ * </p>
+ */
+public class AuthorIndex {
+
+    // --- Fields ---
+
+    private final Map<String, Set<Long>> reviewIdsByAuthor = new HashMap<>();
+
+    // --- Updates ---
+
+    /**
+     * Indexes a review under its author.
+     *
+     * @param review the review to index, with its identifier already assigned
+     */
+    public void add(Review review) {
+        String key = keyOf(review.getUsername());
+        Set<Long> ids = reviewIdsByAuthor.get(key);
+        if (ids == null) {
+            ids = new LinkedHashSet<>();
+            reviewIdsByAuthor.put(key, ids);
+        }
+        ids.add(review.getId());
+    }
+
+    /**
+     * Removes a review from the index.
+     *
+     * @param review the review to remove
+     */
+    public void remove(Review review) {
+        remove(review.getUsername(), review.getId());
+    }
+
+    /**
+     * Moves a review to another author, after an edit of its username.
+     *
+     * @param previousAuthor the author the review was indexed under
+     * @param review         the edited review
+     */
+    public void move(String previousAuthor, Review review) {
+        remove(previousAuthor, review.getId());
+        add(review);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        reviewIdsByAuthor.clear();
+    }
+
+    private void remove(String author, long reviewId) {
+        String key = keyOf(author);
+        Set<Long> ids = reviewIdsByAuthor.get(key);
+        if (ids != null && ids.remove(reviewId) && ids.isEmpty()) {
+            reviewIdsByAuthor.remove(key);
+        }
+    }
+
+    // --- Queries ---
+
+    /**
+     * Tells whether an author wrote at least one review, in O(1).
+     *
+     * @param author the author name
+     * @return true if a review of this author is indexed
+     */
+    public boolean contains(String author) {
+        return reviewIdsByAuthor.containsKey(keyOf(author));
+    }
+
+    /**
+     * Returns the identifiers of the reviews written by an author, in indexing order.
+     *
+     * @param author the author name
+     * @return an unmodifiable view of the identifiers, empty if the author is unknown
+     */
+    public Set<Long> getReviewIds(String author) {
+        Set<Long> ids = reviewIdsByAuthor.get(keyOf(author));
+        return ids == null ? Collections.<Long>emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    private static String keyOf(String author) {
+        return author == null ? "" : author.trim().toLowerCase(Locale.ROOT);
+    }
+}
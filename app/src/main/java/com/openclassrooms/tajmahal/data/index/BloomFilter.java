@@ -0,0 +1,113 @@
+package com.openclassrooms.tajmahal.data.index;
+
+import java.util.Arrays;
+
+/**
+ * Bloom filter of review identifiers.
+ * <p>
+ * Tells in O(1), without any lookup in the reviews, that an identifier was certainly never
+ * added. A positive answer may be wrong with a small probability, so it must be confirmed with
+ * an exact index. Used to recognize the new reviews of a sync, which are most of them, without
+ * probing the identifier index for each one.
+ * </p>
+ * <p>
+ * Identifiers cannot be removed: the filter is rebuilt with {@link #clear()} when the reviews
+ * are reloaded. Past its expected number of identifiers the filter still works, with a higher
+ * false positive rate. This class is not thread-safe.
+ * </p>
+ */
+public class BloomFilter {
+
+    // Bits per expected identifier and hash functions: about 1% of false positives
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASH_COUNT = 7;
+
+    // --- Fields ---
+
+    private final long[] bits;
+    private final int bitCount;
+    private int size;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs an empty filter.
+     *
+     * @param expectedSize the number of identifiers the filter is sized for
+     */
+    public BloomFilter(int expectedSize) {
+        if (expectedSize < 1) {
+            throw new IllegalArgumentException("expectedSize must be >= 1");
+        }
+        long wanted = (long) expectedSize * BITS_PER_ENTRY;
+        int words = (int) Math.min((wanted + 63) / 64, Integer.MAX_VALUE / 64);
+        this.bits = new long[words];
+        this.bitCount = words * 64;
+    }
+
+    // --- Updates ---
+
+    /**
+     * Adds an identifier.
+     *
+     * @param id the identifier
+     */
+    public void add(long id) {
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        size++;
+    }
+
+    /**
+     * Removes every identifier.
+     */
+    public void clear() {
+        Arrays.fill(bits, 0L);
+        size = 0;
+    }
+
+    // --- Queries ---
+
+    /**
+     * Tells whether an identifier may have been added.
+     *
+     * @param id the identifier
+     * @return false if the identifier was certainly never added, true if it may have been
+     */
+    public boolean mightContain(long id) {
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of identifiers added since the filter was created or cleared.
+     *
+     * @return the number of additions, duplicates included
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Spreads consecutive identifiers over the whole 64-bit range (SplitMix64 finalizer).
+     */
+    private static long mix(long id) {
+        long z = id + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,377 @@
+package com.openclassrooms.tajmahal.data.index;
+
+import com.openclassrooms.tajmahal.domain.model.BayesianPrior;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Materialized per-day rollups of the ratings: for each day with reviews, the review count,
+ * the rating sum and the rating distribution.
+ * <p>
+ * Rollups are updated in O(log days) per inserted, edited or deleted review, so that statistics
+ * over any range of dates, such as the points of a rating trend chart, are answered in O(days)
+ * from the rollups instead of O(reviews) from the review list. Days are calendar days of the
+ * time zone of the table.
+ * </p>
+ * <p>
+ * The table must be told about every change of the review list, like the other indexes. This
+ * class is not thread-safe.
+ * </p>
+ */
+public class DailyRollups {
+
+    /** Length of a day, in milliseconds. */
+    public static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final int RATINGS = 5;
+
+    /**
+     * Rollup of the reviews of one day.
+     */
+    public static final class Day {
+        private final long day;
+        private int count;
+        private long ratingSum;
+        private final int[] distribution;
+
+        /**
+         * Constructs the rollup of a day.
+         *
+         * @param day          the day, in days since the epoch in the time zone of the table
+         * @param count        the number of reviews, invalid ratings included
+         * @param ratingSum    the sum of the valid ratings
+         * @param distribution the number of reviews per rating 1-5, which is not copied
+         */
+        public Day(long day, int count, long ratingSum, int[] distribution) {
+            if (distribution.length != RATINGS) {
+                throw new IllegalArgumentException("expected " + RATINGS + " ratings");
+            }
+            this.day = day;
+            this.count = count;
+            this.ratingSum = ratingSum;
+            this.distribution = distribution;
+        }
+
+        private Day(long day) {
+            this(day, 0, 0, new int[RATINGS]);
+        }
+
+        private Day copy() {
+            return new Day(day, count, ratingSum, distribution.clone());
+        }
+
+        /**
+         * Gets the day.
+         *
+         * @return the day, in days since the epoch in the time zone of the table
+         */
+        public long getDay() {
+            return day;
+        }
+
+        /**
+         * Gets the number of reviews of the day.
+         *
+         * @return the review count, invalid ratings included
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of the valid ratings of the day.
+         *
+         * @return the rating sum
+         */
+        public long getRatingSum() {
+            return ratingSum;
+        }
+
+        /**
+         * Gets the number of reviews of the day per rating.
+         *
+         * @return a copy of the counts of the ratings 1 to 5
+         */
+        public int[] getDistribution() {
+            return distribution.clone();
+        }
+
+        /**
+         * Gets the average rating of the day.
+         *
+         * @return the average, or 0 if the day has no review
+         */
+        public float getAverageRating() {
+            return count == 0 ? 0f : (float) ratingSum / count;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Day other = (Day) o;
+            return day == other.day && count == other.count && ratingSum == other.ratingSum
+                    && Arrays.equals(distribution, other.distribution);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(day, count, ratingSum) * 31 + Arrays.hashCode(distribution);
+        }
+    }
+
+    // --- Fields ---
+
+    private final TimeZone timeZone;
+    private final TreeMap<Long, Day> days = new TreeMap<>();
+
+    // --- Constructors ---
+
+    /**
+     * Constructs an empty table.
+     *
+     * @param timeZone the time zone of the days, typically the one of the restaurant
+     */
+    public DailyRollups(TimeZone timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    /**
+     * Computes the rollups of a review list in a single pass, to verify maintained ones.
+     *
+     * @param timeZone the time zone of the days
+     * @param reviews  the reviews
+     * @return the rollups of the reviews
+     */
+    public static DailyRollups of(TimeZone timeZone, List<Review> reviews) {
+        DailyRollups rollups = new DailyRollups(timeZone);
+        rollups.addAll(reviews);
+        return rollups;
+    }
+
+    /**
+     * Restores rollups, typically read from disk.
+     *
+     * @param timeZone the time zone of the days
+     * @param days     the rollups of the days, which are not copied
+     * @return the table
+     */
+    public static DailyRollups of(TimeZone timeZone, Collection<Day> days) {
+        DailyRollups rollups = new DailyRollups(timeZone);
+        for (Day day : days) {
+            rollups.days.put(day.day, day);
+        }
+        return rollups;
+    }
+
+    // --- Updates ---
+
+    /**
+     * Adds a review to the rollup of its day.
+     *
+     * @param review the review
+     */
+    public void add(Review review) {
+        long key = dayOf(review.getCreatedAt());
+        Day day = days.get(key);
+        if (day == null) {
+            day = new Day(key);
+            days.put(key, day);
+        }
+        day.count++;
+        int rate = review.getRate();
+        if (rate >= 1 && rate <= RATINGS) {
+            day.distribution[rate - 1]++;
+            day.ratingSum += rate;
+        }
+    }
+
+    /**
+     * Adds every review of a list.
+     *
+     * @param reviews the reviews
+     */
+    public void addAll(List<Review> reviews) {
+        for (Review review : reviews) {
+            add(review);
+        }
+    }
+
+    /**
+     * Removes a review from the rollup of its day.
+     *
+     * @param review the review, with the rating and date it was added with
+     */
+    public void remove(Review review) {
+        long key = dayOf(review.getCreatedAt());
+        Day day = days.get(key);
+        if (day == null) {
+            throw new IllegalStateException("no review on day " + key);
+        }
+        if (--day.count == 0) {
+            days.remove(key);
+            return;
+        }
+        int rate = review.getRate();
+        if (rate >= 1 && rate <= RATINGS) {
+            day.distribution[rate - 1]--;
+            day.ratingSum -= rate;
+        }
+    }
+
+    /**
+     * Replaces a review with its new version.
+     *
+     * @param previous the previous version
+     * @param updated  the new version
+     */
+    public void replace(Review previous, Review updated) {
+        remove(previous);
+        add(updated);
+    }
+
+    /**
+     * Removes every rollup.
+     */
+    public void clear() {
+        days.clear();
+    }
+
+    // --- Queries ---
+
+    /**
+     * Gets the time zone of the days.
+     *
+     * @return the time zone
+     */
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    /**
+     * Tells the day of a time.
+     *
+     * @param time the time, in milliseconds since the epoch
+     * @return the day, in days since the epoch in the time zone of the table
+     */
+    public long dayOf(long time) {
+        return Math.floorDiv(time + timeZone.getOffset(time), DAY_MILLIS);
+    }
+
+    /**
+     * Lists the rollups of the days with reviews in a range, in O(days).
+     *
+     * @param fromTime the start of the range, in milliseconds since the epoch
+     * @param toTime   the end of the range, inclusive
+     * @return copies of the rollups, oldest day first
+     */
+    public List<Day> getDays(long fromTime, long toTime) {
+        List<Day> result = new ArrayList<>();
+        for (Day day : range(fromTime, toTime)) {
+            result.add(day.copy());
+        }
+        return result;
+    }
+
+    /**
+     * Computes the statistics of the reviews of a range of days, in O(days).
+     * <p>
+     * The recent average decays by day: the reviews of a day weigh as if posted at its start.
+     * </p>
+     *
+     * @param fromTime       the start of the range, in milliseconds since the epoch
+     * @param toTime         the end of the range, inclusive
+     * @param prior          the prior of the Bayesian average
+     * @param halfLifeMillis the half-life of the recent average
+     * @return the statistics of the reviews of the range
+     */
+    public ReviewStats getStats(long fromTime, long toTime, BayesianPrior prior, long halfLifeMillis) {
+        int[] ratings = new int[RATINGS];
+        long ratingSum = 0;
+        int count = 0;
+        double weightedSum = 0;
+        double weightSum = 0;
+        long lastDay = dayOf(toTime);
+        double halfLifeDays = (double) halfLifeMillis / DAY_MILLIS;
+        for (Day day : range(fromTime, toTime)) {
+            count += day.count;
+            ratingSum += day.ratingSum;
+            double weight = Math.pow(2, (day.day - lastDay) / halfLifeDays);
+            int rated = 0;
+            for (int i = 0; i < RATINGS; i++) {
+                ratings[i] += day.distribution[i];
+                rated += day.distribution[i];
+            }
+            weightedSum += weight * day.ratingSum;
+            weightSum += weight * rated;
+        }
+        int rated = 0;
+        for (int rating : ratings) {
+            rated += rating;
+        }
+
+        float bayesianAverage = prior.average(ratingSum, rated);
+        if (count == 0) {
+            return new ReviewStats(0f, 0, new int[RATINGS], new int[RATINGS], bayesianAverage, 0f);
+        }
+        int[] percent = new int[RATINGS];
+        for (int i = 0; i < RATINGS; i++) {
+            percent[i] = (int) ((ratings[i] * 100f) / count);
+        }
+        float recentAverage = weightSum <= 0 ? 0f : (float) (weightedSum / weightSum);
+        return new ReviewStats((float) ratingSum / count, count, ratings, percent, bayesianAverage, recentAverage);
+    }
+
+    /**
+     * Gets the number of days with reviews.
+     *
+     * @return the number of rollups
+     */
+    public int size() {
+        return days.size();
+    }
+
+    /**
+     * Copies the table, to read it outside of the lock of its owner.
+     *
+     * @return an independent copy
+     */
+    public DailyRollups copy() {
+        DailyRollups copy = new DailyRollups(timeZone);
+        for (Map.Entry<Long, Day> entry : days.entrySet()) {
+            copy.days.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    private Collection<Day> range(long fromTime, long toTime) {
+        long from = dayOf(fromTime);
+        long to = dayOf(toTime);
+        if (from > to) {
+            return new ArrayList<>();
+        }
+        return days.subMap(from, true, to, true).values();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DailyRollups other = (DailyRollups) o;
+        return timeZone.getID().equals(other.timeZone.getID()) && days.equals(other.days);
+    }
+
+    @Override
+    public int hashCode() {
+        return days.hashCode();
+    }
+}
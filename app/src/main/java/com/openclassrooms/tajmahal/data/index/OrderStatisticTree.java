@@ -0,0 +1,340 @@
+package com.openclassrooms.tajmahal.data.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Balanced binary search tree where each node also stores the size of its subtree.
+ * <p>
+ * The subtree sizes turn the tree into an order-statistic tree: besides insertion and removal,
+ * it can return the element at a given position ({@link #get(int)}) and the position of an
+ * element ({@link #rank(Object)}), all in O(log n). The tree is kept balanced with AVL rotations,
+ * so these bounds hold whatever the insertion order.
+ * </p>
+ * <p>
+ * The comparator must define a total order: two distinct elements must never compare as equal,
+ * otherwise the second one is not inserted. Elements must not be mutated in a way that changes
+ * their order while they are stored in the tree; remove them first and insert them again.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @param <T> the type of the stored elements
+ */
+public class OrderStatisticTree<T> {
+
+    // --- Node ---
+
+    private static final class Node<T> {
+        final T value;
+        Node<T> left;
+        Node<T> right;
+        int height = 1;
+        int size = 1;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    // --- Fields ---
+
+    private final Comparator<? super T> comparator;
+    private Node<T> root;
+
+    // Set by insert() and delete() to report whether the tree changed.
+    private boolean modified;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs an empty tree.
+     *
+     * @param comparator the total order of the elements
+     */
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    // --- Updates ---
+
+    /**
+     * Inserts an element in O(log n).
+     *
+     * @param value the element to insert
+     * @return true if the element was inserted, false if an equal element is already stored
+     */
+    public boolean add(T value) {
+        modified = false;
+        root = insert(root, value);
+        return modified;
+    }
+
+    /**
+     * Removes an element in O(log n).
+     *
+     * @param value the element to remove
+     * @return true if the element was found and removed
+     */
+    public boolean remove(T value) {
+        modified = false;
+        root = delete(root, value);
+        return modified;
+    }
+
+    /**
+     * Removes every element.
+     */
+    public void clear() {
+        root = null;
+    }
+
+    // --- Queries ---
+
+    /**
+     * Gets the number of elements.
+     *
+     * @return the size of the tree
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns the element at the given position, in ascending order, in O(log n).
+     *
+     * @param index the position of the element, from 0 to {@code size() - 1}
+     * @return the element at that position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size());
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    /**
+     * Returns the position of an element, in ascending order, in O(log n).
+     *
+     * @param value the element to look for
+     * @return the position of the element, or -1 if it is not stored
+     */
+    public int rank(T value) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copies the elements into a list, in ascending or descending order.
+     * Runs in O(n): the elements are already ordered, nothing is sorted.
+     *
+     * @param descending true to list the greatest element first
+     * @return a new list containing every element
+     */
+    public List<T> toList(boolean descending) {
+        List<T> list = new ArrayList<>(size());
+        collect(root, list, descending);
+        return list;
+    }
+
+    /**
+     * Iterates over the elements starting at a given position.
+     * <p>
+     * Reaching the starting position costs O(log n), then each step costs O(1) amortized,
+     * so reading a page of {@code k} elements costs O(log n + k). The tree must not be
+     * modified while the iterator is in use.
+     * </p>
+     *
+     * @param fromIndex  the position of the first element to return, in iteration order
+     * @param descending true to iterate from the greatest element to the smallest
+     * @return an iterator over the elements from that position
+     */
+    public Iterator<T> iterator(int fromIndex, boolean descending) {
+        return new TreeIterator(fromIndex, descending);
+    }
+
+    private void collect(Node<T> node, List<T> list, boolean descending) {
+        if (node == null) return;
+        collect(descending ? node.right : node.left, list, descending);
+        list.add(node.value);
+        collect(descending ? node.left : node.right, list, descending);
+    }
+
+    // --- Iterator ---
+
+    private final class TreeIterator implements Iterator<T> {
+
+        private final ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+        private final boolean descending;
+
+        TreeIterator(int fromIndex, boolean descending) {
+            this.descending = descending;
+            Node<T> node = root;
+            int index = fromIndex;
+            // Walk down to the starting position, stacking the nodes still to be visited
+            while (node != null) {
+                Node<T> before = descending ? node.right : node.left;
+                int beforeSize = size(before);
+                if (index < beforeSize) {
+                    stack.push(node);
+                    node = before;
+                } else if (index > beforeSize) {
+                    index -= beforeSize + 1;
+                    node = descending ? node.left : node.right;
+                } else {
+                    stack.push(node);
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<T> node = stack.pop();
+            Node<T> child = descending ? node.left : node.right;
+            while (child != null) {
+                stack.push(child);
+                child = descending ? child.right : child.left;
+            }
+            return node.value;
+        }
+    }
+
+    // --- AVL implementation ---
+
+    private Node<T> insert(Node<T> node, T value) {
+        if (node == null) {
+            modified = true;
+            return new Node<>(value);
+        }
+        int cmp = comparator.compare(value, node.value);
+        if (cmp < 0) {
+            node.left = insert(node.left, value);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, value);
+        } else {
+            return node;
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> delete(Node<T> node, T value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(value, node.value);
+        if (cmp < 0) {
+            node.left = delete(node.left, value);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, value);
+        } else {
+            modified = true;
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            // Replace the node with its successor
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node<T> replacement = new Node<>(successor.value);
+            replacement.right = deleteMin(node.right);
+            replacement.left = node.left;
+            node = replacement;
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> deleteMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return rebalance(node);
+    }
+
+    private Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static <T> int height(Node<T> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <T> int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+}
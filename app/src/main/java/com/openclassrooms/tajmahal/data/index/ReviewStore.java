@@ -0,0 +1,147 @@
+package com.openclassrooms.tajmahal.data.index;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Review storage indexed by identifier, with O(1) insert, lookup, replacement and deletion.
+ * <p>
+ * Reviews are appended to an array in insertion order, and a hash index maps each identifier
+ * to its position. Deleting a review leaves a tombstone (an empty slot) instead of shifting the
+ * following reviews; once tombstones outnumber the live reviews, the array is compacted and the
+ * positions reindexed, which keeps deletions O(1) amortized.
+ * </p>
+ * <p>
+ * Stored reviews are never modified: a replacement stores another object, so indexes holding
+ * the previous one can still remove it with its previous values. This class is not thread-safe.
+ * </p>
+ */
+public class ReviewStore {
+
+    // Tombstones tolerated before a compaction is considered, to avoid compacting tiny stores
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+
+    // --- Fields ---
+
+    // Reviews in insertion order, null for deleted ones
+    private final ArrayList<Review> slots = new ArrayList<>();
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private int tombstones;
+
+    // --- Updates ---
+
+    /**
+     * Appends a review.
+     *
+     * @param review the review, with its identifier assigned
+     * @throws IllegalArgumentException if a review with the same identifier is stored
+     */
+    public void add(Review review) {
+        if (positions.containsKey(review.getId())) {
+            throw new IllegalArgumentException("duplicate review id: " + review.getId());
+        }
+        positions.put(review.getId(), slots.size());
+        slots.add(review);
+    }
+
+    /**
+     * Replaces the stored review having the same identifier, keeping its position.
+     *
+     * @param review the new version of the review
+     * @return the replaced review, or null if no review has this identifier
+     */
+    public Review replace(Review review) {
+        Integer position = positions.get(review.getId());
+        return position == null ? null : slots.set(position, review);
+    }
+
+    /**
+     * Deletes a review.
+     *
+     * @param id the identifier of the review
+     * @return the deleted review, or null if no review has this identifier
+     */
+    public Review remove(long id) {
+        Integer position = positions.remove(id);
+        if (position == null) {
+            return null;
+        }
+        Review removed = slots.set(position, null);
+        tombstones++;
+        if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones > positions.size()) {
+            compact();
+        }
+        return removed;
+    }
+
+    // --- Reads ---
+
+    /**
+     * Gets a review by identifier.
+     *
+     * @param id the identifier
+     * @return the review, or null if no review has this identifier
+     */
+    public Review get(long id) {
+        Integer position = positions.get(id);
+        return position == null ? null : slots.get(position);
+    }
+
+    /**
+     * Gets the number of stored reviews, tombstones excluded.
+     *
+     * @return the review count
+     */
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Gets the number of empty slots left by deletions since the last compaction.
+     *
+     * @return the tombstone count
+     */
+    public int getTombstoneCount() {
+        return tombstones;
+    }
+
+    /**
+     * Copies the stored reviews, the most recently added first.
+     *
+     * @return a new list of the reviews
+     */
+    public List<Review> toListNewestFirst() {
+        List<Review> reviews = new ArrayList<>(positions.size());
+        for (int i = slots.size() - 1; i >= 0; i--) {
+            Review review = slots.get(i);
+            if (review != null) {
+                reviews.add(review);
+            }
+        }
+        return reviews;
+    }
+
+    // --- Compaction ---
+
+    /**
+     * Removes the tombstones and reindexes the positions, in O(n).
+     */
+    public void compact() {
+        int next = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            Review review = slots.get(i);
+            if (review != null) {
+                slots.set(next, review);
+                positions.put(review.getId(), next);
+                next++;
+            }
+        }
+        slots.subList(next, slots.size()).clear();
+        slots.trimToSize();
+        tombstones = 0;
+    }
+}
@@ -0,0 +1,201 @@
+package com.openclassrooms.tajmahal.data.index;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps the reviews sorted in every {@link ReviewSortOrder} at once.
+ * <p>
+ * Reviews are stored in two {@link OrderStatisticTree}s, one ordered by creation date and one
+ * ordered by rating. Each descending order is read from the same tree as its ascending
+ * counterpart by mirroring the positions, so every order is available without ever sorting:
+ * <ul>
+ *     <li>adding or removing a review costs O(log n),</li>
+ *     <li>finding the position of a review ("your review is #k") costs O(log n),</li>
+ *     <li>listing the reviews in any order costs O(n).</li>
+ * </ul>
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class SortedReviewIndex {
+
+    /**
+     * Orders reviews from the oldest to the most recent.
+     * The identifier breaks ties between reviews created at the same millisecond.
+     */
+    public static final Comparator<Review> BY_DATE = new Comparator<Review>() {
+        @Override
+        public int compare(Review a, Review b) {
+            int byDate = Long.compare(a.getCreatedAt(), b.getCreatedAt());
+            return byDate != 0 ? byDate : Long.compare(a.getId(), b.getId());
+        }
+    };
+
+    /**
+     * Orders reviews from the worst to the best rating, then by date.
+     */
+    public static final Comparator<Review> BY_RATING = new Comparator<Review>() {
+        @Override
+        public int compare(Review a, Review b) {
+            int byRating = a.getRate() - b.getRate();
+            return byRating != 0 ? byRating : BY_DATE.compare(a, b);
+        }
+    };
+
+    // --- Fields ---
+
+    private final OrderStatisticTree<Review> byDate = new OrderStatisticTree<>(BY_DATE);
+    private final OrderStatisticTree<Review> byRating = new OrderStatisticTree<>(BY_RATING);
+
+    // --- Updates ---
+
+    /**
+     * Adds a review to every order.
+     *
+     * @param review the review to add, with its identifier already assigned
+     */
+    public void add(Review review) {
+        byDate.add(review);
+        byRating.add(review);
+    }
+
+    /**
+     * Adds several reviews to every order.
+     *
+     * @param reviews the reviews to add
+     */
+    public void addAll(List<Review> reviews) {
+        for (Review review : reviews) {
+            add(review);
+        }
+    }
+
+    /**
+     * Removes a review from every order.
+     * <p>
+     * The review must still hold the date and rating it was added with.
+     * </p>
+     *
+     * @param review the review to remove
+     */
+    public void remove(Review review) {
+        byDate.remove(review);
+        byRating.remove(review);
+    }
+
+    /**
+     * Removes every review.
+     */
+    public void clear() {
+        byDate.clear();
+        byRating.clear();
+    }
+
+    // --- Queries ---
+
+    /**
+     * Gets the number of indexed reviews.
+     *
+     * @return the review count
+     */
+    public int size() {
+        return byDate.size();
+    }
+
+    /**
+     * Returns the review at the given position of a sort order, in O(log n).
+     *
+     * @param order    the sort order
+     * @param position the position, from 0 to {@code size() - 1}
+     * @return the review at that position
+     */
+    public Review get(ReviewSortOrder order, int position) {
+        OrderStatisticTree<Review> tree = treeFor(order);
+        return isDescending(order) ? tree.get(tree.size() - 1 - position) : tree.get(position);
+    }
+
+    /**
+     * Returns the position of a review in a sort order, in O(log n).
+     *
+     * @param order  the sort order
+     * @param review the review to look for
+     * @return the position, starting at 0, or -1 if the review is not indexed
+     */
+    public int indexOf(ReviewSortOrder order, Review review) {
+        OrderStatisticTree<Review> tree = treeFor(order);
+        int rank = tree.rank(review);
+        if (rank < 0) return -1;
+        return isDescending(order) ? tree.size() - 1 - rank : rank;
+    }
+
+    /**
+     * Lists every review in a sort order, in O(n).
+     *
+     * @param order the sort order
+     * @return a new list of the reviews
+     */
+    public List<Review> toList(ReviewSortOrder order) {
+        return treeFor(order).toList(isDescending(order));
+    }
+
+    /**
+     * Iterates over the reviews of a sort order, starting at a given position.
+     * Reaching the position costs O(log n), each following review O(1) amortized.
+     *
+     * @param order     the sort order
+     * @param fromIndex the position of the first review to return
+     * @return an iterator over the reviews from that position
+     */
+    public Iterator<Review> iterator(ReviewSortOrder order, int fromIndex) {
+        return treeFor(order).iterator(fromIndex, isDescending(order));
+    }
+
+    /**
+     * Returns the comparator matching a sort order, for reviews that are not indexed.
+     *
+     * @param order the sort order
+     * @return a comparator listing reviews in that order
+     */
+    public static Comparator<Review> comparator(ReviewSortOrder order) {
+        switch (order) {
+            case OLDEST:
+                return BY_DATE;
+            case HIGHEST_RATING:
+                return Collections.reverseOrder(BY_RATING);
+            case LOWEST_RATING:
+                return BY_RATING;
+            case NEWEST:
+            default:
+                return Collections.reverseOrder(BY_DATE);
+        }
+    }
+
+    /**
+     * Tells whether a sort order lists its tree from the greatest element.
+     *
+     * @param order the sort order
+     * @return true for the most recent and best rated first orders
+     */
+    public static boolean isDescending(ReviewSortOrder order) {
+        return order == ReviewSortOrder.NEWEST || order == ReviewSortOrder.HIGHEST_RATING;
+    }
+
+    private OrderStatisticTree<Review> treeFor(ReviewSortOrder order) {
+        switch (order) {
+            case HIGHEST_RATING:
+            case LOWEST_RATING:
+                return byRating;
+            case NEWEST:
+            case OLDEST:
+            default:
+                return byDate;
+        }
+    }
+}
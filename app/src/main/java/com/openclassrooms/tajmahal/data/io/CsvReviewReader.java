@@ -0,0 +1,129 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads CSV dumps (RFC 4180) character by character, so quoted fields may span several lines.
+ * <p>
+ * The first record is the header: columns are matched by name, in any order, and unknown
+ * columns are ignored. Empty lines are skipped.
+ * </p>
+ */
+class CsvReviewReader extends ReviewReader {
+
+    private static final int NONE = -2;
+
+    private final Reader in;
+    private List<String> header;
+    // Character read ahead of the current one, or NONE
+    private int lookahead = NONE;
+
+    /**
+     * Constructs a reader.
+     *
+     * @param in the dump, preferably buffered
+     */
+    CsvReviewReader(Reader in) {
+        this.in = in;
+    }
+
+    @Override
+    Review read() throws IOException {
+        if (header == null) {
+            header = readRecord();
+            if (header == null) {
+                return null;
+            }
+        }
+        List<String> values = readRecord();
+        if (values == null) {
+            return null;
+        }
+        recordNumber++;
+        if (values.size() != header.size()) {
+            throw malformed("expected " + header.size() + " fields, found " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>(header.size() * 2);
+        for (int i = 0; i < header.size(); i++) {
+            fields.put(header.get(i), values.get(i));
+        }
+        return toReview(fields);
+    }
+
+    /**
+     * Reads the fields of the next non-empty record.
+     *
+     * @return the fields, or null at the end of the input
+     */
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean started = false;
+        while (true) {
+            int c = next();
+            if (c == -1) {
+                if (inQuotes) {
+                    throw malformed("unterminated quoted field");
+                }
+                if (!started) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            if (inQuotes) {
+                if (c != '"') {
+                    field.append((char) c);
+                } else if (peek() == '"') {
+                    next();
+                    field.append('"');
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                started = true;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek() == '\n') {
+                    next();
+                }
+                if (started || field.length() > 0) {
+                    fields.add(field.toString());
+                    return fields;
+                }
+                // Empty line
+            } else if (c == '"' && field.length() == 0) {
+                inQuotes = true;
+                started = true;
+            } else {
+                field.append((char) c);
+                started = true;
+            }
+        }
+    }
+
+    private int next() throws IOException {
+        if (lookahead != NONE) {
+            int c = lookahead;
+            lookahead = NONE;
+            return c;
+        }
+        return in.read();
+    }
+
+    private int peek() throws IOException {
+        if (lookahead == NONE) {
+            lookahead = in.read();
+        }
+        return lookahead;
+    }
+}
@@ -0,0 +1,112 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import com.openclassrooms.tajmahal.data.index.DailyRollups;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Binary file holding the {@link DailyRollups} of the reviews, written by the nightly
+ * verification so that rating trends can be read without loading the reviews.
+ * <p>
+ * The file holds a format version, the time zone of the days, then a 40-byte record per day
+ * with reviews: the day, the count, the rating sum and the distribution. Like
+ * {@link ReviewStatsFile}, it is written to a temporary file renamed over the previous one, so
+ * readers always see a complete table.
+ * </p>
+ * <p>
+ * This class is thread-safe for concurrent reads; writes must be made from one thread at a time.
+ * </p>
+ */
+public class DailyRollupFile {
+
+    // Incremented when the layout of the file changes; older files are ignored
+    private static final int FORMAT_VERSION = 1;
+    private static final int RATINGS = 5;
+
+    // --- Fields ---
+
+    private final File file;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a reader and writer of a rollup file.
+     *
+     * @param file the file, typically in the private files directory of the app
+     */
+    public DailyRollupFile(File file) {
+        this.file = file;
+    }
+
+    // --- Reading and writing ---
+
+    /**
+     * Reads the rollups last written.
+     *
+     * @return the rollups, or null if no valid file was written yet
+     */
+    public DailyRollups read() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            TimeZone timeZone = TimeZone.getTimeZone(in.readUTF());
+            int dayCount = in.readInt();
+            List<DailyRollups.Day> days = new ArrayList<>(dayCount);
+            for (int d = 0; d < dayCount; d++) {
+                long day = in.readLong();
+                int count = in.readInt();
+                long ratingSum = in.readLong();
+                int[] distribution = new int[RATINGS];
+                for (int i = 0; i < RATINGS; i++) {
+                    distribution[i] = in.readInt();
+                }
+                days.add(new DailyRollups.Day(day, count, ratingSum, distribution));
+            }
+            return DailyRollups.of(timeZone, days);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the rollups of the file.
+     *
+     * @param rollups the rollups to write, not modified while written
+     * @throws IOException if the file could not be written; the previous one is kept then
+     */
+    public void write(DailyRollups rollups) throws IOException {
+        List<DailyRollups.Day> days = rollups.getDays(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2);
+        File temporary = new File(file.getPath() + ".tmp");
+        FileOutputStream stream = new FileOutputStream(temporary);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(rollups.getTimeZone().getID());
+            out.writeInt(days.size());
+            for (DailyRollups.Day day : days) {
+                out.writeLong(day.getDay());
+                out.writeInt(day.getCount());
+                out.writeLong(day.getRatingSum());
+                for (int count : day.getDistribution()) {
+                    out.writeInt(count);
+                }
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        if (!temporary.renameTo(file)) {
+            temporary.delete();
+            throw new IOException("could not replace " + file);
+        }
+    }
+}
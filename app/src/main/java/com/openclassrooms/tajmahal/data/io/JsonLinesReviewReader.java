@@ -0,0 +1,42 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads JSON Lines dumps: one flat JSON object per line, parsed by {@link JsonObjectParser}.
+ * Unknown keys are ignored and blank lines skipped.
+ */
+class JsonLinesReviewReader extends ReviewReader {
+
+    private final BufferedReader in;
+
+    /**
+     * Constructs a reader.
+     *
+     * @param in the dump
+     */
+    JsonLinesReviewReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+    }
+
+    @Override
+    Review read() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.trim().isEmpty());
+        recordNumber++;
+        try {
+            return toReview(JsonObjectParser.parse(line));
+        } catch (JsonObjectParser.MalformedJsonException e) {
+            throw malformed(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses one flat JSON object, whose values are strings, numbers, booleans or null, such as a
+ * line of a JSON Lines dump or of a response of the review server.
+ * <p>
+ * Values are returned as their text, numbers and booleans included, and null values as null,
+ * so that callers convert only the fields they read. Nested objects and arrays are rejected.
+ * </p>
+ */
+public final class JsonObjectParser {
+
+    /**
+     * Thrown when the text is not a flat JSON object. The message tells what is wrong and where.
+     */
+    public static final class MalformedJsonException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        MalformedJsonException(String message) {
+            super(message);
+        }
+    }
+
+    // --- Fields ---
+
+    private final String line;
+    private int position;
+
+    private JsonObjectParser(String line) {
+        this.line = line;
+    }
+
+    /**
+     * Parses a flat JSON object.
+     *
+     * @param line the text of the object, without line terminator
+     * @return the values by key, as text
+     * @throws MalformedJsonException if the text is not a flat JSON object
+     */
+    public static Map<String, String> parse(String line) throws MalformedJsonException {
+        return new JsonObjectParser(line).parseObject();
+    }
+
+    // --- Parsing ---
+
+    private Map<String, String> parseObject() throws MalformedJsonException {
+        Map<String, String> fields = new HashMap<>();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                String key = parseString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                fields.put(key, parseValue());
+                skipWhitespace();
+                char c = nextChar();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw new MalformedJsonException("expected ',' or '}' at column " + position);
+                }
+            }
+        }
+        skipWhitespace();
+        if (position < line.length()) {
+            throw new MalformedJsonException("unexpected content after the object at column " + (position + 1));
+        }
+        return fields;
+    }
+
+    private String parseValue() throws MalformedJsonException {
+        char c = peek();
+        if (c == '"') {
+            return parseString();
+        }
+        int start = position;
+        while (position < line.length() && ",} \t".indexOf(line.charAt(position)) < 0) {
+            position++;
+        }
+        String literal = line.substring(start, position);
+        if (literal.isEmpty()) {
+            throw new MalformedJsonException("missing value at column " + (start + 1));
+        }
+        if (literal.equals("null")) {
+            return null;
+        }
+        if (literal.charAt(0) == '{' || literal.charAt(0) == '[') {
+            throw new MalformedJsonException("nested values are not supported");
+        }
+        return literal;
+    }
+
+    private String parseString() throws MalformedJsonException {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            char c = nextChar();
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = nextChar();
+            switch (escaped) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    if (position + 4 > line.length()) {
+                        throw new MalformedJsonException("truncated unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw new MalformedJsonException("invalid unicode escape at column " + (position + 1));
+                    }
+                    position += 4;
+                    break;
+                default:
+                    // \" \\ \/
+                    value.append(escaped);
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+    }
+
+    private void expect(char expected) throws MalformedJsonException {
+        skipWhitespace();
+        if (nextChar() != expected) {
+            throw new MalformedJsonException("expected '" + expected + "' at column " + position);
+        }
+    }
+
+    private char peek() throws MalformedJsonException {
+        if (position >= line.length()) {
+            throw new MalformedJsonException("unexpected end of line");
+        }
+        return line.charAt(position);
+    }
+
+    private char nextChar() throws MalformedJsonException {
+        char c = peek();
+        position++;
+        return c;
+    }
+}
@@ -0,0 +1,238 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Writes reviews to a file or a stream, in UTF-8, one record at a time.
+ * <p>
+ * Records are encoded into a reusable text buffer, then into a fixed-size byte buffer which is
+ * written to the channel each time it is full. Memory use therefore does not depend on the number
+ * of reviews: only the record being written is held, so exporting a lazy list such as the one of
+ * {@code SyntheticRestaurantApi} never materializes it.
+ * </p>
+ * <p>
+ * An export runs in the calling thread with {@code export} methods, or in the background with
+ * {@link #exportAsync}. Exports stop with an {@link InterruptedIOException} when their thread is
+ * interrupted, for instance by cancelling the returned {@link Future}.
+ * </p>
+ */
+public class ReviewExporter {
+
+    /**
+     * Receives the progress of an export.
+     * Called on the thread running the export.
+     */
+    public interface Listener {
+
+        /**
+         * Called periodically while reviews are written.
+         *
+         * @param written the number of reviews written so far
+         * @param total   the number of reviews to write, or -1 if unknown
+         */
+        void onProgress(long written, long total);
+
+        /**
+         * Called once every review is written and the output flushed.
+         *
+         * @param written the number of reviews written
+         */
+        void onExported(long written);
+
+        /**
+         * Called when the export failed or was cancelled. The output may hold a partial dump.
+         *
+         * @param error the cause of the failure
+         */
+        void onExportFailed(Exception error);
+    }
+
+    // Size of the byte buffer between the encoder and the channel
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Number of written reviews between two progress reports
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    // --- Fields ---
+
+    private final ReviewFormat format;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs an exporter.
+     *
+     * @param format the format of the dump
+     */
+    public ReviewExporter(ReviewFormat format) {
+        this.format = format;
+    }
+
+    // --- Export ---
+
+    /**
+     * Exports reviews to a file, replacing its content.
+     *
+     * @param reviews  the reviews, read once in iteration order
+     * @param file     the destination file
+     * @param listener the progress listener, or null
+     * @return the number of written reviews
+     * @throws IOException if writing failed or the thread was interrupted
+     */
+    public long export(Iterable<? extends Review> reviews, File file, Listener listener) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file);
+             FileChannel channel = out.getChannel()) {
+            long written = export(reviews, channel, listener);
+            channel.force(false);
+            return written;
+        }
+    }
+
+    /**
+     * Exports reviews to a stream. The stream is flushed but not closed.
+     *
+     * @param reviews  the reviews, read once in iteration order
+     * @param out      the destination stream
+     * @param listener the progress listener, or null
+     * @return the number of written reviews
+     * @throws IOException if writing failed or the thread was interrupted
+     */
+    public long export(Iterable<? extends Review> reviews, OutputStream out, Listener listener) throws IOException {
+        long written = export(reviews, Channels.newChannel(out), listener);
+        out.flush();
+        return written;
+    }
+
+    /**
+     * Exports reviews to a channel. The channel is not closed.
+     *
+     * @param reviews  the reviews, read once in iteration order
+     * @param channel  the destination channel
+     * @param listener the progress listener, or null
+     * @return the number of written reviews
+     * @throws IOException if writing failed or the thread was interrupted
+     */
+    public long export(Iterable<? extends Review> reviews, WritableByteChannel channel, Listener listener)
+            throws IOException {
+        long total = reviews instanceof Collection ? ((Collection<?>) reviews).size() : -1;
+        RecordWriter writer = new RecordWriter(channel);
+        StringBuilder record = new StringBuilder(256);
+        long written = 0;
+
+        format.appendHeader(record);
+        writer.write(record);
+        for (Review review : reviews) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("export cancelled after " + written + " reviews");
+            }
+            record.setLength(0);
+            format.appendRecord(review, record);
+            writer.write(record);
+            written++;
+            if (listener != null && written % PROGRESS_INTERVAL == 0) {
+                listener.onProgress(written, total);
+            }
+        }
+        writer.flush();
+        if (listener != null && written % PROGRESS_INTERVAL != 0) {
+            listener.onProgress(written, total);
+        }
+        return written;
+    }
+
+    /**
+     * Exports reviews to a stream in the background, then closes the stream.
+     * The listener is told of the outcome; the returned future can cancel the export.
+     *
+     * @param reviews  supplies the reviews when the export starts, on the executor
+     * @param out      the destination stream, closed once the export ends
+     * @param listener the listener, or null
+     * @param executor runs the export, typically the I/O executor
+     * @return the running export, yielding the number of written reviews
+     */
+    public Future<Long> exportAsync(final Callable<? extends Iterable<? extends Review>> reviews,
+                                    final OutputStream out, final Listener listener, Executor executor) {
+        FutureTask<Long> task = new FutureTask<>(() -> {
+            try (OutputStream stream = out) {
+                long written = export(reviews.call(), stream, listener);
+                if (listener != null) {
+                    listener.onExported(written);
+                }
+                return written;
+            } catch (Exception e) {
+                if (listener != null) {
+                    listener.onExportFailed(e);
+                }
+                throw e;
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    // --- Writer ---
+
+    /**
+     * Encodes text to UTF-8 through a fixed-size buffer drained to a channel.
+     */
+    private static final class RecordWriter {
+
+        private final WritableByteChannel channel;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        RecordWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(CharSequence text) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, false);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isUnderflow()) {
+                    return;
+                } else {
+                    result.throwException();
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            CoderResult result = encoder.encode(CharBuffer.allocate(0), buffer, true);
+            if (result.isError()) {
+                throw new CharacterCodingException();
+            }
+            encoder.flush(buffer);
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.Reader;
+
+/**
+ * Text formats of a review dump, one record per line.
+ * <p>
+ * Each review is written with its stored fields: identifier, author, picture, comment,
+ * rating and creation date (milliseconds since the epoch). Formats append to a reusable
+ * {@link StringBuilder}, so that writing a record allocates nothing but the text itself.
+ * Dumps are read back one record at a time by the reader of their format.
+ * </p>
+ */
+public enum ReviewFormat {
+
+    /**
+     * Comma-separated values (RFC 4180) with a header line. Fields containing a comma, a quote
+     * or a line break are quoted, and their quotes doubled.
+     */
+    CSV("text/csv", "csv") {
+        @Override
+        public void appendHeader(StringBuilder out) {
+            out.append("id,username,picture,comment,rate,createdAt\r\n");
+        }
+
+        @Override
+        public void appendRecord(Review review, StringBuilder out) {
+            out.append(review.getId()).append(',');
+            appendCsvField(review.getUsername(), out);
+            out.append(',');
+            appendCsvField(review.getPicture(), out);
+            out.append(',');
+            appendCsvField(review.getComment(), out);
+            out.append(',').append(review.getRate())
+                    .append(',').append(review.getCreatedAt())
+                    .append("\r\n");
+        }
+
+        @Override
+        ReviewReader newReader(Reader in) {
+            return new CsvReviewReader(in);
+        }
+    },
+
+    /**
+     * JSON Lines: one JSON object per line, without header.
+     */
+    JSON_LINES("application/x-ndjson", "jsonl") {
+        @Override
+        public void appendHeader(StringBuilder out) {
+            // No header
+        }
+
+        @Override
+        public void appendRecord(Review review, StringBuilder out) {
+            out.append("{\"id\":").append(review.getId());
+            out.append(",\"username\":");
+            appendJsonString(review.getUsername(), out);
+            out.append(",\"picture\":");
+            appendJsonString(review.getPicture(), out);
+            out.append(",\"comment\":");
+            appendJsonString(review.getComment(), out);
+            out.append(",\"rate\":").append(review.getRate());
+            out.append(",\"createdAt\":").append(review.getCreatedAt());
+            out.append("}\n");
+        }
+
+        @Override
+        ReviewReader newReader(Reader in) {
+            return new JsonLinesReviewReader(in);
+        }
+    };
+
+    // --- Fields ---
+
+    private final String mimeType;
+    private final String fileExtension;
+
+    ReviewFormat(String mimeType, String fileExtension) {
+        this.mimeType = mimeType;
+        this.fileExtension = fileExtension;
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the MIME type of the format, for sharing intents.
+     *
+     * @return the MIME type
+     */
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * Gets the usual file extension of the format.
+     *
+     * @return the extension, without dot
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    // --- Encoding ---
+
+    /**
+     * Appends what comes before the first record.
+     *
+     * @param out the text being written
+     */
+    public abstract void appendHeader(StringBuilder out);
+
+    /**
+     * Appends one review, with its line terminator.
+     *
+     * @param review the review to write
+     * @param out    the text being written
+     */
+    public abstract void appendRecord(Review review, StringBuilder out);
+
+    // --- Decoding ---
+
+    /**
+     * Creates a reader of the records of a dump.
+     *
+     * @param in the dump, preferably buffered
+     * @return a reader returning one review per record
+     */
+    abstract ReviewReader newReader(Reader in);
+
+    // --- Helpers ---
+
+    private static void appendCsvField(String value, StringBuilder out) {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Appends a value as a JSON string, escaping quotes, backslashes and control characters.
+     *
+     * @param value the value, or null to append a JSON null
+     * @param out   the text being written
+     */
+    public static void appendJsonString(String value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
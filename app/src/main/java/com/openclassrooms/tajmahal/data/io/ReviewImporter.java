@@ -0,0 +1,184 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * Reads reviews from a UTF-8 dump and hands them over in batches.
+ * <p>
+ * The dump is parsed incrementally: only the current batch is held in memory, whatever the
+ * size of the dump. Each batch is passed to a consumer, typically
+ * {@code RestaurantRepository#addReviews}, which stores it, updates its indexes and statistics
+ * and notifies its observers once per batch instead of once per review.
+ * </p>
+ * <p>
+ * Imports stop at the first malformed record, or with an {@link InterruptedIOException} when
+ * their thread is interrupted. The batches consumed before are kept.
+ * </p>
+ */
+public class ReviewImporter {
+
+    /**
+     * Receives the progress of an import.
+     * Called on the thread running the import.
+     */
+    public interface Listener {
+
+        /**
+         * Called after each consumed batch.
+         *
+         * @param imported the number of reviews imported so far
+         */
+        void onProgress(long imported);
+
+        /**
+         * Called once every review of the dump is imported.
+         *
+         * @param imported the number of imported reviews
+         */
+        void onImported(long imported);
+
+        /**
+         * Called when the import failed or was cancelled. The reviews of the batches consumed
+         * before, reported by {@link #onProgress(long)}, stay imported.
+         *
+         * @param error the cause of the failure
+         */
+        void onImportFailed(Exception error);
+    }
+
+    /** Number of reviews per batch when none is given. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // --- Fields ---
+
+    private final ReviewFormat format;
+    private final int batchSize;
+
+    // --- Constructors ---
+
+    /**
+     * Constructs an importer with the default batch size.
+     *
+     * @param format the format of the dump
+     */
+    public ReviewImporter(ReviewFormat format) {
+        this(format, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs an importer.
+     *
+     * @param format    the format of the dump
+     * @param batchSize the maximum number of reviews per batch
+     */
+    public ReviewImporter(ReviewFormat format, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be >= 1");
+        }
+        this.format = format;
+        this.batchSize = batchSize;
+    }
+
+    // --- Import ---
+
+    /**
+     * Imports the reviews of a stream, in the calling thread. The stream is not closed.
+     *
+     * @param in       the dump
+     * @param consumer stores each batch; it may keep the list it receives
+     * @param listener the progress listener, or null
+     * @return the number of imported reviews
+     * @throws IOException if reading failed, a record is malformed or the thread was interrupted
+     */
+    public long importFrom(InputStream in, Consumer<List<Review>> consumer, Listener listener) throws IOException {
+        return importFrom(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE),
+                consumer, listener);
+    }
+
+    /**
+     * Imports the reviews of a text dump, in the calling thread. The reader is not closed.
+     *
+     * @param in       the dump, preferably buffered
+     * @param consumer stores each batch; it may keep the list it receives
+     * @param listener the progress listener, or null
+     * @return the number of imported reviews
+     * @throws IOException if reading failed, a record is malformed or the thread was interrupted
+     */
+    public long importFrom(Reader in, Consumer<List<Review>> consumer, Listener listener) throws IOException {
+        ReviewReader reader = format.newReader(in);
+        List<Review> batch = new ArrayList<>(batchSize);
+        long imported = 0;
+        Review review;
+        while ((review = reader.read()) != null) {
+            batch.add(review);
+            if (batch.size() == batchSize) {
+                imported += consume(batch, consumer, listener, imported);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += consume(batch, consumer, listener, imported);
+        }
+        return imported;
+    }
+
+    /**
+     * Imports the reviews of a stream in the background, then closes the stream.
+     * The listener is told of the outcome; the returned future can cancel the import.
+     *
+     * @param in       the dump, closed once the import ends
+     * @param consumer stores each batch
+     * @param listener the listener, or null
+     * @param executor runs the import, typically the I/O executor
+     * @return the running import, yielding the number of imported reviews
+     */
+    public Future<Long> importAsync(final InputStream in, final Consumer<List<Review>> consumer,
+                                    final Listener listener, Executor executor) {
+        FutureTask<Long> task = new FutureTask<>(() -> {
+            try (InputStream stream = in) {
+                long imported = importFrom(stream, consumer, listener);
+                if (listener != null) {
+                    listener.onImported(imported);
+                }
+                return imported;
+            } catch (Exception e) {
+                if (listener != null) {
+                    listener.onImportFailed(e);
+                }
+                throw e;
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
+    // --- Helpers ---
+
+    private static int consume(List<Review> batch, Consumer<List<Review>> consumer, Listener listener,
+                               long importedBefore) throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("import cancelled after " + importedBefore + " reviews");
+        }
+        consumer.accept(batch);
+        if (listener != null) {
+            listener.onProgress(importedBefore + batch.size());
+        }
+        return batch.size();
+    }
+}
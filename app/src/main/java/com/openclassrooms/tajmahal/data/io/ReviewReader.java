@@ -0,0 +1,82 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+/**
+ * Reads the reviews of a dump one record at a time, see {@link ReviewFormat#newReader(Reader)}.
+ */
+abstract class ReviewReader {
+
+    // Ratings accepted by the app
+    private static final int MIN_RATE = 1;
+    private static final int MAX_RATE = 5;
+
+    // Number of the record being read, for error messages
+    protected long recordNumber;
+
+    /**
+     * Reads the next review.
+     *
+     * @return the review, or null at the end of the dump
+     * @throws IOException if reading failed or the record is malformed
+     */
+    abstract Review read() throws IOException;
+
+    /**
+     * Creates a new review, not stored yet, from the named fields of a record.
+     * <p>
+     * The identifier of the record is ignored: the API gives imported reviews new identifiers,
+     * so that a dump can be imported into a venue which already has reviews. The picture and the
+     * comment may be missing; a missing creation date means now.
+     * </p>
+     *
+     * @param fields the values of the record by field name
+     * @return the review
+     * @throws IOException if a field is missing or invalid
+     */
+    protected Review toReview(Map<String, String> fields) throws IOException {
+        String username = fields.get("username");
+        if (username == null || username.isEmpty()) {
+            throw malformed("missing username");
+        }
+        int rate = (int) parseLong(fields, "rate", 0);
+        if (rate < MIN_RATE || rate > MAX_RATE) {
+            throw malformed("rate out of range: " + rate);
+        }
+        long createdAt = parseLong(fields, "createdAt", System.currentTimeMillis());
+        return new Review(0, username, orEmpty(fields.get("picture")), orEmpty(fields.get("comment")),
+                rate, createdAt);
+    }
+
+    /**
+     * Creates the exception reporting a malformed record.
+     *
+     * @param reason what is wrong with the record
+     * @return the exception to throw
+     */
+    protected IOException malformed(String reason) {
+        return new IOException("record " + recordNumber + ": " + reason);
+    }
+
+    // --- Helpers ---
+
+    private long parseLong(Map<String, String> fields, String name, long defaultValue) throws IOException {
+        String value = fields.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw malformed("invalid " + name + ": " + value);
+        }
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,185 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSyncState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scratch file holding runs of reviews evicted from memory, read back by the offset at which
+ * they were written.
+ * <p>
+ * Each run is a length-prefixed record with the count of its reviews, then for each review its
+ * identifier, rating, date, sync state and texts in UTF-8: a few bytes more than the texts,
+ * against several objects per review on the heap. Runs are only appended; {@link #clear()}
+ * drops them all, and {@link #close()} deletes the file.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class ReviewSpillFile implements Closeable {
+
+    private static final ReviewSyncState[] SYNC_STATES = ReviewSyncState.values();
+
+    // --- Fields ---
+
+    private final File file;
+    private final RandomAccessFile data;
+
+    // --- Constructor ---
+
+    /**
+     * Creates an empty spill file, replacing any file at this path.
+     *
+     * @param file the file, typically in the cache directory of the app
+     * @throws IOException if the file could not be created
+     */
+    public ReviewSpillFile(File file) throws IOException {
+        this.file = file;
+        this.data = new RandomAccessFile(file, "rw");
+        data.setLength(0);
+    }
+
+    /**
+     * Creates an empty spill file in the temporary directory, which is the cache directory of
+     * the app on Android.
+     *
+     * @return the spill file
+     * @throws IOException if the file could not be created
+     */
+    public static ReviewSpillFile createTemporary() throws IOException {
+        File file = File.createTempFile("reviews", ".spill");
+        file.deleteOnExit();
+        return new ReviewSpillFile(file);
+    }
+
+    // --- Runs ---
+
+    /**
+     * Appends a run of reviews.
+     *
+     * @param reviews the reviews
+     * @return the offset to read the run back from
+     * @throws IOException if the run could not be written
+     */
+    public long write(List<Review> reviews) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * reviews.size() + 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(reviews.size());
+        for (Review review : reviews) {
+            out.writeLong(review.getId());
+            out.writeByte(review.getRate());
+            out.writeLong(review.getCreatedAt());
+            out.writeByte(review.getSyncState().ordinal());
+            writeText(out, review.getUsername());
+            writeText(out, review.getPicture());
+            writeText(out, review.getComment());
+        }
+        byte[] record = bytes.toByteArray();
+        int length = record.length - 4;
+        record[0] = (byte) (length >>> 24);
+        record[1] = (byte) (length >>> 16);
+        record[2] = (byte) (length >>> 8);
+        record[3] = (byte) length;
+
+        long offset = data.length();
+        data.seek(offset);
+        data.write(record);
+        return offset;
+    }
+
+    /**
+     * Reads a run back.
+     *
+     * @param offset the offset returned when the run was written
+     * @return the reviews of the run, equal to the written ones
+     * @throws IOException if the run could not be read
+     */
+    public List<Review> read(long offset) throws IOException {
+        data.seek(offset);
+        byte[] record = new byte[data.readInt()];
+        data.readFully(record);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        int count = in.readInt();
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            int rate = in.readByte();
+            long createdAt = in.readLong();
+            ReviewSyncState syncState = SYNC_STATES[in.readUnsignedByte()];
+            String username = readText(in);
+            String picture = readText(in);
+            String comment = readText(in);
+            Review review = new Review(id, username, picture, comment, rate, createdAt);
+            review.setSyncState(syncState);
+            reviews.add(review);
+        }
+        return reviews;
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return the bytes used by the runs
+     * @throws IOException if the size could not be read
+     */
+    public long length() throws IOException {
+        return data.length();
+    }
+
+    /**
+     * Drops every run.
+     *
+     * @throws IOException if the file could not be truncated
+     */
+    public void clear() throws IOException {
+        data.setLength(0);
+    }
+
+    /**
+     * Closes and deletes the file.
+     *
+     * @throws IOException if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    // Null texts are written with a length of -1
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,117 @@
+package com.openclassrooms.tajmahal.data.io;
+
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Small binary file holding the latest {@link ReviewStats}, for readers that must not load the
+ * reviews, such as the home-screen widget.
+ * <p>
+ * The file is a fixed 60-byte record: a format version, the averages, the count and both
+ * distributions. It is written to a temporary file renamed over the previous one, so readers
+ * always see a complete record, and reading it is a single small read without parsing.
+ * </p>
+ * <p>
+ * This class is thread-safe for concurrent reads; writes must be made from one thread at a time.
+ * </p>
+ */
+public class ReviewStatsFile {
+
+    // Incremented when the layout of the record changes; older records are ignored
+    private static final int FORMAT_VERSION = 1;
+    private static final int RATINGS = 5;
+    private static final int RECORD_SIZE = 4 + 3 * 4 + 4 + 2 * RATINGS * 4;
+
+    // --- Fields ---
+
+    private final File file;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a reader and writer of a statistics file.
+     *
+     * @param file the file, typically in the private files directory of the app
+     */
+    public ReviewStatsFile(File file) {
+        this.file = file;
+    }
+
+    // --- Reading and writing ---
+
+    /**
+     * Reads the statistics last written.
+     *
+     * @return the statistics, or null if no valid record was written yet
+     */
+    public ReviewStats read() {
+        byte[] record = new byte[RECORD_SIZE];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < RECORD_SIZE) {
+                int n = in.read(record, read, RECORD_SIZE - read);
+                if (n < 0) {
+                    return null;
+                }
+                read += n;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        ByteBuffer data = ByteBuffer.wrap(record);
+        if (data.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+        float averageRating = data.getFloat();
+        float bayesianAverage = data.getFloat();
+        float recentAverage = data.getFloat();
+        int reviewCount = data.getInt();
+        int[] ratingDistribution = new int[RATINGS];
+        int[] percentDistribution = new int[RATINGS];
+        for (int i = 0; i < RATINGS; i++) {
+            ratingDistribution[i] = data.getInt();
+        }
+        for (int i = 0; i < RATINGS; i++) {
+            percentDistribution[i] = data.getInt();
+        }
+        return new ReviewStats(averageRating, reviewCount, ratingDistribution, percentDistribution,
+                bayesianAverage, recentAverage);
+    }
+
+    /**
+     * Replaces the statistics of the file.
+     *
+     * @param stats the statistics to write
+     * @throws IOException if the file could not be written; the previous record is kept then
+     */
+    public void write(ReviewStats stats) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putInt(FORMAT_VERSION)
+                .putFloat(stats.getAverageRating())
+                .putFloat(stats.getBayesianAverage())
+                .putFloat(stats.getRecentAverage())
+                .putInt(stats.getReviewCount());
+        for (int i = 0; i < RATINGS; i++) {
+            record.putInt(stats.getRatingDistribution()[i]);
+        }
+        for (int i = 0; i < RATINGS; i++) {
+            record.putInt(stats.getPercentDistribution()[i]);
+        }
+
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temporary)) {
+            out.write(record.array());
+            out.getFD().sync();
+        }
+        if (!temporary.renameTo(file)) {
+            temporary.delete();
+            throw new IOException("could not replace " + file);
+        }
+    }
+}
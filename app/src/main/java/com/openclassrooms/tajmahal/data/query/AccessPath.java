@@ -0,0 +1,19 @@
+package com.openclassrooms.tajmahal.data.query;
+
+/**
+ * The ways a {@link ReviewQuery} can be answered, from the most to the least selective.
+ */
+public enum AccessPath {
+
+    /** Reads only the reviews of the requested author, then sorts that small set. */
+    AUTHOR_INDEX,
+
+    /** Reads only the rating buckets inside the requested range, already sorted by date. */
+    RATING_BUCKETS,
+
+    /** Walks the index of the requested sort order and stops once the page is full. */
+    SORTED_INDEX,
+
+    /** Reads every review, then sorts the matches. Used when no index is available. */
+    FULL_SCAN
+}
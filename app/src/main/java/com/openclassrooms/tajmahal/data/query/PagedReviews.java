@@ -0,0 +1,95 @@
+package com.openclassrooms.tajmahal.data.query;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The reviews matching a query, fetched one page at a time while they are iterated.
+ * <p>
+ * Only the current page is held, so iterating every review of a large store, for instance to
+ * export it, takes the memory of one page whatever the number of reviews. The limit of the
+ * query is the size of the pages, and the iteration starts at its offset. Pages are fetched by
+ * offset: a review added or deleted during the iteration shifts the following pages, so that a
+ * review may be read twice or skipped.
+ * </p>
+ */
+public class PagedReviews implements Iterable<Review> {
+
+    /**
+     * Answers the queries of the pages, typically
+     * {@link com.openclassrooms.tajmahal.data.service.RestaurantApi#queryReviews(ReviewQuery)}.
+     */
+    public interface Source {
+
+        /**
+         * Fetches one page of the matching reviews.
+         *
+         * @param query the query of the page
+         * @return the page
+         */
+        ReviewPage query(ReviewQuery query);
+    }
+
+    // --- Fields ---
+
+    private final Source source;
+    private final ReviewQuery query;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a new PagedReviews. No page is fetched before the iteration.
+     *
+     * @param source answers the queries of the pages
+     * @param query  the filters and order of the reviews, the size of the pages as its limit
+     */
+    public PagedReviews(Source source, ReviewQuery query) {
+        if (query.getLimit() == 0) {
+            throw new IllegalArgumentException("pages must not be empty");
+        }
+        this.source = source;
+        this.query = query;
+    }
+
+    // --- Iteration ---
+
+    /**
+     * Iterates the matching reviews in the order of the query, fetching the first page on the
+     * first call to {@code hasNext()}.
+     *
+     * @return a new iterator
+     */
+    @Override
+    public Iterator<Review> iterator() {
+        return new Iterator<Review>() {
+            private List<Review> page = Collections.emptyList();
+            private int index;
+            private int offset = query.getOffset();
+            private boolean more = true;
+
+            @Override
+            public boolean hasNext() {
+                while (index == page.size() && more) {
+                    ReviewPage next = source.query(new ReviewQuery.Builder(query).page(offset, query.getLimit()).build());
+                    page = next.getReviews();
+                    index = 0;
+                    offset += page.size();
+                    more = next.hasMore() && !page.isEmpty();
+                }
+                return index < page.size();
+            }
+
+            @Override
+            public Review next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(index++);
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package com.openclassrooms.tajmahal.data.query;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of the results of a {@link ReviewQuery}.
+ */
+public class ReviewPage {
+
+    // --- Fields ---
+
+    private final List<Review> reviews;
+    private final int offset;
+    private final boolean hasMore;
+    private final AccessPath accessPath;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a new ReviewPage.
+     *
+     * @param reviews    the reviews of the page, in the requested order
+     * @param offset     the position of the first review among all matching reviews
+     * @param hasMore    true if more matching reviews follow this page
+     * @param accessPath the access path used to answer the query
+     */
+    public ReviewPage(List<Review> reviews, int offset, boolean hasMore, AccessPath accessPath) {
+        this.reviews = Collections.unmodifiableList(reviews);
+        this.offset = offset;
+        this.hasMore = hasMore;
+        this.accessPath = accessPath;
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the reviews of the page.
+     *
+     * @return an unmodifiable list of reviews
+     */
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    /**
+     * Gets the position of the first review of the page among all matching reviews.
+     *
+     * @return the offset of the page
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Tells whether another page can be requested.
+     *
+     * @return true if more matching reviews follow this page
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Gets the access path the query was answered with, for diagnostics.
+     *
+     * @return the access path
+     */
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+}
@@ -0,0 +1,267 @@
+package com.openclassrooms.tajmahal.data.query;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+
+import java.util.Locale;
+
+/**
+ * Describes which reviews to fetch: filters, sort order and page.
+ * <p>
+ * Queries are immutable and created with a {@link Builder}:
+ * <pre>
+ * ReviewQuery query = new ReviewQuery.Builder()
+ *         .ratingBetween(4, 5)
+ *         .textContains("curry")
+ *         .sortBy(ReviewSortOrder.HIGHEST_RATING)
+ *         .page(0, 20)
+ *         .build();
+ * </pre>
+ * All filters are optional; an empty query returns the first page of reviews, newest first.
+ * </p>
+ */
+public class ReviewQuery {
+
+    /** Number of reviews returned when no limit is given. */
+    public static final int DEFAULT_LIMIT = 20;
+
+    // --- Fields ---
+
+    private final int minRating;
+    private final int maxRating;
+    private final String author;
+    private final String text;
+    private final ReviewSortOrder sortOrder;
+    private final int offset;
+    private final int limit;
+
+    // Lower-cased copy of the text filter, so that each match does not lower-case it again
+    private final String normalizedText;
+
+    // --- Constructor ---
+
+    private ReviewQuery(Builder builder) {
+        this.minRating = builder.minRating;
+        this.maxRating = builder.maxRating;
+        this.author = builder.author;
+        this.text = builder.text;
+        this.sortOrder = builder.sortOrder;
+        this.offset = builder.offset;
+        this.limit = builder.limit;
+        this.normalizedText = text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the lowest accepted rating.
+     *
+     * @return the minimum rating, 1 when the rating is not filtered
+     */
+    public int getMinRating() {
+        return minRating;
+    }
+
+    /**
+     * Gets the highest accepted rating.
+     *
+     * @return the maximum rating, 5 when the rating is not filtered
+     */
+    public int getMaxRating() {
+        return maxRating;
+    }
+
+    /**
+     * Gets the author filter.
+     *
+     * @return the author name, or null to accept every author
+     */
+    public String getAuthor() {
+        return author;
+    }
+
+    /**
+     * Gets the text the comment must contain.
+     *
+     * @return the text filter, or null to accept every comment
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the order of the results.
+     *
+     * @return the sort order
+     */
+    public ReviewSortOrder getSortOrder() {
+        return sortOrder;
+    }
+
+    /**
+     * Gets the number of matching reviews to skip.
+     *
+     * @return the offset of the page
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the maximum number of reviews to return.
+     *
+     * @return the size of the page
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    // --- Matching ---
+
+    /**
+     * Tells whether the rating range excludes some ratings.
+     *
+     * @return true if the query filters on the rating
+     */
+    public boolean hasRatingFilter() {
+        return minRating > 1 || maxRating < 5;
+    }
+
+    /**
+     * Tells whether the query filters on the comment text, which no index can answer.
+     *
+     * @return true if the query filters on the comment text
+     */
+    public boolean hasTextFilter() {
+        return normalizedText != null;
+    }
+
+    /**
+     * Tells whether a review matches every filter of the query.
+     *
+     * @param review the review to test
+     * @return true if the review matches
+     */
+    public boolean matches(Review review) {
+        if (hasRatingFilter() && (review.getRate() < minRating || review.getRate() > maxRating)) {
+            return false;
+        }
+        if (author != null && (review.getUsername() == null
+                || !review.getUsername().trim().equalsIgnoreCase(author.trim()))) {
+            return false;
+        }
+        return normalizedText == null || (review.getComment() != null
+                && review.getComment().toLowerCase(Locale.ROOT).contains(normalizedText));
+    }
+
+    // --- Builder ---
+
+    /**
+     * Builder of {@link ReviewQuery} instances.
+     */
+    public static class Builder {
+
+        private int minRating = 1;
+        private int maxRating = 5;
+        private String author;
+        private String text;
+        private ReviewSortOrder sortOrder = ReviewSortOrder.NEWEST;
+        private int offset = 0;
+        private int limit = DEFAULT_LIMIT;
+
+        /**
+         * Creates a builder for an unfiltered query.
+         */
+        public Builder() {
+        }
+
+        /**
+         * Creates a builder initialized with the parameters of an existing query.
+         *
+         * @param query the query to copy
+         */
+        public Builder(ReviewQuery query) {
+            this.minRating = query.minRating;
+            this.maxRating = query.maxRating;
+            this.author = query.author;
+            this.text = query.text;
+            this.sortOrder = query.sortOrder;
+            this.offset = query.offset;
+            this.limit = query.limit;
+        }
+
+        /**
+         * Keeps only the reviews rated between two values, inclusive.
+         *
+         * @param min the lowest accepted rating (1-5)
+         * @param max the highest accepted rating (1-5)
+         * @return this builder
+         */
+        public Builder ratingBetween(int min, int max) {
+            if (min < 1 || max > 5 || min > max) {
+                throw new IllegalArgumentException("invalid rating range: " + min + "-" + max);
+            }
+            this.minRating = min;
+            this.maxRating = max;
+            return this;
+        }
+
+        /**
+         * Keeps only the reviews of an author, ignoring case and surrounding spaces.
+         *
+         * @param author the author name, or null to accept every author
+         * @return this builder
+         */
+        public Builder author(String author) {
+            this.author = author;
+            return this;
+        }
+
+        /**
+         * Keeps only the reviews whose comment contains a text, ignoring case.
+         *
+         * @param text the text to look for, or null or empty to accept every comment
+         * @return this builder
+         */
+        public Builder textContains(String text) {
+            this.text = text == null || text.trim().isEmpty() ? null : text.trim();
+            return this;
+        }
+
+        /**
+         * Sets the order of the results.
+         *
+         * @param sortOrder the sort order
+         * @return this builder
+         */
+        public Builder sortBy(ReviewSortOrder sortOrder) {
+            this.sortOrder = sortOrder;
+            return this;
+        }
+
+        /**
+         * Sets the page to return.
+         *
+         * @param offset the number of matching reviews to skip
+         * @param limit  the maximum number of reviews to return
+         * @return this builder
+         */
+        public Builder page(int offset, int limit) {
+            if (offset < 0 || limit < 0) {
+                throw new IllegalArgumentException("invalid page: offset " + offset + ", limit " + limit);
+            }
+            this.offset = offset;
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Creates the query.
+         *
+         * @return a new immutable query
+         */
+        public ReviewQuery build() {
+            return new ReviewQuery(this);
+        }
+    }
+}
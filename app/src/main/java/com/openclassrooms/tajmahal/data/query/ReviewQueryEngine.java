@@ -0,0 +1,360 @@
+package com.openclassrooms.tajmahal.data.query;
+
+import com.openclassrooms.tajmahal.data.index.AuthorIndex;
+import com.openclassrooms.tajmahal.data.index.OrderStatisticTree;
+import com.openclassrooms.tajmahal.data.index.SortedReviewIndex;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory query engine answering {@link ReviewQuery}s from indexes.
+ * <p>
+ * The engine keeps three kinds of indexes up to date as reviews are added and removed:
+ * <ul>
+ *     <li>a {@link SortedReviewIndex}, ordering every review by date and by rating,</li>
+ *     <li>one rating bucket per star level, each ordered by date,</li>
+ *     <li>an {@link AuthorIndex}.</li>
+ * </ul>
+ * For each query, {@link #plan(ReviewQuery)} estimates how many reviews each {@link AccessPath}
+ * would have to read and picks the cheapest. {@link #execute(ReviewQuery)} then streams the
+ * candidates in the requested order, applies the remaining filters lazily and stops as soon as
+ * the page is full: a first page of 20 reviews never reads the whole list.
+ * </p>
+ * <p>
+ * This class is not thread-safe; its owner must synchronize access.
+ * </p>
+ */
+public class ReviewQueryEngine {
+
+    // --- Fields ---
+
+    private final SortedReviewIndex sortedIndex = new SortedReviewIndex();
+    private final AuthorIndex authorIndex = new AuthorIndex();
+    private final Map<Long, Review> reviewsById = new HashMap<>();
+    private final List<OrderStatisticTree<Review>> ratingBuckets = new ArrayList<>(5);
+
+    // --- Constructor ---
+
+    /**
+     * Constructs an empty engine.
+     */
+    public ReviewQueryEngine() {
+        for (int i = 0; i < 5; i++) {
+            ratingBuckets.add(new OrderStatisticTree<>(SortedReviewIndex.BY_DATE));
+        }
+    }
+
+    // --- Updates ---
+
+    /**
+     * Indexes a review.
+     *
+     * @param review the review to index, with its identifier already assigned
+     */
+    public void add(Review review) {
+        sortedIndex.add(review);
+        authorIndex.add(review);
+        reviewsById.put(review.getId(), review);
+        OrderStatisticTree<Review> bucket = bucketOf(review.getRate());
+        if (bucket != null) {
+            bucket.add(review);
+        }
+    }
+
+    /**
+     * Removes a review from every index.
+     * The review must still hold the values it was indexed with.
+     *
+     * @param review the review to remove
+     */
+    public void remove(Review review) {
+        sortedIndex.remove(review);
+        authorIndex.remove(review);
+        reviewsById.remove(review.getId());
+        OrderStatisticTree<Review> bucket = bucketOf(review.getRate());
+        if (bucket != null) {
+            bucket.remove(review);
+        }
+    }
+
+    /**
+     * Gets the number of indexed reviews.
+     *
+     * @return the review count
+     */
+    public int size() {
+        return sortedIndex.size();
+    }
+
+    // --- Planning ---
+
+    /**
+     * Picks the access path that should read the fewest reviews for a query.
+     *
+     * @param query the query to plan
+     * @return the cheapest access path
+     */
+    public AccessPath plan(ReviewQuery query) {
+        int total = size();
+        long wanted = (long) query.getOffset() + query.getLimit();
+
+        // Walking the sorted index stops once enough matches are found. Without statistics
+        // on the text, assume matches are spread evenly over the index.
+        long bucketSize = bucketSize(query.getMinRating(), query.getMaxRating());
+        long scanCost;
+        if (query.getAuthor() != null || query.hasTextFilter()) {
+            scanCost = total;
+        } else if (query.hasRatingFilter()) {
+            scanCost = bucketSize == 0 ? total : Math.min(total, wanted * total / bucketSize);
+        } else {
+            scanCost = Math.min(total, wanted);
+        }
+        AccessPath best = AccessPath.SORTED_INDEX;
+        long bestCost = scanCost;
+
+        if (query.hasRatingFilter()) {
+            long bucketCost;
+            if (query.getAuthor() != null || query.hasTextFilter()) {
+                bucketCost = bucketSize;
+            } else if (isRatingOrder(query.getSortOrder())) {
+                // Buckets are read one after the other, whole buckets are skipped
+                bucketCost = Math.min(bucketSize, query.getLimit());
+            } else {
+                // Buckets are merged by date, the offset must be read
+                bucketCost = Math.min(bucketSize, wanted);
+            }
+            if (bucketCost < bestCost) {
+                best = AccessPath.RATING_BUCKETS;
+                bestCost = bucketCost;
+            }
+        }
+
+        if (query.getAuthor() != null) {
+            long authorSize = authorIndex.getReviewIds(query.getAuthor()).size();
+            // Reading the author's reviews, plus sorting them
+            long authorCost = authorSize + authorSize * (64 - Long.numberOfLeadingZeros(authorSize));
+            if (authorCost < bestCost) {
+                best = AccessPath.AUTHOR_INDEX;
+            }
+        }
+        return best;
+    }
+
+    // --- Execution ---
+
+    /**
+     * Runs a query and returns the requested page.
+     *
+     * @param query the query to run
+     * @return the matching reviews of the requested page, in the requested order
+     */
+    public ReviewPage execute(ReviewQuery query) {
+        AccessPath path = plan(query);
+        boolean exact = query.getAuthor() == null && !query.hasTextFilter();
+        int toSkip = query.getOffset();
+        Iterator<Review> candidates;
+
+        switch (path) {
+            case AUTHOR_INDEX:
+                candidates = authorCandidates(query);
+                break;
+            case RATING_BUCKETS:
+                if (exact && isRatingOrder(query.getSortOrder())) {
+                    candidates = bucketChain(query);
+                    toSkip = 0;
+                } else {
+                    candidates = bucketMerge(query);
+                }
+                break;
+            case SORTED_INDEX:
+            default:
+                if (exact && !query.hasRatingFilter()) {
+                    // Every review matches: jump straight to the offset
+                    candidates = query.getOffset() < size()
+                            ? sortedIndex.iterator(query.getSortOrder(), query.getOffset())
+                            : Collections.<Review>emptyIterator();
+                    toSkip = 0;
+                } else {
+                    candidates = sortedIndex.iterator(query.getSortOrder(), 0);
+                }
+                break;
+        }
+        return collectPage(query, candidates, toSkip, path);
+    }
+
+    /**
+     * Applies the filters to the candidates, skips the offset and fills the page.
+     *
+     * @param query      the query being answered
+     * @param candidates the candidate reviews, in the requested order
+     * @param toSkip     the number of matches still to skip before the page
+     * @param path       the access path that produced the candidates
+     * @return the page
+     */
+    static ReviewPage collectPage(ReviewQuery query, Iterator<Review> candidates, int toSkip, AccessPath path) {
+        List<Review> page = new ArrayList<>(Math.min(query.getLimit(), 256));
+        boolean hasMore = false;
+        while (candidates.hasNext()) {
+            Review review = candidates.next();
+            if (!query.matches(review)) continue;
+            if (toSkip > 0) {
+                toSkip--;
+            } else if (page.size() < query.getLimit()) {
+                page.add(review);
+            } else {
+                hasMore = true;
+                break;
+            }
+        }
+        return new ReviewPage(page, query.getOffset(), hasMore, path);
+    }
+
+    private Iterator<Review> authorCandidates(ReviewQuery query) {
+        List<Review> reviews = new ArrayList<>();
+        for (Long id : authorIndex.getReviewIds(query.getAuthor())) {
+            reviews.add(reviewsById.get(id));
+        }
+        Collections.sort(reviews, SortedReviewIndex.comparator(query.getSortOrder()));
+        return reviews.iterator();
+    }
+
+    /**
+     * Reads the buckets of the rating range one after the other, which lists the reviews by
+     * rating. The offset is skipped bucket by bucket, then inside the first useful bucket.
+     */
+    private Iterator<Review> bucketChain(ReviewQuery query) {
+        boolean descending = SortedReviewIndex.isDescending(query.getSortOrder());
+        List<Iterator<Review>> iterators = new ArrayList<>();
+        int toSkip = query.getOffset();
+        for (int i = 0; i <= query.getMaxRating() - query.getMinRating(); i++) {
+            int rating = descending ? query.getMaxRating() - i : query.getMinRating() + i;
+            OrderStatisticTree<Review> bucket = bucketOf(rating);
+            if (toSkip >= bucket.size()) {
+                toSkip -= bucket.size();
+                continue;
+            }
+            iterators.add(bucket.iterator(toSkip, descending));
+            toSkip = 0;
+        }
+        return new ChainedIterator(iterators);
+    }
+
+    /**
+     * Merges the buckets of the rating range by date.
+     */
+    private Iterator<Review> bucketMerge(ReviewQuery query) {
+        ReviewSortOrder order = query.getSortOrder();
+        if (isRatingOrder(order)) {
+            return bucketChain(new ReviewQuery.Builder(query).page(0, query.getLimit()).build());
+        }
+        boolean descending = SortedReviewIndex.isDescending(order);
+        List<Iterator<Review>> iterators = new ArrayList<>();
+        for (int rating = query.getMinRating(); rating <= query.getMaxRating(); rating++) {
+            iterators.add(bucketOf(rating).iterator(0, descending));
+        }
+        return new MergingIterator(iterators, SortedReviewIndex.comparator(order));
+    }
+
+    private long bucketSize(int minRating, int maxRating) {
+        long size = 0;
+        for (int rating = minRating; rating <= maxRating; rating++) {
+            size += bucketOf(rating).size();
+        }
+        return size;
+    }
+
+    private OrderStatisticTree<Review> bucketOf(int rating) {
+        return rating >= 1 && rating <= 5 ? ratingBuckets.get(rating - 1) : null;
+    }
+
+    private static boolean isRatingOrder(ReviewSortOrder order) {
+        return order == ReviewSortOrder.HIGHEST_RATING || order == ReviewSortOrder.LOWEST_RATING;
+    }
+
+    // --- Iterators ---
+
+    /**
+     * Iterates over several iterators one after the other.
+     */
+    private static final class ChainedIterator implements Iterator<Review> {
+
+        private final Iterator<Iterator<Review>> iterators;
+        private Iterator<Review> current = Collections.emptyIterator();
+
+        ChainedIterator(List<Iterator<Review>> iterators) {
+            this.iterators = iterators.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && iterators.hasNext()) {
+                current = iterators.next();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Review next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+    }
+
+    /**
+     * Merges several sorted iterators into one, with a heap of their next elements.
+     */
+    private static final class MergingIterator implements Iterator<Review> {
+
+        private final PriorityQueue<Head> heads;
+
+        MergingIterator(List<Iterator<Review>> iterators, final Comparator<Review> comparator) {
+            heads = new PriorityQueue<>(Math.max(1, iterators.size()), new Comparator<Head>() {
+                @Override
+                public int compare(Head a, Head b) {
+                    return comparator.compare(a.review, b.review);
+                }
+            });
+            for (Iterator<Review> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Review next() {
+            Head head = heads.poll();
+            if (head == null) throw new NoSuchElementException();
+            Review review = head.review;
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest));
+            }
+            return review;
+        }
+
+        private static final class Head {
+            final Review review;
+            final Iterator<Review> rest;
+
+            Head(Review review, Iterator<Review> rest) {
+                this.review = review;
+                this.rest = rest;
+            }
+        }
+    }
+}
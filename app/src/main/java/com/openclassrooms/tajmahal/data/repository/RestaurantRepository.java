@@ -3,14 +3,60 @@ package com.openclassrooms.tajmahal.data.repository;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 
+import com.openclassrooms.tajmahal.BuildConfig;
+import com.openclassrooms.tajmahal.data.cache.RefreshingCache;
+import com.openclassrooms.tajmahal.data.cache.SelectorCache;
+import com.openclassrooms.tajmahal.data.cache.TieredReviewCache;
+import com.openclassrooms.tajmahal.data.index.AuthorIndex;
+import com.openclassrooms.tajmahal.data.index.BloomFilter;
+import com.openclassrooms.tajmahal.data.index.DailyRollups;
+import com.openclassrooms.tajmahal.data.io.ReviewExporter;
+import com.openclassrooms.tajmahal.data.io.ReviewFormat;
+import com.openclassrooms.tajmahal.data.io.ReviewImporter;
+import com.openclassrooms.tajmahal.data.io.ReviewSpillFile;
+import com.openclassrooms.tajmahal.data.index.SortedReviewIndex;
+import com.openclassrooms.tajmahal.data.query.PagedReviews;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.scheduler.PrioritizedExecutor;
+import com.openclassrooms.tajmahal.data.scheduler.TaskPriority;
 import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.stream.BackpressureStrategy;
+import com.openclassrooms.tajmahal.data.stream.DataStream;
+import com.openclassrooms.tajmahal.data.stream.StreamSource;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.di.ComputeExecutor;
+import com.openclassrooms.tajmahal.di.IoExecutor;
+import com.openclassrooms.tajmahal.domain.model.RatingCounters;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.RestaurantSnapshot;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewFailure;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.model.ReviewStatsAccumulator;
+import com.openclassrooms.tajmahal.domain.model.ReviewSyncState;
+import com.openclassrooms.tajmahal.domain.ranking.RankedRestaurant;
+import com.openclassrooms.tajmahal.domain.ranking.RestaurantRanking;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -22,6 +68,32 @@ import javax.inject.Singleton;
  * <p>
  * Typically in an Android app built with architecture components, the repository will handle
  * the logic for deciding whether to fetch data from a network source or use data from a local cache.
+ * <p>
+ * Here, the restaurant details and the reviews are each kept in a {@link RefreshingCache} with
+ * its own time-to-live. Screens always render at once from the cache; when they call
+ * {@link #refreshIfStale()} and a resource is older than its time-to-live, it is reloaded in
+ * the background and observers are notified when the new data arrives. Concurrent refresh
+ * requests share a single load.
+ * </p>
+ * <p>
+ * Every resource is published as a {@link DataStream}, which can be consumed from any thread
+ * with an explicit backpressure strategy, and bridged to a {@link LiveData} for the fragments.
+ * </p>
+ * <p>
+ * Values derived from the reviews are read through {@link #select(Function)}: they are computed
+ * once per published review list and shared by every ViewModel, so that a second screen or a
+ * recreated one reads them at no cost.
+ * </p>
+ * <p>
+ * Reviews are refreshed incrementally with {@link RestaurantApi#getReviewsSince(long)}: after
+ * the first snapshot, each refresh transfers only the reviews added, edited or deleted since
+ * the previous one, and applies them to the indexes and the statistics in one batch.
+ * </p>
+ * <p>
+ * The base reviews of a snapshot, too many to mirror, are counted in the statistics but neither
+ * copied nor indexed: they are listed through {@link #queryReviews(ReviewQuery)} only, and the
+ * rank and author lookups cover the other reviews.
+ * </p>
  *
  * @see Restaurant
  * @see Review
@@ -30,28 +102,215 @@ import javax.inject.Singleton;
 @Singleton
 public class RestaurantRepository {
 
+    private static final String TAG = "RestaurantRepository";
+
+    // Restaurant details rarely change, reviews are posted all day long.
+    static final long RESTAURANT_TTL_MILLIS = 60 * 60 * 1000L;
+    static final long REVIEWS_TTL_MILLIS = 60 * 1000L;
+
+    // Heap budget of the reviews of each scrolled list, whatever its length: 512 KB by default,
+    // about 2000 short reviews. Set with -PreviewCacheHeapKb=N.
+    static final long REVIEW_CACHE_HEAP_BYTES = BuildConfig.REVIEW_CACHE_HEAP_KB * 1024L;
+
+    // Number of reviews queried from the API at once by an export.
+    static final int EXPORT_PAGE_SIZE = 500;
+
+    // Room left in the filter of known identifiers for the reviews synced until the next rebuild.
+    private static final int MIN_BLOOM_FILTER_SIZE = 1024;
+
     // The API interface instance that will be used for network requests related to restaurant data.
     private final RestaurantApi restaurantApi;
 
-    // --- LiveData ---
+    // Cross-venue ranking fed with the statistics of this restaurant.
+    private final RestaurantRanking restaurantRanking;
+
+    // Runs the API calls: refreshes and review persistence.
+    private final Executor ioExecutor;
+
+    // Runs the index rebuilds, the ranking and the statistics of refreshed reviews.
+    private final PrioritizedExecutor computeExecutor;
+
+    // Version of the published restaurant details, incremented only when they change.
+    private long restaurantVersion;
+
+    // Set while an index rebuild is queued, so that successive refreshes share it.
+    private boolean indexRebuildPending;
+
+    // Cursor of the last review sync applied, passed to the next one.
+    private long reviewCursor = ReviewDelta.NO_CURSOR;
+
+    // Snapshot returned by the last sync, with its cursor, until it is applied.
+    private List<Review> pendingSnapshot;
+    private List<Review> pendingSnapshotBase = Collections.emptyList();
+    private long pendingSnapshotCursor;
+
+    // Base reviews of the applied snapshot, counted in the statistics but not mirrored.
+    private List<Review> baseReviews = Collections.emptyList();
+
+    // List built by the last delta sync, already published when the cache reports it.
+    private List<Review> lastSyncedReviews;
+
+    // Stale-while-revalidate caches of the API resources.
+    private final RefreshingCache<Restaurant> restaurantCache;
+    private final RefreshingCache<List<Review>> reviewsCache;
 
-    private final MutableLiveData<Restaurant> restaurantLiveData = new MutableLiveData<>();
-    private final MutableLiveData<List<Review>> reviewsLiveData = new MutableLiveData<>();
+    // Running aggregate of the ratings, updated in O(1) per new review. Its Bayesian average
+    // uses the prior of the ranking, so that both agree on the score of the restaurant.
+    private final ReviewStatsAccumulator statsAccumulator;
+
+    // Ratings of the reviews written on this device, mergeable with the counters of the other
+    // devices of the venue. Unlike the accumulator, they only count the local writes. The device
+    // identifier is drawn per process, so that no count is ever recorded twice under one device.
+    private final RatingCounters ratingCounters = new RatingCounters(UUID.randomUUID().toString());
+
+    // Per-day rollups of the ratings, updated with the statistics, for date-range queries.
+    private DailyRollups dailyRollups = new DailyRollups(TimeZone.getDefault());
+
+    // Reviews kept sorted in every display order, updated in O(log n) per new review.
+    private final SortedReviewIndex sortedReviews = new SortedReviewIndex();
+
+    // Reviews by identifier, and review identifiers by author, for O(1) lookups.
+    private final Map<Long, Review> reviewsById = new HashMap<>();
+    private final AuthorIndex authorIndex = new AuthorIndex();
+
+    // Identifiers seen since the last rebuild, telling most new reviews of a sync without a lookup.
+    private BloomFilter knownReviewIds = new BloomFilter(MIN_BLOOM_FILTER_SIZE);
+
+    // Reviews shown before the API confirmed them, newest first, with temporary negative ids.
+    private final List<Review> pendingReviews = new ArrayList<>();
+    private long nextPendingId = -1;
+
+    // --- Streams ---
+
+    private final StreamSource<Restaurant> restaurantSource = new StreamSource<>();
+    private final StreamSource<RestaurantSnapshot> restaurantSnapshotSource = new StreamSource<>();
+    private final StreamSource<List<Review>> reviewsSource = new StreamSource<>();
+    private final StreamSource<ReviewStats> reviewStatsSource = new StreamSource<>();
+    private final StreamSource<List<RankedRestaurant>> leaderboardSource = new StreamSource<>();
+    private final StreamSource<ReviewFailure> failedReviewsSource = new StreamSource<>();
+
+    // Values derived from the published reviews, memoized per published list.
+    private final SelectorCache<List<Review>> reviewSelectors = new SelectorCache<>();
+    private final Map<Function<List<Review>, ?>, LiveData<?>> selectedLiveData = new HashMap<>();
+    // Selectors of the reviews of each author, one reused instance per author.
+    private final Map<String, Function<List<Review>, List<Review>>> authorSelectors = new HashMap<>();
+
+    // --- LiveData bridges for the fragments ---
+
+    private final LiveData<Restaurant> restaurantLiveData = restaurantSource.toLiveData();
+    private final LiveData<RestaurantSnapshot> restaurantSnapshotLiveData = restaurantSnapshotSource.toLiveData();
+    private final LiveData<List<Review>> reviewsLiveData = reviewsSource.toLiveData();
+    private final LiveData<ReviewStats> reviewStatsLiveData = reviewStatsSource.distinctUntilChanged().toLiveData();
+    private final LiveData<List<RankedRestaurant>> leaderboardLiveData = leaderboardSource.toLiveData();
+    private final LiveData<ReviewFailure> failedReviewsLiveData = failedReviewsSource.toLiveData();
 
 
     // --- Constructors ---
 
     /**
      * Constructs a new instance of {@link RestaurantRepository} with the given {@link RestaurantApi}.
+     * <p>
+     * The caches are filled on the I/O executor, like the later refreshes, and the streams
+     * publish their content once loaded. Derived data is computed on the compute
+     * executor: the statistics of refreshed reviews, displayed by the visible screen, are
+     * {@link TaskPriority#UI_CRITICAL}; the index rebuilds and the cross-venue ranking are
+     * {@link TaskPriority#BACKGROUND}. The ranking is conflated to the latest statistics, so
+     * that a burst of new reviews triggers a single leaderboard update.
+     * </p>
      *
-     * @param restaurantApi The network API interface for fetching restaurant data.
+     * @param restaurantApi     The network API interface for fetching restaurant data.
+     * @param restaurantRanking The cross-venue ranking to keep up to date with this restaurant.
+     * @param ioExecutor        The executor running the API calls of the initial load and the refreshes.
+     * @param computeExecutor   The executor computing the derived data.
      */
     @Inject
-    public RestaurantRepository(RestaurantApi restaurantApi) {
+    public RestaurantRepository(RestaurantApi restaurantApi, RestaurantRanking restaurantRanking,
+                                @IoExecutor Executor ioExecutor,
+                                @ComputeExecutor PrioritizedExecutor computeExecutor) {
         this.restaurantApi = restaurantApi;
-        // initialize the LiveData when the repository is created
-        restaurantLiveData.setValue(restaurantApi.getRestaurant());
-        reviewsLiveData.setValue(restaurantApi.getReviews());
+        this.restaurantRanking = restaurantRanking;
+        this.ioExecutor = ioExecutor;
+        this.statsAccumulator = new ReviewStatsAccumulator(restaurantRanking.getPrior(),
+                ReviewStatsAccumulator.DEFAULT_HALF_LIFE_MILLIS);
+        this.computeExecutor = computeExecutor;
+        this.restaurantCache = new RefreshingCache<>(RESTAURANT_TTL_MILLIS, restaurantApi::getRestaurant, ioExecutor);
+        this.reviewsCache = new RefreshingCache<>(REVIEWS_TTL_MILLIS, this::syncReviews, ioExecutor);
+
+        // Update the ranking in the background, from the latest details and statistics only
+        Executor rankingExecutor = computeExecutor.withPriority(TaskPriority.BACKGROUND);
+        restaurantSource.observeOn(rankingExecutor, BackpressureStrategy.CONFLATE)
+                .subscribe(restaurant -> updateRanking());
+        reviewStatsSource.observeOn(rankingExecutor, BackpressureStrategy.CONFLATE)
+                .subscribe(stats -> updateRanking());
+
+        restaurantCache.setListener(new RefreshingCache.Listener<Restaurant>() {
+            @Override
+            public void onRefreshed(Restaurant restaurant) {
+                applyRestaurant(restaurant);
+            }
+
+            @Override
+            public void onRefreshFailed(Exception error) {
+                Log.w(TAG, "Restaurant refresh failed, keeping cached details", error);
+            }
+        });
+        reviewsCache.setListener(new RefreshingCache.Listener<List<Review>>() {
+            @Override
+            public void onRefreshed(List<Review> reviews) {
+                onReviewsRefreshed(reviews);
+            }
+
+            @Override
+            public void onRefreshFailed(Exception error) {
+                Log.w(TAG, "Reviews refresh failed, keeping cached reviews", error);
+            }
+        });
+
+        // Hilt creates the repository on the main thread: fill the caches in the background
+        ioExecutor.execute(this::loadInitialData);
+    }
+
+    /**
+     * Fills the empty caches and publishes their content, on the I/O executor. If a load fails,
+     * its cache stays stale, and the next {@link #refreshIfStale()} of a screen loads it again.
+     */
+    private void loadInitialData() {
+        try {
+            applyRestaurant(restaurantCache.load());
+        } catch (Exception e) {
+            Log.e(TAG, "Initial restaurant load failed, waiting for the next refresh", e);
+        }
+        try {
+            reviewsCache.load();
+            synchronized (this) {
+                if (pendingSnapshot != null) {
+                    applyPendingSnapshot();
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Initial reviews load failed, waiting for the next refresh", e);
+        }
+    }
+
+    // --- Cache control ---
+
+    /**
+     * Reloads in the background the resources older than their time-to-live.
+     * Observers keep the cached data until the new data arrives. Cheap to call on
+     * every screen display: fresh resources are not reloaded, and a resource already
+     * being reloaded is not reloaded twice.
+     */
+    public void refreshIfStale() {
+        restaurantCache.refreshIfStale();
+        reviewsCache.refreshIfStale();
+    }
+
+    /**
+     * Reloads every resource in the background, whatever its age.
+     */
+    public void refresh() {
+        restaurantCache.refresh();
+        reviewsCache.refresh();
     }
 
     // --- Data access methods ---
@@ -69,6 +328,16 @@ public class RestaurantRepository {
         return restaurantLiveData;
     }
 
+    /**
+     * Retrieves the restaurant details stamped with their version, for screens rebinding
+     * only the attributes that changed.
+     *
+     * @return LiveData holding the versioned restaurant details
+     */
+    public LiveData<RestaurantSnapshot> getRestaurantSnapshot() {
+        return restaurantSnapshotLiveData;
+    }
+
     /**
      * Retrieves the list of user reviews.
      *
@@ -78,17 +347,935 @@ public class RestaurantRepository {
         return reviewsLiveData;
     }
 
+    /**
+     * Streams the restaurant details, starting with the cached ones.
+     *
+     * @return the stream of restaurant details
+     */
+    public DataStream<Restaurant> getRestaurantStream() {
+        return restaurantSource;
+    }
+
+    /**
+     * Streams the reviews, starting with the cached ones.
+     *
+     * @return the stream of review lists
+     */
+    public DataStream<List<Review>> getReviewStream() {
+        return reviewsSource;
+    }
+
+    /**
+     * Streams the aggregated statistics of the reviews, starting with the current ones.
+     *
+     * @return the stream of review statistics
+     */
+    public DataStream<ReviewStats> getReviewStatsStream() {
+        return reviewStatsSource;
+    }
+
+    /**
+     * Retrieves a value derived from the reviews, shared by every caller.
+     * <p>
+     * The selector runs at most once per published review list, whatever the number of
+     * ViewModels observing it, and the same LiveData is returned for the same selector, so a
+     * screen recreated after a rotation gets the current value at once without recomputing it.
+     * Selectors must therefore be reused instances, such as the one of
+     * {@link #selectReviewsByAuthor(String)}.
+     * </p>
+     * <p>
+     * Selectors run on the compute executor, conflated to the latest list, and never on the
+     * thread publishing the reviews, which holds the lock of the repository and may be the
+     * main thread.
+     * </p>
+     *
+     * @param selector the function deriving the value from the published reviews
+     * @param <T>      the type of the derived value
+     * @return LiveData containing the derived value
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> LiveData<T> select(final Function<List<Review>, T> selector) {
+        LiveData<T> liveData = (LiveData<T>) selectedLiveData.get(selector);
+        if (liveData == null) {
+            liveData = reviewsSource
+                    .observeOn(computeExecutor.withPriority(TaskPriority.UI_CRITICAL), BackpressureStrategy.CONFLATE)
+                    .map(reviews -> reviewSelectors.select(selector))
+                    .distinctUntilChanged()
+                    .toLiveData();
+            selectedLiveData.put(selector, liveData);
+        }
+        return liveData;
+    }
+
+    /**
+     * Retrieves the reviews written by a user, shared by every caller like the other
+     * {@link #select(Function) selections}.
+     * <p>
+     * Looked up in the author index, in proportion to the reviews of the user rather than to
+     * the whole list.
+     * </p>
+     *
+     * @param username the name of the user
+     * @return LiveData containing the reviews of that user, newest first
+     */
+    public synchronized LiveData<List<Review>> selectReviewsByAuthor(final String username) {
+        Function<List<Review>, List<Review>> selector = authorSelectors.get(username);
+        if (selector == null) {
+            // The index follows the published reviews: the list itself is not scanned
+            selector = reviews -> Collections.unmodifiableList(getReviewsByAuthor(username));
+            authorSelectors.put(username, selector);
+        }
+        return select(selector);
+    }
+
+    /**
+     * Fetches one page of the reviews matching a query.
+     * <p>
+     * The query is answered by the API, which picks the cheapest index for it, so
+     * filtering and paging never pull the full list into the UI layer. Pending reviews,
+     * unknown to the API, are merged into the page at their place in the requested order.
+     * </p>
+     *
+     * @param query the filters, sort order and page to fetch
+     * @return the requested page of matching reviews
+     */
+    public ReviewPage queryReviews(ReviewQuery query) {
+        List<Review> pending = new ArrayList<>();
+        synchronized (this) {
+            for (Review review : pendingReviews) {
+                if (query.matches(review)) {
+                    pending.add(review);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return restaurantApi.queryReviews(query);
+        }
+
+        // Few reviews are pending at once: read the API results up to the end of the page,
+        // merge the pending ones in, then cut the page
+        int end = query.getOffset() + query.getLimit();
+        ReviewPage stored = restaurantApi.queryReviews(new ReviewQuery.Builder(query).page(0, end).build());
+        Comparator<Review> comparator = SortedReviewIndex.comparator(query.getSortOrder());
+        Collections.sort(pending, comparator);
+        List<Review> merged = new ArrayList<>(stored.getReviews().size() + pending.size());
+        int i = 0;
+        for (Review review : stored.getReviews()) {
+            while (i < pending.size() && comparator.compare(pending.get(i), review) < 0) {
+                merged.add(pending.get(i++));
+            }
+            merged.add(review);
+        }
+        if (!stored.hasMore()) {
+            merged.addAll(pending.subList(i, pending.size()));
+        }
+        int from = Math.min(query.getOffset(), merged.size());
+        int to = Math.min(end, merged.size());
+        return new ReviewPage(new ArrayList<>(merged.subList(from, to)), query.getOffset(),
+                stored.hasMore() || merged.size() > end, stored.getAccessPath());
+    }
+
+    /**
+     * Creates the cache of a review list scrolled page by page, which keeps the reviews around
+     * the visible rows on the heap, within {@link #REVIEW_CACHE_HEAP_BYTES}, and evicts the
+     * other pages to a spill file in the cache directory of the app.
+     * <p>
+     * The caller owns the cache, and must close it to delete its spill file.
+     * </p>
+     *
+     * @param source the source of the pages, typically {@link #queryReviews(ReviewQuery)}
+     * @return the cache, empty
+     */
+    public TieredReviewCache createReviewCache(TieredReviewCache.PageSource source) {
+        ReviewSpillFile spillFile = null;
+        try {
+            spillFile = ReviewSpillFile.createTemporary();
+        } catch (IOException e) {
+            Log.w(TAG, "No spill file, evicted reviews will be queried again", e);
+        }
+        return new TieredReviewCache(source, spillFile, REVIEW_CACHE_HEAP_BYTES);
+    }
+
+    /**
+     * Returns the position of a review in the given order, for example to tell
+     * users where their review ranks.
+     *
+     * @param review the review to look for
+     * @param order  the display order
+     * @return the 1-based position of the review, or 0 if it is unknown
+     */
+    public synchronized int getReviewRank(Review review, ReviewSortOrder order) {
+        return sortedReviews.indexOf(order, review) + 1;
+    }
+
+    /**
+     * Tells whether the given user has already reviewed the restaurant.
+     * <p>
+     * Answered in O(1) from the author index, without scanning the reviews.
+     * </p>
+     *
+     * @param username the name of the user
+     * @return true if at least one review was written by that user
+     */
+    public synchronized boolean hasReviewed(String username) {
+        return authorIndex.contains(username);
+    }
+
+    /**
+     * Lists the reviews written by the given user, pending ones included.
+     * <p>
+     * Answered from the author index, in O(k log k) for the k reviews of the user.
+     * </p>
+     *
+     * @param username the name of the user
+     * @return a new list of the reviews of that user, newest first, empty if there is none
+     */
+    public synchronized List<Review> getReviewsByAuthor(String username) {
+        List<Review> reviews = new ArrayList<>();
+        for (Long id : authorIndex.getReviewIds(username)) {
+            Review review = reviewsById.get(id);
+            if (review != null) {
+                reviews.add(review);
+            }
+        }
+        Collections.sort(reviews, SortedReviewIndex.comparator(ReviewSortOrder.NEWEST));
+        return reviews;
+    }
+
+    /**
+     * Retrieves the aggregated statistics of the reviews.
+     * <p>
+     * The statistics are maintained incrementally as reviews are added, so observers
+     * never pay for a full scan of the review list.
+     * </p>
+     *
+     * @return LiveData containing the review statistics
+     */
+    public LiveData<ReviewStats> getReviewStats() {
+        return reviewStatsLiveData;
+    }
+
+    /**
+     * Computes the statistics of the reviews posted in a range of dates, such as the last
+     * 30 days of a rating trend.
+     * <p>
+     * Answered in O(days) from the daily rollups, maintained as reviews are added, edited and
+     * deleted, without scanning the reviews.
+     * </p>
+     *
+     * @param fromTime the start of the range, in milliseconds since the epoch
+     * @param toTime   the end of the range, inclusive
+     * @return the statistics of the reviews of the range
+     */
+    public synchronized ReviewStats getReviewStats(long fromTime, long toTime) {
+        return dailyRollups.getStats(fromTime, toTime, restaurantRanking.getPrior(),
+                ReviewStatsAccumulator.DEFAULT_HALF_LIFE_MILLIS);
+    }
+
+    /**
+     * Lists the per-day rollups of the reviews posted in a range of dates, for trend charts.
+     *
+     * @param fromTime the start of the range, in milliseconds since the epoch
+     * @param toTime   the end of the range, inclusive
+     * @return the rollups of the days with reviews, oldest first
+     */
+    public synchronized List<DailyRollups.Day> getDailyRollups(long fromTime, long toTime) {
+        return dailyRollups.getDays(fromTime, toTime);
+    }
+
+    /**
+     * Recomputes the daily rollups from the published and base reviews, and replaces the maintained ones
+     * if they drifted. Scans every review: must not be called on the main thread, and is meant
+     * for the nightly verification.
+     *
+     * @return a copy of the verified rollups
+     */
+    public DailyRollups verifyDailyRollups() {
+        List<Review> reviews;
+        List<Review> base;
+        synchronized (this) {
+            reviews = reviewsSource.getValue();
+            base = baseReviews;
+        }
+        DailyRollups recomputed = DailyRollups.of(dailyRollups.getTimeZone(),
+                reviews == null ? Collections.<Review>emptyList() : reviews);
+        recomputed.addAll(base);
+        synchronized (this) {
+            // Reviews published in the meantime are already in the maintained rollups
+            if (reviews == reviewsSource.getValue() && base == baseReviews && !recomputed.equals(dailyRollups)) {
+                Log.w(TAG, "Daily rollups drifted from the reviews, replacing them");
+                dailyRollups = recomputed;
+            }
+            return dailyRollups.copy();
+        }
+    }
+
+    /**
+     * Encodes the rating counters of this device, with the ones merged from the other devices,
+     * to send them to the other devices of the venue.
+     *
+     * @return the encoded counters, a few hundred bytes
+     */
+    public synchronized byte[] getRatingCounters() {
+        return ratingCounters.toBytes();
+    }
+
+    /**
+     * Merges the rating counters received from another device. Merging the same counters
+     * again, or in another order, gives the same result.
+     *
+     * @param encoded the counters encoded by {@link #getRatingCounters()} on the other device
+     * @throws IllegalArgumentException if the bytes are not valid counters
+     */
+    public synchronized void mergeRatingCounters(byte[] encoded) {
+        ratingCounters.merge(RatingCounters.fromBytes(encoded));
+    }
+
+    /**
+     * Derives the statistics of the reviews written on this device and on the devices whose
+     * counters were merged, each review counted once.
+     *
+     * @return the merged statistics
+     */
+    public synchronized ReviewStats getMergedRatingStats() {
+        return ratingCounters.toStats(restaurantRanking.getPrior());
+    }
+
+    /**
+     * Retrieves the reviews that could not be stored and were removed again, and the edits
+     * and deletions that the API refused, each with the operation that failed.
+     *
+     * @return LiveData containing the last failure to store a review
+     */
+    public LiveData<ReviewFailure> getFailedReviews() {
+        return failedReviewsLiveData;
+    }
+
+    /**
+     * Retrieves the best rated venues, ranked by their Bayesian-smoothed rating.
+     *
+     * @return LiveData containing the leaderboard, best venue first
+     */
+    public LiveData<List<RankedRestaurant>> getLeaderboard() {
+        return leaderboardLiveData;
+    }
+
     // --- Data modification methods ---
 
     /**
-     * Adds a new review to the list and notifies all observers.
-     * Creates a new list instance to trigger LiveData update.
+     * Adds a new review optimistically and stores it in the background.
+     * <p>
+     * The review is marked {@link ReviewSyncState#PENDING}, given a temporary negative id, and
+     * published at once with the updated statistics, so this method returns without waiting
+     * for the API. The API stores a copy of it on the I/O executor: on success the copy, with
+     * its final id, replaces the pending review; on failure the pending review is removed from
+     * the list, the indexes and the statistics, and published through {@link #getFailedReviews()}.
+     * </p>
      *
      * @param review the review to add
      */
-    public void addReview(Review review) {
-        restaurantApi.addReview(review);
-        // Create new list to notify all observers
-        reviewsLiveData.setValue(new ArrayList<>(restaurantApi.getReviews()));
+    public void addReview(final Review review) {
+        synchronized (this) {
+            review.setId(nextPendingId--);
+            review.setSyncState(ReviewSyncState.PENDING);
+            pendingReviews.add(0, review);
+            sortedReviews.add(review);
+            indexReview(review);
+            statsAccumulator.add(review);
+            dailyRollups.add(review);
+            publishOptimisticState();
+        }
+
+        final Review stored = new Review(0, review.getUsername(), review.getPicture(),
+                review.getComment(), review.getRate(), review.getCreatedAt());
+        ioExecutor.execute(() -> {
+            try {
+                restaurantApi.addReview(stored);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not store review, rolling back", e);
+                rollBack(review);
+                return;
+            }
+            confirm(review, stored);
+        });
+    }
+
+    /**
+     * Stores a batch of reviews, typically read from a dump, and publishes them at once.
+     * <p>
+     * Unlike {@link #addReview(Review)}, this method waits for the API and must not be called on
+     * the main thread. The batch is stored in a single API call, then the indexes, the statistics
+     * and the cached list are updated once for the whole batch, and observers are notified once.
+     * As with successive calls to {@link #addReview(Review)}, the last review ends up first.
+     * </p>
+     *
+     * @param reviews the reviews to add
+     * @throws RuntimeException if the API could not store the batch; nothing is published then
+     */
+    public void addReviews(List<Review> reviews) {
+        if (reviews.isEmpty()) {
+            return;
+        }
+        restaurantApi.addReviews(reviews);
+
+        synchronized (this) {
+            List<Review> cached = reviewsCache.peek();
+            List<Review> updated = new ArrayList<>(reviews.size() + (cached == null ? 0 : cached.size()));
+            for (int i = reviews.size() - 1; i >= 0; i--) {
+                Review review = reviews.get(i);
+                sortedReviews.add(review);
+                indexReview(review);
+                updated.add(review);
+            }
+            if (cached != null) {
+                updated.addAll(cached);
+            }
+            statsAccumulator.addAll(reviews);
+            dailyRollups.addAll(reviews);
+            ratingCounters.addAll(reviews);
+            reviewsCache.update(updated);
+            publishOptimisticState();
+        }
+    }
+
+    /**
+     * Replaces a stored review with a new version in the background, typically to fix its
+     * comment or its rating.
+     * <p>
+     * The API is called on the I/O executor. Once it confirms the edit, the new version takes the
+     * place of the previous one in the list and the indexes, and the statistics are adjusted in
+     * O(1) from the previous and new ratings. If the API fails, nothing changes and the new
+     * version is published through {@link #getFailedReviews()}.
+     * </p>
+     *
+     * @param review the new version of the review, with the identifier of the stored one
+     * @throws IllegalArgumentException if the review is not stored yet
+     */
+    public void updateReview(final Review review) {
+        requireStored(review);
+        ioExecutor.execute(() -> {
+            try {
+                if (restaurantApi.updateReview(review)) {
+                    applyUpdate(review.getId(), review);
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not update review " + review.getId(), e);
+                failedReviewsSource.emit(new ReviewFailure(ReviewFailure.Kind.EDIT, review));
+            }
+        });
+    }
+
+    /**
+     * Deletes a stored review in the background.
+     * <p>
+     * The API is called on the I/O executor. Once it confirms the deletion, the review is removed
+     * from the list and the indexes, and its rating from the statistics in O(1). If the API fails,
+     * nothing changes and the review is published through {@link #getFailedReviews()}.
+     * </p>
+     *
+     * @param review the review to delete
+     * @throws IllegalArgumentException if the review is not stored yet
+     */
+    public void deleteReview(final Review review) {
+        requireStored(review);
+        ioExecutor.execute(() -> {
+            try {
+                if (restaurantApi.deleteReview(review.getId())) {
+                    applyUpdate(review.getId(), null);
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not delete review " + review.getId(), e);
+                failedReviewsSource.emit(new ReviewFailure(ReviewFailure.Kind.DELETE, review));
+            }
+        });
+    }
+
+    private static void requireStored(Review review) {
+        if (review.getId() <= 0 || review.isPending()) {
+            throw new IllegalArgumentException("review " + review.getId() + " is not stored yet");
+        }
+    }
+
+    /**
+     * Replaces or removes a stored review in the cached list, the indexes and the statistics,
+     * then publishes the result.
+     *
+     * @param id      the identifier of the review
+     * @param updated the new version of the review, or null to remove it
+     */
+    private synchronized void applyUpdate(long id, Review updated) {
+        List<Review> cached = reviewsCache.peek();
+        if (cached == null) {
+            return;
+        }
+        // The list is copied to be published anyway: the previous version is found on the way
+        Review previous = null;
+        List<Review> copy = new ArrayList<>(cached.size());
+        for (Review review : cached) {
+            if (previous == null && review.getId() == id) {
+                previous = review;
+                if (updated != null) {
+                    copy.add(updated);
+                }
+            } else {
+                copy.add(review);
+            }
+        }
+        if (previous == null) {
+            // Removed by a refresh in the meantime, or a base review, which is not mirrored:
+            // the next sync brings the change to the statistics
+            reviewsCache.refresh();
+            return;
+        }
+
+        unindexReview(previous);
+        ratingCounters.remove(previous);
+        if (updated == null) {
+            statsAccumulator.remove(previous);
+            dailyRollups.remove(previous);
+        } else {
+            ratingCounters.add(updated);
+            statsAccumulator.replace(previous, updated);
+            dailyRollups.replace(previous, updated);
+            sortedReviews.add(updated);
+            indexReview(updated);
+        }
+        reviewsCache.update(copy);
+        publishOptimisticState();
+    }
+
+    /**
+     * Replaces a pending review with its stored copy.
+     * <p>
+     * A sync running between the API call and this method may already have brought the stored
+     * review, and added it to the list, the indexes and the statistics: the pending review is
+     * then only removed, so that the review is neither listed nor counted twice.
+     * </p>
+     *
+     * @param pending the pending review
+     * @param stored  the review stored by the API, with its final id
+     */
+    private synchronized void confirm(Review pending, Review stored) {
+        stored.setSyncState(ReviewSyncState.CONFIRMED);
+        if (indexRebuildPending) {
+            // The identifier index must match the cached list to tell whether it has the review
+            rebuildIndexesFromLatest();
+        }
+        removePending(pending);
+        unindexReview(pending);
+        ratingCounters.add(stored);
+
+        if (reviewsById.containsKey(stored.getId())) {
+            statsAccumulator.remove(pending);
+            dailyRollups.remove(pending);
+        } else {
+            // The statistics already count the review, with the same rating and date
+            sortedReviews.add(stored);
+            indexReview(stored);
+            List<Review> confirmed = reviewsCache.peek();
+            List<Review> updated = new ArrayList<>(confirmed == null ? 1 : confirmed.size() + 1);
+            updated.add(stored);
+            if (confirmed != null) {
+                updated.addAll(confirmed);
+            }
+            reviewsCache.update(updated);
+        }
+        publishOptimisticState();
+    }
+
+    /**
+     * Removes a pending review that the API could not store.
+     *
+     * @param pending the pending review
+     */
+    private synchronized void rollBack(Review pending) {
+        if (!removePending(pending)) {
+            return;
+        }
+        unindexReview(pending);
+        statsAccumulator.remove(pending);
+        dailyRollups.remove(pending);
+        publishOptimisticState();
+        failedReviewsSource.emit(new ReviewFailure(ReviewFailure.Kind.ADD, pending));
+    }
+
+    /**
+     * Removes a review from the pending ones by its temporary id. Reviews are equal when their
+     * contents are, so two pending reviews with the same content must not be told apart with
+     * {@link Review#equals(Object)}.
+     *
+     * @param pending the pending review
+     * @return true if the review was pending
+     */
+    private boolean removePending(Review pending) {
+        for (Iterator<Review> iterator = pendingReviews.iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getId() == pending.getId()) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Publishes the pending reviews followed by the stored ones, with the running statistics.
+     */
+    private void publishOptimisticState() {
+        emitReviews(withPendingReviews(reviewsCache.peek()));
+        reviewStatsSource.emit(statsAccumulator.snapshot());
+    }
+
+    /**
+     * Puts the pending reviews in front of a list of stored reviews.
+     *
+     * @param stored the stored reviews, may be null
+     * @return a new list of every review to display
+     */
+    private List<Review> withPendingReviews(List<Review> stored) {
+        List<Review> reviews = new ArrayList<>(pendingReviews.size() + (stored == null ? 0 : stored.size()));
+        reviews.addAll(pendingReviews);
+        if (stored != null) {
+            reviews.addAll(stored);
+        }
+        return reviews;
+    }
+
+    // --- Incremental sync ---
+
+    /**
+     * Loads the changes of the reviews since the last sync, on the I/O executor of the cache.
+     * <p>
+     * A snapshot is returned as is and applied by {@link #onReviewsRefreshed(List)}, like a full
+     * reload. A delta is applied here at once, and the resulting list is returned.
+     * </p>
+     *
+     * @return the stored reviews after the sync
+     */
+    private List<Review> syncReviews() {
+        long cursor;
+        synchronized (this) {
+            // A snapshot stored but not applied yet: its cursor is the one to sync from
+            if (pendingSnapshot != null) {
+                if (pendingSnapshot == reviewsCache.peek()) {
+                    applyPendingSnapshot();
+                } else {
+                    pendingSnapshot = null;
+                }
+            }
+            cursor = reviewCursor;
+        }
+
+        ReviewDelta delta = restaurantApi.getReviewsSince(cursor);
+        if (delta.isSnapshot()) {
+            synchronized (this) {
+                pendingSnapshot = delta.getReviews();
+                pendingSnapshotBase = delta.getBaseReviews();
+                pendingSnapshotCursor = delta.getCursor();
+            }
+            return delta.getReviews();
+        }
+        return applyDelta(delta);
+    }
+
+    /**
+     * Applies a delta to the cached list, the indexes and the statistics in one batch, then
+     * publishes the result once. The work is proportional to the number of changes, except
+     * for the copy of the published list.
+     * <p>
+     * Reviews unknown to the Bloom filter are new without any lookup; the others are looked up
+     * by identifier, and skipped if unchanged, such as the reviews this device stored itself.
+     * </p>
+     *
+     * @param delta the changes since the cursor of the last sync
+     * @return the stored reviews after the sync
+     */
+    private synchronized List<Review> applyDelta(ReviewDelta delta) {
+        if (indexRebuildPending) {
+            // The identifier index must match the cached list to classify the changes
+            rebuildIndexesFromLatest();
+        }
+        List<Review> cached = reviewsCache.peek();
+
+        List<Review> added = new ArrayList<>();
+        Map<Long, Review> edited = new HashMap<>();
+        for (Review review : delta.getReviews()) {
+            if (!knownReviewIds.mightContain(review.getId())) {
+                added.add(review);
+                continue;
+            }
+            Review previous = reviewsById.get(review.getId());
+            if (previous == null) {
+                added.add(review);
+            } else if (!previous.equals(review)) {
+                edited.put(review.getId(), review);
+            }
+        }
+        Set<Long> deleted = new HashSet<>();
+        for (Long id : delta.getDeletedIds()) {
+            if (reviewsById.containsKey(id)) {
+                deleted.add(id);
+            }
+        }
+
+        reviewCursor = delta.getCursor();
+        if (added.isEmpty() && edited.isEmpty() && deleted.isEmpty()) {
+            lastSyncedReviews = cached;
+            return cached;
+        }
+
+        // The delta lists the oldest change first, the list shows the newest review first
+        List<Review> merged = new ArrayList<>(added.size() + (cached == null ? 0 : cached.size()));
+        for (int i = added.size() - 1; i >= 0; i--) {
+            Review review = added.get(i);
+            sortedReviews.add(review);
+            indexReview(review);
+            merged.add(review);
+        }
+        statsAccumulator.addAll(added);
+        dailyRollups.addAll(added);
+        if (cached != null) {
+            if (edited.isEmpty() && deleted.isEmpty()) {
+                merged.addAll(cached);
+            } else {
+                for (Review review : cached) {
+                    Review updated = edited.get(review.getId());
+                    if (updated != null) {
+                        unindexReview(review);
+                        statsAccumulator.replace(review, updated);
+                        dailyRollups.replace(review, updated);
+                        sortedReviews.add(updated);
+                        indexReview(updated);
+                        merged.add(updated);
+                    } else if (deleted.contains(review.getId())) {
+                        unindexReview(review);
+                        statsAccumulator.remove(review);
+                        dailyRollups.remove(review);
+                    } else {
+                        merged.add(review);
+                    }
+                }
+            }
+        }
+
+        reviewsCache.update(merged);
+        lastSyncedReviews = merged;
+        publishOptimisticState();
+        return merged;
+    }
+
+    /**
+     * Publishes the snapshot returned by the last sync with its statistics, rebuilds the
+     * indexes from it, and resumes the sync from its cursor. Must hold the lock.
+     */
+    private void applyPendingSnapshot() {
+        baseReviews = pendingSnapshotBase;
+        List<Review> reviews = publishReviews(pendingSnapshot);
+        reviewCursor = pendingSnapshotCursor;
+        pendingSnapshot = null;
+        indexRebuildPending = false;
+        rebuildIndexes(reviews);
+    }
+
+    // --- Import and export ---
+
+    /**
+     * Imports the reviews of a dump in the background, then closes the stream.
+     * <p>
+     * The dump is parsed incrementally and stored in batches with {@link #addReviews(List)}, so
+     * observers are notified once per batch and memory use does not depend on the size of the
+     * dump. The listener is called on the I/O executor.
+     * </p>
+     *
+     * @param format   the format of the dump
+     * @param in       the dump, typically a file chosen by the user
+     * @param listener receives the progress and the outcome of the import, or null
+     * @return the running import, which can be cancelled, yielding the number of imported reviews
+     */
+    public Future<Long> importReviews(ReviewFormat format, InputStream in, ReviewImporter.Listener listener) {
+        return new ReviewImporter(format).importAsync(in, this::addReviews, listener, ioExecutor);
+    }
+
+    /**
+     * Writes every stored review to a stream in the background, then closes the stream.
+     * <p>
+     * Reviews are queried from the API newest first, {@link #EXPORT_PAGE_SIZE} at a time, and
+     * written one at a time, so a dump of any size is exported in constant memory. Pending reviews
+     * are not exported. The listener is called on the I/O executor.
+     * </p>
+     *
+     * @param format   the format of the dump
+     * @param out      the destination stream, typically a file chosen by the user
+     * @param listener receives the progress and the outcome of the export, or null
+     * @return the running export, which can be cancelled, yielding the number of exported reviews
+     */
+    public Future<Long> exportReviews(ReviewFormat format, OutputStream out, ReviewExporter.Listener listener) {
+        final ReviewQuery query = new ReviewQuery.Builder().page(0, EXPORT_PAGE_SIZE).build();
+        return new ReviewExporter(format).exportAsync(() -> new PagedReviews(restaurantApi::queryReviews, query),
+                out, listener, ioExecutor);
+    }
+
+    // --- Cache updates ---
+
+    /**
+     * Publishes loaded restaurant details with a new version, if they changed. The API builds
+     * new details on every call, so unchanged details are recognized by their content.
+     *
+     * @param restaurant the loaded details
+     */
+    private synchronized void applyRestaurant(Restaurant restaurant) {
+        if (!restaurant.equals(restaurantSource.getValue())) {
+            restaurantSnapshotSource.emit(new RestaurantSnapshot(++restaurantVersion, restaurant));
+            restaurantSource.emit(restaurant);
+        }
+    }
+
+    /**
+     * Publishes refreshed reviews with their statistics first, then rebuilds the indexes.
+     * <p>
+     * The statistics are displayed by the visible screen and computed with a UI-critical
+     * priority. Until the background rebuild completes, the rank, author and duplicate
+     * lookups still answer from the previous reviews. Reviews already applied by a delta sync,
+     * or replaced by a later write in the meantime, are ignored.
+     * </p>
+     *
+     * @param refreshed the refreshed reviews
+     */
+    private void onReviewsRefreshed(final List<Review> refreshed) {
+        computeExecutor.execute(() -> {
+            synchronized (RestaurantRepository.this) {
+                if (refreshed == lastSyncedReviews || refreshed != reviewsCache.peek()) {
+                    return;
+                }
+                boolean baseChanged = false;
+                if (refreshed == pendingSnapshot) {
+                    baseChanged = baseReviews != pendingSnapshotBase;
+                    baseReviews = pendingSnapshotBase;
+                    reviewCursor = pendingSnapshotCursor;
+                    pendingSnapshot = null;
+                }
+                if (!baseChanged && isPublished(refreshed)) {
+                    return;
+                }
+                publishReviews(refreshed);
+                if (!indexRebuildPending) {
+                    indexRebuildPending = true;
+                    computeExecutor.execute(this::rebuildIndexesFromLatest, TaskPriority.BACKGROUND);
+                }
+            }
+        }, TaskPriority.UI_CRITICAL);
+    }
+
+    /**
+     * Publishes the pending reviews followed by a list of stored reviews, with the statistics
+     * recomputed from both and from the base reviews: pending reviews stay counted until they
+     * are confirmed or rolled back.
+     *
+     * @param stored the stored reviews
+     * @return the published list
+     */
+    private synchronized List<Review> publishReviews(List<Review> stored) {
+        List<Review> reviews = withPendingReviews(stored);
+        statsAccumulator.clear();
+        dailyRollups.clear();
+        statsAccumulator.addAll(reviews);
+        dailyRollups.addAll(reviews);
+        statsAccumulator.addAll(baseReviews);
+        dailyRollups.addAll(baseReviews);
+        emitReviews(reviews);
+        reviewStatsSource.emit(statsAccumulator.snapshot());
+        return reviews;
+    }
+
+    /**
+     * Tells whether a list of stored reviews is the one already published behind the pending
+     * reviews. Must hold the lock.
+     *
+     * @param stored the stored reviews
+     * @return true if publishing them would not change the published list
+     */
+    private boolean isPublished(List<Review> stored) {
+        List<Review> published = reviewsSource.getValue();
+        return published != null && published.size() == pendingReviews.size() + stored.size()
+                && published.subList(pendingReviews.size(), published.size()).equals(stored);
+    }
+
+    /**
+     * Publishes a review list, making the values derived from the previous one stale first.
+     *
+     * @param reviews the reviews, which must not be modified afterwards
+     */
+    private void emitReviews(List<Review> reviews) {
+        reviewSelectors.publish(reviews);
+        reviewsSource.emit(reviews);
+    }
+
+    /**
+     * Rebuilds the indexes from the latest published reviews, which include the reviews
+     * added since the rebuild was queued.
+     */
+    private synchronized void rebuildIndexesFromLatest() {
+        if (!indexRebuildPending) {
+            // Already rebuilt by a sync
+            return;
+        }
+        indexRebuildPending = false;
+        List<Review> reviews = reviewsSource.getValue();
+        if (reviews != null) {
+            rebuildIndexes(reviews);
+        }
+    }
+
+    // --- Indexes ---
+
+    /**
+     * Replaces the content of the indexes with a review list.
+     *
+     * @param reviews the reviews to index
+     */
+    private synchronized void rebuildIndexes(List<Review> reviews) {
+        sortedReviews.clear();
+        sortedReviews.addAll(reviews);
+        reviewsById.clear();
+        authorIndex.clear();
+        knownReviewIds = new BloomFilter(Math.max(MIN_BLOOM_FILTER_SIZE, 2 * reviews.size()));
+        for (Review review : reviews) {
+            indexReview(review);
+        }
+    }
+
+    /**
+     * Registers a review in the identifier and author indexes, and in the known identifiers.
+     *
+     * @param review the review, with its final or temporary identifier assigned
+     */
+    private void indexReview(Review review) {
+        reviewsById.put(review.getId(), review);
+        knownReviewIds.add(review.getId());
+        authorIndex.add(review);
+    }
+
+    /**
+     * Removes a review from every index.
+     *
+     * @param review the review, still holding the values it was indexed with
+     */
+    private void unindexReview(Review review) {
+        sortedReviews.remove(review);
+        reviewsById.remove(review.getId());
+        authorIndex.remove(review);
+    }
+
+    // --- Ranking ---
+
+    /**
+     * Reports the latest statistics of the restaurant to the ranking and publishes the leaderboard.
+     */
+    private void updateRanking() {
+        Restaurant restaurant = restaurantSource.getValue();
+        ReviewStats stats = reviewStatsSource.getValue();
+        if (restaurant != null && stats != null) {
+            restaurantRanking.update(restaurant, stats);
+            leaderboardSource.emit(restaurantRanking.getTop());
+        }
     }
 }
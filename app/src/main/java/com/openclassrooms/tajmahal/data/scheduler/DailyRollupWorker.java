@@ -0,0 +1,121 @@
+package com.openclassrooms.tajmahal.data.scheduler;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.hilt.work.HiltWorker;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.openclassrooms.tajmahal.data.index.DailyRollups;
+import com.openclassrooms.tajmahal.data.io.DailyRollupFile;
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+import dagger.assisted.Assisted;
+import dagger.assisted.AssistedInject;
+
+/**
+ * Nightly job verifying the daily rollups of the repository and persisting them.
+ * <p>
+ * The rollups are maintained incrementally as reviews change; once a day, while the device is
+ * idle at night, this job recomputes them from the reviews, replaces them if they drifted, and
+ * writes them to a {@link DailyRollupFile}, so that rating trends can be read without loading
+ * the reviews.
+ * </p>
+ */
+@HiltWorker
+public class DailyRollupWorker extends Worker {
+
+    private static final String TAG = "DailyRollupWorker";
+    private static final String UNIQUE_WORK_NAME = "daily-rollup-verification";
+    private static final String ROLLUP_FILE_NAME = "daily_rollups.bin";
+    // Local hour of the first run, then every 24 hours
+    private static final int RUN_HOUR = 3;
+
+    // --- Fields ---
+
+    private final RestaurantRepository restaurantRepository;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs the job, created by the Hilt worker factory.
+     *
+     * @param context              the application context
+     * @param params               the parameters of the job
+     * @param restaurantRepository the repository maintaining the rollups
+     */
+    @AssistedInject
+    public DailyRollupWorker(@Assisted @NonNull Context context, @Assisted @NonNull WorkerParameters params,
+                             RestaurantRepository restaurantRepository) {
+        super(context, params);
+        this.restaurantRepository = restaurantRepository;
+    }
+
+    // --- Scheduling ---
+
+    /**
+     * Schedules the nightly verification, unless it is already scheduled.
+     *
+     * @param context any context of the app
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(DailyRollupWorker.class, 1, TimeUnit.DAYS)
+                .setInitialDelay(millisUntilNextRun(System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Gets the file holding the rollups written by the last verification.
+     *
+     * @param context any context of the app
+     * @return the rollup file
+     */
+    public static DailyRollupFile rollupFile(Context context) {
+        return new DailyRollupFile(new File(context.getFilesDir(), ROLLUP_FILE_NAME));
+    }
+
+    private static long millisUntilNextRun(long now) {
+        Calendar next = Calendar.getInstance();
+        next.setTimeInMillis(now);
+        next.set(Calendar.HOUR_OF_DAY, RUN_HOUR);
+        next.set(Calendar.MINUTE, 0);
+        next.set(Calendar.SECOND, 0);
+        next.set(Calendar.MILLISECOND, 0);
+        if (next.getTimeInMillis() <= now) {
+            next.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return next.getTimeInMillis() - now;
+    }
+
+    // --- Work ---
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        DailyRollups rollups = restaurantRepository.verifyDailyRollups();
+        try {
+            rollupFile(getApplicationContext()).write(rollups);
+            return Result.success();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write the daily rollups", e);
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.openclassrooms.tajmahal.data.scheduler;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue depth and wait-time counters of an executor.
+ * <p>
+ * The wait time of a task is the time between its submission and the start of its execution:
+ * it grows when the executor cannot keep up, or when other tasks are served first.
+ * Counters are updated lock-free and can be read from any thread.
+ * </p>
+ */
+public class ExecutorMetrics {
+
+    // --- Fields ---
+
+    private final String name;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final AtomicLong startedTasks = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    // --- Constructor ---
+
+    /**
+     * Constructs empty metrics.
+     *
+     * @param name the name of the measured executor, for logs
+     */
+    public ExecutorMetrics(String name) {
+        this.name = name;
+    }
+
+    // --- Recording ---
+
+    /**
+     * Records the submission of a task.
+     */
+    void onSubmitted() {
+        int depth = queueDepth.incrementAndGet();
+        int peak;
+        do {
+            peak = peakQueueDepth.get();
+        } while (depth > peak && !peakQueueDepth.compareAndSet(peak, depth));
+    }
+
+    /**
+     * Records the start of a task.
+     *
+     * @param waitNanos the time the task waited in the queue, in nanoseconds
+     */
+    void onStarted(long waitNanos) {
+        queueDepth.decrementAndGet();
+        startedTasks.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        long max;
+        do {
+            max = maxWaitNanos.get();
+        } while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos));
+    }
+
+    /**
+     * Records a task that was submitted but will never start.
+     */
+    void onDiscarded() {
+        queueDepth.decrementAndGet();
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the name of the measured executor.
+     *
+     * @return the executor name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of tasks submitted and not started yet.
+     *
+     * @return the current queue depth
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Gets the highest queue depth observed.
+     *
+     * @return the peak queue depth
+     */
+    public int getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    /**
+     * Gets the number of tasks started so far.
+     *
+     * @return the started task count
+     */
+    public long getStartedTaskCount() {
+        return startedTasks.get();
+    }
+
+    /**
+     * Gets the average time the started tasks waited in the queue.
+     *
+     * @return the average wait, in milliseconds, 0 if no task started
+     */
+    public double getAverageWaitMillis() {
+        long started = startedTasks.get();
+        return started == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / started;
+    }
+
+    /**
+     * Gets the longest time a task waited in the queue.
+     *
+     * @return the maximum wait, in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{queue=" + getQueueDepth() + ", peak=" + getPeakQueueDepth()
+                + ", started=" + getStartedTaskCount()
+                + String.format(Locale.ROOT, ", avgWait=%.2fms, maxWait=%.2fms}",
+                getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
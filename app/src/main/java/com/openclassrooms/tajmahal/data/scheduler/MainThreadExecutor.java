@@ -0,0 +1,19 @@
+package com.openclassrooms.tajmahal.data.scheduler;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor running its tasks on the main thread, after the current message.
+ */
+public class MainThreadExecutor implements Executor {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    @Override
+    public void execute(Runnable task) {
+        handler.post(task);
+    }
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.tajmahal.data.scheduler;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor decorator recording the queue depth and wait time of the tasks it forwards.
+ */
+public class MeteredExecutor implements Executor {
+
+    // --- Fields ---
+
+    private final Executor delegate;
+    private final ExecutorMetrics metrics;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a metered view of an executor.
+     *
+     * @param name     the name of the executor, for the metrics
+     * @param delegate the executor running the tasks
+     */
+    public MeteredExecutor(String name, Executor delegate) {
+        this.delegate = delegate;
+        this.metrics = new ExecutorMetrics(name);
+    }
+
+    // --- Executor ---
+
+    @Override
+    public void execute(final Runnable task) {
+        final long submittedAt = System.nanoTime();
+        metrics.onSubmitted();
+        try {
+            delegate.execute(() -> {
+                metrics.onStarted(System.nanoTime() - submittedAt);
+                task.run();
+            });
+        } catch (RejectedExecutionException e) {
+            metrics.onDiscarded();
+            throw e;
+        }
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the metrics of the executor.
+     *
+     * @return the live metrics
+     */
+    public ExecutorMetrics getMetrics() {
+        return metrics;
+    }
+}
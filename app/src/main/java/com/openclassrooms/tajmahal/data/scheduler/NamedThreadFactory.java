@@ -0,0 +1,29 @@
+package com.openclassrooms.tajmahal.data.scheduler;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads named after their pool, so that they are easy to spot in traces.
+ */
+public class NamedThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Constructs a factory.
+     *
+     * @param poolName the name of the pool, used as the thread name prefix
+     */
+    public NamedThreadFactory(String poolName) {
+        this.prefix = "tajmahal-" + poolName + "-";
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,161 @@
+package com.openclassrooms.tajmahal.data.scheduler;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded thread pool serving {@link TaskPriority#UI_CRITICAL} tasks before
+ * {@link TaskPriority#BACKGROUND} ones.
+ * <p>
+ * Waiting tasks are kept in a priority queue: a free thread always picks the oldest task of the
+ * most urgent priority, so a burst of background work (indexing, ranking, sync) delays the work
+ * of the visible screen by at most one running task per thread. Within a priority, tasks run in
+ * submission order. Tasks already running are never interrupted.
+ * </p>
+ * <p>
+ * The pool never grows beyond its thread count, and idle threads stop after a while. Queue depth
+ * and wait time are measured per priority, see {@link #getMetrics(TaskPriority)}.
+ * </p>
+ */
+public class PrioritizedExecutor implements Executor {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // --- Fields ---
+
+    private final ThreadPoolExecutor pool;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<TaskPriority, ExecutorMetrics> metrics = new EnumMap<>(TaskPriority.class);
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a pool.
+     *
+     * @param name        the name of the pool, for thread names and metrics
+     * @param threadCount the maximum number of threads
+     */
+    public PrioritizedExecutor(String name, int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be >= 1");
+        }
+        pool = new ThreadPoolExecutor(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new NamedThreadFactory(name));
+        pool.allowCoreThreadTimeOut(true);
+        for (TaskPriority priority : TaskPriority.values()) {
+            metrics.put(priority, new ExecutorMetrics(name + "/" + priority.name().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    // --- Submission ---
+
+    /**
+     * Runs a task with the {@link TaskPriority#BACKGROUND} priority.
+     *
+     * @param task the task to run
+     */
+    @Override
+    public void execute(Runnable task) {
+        execute(task, TaskPriority.BACKGROUND);
+    }
+
+    /**
+     * Runs a task with the given priority.
+     *
+     * @param task     the task to run
+     * @param priority the priority of the task
+     */
+    public void execute(Runnable task, TaskPriority priority) {
+        ExecutorMetrics taskMetrics = metrics.get(priority);
+        taskMetrics.onSubmitted();
+        try {
+            pool.execute(new PrioritizedTask(task, priority, sequence.getAndIncrement(), taskMetrics));
+        } catch (RuntimeException e) {
+            taskMetrics.onDiscarded();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a view of this pool submitting every task with the given priority, for APIs
+     * taking a plain {@link Executor}.
+     *
+     * @param priority the priority of the submitted tasks
+     * @return an executor running its tasks on this pool
+     */
+    public Executor withPriority(final TaskPriority priority) {
+        return task -> execute(task, priority);
+    }
+
+    // --- Metrics ---
+
+    /**
+     * Gets the metrics of the tasks of a priority.
+     *
+     * @param priority the priority
+     * @return the live metrics
+     */
+    public ExecutorMetrics getMetrics(TaskPriority priority) {
+        return metrics.get(priority);
+    }
+
+    // --- Lifecycle ---
+
+    /**
+     * Stops accepting tasks. Queued tasks still run.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Waits for the queued tasks to finish after a {@link #shutdown()}.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if every task finished, false if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    // --- Task ---
+
+    /**
+     * Task ordered by priority, then by submission order.
+     */
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+        private final Runnable task;
+        private final TaskPriority priority;
+        private final long sequence;
+        private final ExecutorMetrics metrics;
+        private final long submittedAt = System.nanoTime();
+
+        PrioritizedTask(Runnable task, TaskPriority priority, long sequence, ExecutorMetrics metrics) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            metrics.onStarted(System.nanoTime() - submittedAt);
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.openclassrooms.tajmahal.data.scheduler;
+
+/**
+ * Priority of a task submitted to a {@link PrioritizedExecutor}.
+ * Declared from the most to the least urgent.
+ */
+public enum TaskPriority {
+
+    /** Work the user is waiting for, such as the statistics of the visible screen. */
+    UI_CRITICAL,
+
+    /** Work nobody is waiting for, such as indexing, ranking or sync. */
+    BACKGROUND
+}
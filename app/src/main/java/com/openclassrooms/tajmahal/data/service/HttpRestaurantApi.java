@@ -0,0 +1,289 @@
+package com.openclassrooms.tajmahal.data.service;
+
+import com.openclassrooms.tajmahal.data.io.JsonObjectParser;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link RestaurantApi} calling the review server over HTTP, see {@link RestaurantHttpProtocol}.
+ * <p>
+ * Connections are kept alive and reused by {@link HttpURLConnection} between calls, and
+ * responses are parsed one line at a time while they are received, so a large review list
+ * is never buffered as a whole. Calls block: they are made from the I/O executor.
+ * </p>
+ * <p>
+ * Network failures are thrown as {@link UncheckedIOException}, and error statuses as
+ * {@link IllegalStateException}, so that the repository handles them like the failures of
+ * any other API. This class is thread-safe.
+ * </p>
+ */
+public class HttpRestaurantApi implements RestaurantApi {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+    private static final int READ_TIMEOUT_MILLIS = 15_000;
+
+    private final String baseUrl;
+
+    /**
+     * Constructs a client of a review server.
+     *
+     * @param baseUrl the URL of the server, such as {@code http://10.0.2.2:8080}
+     */
+    public HttpRestaurantApi(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    // --- Reads ---
+
+    @Override
+    public Restaurant getRestaurant() {
+        HttpURLConnection connection = open("GET", RestaurantHttpProtocol.PATH_RESTAURANT);
+        try (BufferedReader in = readResponse(connection)) {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("empty response");
+            }
+            return RestaurantHttpProtocol.parseRestaurant(line);
+        } catch (IOException e) {
+            throw failure(connection, e);
+        }
+    }
+
+    @Override
+    public List<Review> getReviews() {
+        HttpURLConnection connection = open("GET", RestaurantHttpProtocol.PATH_REVIEWS);
+        try (BufferedReader in = readResponse(connection)) {
+            List<Review> reviews = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                reviews.add(RestaurantHttpProtocol.parseReview(JsonObjectParser.parse(line)));
+            }
+            return reviews;
+        } catch (IOException e) {
+            throw failure(connection, e);
+        }
+    }
+
+    @Override
+    public ReviewDelta getReviewsSince(long cursor) {
+        HttpURLConnection connection = open("GET", RestaurantHttpProtocol.PATH_REVIEWS_SINCE + "?"
+                + RestaurantHttpProtocol.PARAM_CURSOR + "=" + cursor);
+        try (BufferedReader in = readResponse(connection)) {
+            String headerLine = in.readLine();
+            if (headerLine == null) {
+                throw new IOException("empty response");
+            }
+            Map<String, String> header = JsonObjectParser.parse(headerLine);
+            List<Review> reviews = new ArrayList<>();
+            List<Long> deletedIds = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                Map<String, String> fields = JsonObjectParser.parse(line);
+                Long deleted = RestaurantHttpProtocol.parseDeletion(fields);
+                if (deleted != null) {
+                    deletedIds.add(deleted);
+                } else {
+                    reviews.add(RestaurantHttpProtocol.parseReview(fields));
+                }
+            }
+            long newCursor = RestaurantHttpProtocol.parseCursor(header);
+            return RestaurantHttpProtocol.isSnapshot(header)
+                    ? ReviewDelta.snapshot(reviews, newCursor)
+                    : ReviewDelta.changes(reviews, deletedIds, newCursor);
+        } catch (IOException e) {
+            throw failure(connection, e);
+        }
+    }
+
+    @Override
+    public ReviewPage queryReviews(ReviewQuery query) {
+        HttpURLConnection connection = open("GET", RestaurantHttpProtocol.PATH_REVIEWS_QUERY + "?"
+                + RestaurantHttpProtocol.toQueryString(query));
+        try (BufferedReader in = readResponse(connection)) {
+            String headerLine = in.readLine();
+            if (headerLine == null) {
+                throw new IOException("empty response");
+            }
+            Map<String, String> header = JsonObjectParser.parse(headerLine);
+            List<Review> reviews = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                reviews.add(RestaurantHttpProtocol.parseReview(JsonObjectParser.parse(line)));
+            }
+            return new ReviewPage(reviews, RestaurantHttpProtocol.parseOffset(header),
+                    RestaurantHttpProtocol.parseHasMore(header), RestaurantHttpProtocol.parseAccessPath(header));
+        } catch (IOException e) {
+            throw failure(connection, e);
+        }
+    }
+
+    // --- Writes ---
+
+    /**
+     * Stores a review on the server, and gives it the identifier assigned by the server.
+     *
+     * @param review the review to add
+     */
+    @Override
+    public void addReview(Review review) {
+        addReviews(Collections.singletonList(review));
+    }
+
+    /**
+     * Stores reviews on the server in a single request, and gives each one the identifier
+     * assigned by the server.
+     *
+     * @param reviews the reviews to add
+     */
+    @Override
+    public void addReviews(List<Review> reviews) {
+        StringBuilder body = new StringBuilder();
+        for (Review review : reviews) {
+            RestaurantHttpProtocol.appendReview(review, body);
+        }
+        HttpURLConnection connection = open("POST", RestaurantHttpProtocol.PATH_REVIEWS);
+        try {
+            send(connection, body);
+            try (BufferedReader in = readResponse(connection)) {
+                for (Review review : reviews) {
+                    String line = in.readLine();
+                    if (line == null) {
+                        throw new IOException("missing stored review");
+                    }
+                    review.setId(RestaurantHttpProtocol.parseReview(JsonObjectParser.parse(line)).getId());
+                }
+            }
+        } catch (IOException e) {
+            throw failure(connection, e);
+        }
+    }
+
+    @Override
+    public boolean updateReview(Review review) {
+        StringBuilder body = new StringBuilder();
+        RestaurantHttpProtocol.appendReview(review, body);
+        HttpURLConnection connection = open("PUT", RestaurantHttpProtocol.PATH_REVIEWS + "/" + review.getId());
+        try {
+            send(connection, body);
+            return found(connection);
+        } catch (IOException e) {
+            throw failure(connection, e);
+        }
+    }
+
+    @Override
+    public boolean deleteReview(long id) {
+        HttpURLConnection connection = open("DELETE", RestaurantHttpProtocol.PATH_REVIEWS + "/" + id);
+        try {
+            return found(connection);
+        } catch (IOException e) {
+            throw failure(connection, e);
+        }
+    }
+
+    // --- HTTP ---
+
+    private HttpURLConnection open(String method, String path) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            connection.setRequestProperty("Accept", RestaurantHttpProtocol.CONTENT_TYPE);
+            return connection;
+        } catch (IOException e) {
+            throw new UncheckedIOException(method + " " + path + " failed", e);
+        }
+    }
+
+    private static void send(HttpURLConnection connection, StringBuilder body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(bytes.length);
+        connection.setRequestProperty("Content-Type", RestaurantHttpProtocol.CONTENT_TYPE);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(bytes);
+        }
+    }
+
+    private static BufferedReader readResponse(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw errorStatus(connection, status);
+        }
+        return new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the status of a write answered without body.
+     *
+     * @return true if the review was found, false on 404
+     */
+    private static boolean found(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+            drain(connection.getErrorStream());
+            return false;
+        }
+        if (status / 100 != 2) {
+            throw errorStatus(connection, status);
+        }
+        drain(connection.getInputStream());
+        return true;
+    }
+
+    private static IllegalStateException errorStatus(HttpURLConnection connection, int status) throws IOException {
+        String message = connection.getRequestMethod() + " " + connection.getURL().getPath() + ": HTTP " + status;
+        InputStream error = connection.getErrorStream();
+        if (error != null) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(error, StandardCharsets.UTF_8))) {
+                String line = in.readLine();
+                if (line != null) {
+                    message += " " + line;
+                }
+            }
+        }
+        if (status == HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+            throw new UnsupportedOperationException(message);
+        }
+        return new IllegalStateException(message);
+    }
+
+    /**
+     * Reads a body to its end, so that the connection can be reused.
+     */
+    private static void drain(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try (InputStream body = in) {
+            byte[] buffer = new byte[256];
+            while (body.read(buffer) >= 0) {
+                // Skip
+            }
+        }
+    }
+
+    private static RuntimeException failure(HttpURLConnection connection, IOException e) {
+        connection.disconnect();
+        return new UncheckedIOException(connection.getRequestMethod() + " " + connection.getURL().getPath()
+                + " failed", e);
+    }
+}
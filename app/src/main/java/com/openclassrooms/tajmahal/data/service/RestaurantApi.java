@@ -1,8 +1,15 @@
 package com.openclassrooms.tajmahal.data.service;
 
+import com.openclassrooms.tajmahal.data.index.SortedReviewIndex;
+import com.openclassrooms.tajmahal.data.query.AccessPath;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 import com.openclassrooms.tajmahal.domain.model.Review;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -48,6 +55,23 @@ public interface RestaurantApi {
      */
     List<Review> getReviews();
 
+    /**
+     * Retrieves the reviews added, edited or deleted since a previous sync.
+     * <p>
+     * Periodic refreshes call this method with the cursor of the previous delta, so that they
+     * transfer and process only what changed. Implementations keeping a change log answer with
+     * the changes since the cursor; they answer with a snapshot of every review when the cursor
+     * is {@link ReviewDelta#NO_CURSOR} or too old. This default implementation keeps no change
+     * log and always answers with a snapshot.
+     * </p>
+     *
+     * @param cursor the cursor of the previous delta, or {@link ReviewDelta#NO_CURSOR}
+     * @return the changes since the cursor, or a snapshot
+     */
+    default ReviewDelta getReviewsSince(long cursor) {
+        return ReviewDelta.snapshot(getReviews(), ReviewDelta.NO_CURSOR);
+    }
+
     /**
      * Adds a new review to the restaurant.
      * <p>
@@ -58,4 +82,65 @@ public interface RestaurantApi {
      * @param review the review to add
      */
     void addReview(Review review);
+
+    /**
+     * Adds several reviews at once, as if each one was added in turn with {@link #addReview(Review)}:
+     * the last review of the batch ends up first.
+     * <p>
+     * Implementations are expected to store a batch in a single operation (one request, one
+     * transaction). This default implementation adds the reviews one by one.
+     * </p>
+     *
+     * @param reviews the reviews to add
+     */
+    default void addReviews(List<Review> reviews) {
+        for (Review review : reviews) {
+            addReview(review);
+        }
+    }
+
+    /**
+     * Replaces a stored review with a new version, typically to fix its comment or its rating.
+     * <p>
+     * The stored review is found by the identifier of the new version. Implementations must not
+     * modify the stored review object, but store the new one.
+     * </p>
+     *
+     * @param review the new version of the review, with the identifier of the stored one
+     * @return true if the review was updated, false if no review has this identifier
+     */
+    boolean updateReview(Review review);
+
+    /**
+     * Deletes a stored review.
+     *
+     * @param id the identifier of the review
+     * @return true if the review was deleted, false if no review has this identifier
+     */
+    boolean deleteReview(long id);
+
+    /**
+     * Retrieves one page of the reviews matching a query.
+     * <p>
+     * Implementations are expected to answer from their own indexes, so that consumers
+     * never pull the full list to filter it themselves. This default implementation is a
+     * fallback for APIs without indexes: it scans every review and sorts the matches.
+     * </p>
+     *
+     * @param query the filters, sort order and page to fetch
+     * @return the requested page of matching reviews
+     */
+    default ReviewPage queryReviews(ReviewQuery query) {
+        List<Review> matches = new ArrayList<>();
+        for (Review review : getReviews()) {
+            if (query.matches(review)) {
+                matches.add(review);
+            }
+        }
+        Collections.sort(matches, SortedReviewIndex.comparator(query.getSortOrder()));
+        int from = Math.min(query.getOffset(), matches.size());
+        int to = (int) Math.min((long) from + query.getLimit(), matches.size());
+        return new ReviewPage(new ArrayList<>(matches.subList(from, to)), query.getOffset(),
+                to < matches.size(), AccessPath.FULL_SCAN);
+    }
 }
@@ -1,9 +1,14 @@
 package com.openclassrooms.tajmahal.data.service;
 
+import com.openclassrooms.tajmahal.data.index.ReviewStore;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.query.ReviewQueryEngine;
+import com.openclassrooms.tajmahal.data.sync.ReviewChangeLog;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 import com.openclassrooms.tajmahal.domain.model.Review;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -24,6 +29,14 @@ import java.util.List;
  * <p>
  * This class returns details of a specific restaurant, "Taj Mahal", with pre-defined attributes.
  * </p>
+ * <p>
+ * The repository refreshes its cache from a background thread, so every method is
+ * synchronized and the review list is returned as a copy.
+ * </p>
+ * <p>
+ * Every change is recorded in a {@link ReviewChangeLog}, so that this class also stands in for
+ * the server of the incremental sync in tests and development builds.
+ * </p>
  *
  * @see Restaurant
  * @see RestaurantApi
@@ -32,17 +45,51 @@ public class RestaurantFakeApi implements RestaurantApi {
 
     // --- Mock data ---
 
+    // Creation date of the most recent mock review: 2023-11-14 22:13:20 UTC.
+    private static final long SEED_DATE = 1_700_000_000_000L;
+    private static final long DAY_IN_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * List of mock reviews for the restaurant, newest first.
+     */
+    private static final List<Review> MOCK_REVIEWS = Arrays.asList(
+            new Review(5, "Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse, nous mangeons ici chaque week-end, c'est très rapide et savoureux. Continuez ainsi!", 5, SEED_DATE),
+            new Review(4, "Martyna Siddeswara", "https://xsgames.co/randomusers/assets/avatars/female/31.jpg", "Un service excellent et des plats incroyablement savoureux. Nous sommes vraiment satisfaits de notre expérience au restaurant.", 4, SEED_DATE - DAY_IN_MILLIS),
+            new Review(3, "Komala Alanazi", "https://xsgames.co/randomusers/assets/avatars/male/46.jpg", "La cuisine est délicieuse et le service est également excellent. Le propriétaire est très sympathique et veille toujours à ce que votre repas soit satisfaisant. Cet endroit est un choix sûr!", 5, SEED_DATE - 2 * DAY_IN_MILLIS),
+            new Review(2, "David John", "https://xsgames.co/randomusers/assets/avatars/male/67.jpg", "Les currys manquaient de diversité de saveurs et semblaient tous à base de tomates. Malgré les évaluations élevées que nous avons vues et nos attentes, nous avons été déçus.", 2, SEED_DATE - 3 * DAY_IN_MILLIS),
+            new Review(1, "Emilie Hood", "https://xsgames.co/randomusers/assets/avatars/female/20.jpg", "Très bon restaurant Indien ! Je recommande.", 4, SEED_DATE - 4 * DAY_IN_MILLIS)
+    );
+
+    /**
+     * Stored reviews, indexed by identifier so that edits and deletions do not scan the list.
+     * New reviews are appended, and listed first.
+     */
+    private final ReviewStore reviews = new ReviewStore();
+
+    // Identifier given to the next added review.
+    private long nextId = 6;
+
+    // In-memory indexes answering review queries without scanning the list.
+    private final ReviewQueryEngine queryEngine = new ReviewQueryEngine();
+
+    // Last change of each review, for the incremental sync.
+    private final ReviewChangeLog changeLog = new ReviewChangeLog();
+
+    // --- Constructor ---
+
     /**
-     * List of mock reviews for the restaurant.
-     * New reviews are added at the beginning of the list.
+     * Constructs the fake API and indexes the mock reviews.
      */
-    private final List<Review> reviews = new ArrayList<>(Arrays.asList(
-            new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse, nous mangeons ici chaque week-end, c'est très rapide et savoureux. Continuez ainsi!", 5),
-            new Review("Martyna Siddeswara", "https://xsgames.co/randomusers/assets/avatars/female/31.jpg", "Un service excellent et des plats incroyablement savoureux. Nous sommes vraiment satisfaits de notre expérience au restaurant.", 4),
-            new Review("Komala Alanazi", "https://xsgames.co/randomusers/assets/avatars/male/46.jpg", "La cuisine est délicieuse et le service est également excellent. Le propriétaire est très sympathique et veille toujours à ce que votre repas soit satisfaisant. Cet endroit est un choix sûr!", 5),
-            new Review("David John", "https://xsgames.co/randomusers/assets/avatars/male/67.jpg", "Les currys manquaient de diversité de saveurs et semblaient tous à base de tomates. Malgré les évaluations élevées que nous avons vues et nos attentes, nous avons été déçus.", 2),
-            new Review("Emilie Hood", "https://xsgames.co/randomusers/assets/avatars/female/20.jpg", "Très bon restaurant Indien ! Je recommande.", 4)
-    ));
+    public RestaurantFakeApi() {
+        for (int i = MOCK_REVIEWS.size() - 1; i >= 0; i--) {
+            Review review = MOCK_REVIEWS.get(i);
+            Review copy = new Review(review.getId(), review.getUsername(), review.getPicture(),
+                    review.getComment(), review.getRate(), review.getCreatedAt());
+            reviews.add(copy);
+            queryEngine.add(copy);
+            changeLog.recordUpsert(copy);
+        }
+    }
 
     // --- API implementation methods ---
 
@@ -71,25 +118,108 @@ public class RestaurantFakeApi implements RestaurantApi {
      * with pre-defined attributes.
      * </p>
      *
-     * @return The hard-coded list {@link Review} for the "Taj Mahal".
+     * @return A copy of the hard-coded list {@link Review} for the "Taj Mahal".
+     */
+    @Override
+    public synchronized List<Review> getReviews() {
+        return reviews.toListNewestFirst();
+    }
+
+    /**
+     * Retrieves the changes since a cursor from the change log, in O(log n + k) for k changes.
+     * Clients without a cursor, or with a cursor older than the deletions remembered by the
+     * log, get a snapshot.
+     *
+     * @param cursor the cursor of the previous delta, or {@link ReviewDelta#NO_CURSOR}
+     * @return the changes since the cursor, or a snapshot
      */
     @Override
-    public List<Review> getReviews() {
-        return reviews;
+    public synchronized ReviewDelta getReviewsSince(long cursor) {
+        ReviewDelta delta = changeLog.since(cursor);
+        return delta != null ? delta : ReviewDelta.snapshot(getReviews(), changeLog.getCursor());
     }
 
     /**
      * Adds a new review to the beginning of the list.
      * <p>
-     * This method simulates adding a review by inserting it at position 0,
-     * making it the most recent review.
+     * This method simulates adding a review by storing it as the most recent
+     * review, listed first. Like a real back end, it assigns an identifier to
+     * reviews that do not have one yet.
      * </p>
      *
      * @param review the review to add
      */
     @Override
-    public void addReview(Review review) {
-        reviews.add(0, review);
+    public synchronized void addReview(Review review) {
+        if (review.getId() == 0) {
+            review.setId(nextId++);
+        }
+        reviews.add(review);
+        queryEngine.add(review);
+        changeLog.recordUpsert(review);
+    }
+
+    /**
+     * Adds several reviews, the last one listed first, in O(1) per review.
+     *
+     * @param batch the reviews to add
+     */
+    @Override
+    public synchronized void addReviews(List<Review> batch) {
+        for (Review review : batch) {
+            addReview(review);
+        }
+    }
+
+    /**
+     * Replaces a stored review, found in O(1) by identifier, with its new version.
+     * The new version keeps the position of the review in the list.
+     *
+     * @param review the new version of the review, with the identifier of the stored one
+     * @return true if the review was updated, false if no review has this identifier
+     */
+    @Override
+    public synchronized boolean updateReview(Review review) {
+        Review previous = reviews.replace(review);
+        if (previous == null) {
+            return false;
+        }
+        queryEngine.remove(previous);
+        queryEngine.add(review);
+        changeLog.recordUpsert(review);
+        return true;
+    }
+
+    /**
+     * Deletes a stored review, found in O(1) by identifier.
+     *
+     * @param id the identifier of the review
+     * @return true if the review was deleted, false if no review has this identifier
+     */
+    @Override
+    public synchronized boolean deleteReview(long id) {
+        Review previous = reviews.remove(id);
+        if (previous == null) {
+            return false;
+        }
+        queryEngine.remove(previous);
+        changeLog.recordDelete(id);
+        return true;
+    }
+
+    /**
+     * Answers a review query from in-memory indexes.
+     * <p>
+     * The query engine picks the cheapest access path (author index, rating buckets or
+     * sorted index) and stops reading as soon as the requested page is full.
+     * </p>
+     *
+     * @param query the filters, sort order and page to fetch
+     * @return the requested page of matching reviews
+     */
+    @Override
+    public synchronized ReviewPage queryReviews(ReviewQuery query) {
+        return queryEngine.execute(query);
     }
 
 }
@@ -0,0 +1,343 @@
+package com.openclassrooms.tajmahal.data.service;
+
+import com.openclassrooms.tajmahal.data.io.JsonObjectParser;
+import com.openclassrooms.tajmahal.data.io.ReviewFormat;
+import com.openclassrooms.tajmahal.data.query.AccessPath;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP protocol between {@link HttpRestaurantApi} and the review server, shared by both sides.
+ * <p>
+ * Bodies are JSON Lines: one flat JSON object per line, so that both sides stream them one
+ * line at a time, whatever the number of reviews. Reviews are written as in
+ * {@link ReviewFormat#JSON_LINES} dumps. Responses made of several kinds of lines start with a
+ * header line: the cursor of a delta, or the paging of a query result.
+ * </p>
+ * <table>
+ *     <tr><td>{@code GET /restaurant}</td><td>the restaurant details</td></tr>
+ *     <tr><td>{@code GET /reviews}</td><td>every review, newest first</td></tr>
+ *     <tr><td>{@code GET /reviews/since?cursor=N}</td><td>a delta header, then reviews and
+ *     {@code {"deleted":id}} lines</td></tr>
+ *     <tr><td>{@code GET /reviews/query?...}</td><td>a page header, then reviews</td></tr>
+ *     <tr><td>{@code POST /reviews}</td><td>stores the reviews of the body, answers them with
+ *     their identifiers</td></tr>
+ *     <tr><td>{@code PUT /reviews/{id}}</td><td>replaces a review, 404 if unknown</td></tr>
+ *     <tr><td>{@code DELETE /reviews/{id}}</td><td>deletes a review, 404 if unknown</td></tr>
+ * </table>
+ */
+public final class RestaurantHttpProtocol {
+
+    /** Content type of every body. */
+    public static final String CONTENT_TYPE = ReviewFormat.JSON_LINES.getMimeType() + "; charset=utf-8";
+
+    public static final String PATH_RESTAURANT = "/restaurant";
+    public static final String PATH_REVIEWS = "/reviews";
+    public static final String PATH_REVIEWS_SINCE = "/reviews/since";
+    public static final String PATH_REVIEWS_QUERY = "/reviews/query";
+
+    // Query parameters
+    public static final String PARAM_CURSOR = "cursor";
+    private static final String PARAM_MIN_RATING = "minRating";
+    private static final String PARAM_MAX_RATING = "maxRating";
+    private static final String PARAM_AUTHOR = "author";
+    private static final String PARAM_TEXT = "text";
+    private static final String PARAM_SORT = "sort";
+    private static final String PARAM_OFFSET = "offset";
+    private static final String PARAM_LIMIT = "limit";
+
+    // Keys of the lines that are not reviews
+    private static final String KEY_DELETED = "deleted";
+
+    private RestaurantHttpProtocol() {
+    }
+
+    // --- Restaurant ---
+
+    /**
+     * Appends the restaurant details as one line.
+     *
+     * @param restaurant the details
+     * @param out        the body being written
+     */
+    public static void appendRestaurant(Restaurant restaurant, StringBuilder out) {
+        out.append("{\"name\":");
+        ReviewFormat.appendJsonString(restaurant.getName(), out);
+        out.append(",\"type\":");
+        ReviewFormat.appendJsonString(restaurant.getType(), out);
+        out.append(",\"hours\":");
+        ReviewFormat.appendJsonString(restaurant.getHours(), out);
+        out.append(",\"address\":");
+        ReviewFormat.appendJsonString(restaurant.getAddress(), out);
+        out.append(",\"website\":");
+        ReviewFormat.appendJsonString(restaurant.getWebsite(), out);
+        out.append(",\"phoneNumber\":");
+        ReviewFormat.appendJsonString(restaurant.getPhoneNumber(), out);
+        out.append(",\"dineIn\":").append(restaurant.isDineIn());
+        out.append(",\"takeAway\":").append(restaurant.isTakeAway());
+        out.append("}\n");
+    }
+
+    /**
+     * Parses the line of the restaurant details.
+     *
+     * @param line the line, without terminator
+     * @return the details
+     * @throws IOException if the line is malformed
+     */
+    public static Restaurant parseRestaurant(String line) throws IOException {
+        Map<String, String> fields = JsonObjectParser.parse(line);
+        return new Restaurant(fields.get("name"), fields.get("type"), fields.get("hours"),
+                fields.get("address"), fields.get("website"), fields.get("phoneNumber"),
+                Boolean.parseBoolean(fields.get("dineIn")), Boolean.parseBoolean(fields.get("takeAway")));
+    }
+
+    // --- Reviews ---
+
+    /**
+     * Appends a review as one line.
+     *
+     * @param review the review
+     * @param out    the body being written
+     */
+    public static void appendReview(Review review, StringBuilder out) {
+        ReviewFormat.JSON_LINES.appendRecord(review, out);
+    }
+
+    /**
+     * Parses the line of a review, keeping its identifier.
+     *
+     * @param fields the values of the line, see {@link JsonObjectParser#parse(String)}
+     * @return the review
+     * @throws IOException if a field is missing or invalid
+     */
+    public static Review parseReview(Map<String, String> fields) throws IOException {
+        String username = fields.get("username");
+        if (username == null) {
+            throw new IOException("missing username");
+        }
+        return new Review(parseLong(fields, "id"), username, orEmpty(fields.get("picture")),
+                orEmpty(fields.get("comment")), (int) parseLong(fields, "rate"), parseLong(fields, "createdAt"));
+    }
+
+    // --- Deltas ---
+
+    /**
+     * Appends the header line of a delta.
+     *
+     * @param delta the delta
+     * @param out   the body being written
+     */
+    public static void appendDeltaHeader(ReviewDelta delta, StringBuilder out) {
+        out.append("{\"snapshot\":").append(delta.isSnapshot())
+                .append(",\"cursor\":").append(delta.getCursor())
+                .append("}\n");
+    }
+
+    /**
+     * Appends the line of a deleted review.
+     *
+     * @param id  the identifier of the review
+     * @param out the body being written
+     */
+    public static void appendDeletion(long id, StringBuilder out) {
+        out.append("{\"" + KEY_DELETED + "\":").append(id).append("}\n");
+    }
+
+    /**
+     * Tells whether a parsed line of a delta is a deletion rather than a review.
+     *
+     * @param fields the values of the line
+     * @return the identifier of the deleted review, or null for a review
+     * @throws IOException if the identifier is invalid
+     */
+    public static Long parseDeletion(Map<String, String> fields) throws IOException {
+        return fields.containsKey(KEY_DELETED) ? parseLong(fields, KEY_DELETED) : null;
+    }
+
+    /**
+     * Parses whether a delta header announces a snapshot.
+     *
+     * @param header the values of the header line
+     * @return true for a snapshot
+     */
+    public static boolean isSnapshot(Map<String, String> header) {
+        return Boolean.parseBoolean(header.get("snapshot"));
+    }
+
+    /**
+     * Parses the cursor of a delta header.
+     *
+     * @param header the values of the header line
+     * @return the cursor
+     * @throws IOException if the cursor is invalid
+     */
+    public static long parseCursor(Map<String, String> header) throws IOException {
+        return parseLong(header, "cursor");
+    }
+
+    // --- Queries ---
+
+    /**
+     * Appends the header line of a query result.
+     *
+     * @param offset     the offset of the page
+     * @param hasMore    whether more reviews match
+     * @param accessPath the index used to answer
+     * @param out        the body being written
+     */
+    public static void appendPageHeader(int offset, boolean hasMore, AccessPath accessPath, StringBuilder out) {
+        out.append("{\"offset\":").append(offset)
+                .append(",\"hasMore\":").append(hasMore)
+                .append(",\"accessPath\":\"").append(accessPath.name())
+                .append("\"}\n");
+    }
+
+    /**
+     * Encodes a query as the query string of {@link #PATH_REVIEWS_QUERY}.
+     *
+     * @param query the query
+     * @return the query string, without the leading question mark
+     */
+    public static String toQueryString(ReviewQuery query) {
+        StringBuilder out = new StringBuilder();
+        out.append(PARAM_MIN_RATING).append('=').append(query.getMinRating())
+                .append('&').append(PARAM_MAX_RATING).append('=').append(query.getMaxRating())
+                .append('&').append(PARAM_SORT).append('=').append(query.getSortOrder().name())
+                .append('&').append(PARAM_OFFSET).append('=').append(query.getOffset())
+                .append('&').append(PARAM_LIMIT).append('=').append(query.getLimit());
+        if (query.getAuthor() != null) {
+            out.append('&').append(PARAM_AUTHOR).append('=').append(encode(query.getAuthor()));
+        }
+        if (query.getText() != null) {
+            out.append('&').append(PARAM_TEXT).append('=').append(encode(query.getText()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Decodes a query from the parameters of {@link #PATH_REVIEWS_QUERY}.
+     *
+     * @param params the decoded parameters, see {@link #parseQueryString(String)}
+     * @return the query
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    public static ReviewQuery parseQuery(Map<String, String> params) {
+        ReviewQuery.Builder builder = new ReviewQuery.Builder()
+                .ratingBetween(intParam(params, PARAM_MIN_RATING, 1), intParam(params, PARAM_MAX_RATING, 5))
+                .page(intParam(params, PARAM_OFFSET, 0), intParam(params, PARAM_LIMIT, ReviewQuery.DEFAULT_LIMIT))
+                .author(params.get(PARAM_AUTHOR))
+                .textContains(params.get(PARAM_TEXT));
+        String sort = params.get(PARAM_SORT);
+        if (sort != null) {
+            builder.sortBy(ReviewSortOrder.valueOf(sort));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Decodes a query string.
+     *
+     * @param queryString the query string, without the leading question mark, or null
+     * @return the parameters by name
+     */
+    public static Map<String, String> parseQueryString(String queryString) {
+        Map<String, String> params = new HashMap<>();
+        if (queryString == null || queryString.isEmpty()) {
+            return params;
+        }
+        for (String pair : queryString.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0) {
+                params.put(decode(pair), "");
+            } else {
+                params.put(decode(pair.substring(0, equals)), decode(pair.substring(equals + 1)));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Parses the offset of a page header.
+     *
+     * @param header the values of the header line
+     * @return the offset
+     * @throws IOException if the offset is invalid
+     */
+    public static int parseOffset(Map<String, String> header) throws IOException {
+        return (int) parseLong(header, "offset");
+    }
+
+    /**
+     * Parses whether more reviews match, from a page header.
+     *
+     * @param header the values of the header line
+     * @return true if more reviews match
+     */
+    public static boolean parseHasMore(Map<String, String> header) {
+        return Boolean.parseBoolean(header.get("hasMore"));
+    }
+
+    /**
+     * Parses the index used to answer, from a page header.
+     *
+     * @param header the values of the header line
+     * @return the access path, {@link AccessPath#FULL_SCAN} if unknown
+     */
+    public static AccessPath parseAccessPath(Map<String, String> header) {
+        try {
+            return AccessPath.valueOf(header.get("accessPath"));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return AccessPath.FULL_SCAN;
+        }
+    }
+
+    // --- Helpers ---
+
+    private static long parseLong(Map<String, String> fields, String name) throws IOException {
+        String value = fields.get(name);
+        if (value == null) {
+            throw new IOException("missing " + name);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IOException("invalid " + name + ": " + value);
+        }
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,748 @@
+package com.openclassrooms.tajmahal.data.service;
+
+import com.openclassrooms.tajmahal.data.index.SortedReviewIndex;
+import com.openclassrooms.tajmahal.data.query.AccessPath;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.sync.ReviewChangeLog;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An implementation of the {@link RestaurantApi} serving a large number of generated reviews,
+ * to profile scrolling, statistics and search at production-like volumes.
+ * <p>
+ * Reviews are generated lazily: {@link #getReviews()} returns a list view which builds each review
+ * when it is read, from the seed and its position only. Memory use therefore does not depend on the
+ * number of reviews, and the same seed always produces the same reviews, in any access order.
+ * Generated reviews are new objects on each read, so changes made to their objects are not kept.
+ * </p>
+ * <p>
+ * Reviews are written in French, newest first, by a few thousand different authors. Their rating
+ * follows a configurable distribution, and their comment length a configurable range of words;
+ * the tone of the comment matches the rating. Instances are created with a {@link Builder}:
+ * <pre>
+ * RestaurantApi api = new SyntheticRestaurantApi.Builder(1_000_000)
+ *         .seed(42)
+ *         .ratingWeights(5, 7, 13, 30, 45)
+ *         .commentLength(5, 60)
+ *         .build();
+ * </pre>
+ * </p>
+ * <p>
+ * Added reviews are kept in memory on top of the generated ones. Queries in the default newest-first
+ * order, filtered on the rating or not, are answered by position: only the reviews of the page are
+ * built, the others are skipped from their drawn rating and date alone. Other queries use the full
+ * scan of {@link RestaurantApi#queryReviews}. Syncs return the generated reviews as the lazy base of
+ * the snapshot, so that clients count them without mirroring them, and the added reviews as deltas.
+ * Edits and deletions of generated reviews are kept in an overlay meant for a few changes, and
+ * make the next sync of every client a new snapshot. Every method is thread-safe.
+ * </p>
+ *
+ * @see RestaurantFakeApi
+ */
+public class SyntheticRestaurantApi implements RestaurantApi {
+
+    // Creation date of the most recent generated review: 2023-11-14 22:13:20 UTC.
+    private static final long NEWEST_DATE = 1_700_000_000_000L;
+    // Generated reviews are posted about every 5 minutes: a million reviews span about 10 years.
+    private static final long REVIEW_INTERVAL_MILLIS = 5L * 60 * 1000;
+
+    private static final String AVATAR_URL = "https://xsgames.co/randomusers/assets/avatars/%s/%d.jpg";
+    private static final int AVATAR_COUNT = 78;
+
+    // --- Vocabulary ---
+
+    private static final String[] FEMALE_FIRST_NAMES = {
+            "Camille", "Léa", "Manon", "Chloé", "Emma", "Inès", "Sarah", "Julie", "Clara", "Zoé",
+            "Louise", "Alice", "Anaïs", "Lucie", "Margaux", "Élodie", "Mathilde", "Pauline", "Amira", "Nadia"
+    };
+    private static final String[] MALE_FIRST_NAMES = {
+            "Lucas", "Hugo", "Thomas", "Nathan", "Louis", "Théo", "Antoine", "Maxime", "Julien", "Nicolas",
+            "Karim", "Mehdi", "Baptiste", "Romain", "Quentin", "Arthur", "Paul", "Étienne", "Rayan", "Vincent"
+    };
+    private static final String[] LAST_NAMES = {
+            "Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit", "Durand", "Leroy", "Moreau",
+            "Simon", "Laurent", "Lefèvre", "Michel", "Garcia", "David", "Bertrand", "Roux", "Vincent", "Fournier",
+            "Morel", "Girard", "André", "Mercier", "Dupont", "Lambert", "Bonnet", "François", "Martinez", "Benali",
+            "Haddad", "Nguyen", "Singh", "Da Silva", "Chevalier", "Blanc", "Guérin", "Muller", "Henry", "Rousseau"
+    };
+
+    private static final String[] POSITIVE_SENTENCES = {
+            "Le butter chicken est fondant et parfaitement épicé.",
+            "Service rapide et souriant, on se sent attendu.",
+            "Les naans au fromage sont une merveille.",
+            "Un des meilleurs restaurants indiens du quartier.",
+            "Le biryani est généreux et très parfumé.",
+            "Accueil chaleureux, nous reviendrons avec plaisir.",
+            "Le rapport qualité-prix est excellent pour Paris.",
+            "Les currys végétariens sont riches en saveurs.",
+            "Le lassi à la mangue accompagne très bien le repas.",
+            "Salle agréable et personnel aux petits soins."
+    };
+    private static final String[] MIXED_SENTENCES = {
+            "Les plats sont bons mais l'attente était un peu longue.",
+            "Cuisine correcte, sans plus.",
+            "Le tikka masala manquait un peu de relief.",
+            "La salle est bruyante le samedi soir.",
+            "Portions honnêtes pour le prix.",
+            "Le service était inégal selon les serveurs.",
+            "Bonne adresse pour déjeuner, moins pour le dîner.",
+            "Les desserts sont un peu trop sucrés à mon goût."
+    };
+    private static final String[] NEGATIVE_SENTENCES = {
+            "Nous avons attendu plus d'une heure nos plats.",
+            "Le poulet était sec et le riz trop cuit.",
+            "Les currys se ressemblent tous et manquent d'épices.",
+            "Accueil froid et addition salée.",
+            "La commande était incomplète et personne ne s'en est excusé.",
+            "Je ne recommande pas, décevant par rapport aux avis.",
+            "Le naan était froid en arrivant à table.",
+            "Propreté de la salle à revoir."
+    };
+
+    // Number of draws made for the author of a review: gender, first name, last name and avatar
+    private static final int AUTHOR_DRAWS = 4;
+
+    private static final int[] POSITIVE_WORDS = countWords(POSITIVE_SENTENCES);
+    private static final int[] MIXED_WORDS = countWords(MIXED_SENTENCES);
+    private static final int[] NEGATIVE_WORDS = countWords(NEGATIVE_SENTENCES);
+
+    // Initial capacity of the pages, whatever their requested size
+    private static final int MAX_PAGE_CAPACITY = 256;
+
+    // --- Fields ---
+
+    private final long seed;
+    private final int generatedCount;
+    // Cumulative rating weights: a review gets rating r + 1 for the first r where draw < cumulative[r]
+    private final long[] cumulativeWeights;
+    private final int minCommentWords;
+    private final int maxCommentWords;
+
+    // Reviews added through the API, newest first, and their changes for the syncs
+    private final List<Review> addedReviews = new ArrayList<>();
+    private final ReviewChangeLog changeLog = new ReviewChangeLog();
+    private long nextId;
+
+    // Generated reviews edited or deleted through the API, by position: null for a deleted one
+    private final TreeMap<Integer, Review> changedGenerated = new TreeMap<>();
+    // Cursor of the last change of a generated review: syncs from an older cursor get a snapshot
+    private long baseCursor;
+
+    // --- Constructor ---
+
+    private SyntheticRestaurantApi(Builder builder) {
+        this.seed = builder.seed;
+        this.generatedCount = builder.count;
+        this.cumulativeWeights = new long[builder.ratingWeights.length];
+        long total = 0;
+        for (int i = 0; i < builder.ratingWeights.length; i++) {
+            total += builder.ratingWeights[i];
+            cumulativeWeights[i] = total;
+        }
+        this.minCommentWords = builder.minCommentWords;
+        this.maxCommentWords = builder.maxCommentWords;
+        this.nextId = generatedCount + 1L;
+    }
+
+    // --- API implementation methods ---
+
+    /**
+     * Retrieves the restaurant, the same as {@link RestaurantFakeApi#getRestaurant()}.
+     *
+     * @return The {@link Restaurant} object for the "Taj Mahal".
+     */
+    @Override
+    public Restaurant getRestaurant() {
+        return new Restaurant("Taj Mahal", "Indien", "11h30 - 14h30・18h30 - 22h00",
+                "12 Avenue de la Brique - 75010 Paris", "http://www.tajmahal.fr", "06 12 34 56 78",
+                true, true);
+    }
+
+    /**
+     * Retrieves every review, newest first, as a lazy read-only view.
+     * <p>
+     * The view is a snapshot: reviews added, edited or deleted afterwards do not change it.
+     * </p>
+     *
+     * @return the added reviews followed by the generated ones
+     */
+    @Override
+    public synchronized List<Review> getReviews() {
+        return new ReviewList(new ArrayList<>(addedReviews), new TreeMap<>(changedGenerated));
+    }
+
+    /**
+     * Retrieves the reviews added since a previous sync.
+     * <p>
+     * The first sync gets a snapshot of the added reviews, with the generated ones as its lazy
+     * base reviews. The following syncs only get the changes of the added reviews, until a
+     * generated review is edited or deleted: the next sync then gets a new snapshot.
+     * </p>
+     *
+     * @param cursor the cursor of the previous delta, or {@link ReviewDelta#NO_CURSOR}
+     * @return the changes since the cursor, or a snapshot
+     */
+    @Override
+    public synchronized ReviewDelta getReviewsSince(long cursor) {
+        ReviewDelta delta = cursor < baseCursor ? null : changeLog.since(cursor);
+        if (delta != null) {
+            return delta;
+        }
+        return ReviewDelta.snapshot(new ArrayList<>(addedReviews),
+                new ReviewList(Collections.<Review>emptyList(), new TreeMap<>(changedGenerated)),
+                changeLog.getCursor());
+    }
+
+    /**
+     * Adds a new review on top of the generated ones, assigning it the next identifier.
+     *
+     * @param review the review to add
+     */
+    @Override
+    public synchronized void addReview(Review review) {
+        if (review.getId() == 0) {
+            review.setId(nextId);
+        }
+        nextId++;
+        addedReviews.add(0, review);
+        changeLog.recordUpsert(review);
+    }
+
+    /**
+     * Adds several reviews on top of the generated ones, the last one first.
+     *
+     * @param batch the reviews to add
+     */
+    @Override
+    public synchronized void addReviews(List<Review> batch) {
+        List<Review> newestFirst = new ArrayList<>(batch.size());
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            newestFirst.add(batch.get(i));
+        }
+        for (Review review : batch) {
+            if (review.getId() == 0) {
+                review.setId(nextId);
+            }
+            nextId++;
+            changeLog.recordUpsert(review);
+        }
+        addedReviews.addAll(0, newestFirst);
+    }
+
+    /**
+     * Replaces a stored review with its new version. Added reviews are replaced in place,
+     * generated ones in the overlay.
+     *
+     * @param review the new version of the review, with the identifier of the stored one
+     * @return true if the review was updated, false if no review has this identifier
+     */
+    @Override
+    public synchronized boolean updateReview(Review review) {
+        int index = indexOfAdded(review.getId());
+        if (index >= 0) {
+            addedReviews.set(index, review);
+            changeLog.recordUpsert(review);
+            return true;
+        }
+        int position = positionOfGenerated(review.getId());
+        if (position < 0) {
+            return false;
+        }
+        changedGenerated.put(position, review);
+        changeLog.recordUpsert(review);
+        baseCursor = changeLog.getCursor();
+        return true;
+    }
+
+    /**
+     * Deletes a stored review. Added reviews are removed, generated ones hidden by the overlay.
+     *
+     * @param id the identifier of the review
+     * @return true if the review was deleted, false if no review has this identifier
+     */
+    @Override
+    public synchronized boolean deleteReview(long id) {
+        int index = indexOfAdded(id);
+        if (index >= 0) {
+            addedReviews.remove(index);
+            changeLog.recordDelete(id);
+            return true;
+        }
+        int position = positionOfGenerated(id);
+        if (position < 0) {
+            return false;
+        }
+        changedGenerated.put(position, null);
+        changeLog.recordDelete(id);
+        baseCursor = changeLog.getCursor();
+        return true;
+    }
+
+    private int indexOfAdded(long id) {
+        if (id > generatedCount) {
+            for (int i = 0; i < addedReviews.size(); i++) {
+                if (addedReviews.get(i).getId() == id) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the position of a generated review not deleted yet.
+     *
+     * @return the position, or -1 if no such review has this identifier
+     */
+    private int positionOfGenerated(long id) {
+        if (id < 1 || id > generatedCount) {
+            return -1;
+        }
+        int position = (int) (generatedCount - id);
+        return changedGenerated.containsKey(position) && changedGenerated.get(position) == null ? -1 : position;
+    }
+
+    /**
+     * Retrieves one page of the reviews matching a query.
+     * <p>
+     * Newest-first queries without author or text filter are answered by position, in time
+     * proportional to the page and to the number of added reviews: the generated reviews before
+     * the page are skipped at once, or one drawn rating at a time when the rating is filtered.
+     * Other queries scan every review.
+     * </p>
+     *
+     * @param query the filters, sort order and page to fetch
+     * @return the requested page of matching reviews
+     */
+    @Override
+    public ReviewPage queryReviews(ReviewQuery query) {
+        if (query.getSortOrder() != ReviewSortOrder.NEWEST || query.getAuthor() != null || query.hasTextFilter()) {
+            return RestaurantApi.super.queryReviews(query);
+        }
+        // Edited generated reviews are merged like added ones, in place of their generated version
+        List<Review> added = new ArrayList<>();
+        NavigableSet<Integer> changed;
+        synchronized (this) {
+            for (Review review : addedReviews) {
+                if (query.matches(review)) {
+                    added.add(review);
+                }
+            }
+            for (Review review : changedGenerated.values()) {
+                if (review != null && query.matches(review)) {
+                    added.add(review);
+                }
+            }
+            changed = new TreeSet<>(changedGenerated.keySet());
+        }
+        Collections.sort(added, SortedReviewIndex.comparator(ReviewSortOrder.NEWEST));
+        return queryNewest(query, added, changed);
+    }
+
+    // --- Queries by position ---
+
+    /**
+     * Merges the matching added reviews into the matching generated ones, which are listed
+     * newest first by position, and cuts the page.
+     *
+     * @param query   the query, in the newest-first order
+     * @param added   the matching added and edited reviews, newest first
+     * @param changed the positions of the edited and deleted generated reviews, which are skipped
+     * @return the requested page
+     */
+    private ReviewPage queryNewest(ReviewQuery query, List<Review> added, NavigableSet<Integer> changed) {
+        int minRating = Math.max(1, query.getMinRating());
+        int maxRating = Math.min(cumulativeWeights.length, query.getMaxRating());
+        boolean filtered = query.hasRatingFilter();
+        // No generated review matches a range of ratings never drawn
+        int end = minRating <= maxRating && ratingWeight(minRating, maxRating) > 0 ? generatedCount : 0;
+
+        List<Review> page = new ArrayList<>(Math.min(query.getLimit(), MAX_PAGE_CAPACITY));
+        int skip = query.getOffset();
+        int nextAdded = 0;
+        int position = 0;
+        while (page.size() < query.getLimit()) {
+            Review review = nextAdded < added.size() ? added.get(nextAdded) : null;
+            if (!filtered && skip > 0) {
+                // Every unchanged generated review matches: skip at once those listed before the
+                // next added one
+                int before = firstPositionAfter(review, position, end);
+                while (skip > 0 && position < before) {
+                    int run = Math.min(before - position, skip);
+                    skip -= run - changed.subSet(position, position + run).size();
+                    position += run;
+                }
+            }
+            position = nextMatch(minRating, maxRating, filtered, changed, position, end);
+            boolean takeAdded = review != null && (position == end || isBefore(review, position));
+            if (!takeAdded && position == end) {
+                break;
+            }
+            if (skip > 0) {
+                skip--;
+            } else {
+                page.add(takeAdded ? review : generate(position));
+            }
+            if (takeAdded) {
+                nextAdded++;
+            } else {
+                position++;
+            }
+        }
+        boolean hasMore = nextAdded < added.size()
+                || nextMatch(minRating, maxRating, filtered, changed, position, end) < end;
+        return new ReviewPage(page, query.getOffset(), hasMore,
+                filtered ? AccessPath.RATING_BUCKETS : AccessPath.SORTED_INDEX);
+    }
+
+    /**
+     * Finds the first unchanged generated review from a position whose rating is in a range.
+     *
+     * @return the position of the review, or end if there is none
+     */
+    private int nextMatch(int minRating, int maxRating, boolean filtered, NavigableSet<Integer> changed,
+                          int position, int end) {
+        while (position < end) {
+            if (!changed.contains(position)) {
+                if (!filtered) {
+                    break;
+                }
+                int rating = generatedRating(position);
+                if (rating >= minRating && rating <= maxRating) {
+                    break;
+                }
+            }
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Finds by binary search the first generated review listed after a review, newest first.
+     *
+     * @return the position of the generated review, or end if the review comes after every one
+     */
+    private int firstPositionAfter(Review review, int from, int end) {
+        if (review == null) {
+            return end;
+        }
+        int low = from;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (isBefore(review, middle)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Tells whether a review comes before a generated one, newest first: more recent, or as
+     * recent with a higher identifier.
+     */
+    private boolean isBefore(Review review, int position) {
+        long createdAt = generatedDate(position);
+        return review.getCreatedAt() != createdAt
+                ? review.getCreatedAt() > createdAt
+                : review.getId() > generatedCount - position;
+    }
+
+    private long ratingWeight(int minRating, int maxRating) {
+        return cumulativeWeights[maxRating - 1] - (minRating > 1 ? cumulativeWeights[minRating - 2] : 0);
+    }
+
+    // --- Generation ---
+
+    /**
+     * Generates the review at a position of the generated reviews.
+     * Position 0 is the newest review, with the highest identifier.
+     *
+     * @param position the position, from 0 to the number of generated reviews excluded
+     * @return a new review, always the same for a given seed and position
+     */
+    Review generate(int position) {
+        Mixer random = new Mixer(seed, position);
+
+        boolean female = random.nextInt(2) == 0;
+        String[] firstNames = female ? FEMALE_FIRST_NAMES : MALE_FIRST_NAMES;
+        String username = firstNames[random.nextInt(firstNames.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String picture = String.format(AVATAR_URL, female ? "female" : "male", random.nextInt(AVATAR_COUNT));
+
+        int rate = pickRating(random);
+        String comment = writeComment(random, rate);
+        long createdAt = pickDate(random, position);
+        return new Review(generatedCount - position, username, picture, comment, rate, createdAt);
+    }
+
+    /**
+     * Draws the rating of a generated review, without building the review.
+     */
+    private int generatedRating(int position) {
+        Mixer random = new Mixer(seed, position);
+        random.skip(AUTHOR_DRAWS);
+        return pickRating(random);
+    }
+
+    /**
+     * Draws the creation date of a generated review, without building the review. Dates
+     * strictly decrease with the position.
+     */
+    private long generatedDate(int position) {
+        Mixer random = new Mixer(seed, position);
+        random.skip(AUTHOR_DRAWS);
+        skipComment(random, pickRating(random));
+        return pickDate(random, position);
+    }
+
+    private static long pickDate(Mixer random, int position) {
+        return NEWEST_DATE - position * REVIEW_INTERVAL_MILLIS - random.nextInt((int) REVIEW_INTERVAL_MILLIS);
+    }
+
+    private int pickRating(Mixer random) {
+        long draw = random.nextLong(cumulativeWeights[cumulativeWeights.length - 1]);
+        int rating = 0;
+        while (draw >= cumulativeWeights[rating]) {
+            rating++;
+        }
+        return rating + 1;
+    }
+
+    /**
+     * Writes a comment of whole sentences, at least as long as a drawn number of words.
+     */
+    private String writeComment(Mixer random, int rate) {
+        String[] sentences = rate >= 4 ? POSITIVE_SENTENCES : rate == 3 ? MIXED_SENTENCES : NEGATIVE_SENTENCES;
+        int[] sentenceWords = wordsOf(rate);
+        int targetWords = minCommentWords + random.nextInt(maxCommentWords - minCommentWords + 1);
+        StringBuilder comment = new StringBuilder();
+        int words = 0;
+        do {
+            int sentence = random.nextInt(sentences.length);
+            if (comment.length() > 0) {
+                comment.append(' ');
+            }
+            comment.append(sentences[sentence]);
+            words += sentenceWords[sentence];
+        } while (words < targetWords);
+        return comment.toString();
+    }
+
+    /**
+     * Makes the same draws as {@link #writeComment(Mixer, int)}, without writing the comment.
+     */
+    private void skipComment(Mixer random, int rate) {
+        int[] sentenceWords = wordsOf(rate);
+        int targetWords = minCommentWords + random.nextInt(maxCommentWords - minCommentWords + 1);
+        int words = 0;
+        do {
+            words += sentenceWords[random.nextInt(sentenceWords.length)];
+        } while (words < targetWords);
+    }
+
+    private static int[] wordsOf(int rate) {
+        return rate >= 4 ? POSITIVE_WORDS : rate == 3 ? MIXED_WORDS : NEGATIVE_WORDS;
+    }
+
+    private static int[] countWords(String[] sentences) {
+        int[] counts = new int[sentences.length];
+        for (int i = 0; i < sentences.length; i++) {
+            counts[i] = 1;
+            for (int j = 0; j < sentences[i].length(); j++) {
+                if (sentences[i].charAt(j) == ' ') {
+                    counts[i]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    // --- List view ---
+
+    /**
+     * Read-only list of the added reviews followed by the generated ones, built on access,
+     * with the changes of the overlay.
+     */
+    private final class ReviewList extends AbstractList<Review> implements RandomAccess {
+
+        private final List<Review> added;
+        private final NavigableMap<Integer, Review> changed;
+        private final NavigableSet<Integer> deleted = new TreeSet<>();
+
+        ReviewList(List<Review> added, NavigableMap<Integer, Review> changed) {
+            this.added = added;
+            this.changed = changed;
+            for (Map.Entry<Integer, Review> entry : changed.entrySet()) {
+                if (entry.getValue() == null) {
+                    deleted.add(entry.getKey());
+                }
+            }
+        }
+
+        @Override
+        public Review get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size());
+            }
+            if (index < added.size()) {
+                return added.get(index);
+            }
+            // Each deleted position before the review shifts it by one
+            int position = index - added.size();
+            for (int deletedPosition : deleted) {
+                if (deletedPosition > position) {
+                    break;
+                }
+                position++;
+            }
+            Review edited = changed.get(position);
+            return edited != null ? edited : generate(position);
+        }
+
+        @Override
+        public int size() {
+            return added.size() + generatedCount - deleted.size();
+        }
+    }
+
+    /**
+     * SplitMix64 generator seeded from the seed of the API and a position, so that each review
+     * is drawn independently of the others.
+     */
+    private static final class Mixer {
+
+        private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+        private long state;
+
+        Mixer(long seed, int position) {
+            state = mix(seed ^ (position * GOLDEN_GAMMA));
+        }
+
+        long nextLong(long bound) {
+            return Math.floorMod(nextLong(), bound);
+        }
+
+        int nextInt(int bound) {
+            return (int) nextLong(bound);
+        }
+
+        void skip(int draws) {
+            state += draws * GOLDEN_GAMMA;
+        }
+
+        private long nextLong() {
+            state += GOLDEN_GAMMA;
+            return mix(state);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    // --- Builder ---
+
+    /**
+     * Builder of {@link SyntheticRestaurantApi} instances.
+     */
+    public static class Builder {
+
+        private final int count;
+        private long seed = 42;
+        // Weights of the ratings 1 to 5, skewed towards good ratings like most review sites
+        private int[] ratingWeights = {5, 7, 13, 30, 45};
+        private int minCommentWords = 5;
+        private int maxCommentWords = 60;
+
+        /**
+         * Creates a builder.
+         *
+         * @param count the number of generated reviews
+         */
+        public Builder(int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("invalid review count: " + count);
+            }
+            this.count = count;
+        }
+
+        /**
+         * Sets the seed of the generator. The same seed always produces the same reviews.
+         *
+         * @param seed the seed
+         * @return this builder
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets the relative frequency of each rating.
+         *
+         * @param weights five non-negative weights, for the ratings 1 to 5
+         * @return this builder
+         */
+        public Builder ratingWeights(int... weights) {
+            long total = 0;
+            for (int weight : weights) {
+                if (weight < 0) {
+                    throw new IllegalArgumentException("negative rating weight: " + weight);
+                }
+                total += weight;
+            }
+            if (weights.length != 5 || total == 0) {
+                throw new IllegalArgumentException("expected five weights, not all zero");
+            }
+            this.ratingWeights = weights.clone();
+            return this;
+        }
+
+        /**
+         * Sets the range of the comment length. Comments are made of whole sentences,
+         * so they may be a few words longer than the drawn length.
+         *
+         * @param minWords the minimum number of words
+         * @param maxWords the maximum number of words
+         * @return this builder
+         */
+        public Builder commentLength(int minWords, int maxWords) {
+            if (minWords < 1 || maxWords < minWords) {
+                throw new IllegalArgumentException("invalid comment length: " + minWords + "-" + maxWords);
+            }
+            this.minCommentWords = minWords;
+            this.maxCommentWords = maxWords;
+            return this;
+        }
+
+        /**
+         * Creates the API.
+         *
+         * @return a new API
+         */
+        public SyntheticRestaurantApi build() {
+            return new SyntheticRestaurantApi(this);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.tajmahal.data.stream;
+
+/**
+ * What a stream does with the values produced faster than a subscriber consumes them.
+ *
+ * @see DataStream#observeOn(java.util.concurrent.Executor, BackpressureStrategy)
+ */
+public enum BackpressureStrategy {
+
+    /** Delivers every value, in order. Pending values are queued without limit. */
+    BUFFER,
+
+    /** Delivers only the latest value: a pending value is replaced by the next one. */
+    CONFLATE,
+
+    /** Delivers the values already pending and drops the new ones until the queue has room. */
+    DROP
+}
@@ -0,0 +1,326 @@
+package com.openclassrooms.tajmahal.data.stream;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Stream of values changing over time, such as the reviews or the statistics of a restaurant.
+ * <p>
+ * Unlike {@link LiveData}, a stream is not bound to the main thread: values are delivered
+ * synchronously on the thread that produced them, and {@link #observeOn(Executor, BackpressureStrategy)}
+ * moves the delivery to another executor with an explicit {@link BackpressureStrategy}.
+ * Operators such as {@link #map}, {@link #distinctUntilChanged()} and {@link #debounce} build new
+ * streams; {@link #toLiveData()} bridges a stream to the fragments.
+ * </p>
+ * <p>
+ * Like LiveData, streams never complete and never fail: they model the current state of a
+ * resource, and errors are handled by the code producing the values.
+ * </p>
+ *
+ * @param <T> the type of the values
+ */
+public abstract class DataStream<T> {
+
+    /**
+     * Starts delivering the values of the stream to a subscriber.
+     *
+     * @param subscriber the subscriber
+     * @return the subscription, to cancel the delivery
+     */
+    public abstract Subscription subscribe(Subscriber<? super T> subscriber);
+
+    // --- Operators ---
+
+    /**
+     * Transforms each value with a function.
+     *
+     * @param mapper the function, called on the delivering thread
+     * @param <R>    the type of the transformed values
+     * @return a stream of the transformed values
+     */
+    public <R> DataStream<R> map(final Function<? super T, ? extends R> mapper) {
+        final DataStream<T> upstream = this;
+        return new DataStream<R>() {
+            @Override
+            public Subscription subscribe(final Subscriber<? super R> subscriber) {
+                return upstream.subscribe(value -> subscriber.onNext(mapper.apply(value)));
+            }
+        };
+    }
+
+    /**
+     * Keeps only the values matching a predicate.
+     *
+     * @param predicate the predicate, called on the delivering thread
+     * @return a stream of the matching values
+     */
+    public DataStream<T> filter(final Predicate<? super T> predicate) {
+        final DataStream<T> upstream = this;
+        return new DataStream<T>() {
+            @Override
+            public Subscription subscribe(final Subscriber<? super T> subscriber) {
+                return upstream.subscribe(value -> {
+                    if (predicate.test(value)) {
+                        subscriber.onNext(value);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Skips the values equal to the previous one, so that subscribers only react to real changes.
+     *
+     * @return a stream without consecutive duplicates
+     */
+    public DataStream<T> distinctUntilChanged() {
+        final DataStream<T> upstream = this;
+        return new DataStream<T>() {
+            @Override
+            public Subscription subscribe(final Subscriber<? super T> subscriber) {
+                return upstream.subscribe(new Subscriber<T>() {
+                    private boolean first = true;
+                    private T last;
+
+                    @Override
+                    public synchronized void onNext(T value) {
+                        if (first || !Objects.equals(last, value)) {
+                            first = false;
+                            last = value;
+                            subscriber.onNext(value);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Delivers a value only once no other value followed it for a given delay, on the
+     * scheduler thread. Bursts of values, such as a batch import, collapse into their last value.
+     *
+     * @param delayMillis the quiet period, in milliseconds
+     * @param scheduler   the scheduler delivering the values
+     * @return a stream of the values followed by a quiet period
+     */
+    public DataStream<T> debounce(final long delayMillis, final ScheduledExecutorService scheduler) {
+        final DataStream<T> upstream = this;
+        return new DataStream<T>() {
+            @Override
+            public Subscription subscribe(final Subscriber<? super T> subscriber) {
+                final DebounceSubscriber<T> debouncer = new DebounceSubscriber<>(subscriber, delayMillis, scheduler);
+                final Subscription upstreamSubscription = upstream.subscribe(debouncer);
+                return () -> {
+                    upstreamSubscription.cancel();
+                    debouncer.cancel();
+                };
+            }
+        };
+    }
+
+    /**
+     * Delivers the values on an executor, queuing them without limit while the subscriber is busy.
+     *
+     * @param executor the executor delivering the values
+     * @param strategy what to do with the values produced faster than they are consumed
+     * @return a stream delivering on the executor
+     */
+    public DataStream<T> observeOn(Executor executor, BackpressureStrategy strategy) {
+        return observeOn(executor, strategy, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Delivers the values on an executor.
+     * <p>
+     * Each subscriber gets its own queue of pending values, drained by at most one task at a
+     * time, so values are delivered in order and never concurrently. The strategy decides what
+     * happens when values arrive faster than the subscriber consumes them.
+     * </p>
+     *
+     * @param executor the executor delivering the values
+     * @param strategy what to do with the values produced faster than they are consumed
+     * @param capacity the maximum number of pending values for {@link BackpressureStrategy#DROP}
+     * @return a stream delivering on the executor
+     */
+    public DataStream<T> observeOn(final Executor executor, final BackpressureStrategy strategy, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1");
+        }
+        final DataStream<T> upstream = this;
+        return new DataStream<T>() {
+            @Override
+            public Subscription subscribe(final Subscriber<? super T> subscriber) {
+                final ObserveOnSubscriber<T> queue = new ObserveOnSubscriber<>(subscriber, executor, strategy, capacity);
+                final Subscription upstreamSubscription = upstream.subscribe(queue);
+                return () -> {
+                    upstreamSubscription.cancel();
+                    queue.cancel();
+                };
+            }
+        };
+    }
+
+    // --- LiveData bridge ---
+
+    /**
+     * Bridges the stream to a LiveData for the fragments.
+     * <p>
+     * The LiveData subscribes to the stream while it has active observers, and posts each value
+     * to the main thread. Values posted faster than the main thread handles them are conflated
+     * into the latest one.
+     * </p>
+     *
+     * @return a LiveData following the stream
+     */
+    public LiveData<T> toLiveData() {
+        return new StreamLiveData<>(this);
+    }
+
+    // --- Implementations ---
+
+    /**
+     * LiveData subscribed to a stream while it is active.
+     */
+    private static final class StreamLiveData<T> extends LiveData<T> {
+
+        private final DataStream<T> stream;
+        private Subscription subscription;
+
+        StreamLiveData(DataStream<T> stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        protected void onActive() {
+            subscription = stream.subscribe(this::postValue);
+        }
+
+        @Override
+        protected void onInactive() {
+            if (subscription != null) {
+                subscription.cancel();
+                subscription = null;
+            }
+        }
+    }
+
+    /**
+     * Queue of the values waiting to be delivered on an executor.
+     */
+    private static final class ObserveOnSubscriber<T> implements Subscriber<T> {
+
+        private final Subscriber<? super T> downstream;
+        private final Executor executor;
+        private final BackpressureStrategy strategy;
+        private final int capacity;
+        private final ArrayDeque<T> pending = new ArrayDeque<>();
+        private final Runnable drain = this::drain;
+        private boolean draining;
+        private volatile boolean cancelled;
+
+        ObserveOnSubscriber(Subscriber<? super T> downstream, Executor executor,
+                            BackpressureStrategy strategy, int capacity) {
+            this.downstream = downstream;
+            this.executor = executor;
+            this.strategy = strategy;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void onNext(T value) {
+            if (value == null) {
+                throw new NullPointerException("streams do not deliver null values");
+            }
+            synchronized (this) {
+                if (cancelled) return;
+                switch (strategy) {
+                    case CONFLATE:
+                        pending.clear();
+                        pending.add(value);
+                        break;
+                    case DROP:
+                        if (pending.size() >= capacity) return;
+                        pending.add(value);
+                        break;
+                    case BUFFER:
+                    default:
+                        pending.add(value);
+                        break;
+                }
+                if (draining) return;
+                draining = true;
+            }
+            executor.execute(drain);
+        }
+
+        private void drain() {
+            while (true) {
+                T value;
+                synchronized (this) {
+                    value = cancelled ? null : pending.poll();
+                    if (value == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                downstream.onNext(value);
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            pending.clear();
+        }
+    }
+
+    /**
+     * Delivers the last value once no other value followed it for a delay.
+     */
+    private static final class DebounceSubscriber<T> implements Subscriber<T> {
+
+        private final Subscriber<? super T> downstream;
+        private final long delayMillis;
+        private final ScheduledExecutorService scheduler;
+        private ScheduledFuture<?> scheduled;
+        private boolean cancelled;
+
+        DebounceSubscriber(Subscriber<? super T> downstream, long delayMillis, ScheduledExecutorService scheduler) {
+            this.downstream = downstream;
+            this.delayMillis = delayMillis;
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public synchronized void onNext(final T value) {
+            if (cancelled) return;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            scheduled = scheduler.schedule(() -> deliver(value), delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void deliver(T value) {
+            synchronized (this) {
+                if (cancelled) return;
+                scheduled = null;
+            }
+            downstream.onNext(value);
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.openclassrooms.tajmahal.data.stream;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stream fed by the code owning a resource, which pushes each new state with {@link #emit}.
+ * <p>
+ * The source remembers its latest value and delivers it to each new subscriber, so late
+ * subscribers start from the current state instead of waiting for the next change.
+ * Values are delivered synchronously on the emitting thread: subscribers doing slow work
+ * should subscribe through {@link #observeOn(java.util.concurrent.Executor, BackpressureStrategy)}.
+ * </p>
+ * <p>
+ * This class is thread-safe. Emissions are serialized, so every subscriber sees the values in
+ * the order they were emitted.
+ * </p>
+ *
+ * @param <T> the type of the values
+ */
+public class StreamSource<T> extends DataStream<T> {
+
+    // --- Fields ---
+
+    private final CopyOnWriteArrayList<Subscriber<? super T>> subscribers = new CopyOnWriteArrayList<>();
+    private volatile T value;
+
+    // --- Emission ---
+
+    /**
+     * Stores a new value and delivers it to every subscriber.
+     *
+     * @param value the new value, not null
+     */
+    public synchronized void emit(T value) {
+        if (value == null) {
+            throw new NullPointerException("streams do not deliver null values");
+        }
+        this.value = value;
+        for (Subscriber<? super T> subscriber : subscribers) {
+            subscriber.onNext(value);
+        }
+    }
+
+    /**
+     * Returns the latest emitted value.
+     *
+     * @return the latest value, or null if nothing was emitted yet
+     */
+    public T getValue() {
+        return value;
+    }
+
+    // --- DataStream ---
+
+    @Override
+    public synchronized Subscription subscribe(final Subscriber<? super T> subscriber) {
+        subscribers.add(subscriber);
+        if (value != null) {
+            subscriber.onNext(value);
+        }
+        return () -> subscribers.remove(subscriber);
+    }
+}
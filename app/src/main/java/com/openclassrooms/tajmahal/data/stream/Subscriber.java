@@ -0,0 +1,16 @@
+package com.openclassrooms.tajmahal.data.stream;
+
+/**
+ * Receives the values of a {@link DataStream}.
+ *
+ * @param <T> the type of the values
+ */
+public interface Subscriber<T> {
+
+    /**
+     * Called for each value of the stream.
+     *
+     * @param value the new value
+     */
+    void onNext(T value);
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.tajmahal.data.stream;
+
+/**
+ * Link between a {@link DataStream} and one of its subscribers.
+ */
+public interface Subscription {
+
+    /**
+     * Stops the delivery of values to the subscriber.
+     * Values already being delivered may still arrive. Calling it twice has no effect.
+     */
+    void cancel();
+}
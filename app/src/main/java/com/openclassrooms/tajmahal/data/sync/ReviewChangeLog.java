@@ -0,0 +1,142 @@
+package com.openclassrooms.tajmahal.data.sync;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Server side of the review sync: remembers the last change of each review with an increasing
+ * sequence number, so that {@link #since(long)} answers with the changes after a cursor.
+ * <p>
+ * Changes are kept sorted by sequence number, and each review keeps only its last change, so a
+ * sync reads O(log n + k) entries for k changed reviews, whatever the history. Deletions are
+ * kept as tombstones, up to a maximum; the oldest ones are then forgotten and clients whose
+ * cursor predates them get a snapshot instead.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class ReviewChangeLog {
+
+    /** Number of deletions remembered by default. */
+    public static final int DEFAULT_MAX_TOMBSTONES = 10_000;
+
+    /**
+     * Last change of a review: its current version, or null once deleted.
+     */
+    private static final class Change {
+        final long id;
+        final Review review;
+
+        Change(long id, Review review) {
+            this.id = id;
+            this.review = review;
+        }
+    }
+
+    // --- Fields ---
+
+    private final int maxTombstones;
+    private final TreeMap<Long, Change> changesBySequence = new TreeMap<>();
+    private final Map<Long, Long> sequenceById = new HashMap<>();
+    // Sequence numbers of the deletions, oldest first, to forget them in order
+    private final TreeMap<Long, Long> tombstones = new TreeMap<>();
+    private long sequence;
+    // Cursors older than this one may miss forgotten deletions
+    private long horizon;
+
+    // --- Constructors ---
+
+    /**
+     * Constructs an empty log remembering {@link #DEFAULT_MAX_TOMBSTONES} deletions.
+     */
+    public ReviewChangeLog() {
+        this(DEFAULT_MAX_TOMBSTONES);
+    }
+
+    /**
+     * Constructs an empty log.
+     *
+     * @param maxTombstones the number of deletions remembered
+     */
+    public ReviewChangeLog(int maxTombstones) {
+        if (maxTombstones < 0) {
+            throw new IllegalArgumentException("maxTombstones must be >= 0");
+        }
+        this.maxTombstones = maxTombstones;
+    }
+
+    // --- Recording ---
+
+    /**
+     * Records that a review was added or edited.
+     *
+     * @param review the current version of the review, with its identifier
+     */
+    public void recordUpsert(Review review) {
+        record(new Change(review.getId(), review));
+    }
+
+    /**
+     * Records that a review was deleted.
+     *
+     * @param id the identifier of the review
+     */
+    public void recordDelete(long id) {
+        record(new Change(id, null));
+        tombstones.put(sequence, id);
+        while (tombstones.size() > maxTombstones) {
+            Map.Entry<Long, Long> oldest = tombstones.pollFirstEntry();
+            changesBySequence.remove(oldest.getKey());
+            sequenceById.remove(oldest.getValue());
+            horizon = oldest.getKey();
+        }
+    }
+
+    private void record(Change change) {
+        Long previous = sequenceById.put(change.id, ++sequence);
+        if (previous != null) {
+            changesBySequence.remove(previous);
+            tombstones.remove(previous);
+        }
+        changesBySequence.put(sequence, change);
+    }
+
+    // --- Queries ---
+
+    /**
+     * Returns the cursor of the latest change.
+     *
+     * @return the cursor, 0 if nothing was recorded yet
+     */
+    public long getCursor() {
+        return sequence;
+    }
+
+    /**
+     * Lists the changes after a cursor.
+     *
+     * @param cursor the cursor of the previous sync
+     * @return the changes, or null if the log cannot tell them and the client needs a snapshot
+     */
+    public ReviewDelta since(long cursor) {
+        if (cursor < horizon || cursor > sequence) {
+            return null;
+        }
+        List<Review> upserted = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        for (Change change : changesBySequence.tailMap(cursor, false).values()) {
+            if (change.review == null) {
+                deletedIds.add(change.id);
+            } else {
+                upserted.add(change.review);
+            }
+        }
+        return ReviewDelta.changes(upserted, deletedIds, sequence);
+    }
+}
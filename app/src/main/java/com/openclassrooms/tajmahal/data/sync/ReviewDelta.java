@@ -0,0 +1,145 @@
+package com.openclassrooms.tajmahal.data.sync;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Changes of the reviews since a cursor, as returned by
+ * {@link com.openclassrooms.tajmahal.data.service.RestaurantApi#getReviewsSince(long)}.
+ * <p>
+ * A delta lists the reviews added or edited since the cursor, in the order of the changes, and
+ * the identifiers of the deleted ones. When the server cannot tell what changed since the cursor,
+ * for example on the first sync or when its change log no longer goes back that far, it sends a
+ * snapshot instead: every review, newest first, which replaces the local ones.
+ * </p>
+ * <p>
+ * A snapshot may also carry base reviews, listed after the others: reviews too many to be
+ * mirrored on the device, which clients count in their statistics without keeping them, and
+ * read again page by page with
+ * {@link com.openclassrooms.tajmahal.data.service.RestaurantApi#queryReviews}. Deltas never
+ * change base reviews: the server answers with a new snapshot when they change.
+ * </p>
+ * <p>
+ * The cursor of the delta is passed to the next call, so that each sync only transfers what
+ * changed since the previous one.
+ * </p>
+ */
+public class ReviewDelta {
+
+    /** Cursor of a client that never synced; the server answers with a snapshot. */
+    public static final long NO_CURSOR = -1;
+
+    // --- Fields ---
+
+    private final boolean snapshot;
+    private final List<Review> reviews;
+    private final List<Review> baseReviews;
+    private final List<Long> deletedIds;
+    private final long cursor;
+
+    // --- Constructors ---
+
+    private ReviewDelta(boolean snapshot, List<Review> reviews, List<Review> baseReviews,
+                        List<Long> deletedIds, long cursor) {
+        this.snapshot = snapshot;
+        this.reviews = reviews;
+        this.baseReviews = baseReviews;
+        this.deletedIds = deletedIds;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Creates a delta of changes.
+     *
+     * @param upserted   the reviews added or edited since the cursor, oldest change first
+     * @param deletedIds the identifiers of the reviews deleted since the cursor
+     * @param cursor     the cursor to pass to the next sync
+     * @return the delta
+     */
+    public static ReviewDelta changes(List<Review> upserted, List<Long> deletedIds, long cursor) {
+        return new ReviewDelta(false, Collections.unmodifiableList(upserted), Collections.<Review>emptyList(),
+                Collections.unmodifiableList(deletedIds), cursor);
+    }
+
+    /**
+     * Creates a snapshot replacing every local review.
+     *
+     * @param reviews every review, newest first
+     * @param cursor  the cursor to pass to the next sync, or {@link #NO_CURSOR} if the
+     *                server keeps no change log and always answers with snapshots
+     * @return the snapshot
+     */
+    public static ReviewDelta snapshot(List<Review> reviews, long cursor) {
+        return snapshot(reviews, Collections.<Review>emptyList(), cursor);
+    }
+
+    /**
+     * Creates a snapshot replacing every local review, with base reviews to count but not mirror.
+     *
+     * @param reviews     the reviews to mirror, newest first
+     * @param baseReviews the base reviews, newest first, typically a lazy list
+     * @param cursor      the cursor to pass to the next sync
+     * @return the snapshot
+     */
+    public static ReviewDelta snapshot(List<Review> reviews, List<Review> baseReviews, long cursor) {
+        return new ReviewDelta(true, reviews, baseReviews, Collections.<Long>emptyList(), cursor);
+    }
+
+    // --- Getters ---
+
+    /**
+     * Tells whether this is a snapshot replacing every local review rather than a list of changes.
+     *
+     * @return true for a snapshot
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the reviews of a snapshot, or the reviews added or edited since the cursor.
+     *
+     * @return every review newest first for a snapshot, the upserted reviews oldest change first otherwise
+     */
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    /**
+     * Gets the base reviews of a snapshot, which come after {@link #getReviews()}.
+     *
+     * @return the base reviews, newest first, empty for a delta and for most snapshots
+     */
+    public List<Review> getBaseReviews() {
+        return baseReviews;
+    }
+
+    /**
+     * Gets the identifiers of the reviews deleted since the cursor.
+     *
+     * @return the deleted identifiers, empty for a snapshot
+     */
+    public List<Long> getDeletedIds() {
+        return deletedIds;
+    }
+
+    /**
+     * Gets the cursor to pass to the next sync.
+     *
+     * @return the new cursor
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Tells whether nothing changed since the cursor.
+     *
+     * @return true for a delta without any change
+     */
+    public boolean isEmpty() {
+        return !snapshot && reviews.isEmpty() && deletedIds.isEmpty();
+    }
+}
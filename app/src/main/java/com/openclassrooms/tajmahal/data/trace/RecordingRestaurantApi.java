@@ -0,0 +1,187 @@
+package com.openclassrooms.tajmahal.data.trace;
+
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link RestaurantApi} recording every call made to another API, with its timing, to a
+ * workload trace that {@link WorkloadReplayer} can re-run against any other API.
+ * <p>
+ * Calls are forwarded unchanged, and recorded when they end, even if they throw. Recording
+ * never fails a call: if the trace cannot be written, recording stops and the error is
+ * kept for {@link #getRecordingError()}.
+ * </p>
+ */
+public class RecordingRestaurantApi implements RestaurantApi, Closeable {
+
+    // --- Fields ---
+
+    private final RestaurantApi delegate;
+    private final WorkloadTraceWriter writer;
+    private volatile IOException recordingError;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a recorder.
+     *
+     * @param delegate the API to forward the calls to
+     * @param writer   the trace to record the calls to
+     */
+    public RecordingRestaurantApi(RestaurantApi delegate, WorkloadTraceWriter writer) {
+        this.delegate = delegate;
+        this.writer = writer;
+    }
+
+    // --- Recorded calls ---
+
+    @Override
+    public Restaurant getRestaurant() {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Restaurant restaurant = delegate.getRestaurant();
+            failed = false;
+            return restaurant;
+        } finally {
+            record(WorkloadCall.Operation.GET_RESTAURANT, start, failed, null, 0, null);
+        }
+    }
+
+    @Override
+    public List<Review> getReviews() {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<Review> reviews = delegate.getReviews();
+            failed = false;
+            return reviews;
+        } finally {
+            record(WorkloadCall.Operation.GET_REVIEWS, start, failed, null, 0, null);
+        }
+    }
+
+    @Override
+    public ReviewDelta getReviewsSince(long cursor) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ReviewDelta delta = delegate.getReviewsSince(cursor);
+            failed = false;
+            return delta;
+        } finally {
+            record(WorkloadCall.Operation.GET_REVIEWS_SINCE, start, failed, null, cursor, null);
+        }
+    }
+
+    @Override
+    public void addReview(Review review) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.addReview(review);
+            failed = false;
+        } finally {
+            // Recorded with the identifier assigned by the API, to replay later edits of the review
+            record(WorkloadCall.Operation.ADD_REVIEW, start, failed, Collections.singletonList(review), 0, null);
+        }
+    }
+
+    @Override
+    public void addReviews(List<Review> reviews) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.addReviews(reviews);
+            failed = false;
+        } finally {
+            record(WorkloadCall.Operation.ADD_REVIEWS, start, failed, reviews, 0, null);
+        }
+    }
+
+    @Override
+    public boolean updateReview(Review review) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean updated = delegate.updateReview(review);
+            failed = false;
+            return updated;
+        } finally {
+            record(WorkloadCall.Operation.UPDATE_REVIEW, start, failed, Collections.singletonList(review), 0, null);
+        }
+    }
+
+    @Override
+    public boolean deleteReview(long id) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean deleted = delegate.deleteReview(id);
+            failed = false;
+            return deleted;
+        } finally {
+            record(WorkloadCall.Operation.DELETE_REVIEW, start, failed, null, id, null);
+        }
+    }
+
+    @Override
+    public ReviewPage queryReviews(ReviewQuery query) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ReviewPage page = delegate.queryReviews(query);
+            failed = false;
+            return page;
+        } finally {
+            record(WorkloadCall.Operation.QUERY_REVIEWS, start, failed, null, 0, query);
+        }
+    }
+
+    // --- Recording ---
+
+    /**
+     * Gets the error that stopped the recording.
+     *
+     * @return the error, or null while the calls are recorded
+     */
+    public IOException getRecordingError() {
+        return recordingError;
+    }
+
+    /**
+     * Stops recording, and writes the calls not written yet. Calls are still forwarded afterwards.
+     *
+     * @throws IOException if the trace could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (recordingError == null) {
+            recordingError = new IOException("recording closed");
+            writer.close();
+        }
+    }
+
+    private void record(WorkloadCall.Operation operation, long start, boolean failed,
+                        List<Review> reviews, long argument, ReviewQuery query) {
+        if (recordingError != null) {
+            return;
+        }
+        long end = System.nanoTime();
+        try {
+            writer.write(new WorkloadCall(operation, start - writer.getStartNanos(), end - start,
+                    failed, reviews, argument, query));
+        } catch (IOException e) {
+            recordingError = e;
+        }
+    }
+}
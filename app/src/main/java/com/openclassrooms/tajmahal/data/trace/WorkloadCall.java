@@ -0,0 +1,133 @@
+package com.openclassrooms.tajmahal.data.trace;
+
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One recorded call of a {@link com.openclassrooms.tajmahal.data.service.RestaurantApi}: the
+ * operation, its arguments, when it started and how long it took.
+ * <p>
+ * Reviews read back from a trace keep the identifier, rating and date of the recorded ones, but
+ * their texts are placeholders of the same lengths: traces record the shape of the workload,
+ * not what customers wrote.
+ * </p>
+ */
+public final class WorkloadCall {
+
+    /**
+     * The recorded operations, one per method of the API.
+     */
+    public enum Operation {
+        GET_RESTAURANT,
+        GET_REVIEWS,
+        GET_REVIEWS_SINCE,
+        ADD_REVIEW,
+        ADD_REVIEWS,
+        UPDATE_REVIEW,
+        DELETE_REVIEW,
+        QUERY_REVIEWS
+    }
+
+    // --- Fields ---
+
+    private final Operation operation;
+    private final long startNanos;
+    private final long durationNanos;
+    private final boolean failed;
+    private final List<Review> reviews;
+    private final long argument;
+    private final ReviewQuery query;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a recorded call.
+     *
+     * @param operation     the operation
+     * @param startNanos    when the call started, in nanoseconds since the start of the trace
+     * @param durationNanos how long the call took, in nanoseconds
+     * @param failed        whether the call threw
+     * @param reviews       the reviews added or updated, as stored by the call; empty for the other operations
+     * @param argument      the cursor of {@link Operation#GET_REVIEWS_SINCE} or the identifier of
+     *                      {@link Operation#DELETE_REVIEW}; 0 for the other operations
+     * @param query         the query of {@link Operation#QUERY_REVIEWS}, null for the other operations
+     */
+    public WorkloadCall(Operation operation, long startNanos, long durationNanos, boolean failed,
+                        List<Review> reviews, long argument, ReviewQuery query) {
+        this.operation = operation;
+        this.startNanos = startNanos;
+        this.durationNanos = durationNanos;
+        this.failed = failed;
+        this.reviews = reviews == null ? Collections.<Review>emptyList() : reviews;
+        this.argument = argument;
+        this.query = query;
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the operation.
+     *
+     * @return the operation
+     */
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Gets when the call started.
+     *
+     * @return the start, in nanoseconds since the start of the trace
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Gets how long the call took.
+     *
+     * @return the duration, in nanoseconds
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Tells whether the call threw.
+     *
+     * @return true if the call threw
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the reviews added or updated.
+     *
+     * @return the reviews with the identifiers they were stored with, empty for the other operations
+     */
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    /**
+     * Gets the cursor synced from, or the identifier of the deleted review.
+     *
+     * @return the cursor or identifier, 0 for the other operations
+     */
+    public long getArgument() {
+        return argument;
+    }
+
+    /**
+     * Gets the query.
+     *
+     * @return the query, or null for the other operations
+     */
+    public ReviewQuery getQuery() {
+        return query;
+    }
+}
@@ -0,0 +1,143 @@
+package com.openclassrooms.tajmahal.data.trace;
+
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-runs a recorded workload trace against a {@link RestaurantApi}, and reports the latencies
+ * of the calls next to the recorded ones, so that storage engines can be compared on the
+ * workloads of real devices.
+ * <p>
+ * Calls are replayed in the order they were recorded, one at a time: back to back by default,
+ * or paced to start at their recorded offsets. Reviews added by the trace get the identifiers
+ * of the replayed API, and later edits and deletions of those reviews are redirected to them;
+ * syncs continue from the cursors returned by the replayed API. Reviews are replayed with
+ * placeholder texts of the recorded lengths.
+ * </p>
+ * <p>
+ * This class is not thread-safe; use a replayer for a single replay.
+ * </p>
+ */
+public class WorkloadReplayer {
+
+    // --- Fields ---
+
+    private final RestaurantApi target;
+    private final boolean paced;
+    // Recorded identifier of the reviews added by the trace -> identifier in the target
+    private final Map<Long, Long> replayedIds = new HashMap<>();
+    private long cursor = ReviewDelta.NO_CURSOR;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a replayer.
+     *
+     * @param target the API to replay the calls against
+     * @param paced  true to start the calls at their recorded offsets, false to replay them back to back
+     */
+    public WorkloadReplayer(RestaurantApi target, boolean paced) {
+        this.target = target;
+        this.paced = paced;
+    }
+
+    // --- Replay ---
+
+    /**
+     * Replays every call of a trace. Calls throwing are counted as failed, and the replay goes on.
+     * An interrupted paced replay stops early, with the calls already replayed.
+     *
+     * @param trace the trace
+     * @return the latencies of the replayed calls
+     * @throws IOException if the trace could not be read
+     */
+    public WorkloadReport replay(WorkloadTraceReader trace) throws IOException {
+        WorkloadReport report = new WorkloadReport();
+        long replayStart = System.nanoTime();
+        WorkloadCall call;
+        while ((call = trace.read()) != null) {
+            if (paced) {
+                long wait = call.getStartNanos() - (System.nanoTime() - replayStart);
+                if (wait > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                execute(call);
+            } catch (RuntimeException e) {
+                failed = true;
+            }
+            report.add(call, System.nanoTime() - start, failed);
+        }
+        report.setElapsedNanos(System.nanoTime() - replayStart);
+        return report;
+    }
+
+    private void execute(WorkloadCall call) {
+        switch (call.getOperation()) {
+            case GET_RESTAURANT:
+                target.getRestaurant();
+                break;
+            case GET_REVIEWS:
+                target.getReviews();
+                break;
+            case GET_REVIEWS_SINCE:
+                long since = call.getArgument() == ReviewDelta.NO_CURSOR ? ReviewDelta.NO_CURSOR : cursor;
+                cursor = target.getReviewsSince(since).getCursor();
+                break;
+            case ADD_REVIEW:
+                Review added = unstored(call.getReviews().get(0));
+                target.addReview(added);
+                replayedIds.put(call.getReviews().get(0).getId(), added.getId());
+                break;
+            case ADD_REVIEWS:
+                List<Review> batch = new ArrayList<>(call.getReviews().size());
+                for (Review review : call.getReviews()) {
+                    batch.add(unstored(review));
+                }
+                target.addReviews(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    replayedIds.put(call.getReviews().get(i).getId(), batch.get(i).getId());
+                }
+                break;
+            case UPDATE_REVIEW:
+                Review updated = call.getReviews().get(0);
+                target.updateReview(new Review(replayedId(updated.getId()), updated.getUsername(),
+                        updated.getPicture(), updated.getComment(), updated.getRate(), updated.getCreatedAt()));
+                break;
+            case DELETE_REVIEW:
+                target.deleteReview(replayedId(call.getArgument()));
+                break;
+            case QUERY_REVIEWS:
+                target.queryReviews(call.getQuery());
+                break;
+        }
+    }
+
+    // Copy to be stored by the target, which assigns its own identifier
+    private static Review unstored(Review review) {
+        return new Review(0, review.getUsername(), review.getPicture(), review.getComment(),
+                review.getRate(), review.getCreatedAt());
+    }
+
+    // Reviews not added by the trace existed before it, with the same identifier
+    private long replayedId(long recordedId) {
+        Long id = replayedIds.get(recordedId);
+        return id == null ? recordedId : id;
+    }
+}
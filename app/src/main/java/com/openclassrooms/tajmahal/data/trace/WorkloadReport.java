@@ -0,0 +1,224 @@
+package com.openclassrooms.tajmahal.data.trace;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latencies of the calls of a replayed trace, per operation, next to the latencies recorded
+ * in the trace, to compare an API with the one the workload was recorded on.
+ */
+public class WorkloadReport {
+
+    /**
+     * Latency percentiles of a set of calls.
+     */
+    public static final class Latencies {
+        private final int count;
+        private final int failures;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        private Latencies(long[] sorted, int failures) {
+            this.count = sorted.length;
+            this.failures = failures;
+            this.p50Nanos = percentile(sorted, 0.50);
+            this.p90Nanos = percentile(sorted, 0.90);
+            this.p99Nanos = percentile(sorted, 0.99);
+            this.maxNanos = sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+
+        private static long percentile(long[] sorted, double rank) {
+            return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (rank * sorted.length))];
+        }
+
+        /**
+         * Gets the number of calls.
+         *
+         * @return the number of calls, failed ones included
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the number of calls that threw.
+         *
+         * @return the number of failed calls
+         */
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * Gets the median latency.
+         *
+         * @return the median, in nanoseconds
+         */
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        /**
+         * Gets the 90th percentile of the latencies.
+         *
+         * @return the 90th percentile, in nanoseconds
+         */
+        public long getP90Nanos() {
+            return p90Nanos;
+        }
+
+        /**
+         * Gets the 99th percentile of the latencies.
+         *
+         * @return the 99th percentile, in nanoseconds
+         */
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        /**
+         * Gets the slowest latency.
+         *
+         * @return the maximum, in nanoseconds
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+
+    // Growable list of durations
+    private static final class Samples {
+        long[] durations = new long[16];
+        int size;
+        int failures;
+
+        void add(long durationNanos, boolean failed) {
+            if (size == durations.length) {
+                durations = Arrays.copyOf(durations, size * 2);
+            }
+            durations[size++] = durationNanos;
+            if (failed) {
+                failures++;
+            }
+        }
+
+        Latencies summarize() {
+            long[] sorted = Arrays.copyOf(durations, size);
+            Arrays.sort(sorted);
+            return new Latencies(sorted, failures);
+        }
+    }
+
+    // --- Fields ---
+
+    private final Map<WorkloadCall.Operation, Samples> recorded = new EnumMap<>(WorkloadCall.Operation.class);
+    private final Map<WorkloadCall.Operation, Samples> replayed = new EnumMap<>(WorkloadCall.Operation.class);
+    private final Samples recordedTotal = new Samples();
+    private final Samples replayedTotal = new Samples();
+    private long elapsedNanos;
+
+    // --- Building ---
+
+    /**
+     * Adds a replayed call.
+     *
+     * @param call          the call, as recorded
+     * @param durationNanos how long the replayed call took
+     * @param failed        whether the replayed call threw
+     */
+    void add(WorkloadCall call, long durationNanos, boolean failed) {
+        samples(recorded, call.getOperation()).add(call.getDurationNanos(), call.isFailed());
+        samples(replayed, call.getOperation()).add(durationNanos, failed);
+        recordedTotal.add(call.getDurationNanos(), call.isFailed());
+        replayedTotal.add(durationNanos, failed);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    private static Samples samples(Map<WorkloadCall.Operation, Samples> map, WorkloadCall.Operation operation) {
+        Samples samples = map.get(operation);
+        if (samples == null) {
+            samples = new Samples();
+            map.put(operation, samples);
+        }
+        return samples;
+    }
+
+    // --- Results ---
+
+    /**
+     * Gets the latencies of an operation in the trace.
+     *
+     * @param operation the operation, or null for every call
+     * @return the recorded latencies, or null if the trace has no such call
+     */
+    public Latencies getRecorded(WorkloadCall.Operation operation) {
+        Samples samples = operation == null ? recordedTotal : recorded.get(operation);
+        return samples == null ? null : samples.summarize();
+    }
+
+    /**
+     * Gets the latencies of an operation during the replay.
+     *
+     * @param operation the operation, or null for every call
+     * @return the replayed latencies, or null if the trace has no such call
+     */
+    public Latencies getReplayed(WorkloadCall.Operation operation) {
+        Samples samples = operation == null ? replayedTotal : replayed.get(operation);
+        return samples == null ? null : samples.summarize();
+    }
+
+    /**
+     * Gets the number of replayed calls.
+     *
+     * @return the call count
+     */
+    public int getCallCount() {
+        return replayedTotal.size;
+    }
+
+    /**
+     * Gets how long the replay took, waits between paced calls included.
+     *
+     * @return the duration, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Formats the report as a table, one line per operation and one for every call, with the
+     * recorded then replayed percentiles in milliseconds.
+     *
+     * @return the table
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%d calls replayed in %.1f s%n", getCallCount(), elapsedNanos / 1e9));
+        out.append(String.format(Locale.ROOT, "%-18s %8s %6s | %33s | %33s%n", "operation", "calls", "failed",
+                "recorded p50 / p90 / p99 / max ms", "replayed p50 / p90 / p99 / max ms"));
+        for (WorkloadCall.Operation operation : WorkloadCall.Operation.values()) {
+            if (replayed.containsKey(operation)) {
+                appendLine(out, operation.name(), getRecorded(operation), getReplayed(operation));
+            }
+        }
+        appendLine(out, "ALL", getRecorded(null), getReplayed(null));
+        return out.toString();
+    }
+
+    private static void appendLine(StringBuilder out, String name, Latencies recorded, Latencies replayed) {
+        out.append(String.format(Locale.ROOT, "%-18s %8d %6d | %s | %s%n", name, replayed.getCount(),
+                replayed.getFailures(), percentiles(recorded), percentiles(replayed)));
+    }
+
+    private static String percentiles(Latencies latencies) {
+        return String.format(Locale.ROOT, "%7.2f / %7.2f / %7.2f / %7.2f", latencies.getP50Nanos() / 1e6,
+                latencies.getP90Nanos() / 1e6, latencies.getP99Nanos() / 1e6, latencies.getMaxNanos() / 1e6);
+    }
+}
@@ -0,0 +1,186 @@
+package com.openclassrooms.tajmahal.data.trace;
+
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the calls of a trace written by {@link WorkloadTraceWriter}, in the order they were written.
+ * <p>
+ * A trace cut in the middle of a record, by a process that died while recording, ends with its
+ * last complete call. This class is not thread-safe.
+ * </p>
+ */
+public class WorkloadTraceReader implements Closeable {
+
+    private static final WorkloadCall.Operation[] OPERATIONS = WorkloadCall.Operation.values();
+    private static final ReviewSortOrder[] SORT_ORDERS = ReviewSortOrder.values();
+
+    // --- Fields ---
+
+    private final DataInputStream in;
+    private final long startMillis;
+    private long previousStartMicros;
+
+    // --- Constructor ---
+
+    /**
+     * Opens a trace.
+     *
+     * @param stream the stream to read the trace from, closed with the reader
+     * @throws IOException if the stream does not start with the header of a trace of this version
+     */
+    public WorkloadTraceReader(InputStream stream) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(stream));
+        try {
+            if (in.readInt() != WorkloadTraceWriter.MAGIC) {
+                throw new IOException("not a workload trace");
+            }
+            int version = in.readInt();
+            if (version != WorkloadTraceWriter.FORMAT_VERSION) {
+                throw new IOException("unsupported workload trace version " + version);
+            }
+            startMillis = in.readLong();
+        } catch (EOFException e) {
+            throw new IOException("truncated workload trace header", e);
+        }
+    }
+
+    // --- Reading ---
+
+    /**
+     * Gets the date the trace was started.
+     *
+     * @return the start, in milliseconds since the epoch
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Reads the next call.
+     *
+     * @return the call, or null at the end of the trace
+     * @throws IOException if the trace could not be read or is corrupted
+     */
+    public WorkloadCall read() throws IOException {
+        int header = in.read();
+        if (header < 0) {
+            return null;
+        }
+        int ordinal = header & ~WorkloadTraceWriter.FAILED_FLAG;
+        if (ordinal >= OPERATIONS.length) {
+            throw new IOException("unknown operation " + ordinal);
+        }
+        WorkloadCall.Operation operation = OPERATIONS[ordinal];
+        try {
+            long startMicros = previousStartMicros + readSignedVarLong();
+            long durationMicros = readVarLong();
+            List<Review> reviews = null;
+            long argument = 0;
+            ReviewQuery query = null;
+            switch (operation) {
+                case GET_REVIEWS_SINCE:
+                case DELETE_REVIEW:
+                    argument = readSignedVarLong();
+                    break;
+                case ADD_REVIEW:
+                case ADD_REVIEWS:
+                case UPDATE_REVIEW:
+                    int count = (int) readVarLong();
+                    reviews = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        reviews.add(readReview());
+                    }
+                    break;
+                case QUERY_REVIEWS:
+                    query = readQuery();
+                    break;
+                default:
+                    break;
+            }
+            previousStartMicros = startMicros;
+            return new WorkloadCall(operation, startMicros * 1000, durationMicros * 1000,
+                    (header & WorkloadTraceWriter.FAILED_FLAG) != 0, reviews, argument, query);
+        } catch (EOFException e) {
+            // Last record cut by the end of the recording
+            return null;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("corrupted query in workload trace", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Review readReview() throws IOException {
+        long id = readSignedVarLong();
+        int rate = in.readByte();
+        long createdAt = startMillis + readSignedVarLong();
+        String username = placeholder((int) readVarLong());
+        String picture = placeholder((int) readVarLong());
+        String comment = placeholder((int) readVarLong());
+        return new Review(id, username, picture, comment, rate, createdAt);
+    }
+
+    private ReviewQuery readQuery() throws IOException {
+        int minRating = in.readByte();
+        int maxRating = in.readByte();
+        int sortOrder = in.readUnsignedByte();
+        int offset = (int) readVarLong();
+        int limit = (int) readVarLong();
+        String author = readOptionalText();
+        String text = readOptionalText();
+        if (sortOrder >= SORT_ORDERS.length) {
+            throw new IOException("unknown sort order " + sortOrder);
+        }
+        return new ReviewQuery.Builder()
+                .ratingBetween(minRating, maxRating)
+                .sortBy(SORT_ORDERS[sortOrder])
+                .page(offset, limit)
+                .author(author)
+                .textContains(text)
+                .build();
+    }
+
+    private String readOptionalText() throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static String placeholder(int length) {
+        char[] text = new char[length];
+        Arrays.fill(text, 'x');
+        return new String(text);
+    }
+
+    // --- Variable-length numbers ---
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed number in workload trace");
+    }
+
+    private long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
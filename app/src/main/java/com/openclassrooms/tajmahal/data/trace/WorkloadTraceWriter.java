@@ -0,0 +1,167 @@
+package com.openclassrooms.tajmahal.data.trace;
+
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes {@link WorkloadCall}s to a compact binary trace, read back by {@link WorkloadTraceReader}.
+ * <p>
+ * The trace starts with a header holding its start date, then holds one record per call: the
+ * operation, the start of the call relative to the previous one and its duration in
+ * microseconds, then the arguments. Numbers are variable-length, so most calls take a few bytes,
+ * and review texts are recorded by length only. Records are buffered and flushed every
+ * {@value #FLUSH_INTERVAL} calls: if the process dies, the trace ends with the last flushed calls.
+ * </p>
+ * <p>
+ * This class is thread-safe: calls recorded concurrently are written one after the other.
+ * </p>
+ */
+public class WorkloadTraceWriter implements Closeable {
+
+    // "TJWT", then a version incremented when the layout of the records changes
+    static final int MAGIC = 0x544A5754;
+    static final int FORMAT_VERSION = 1;
+    // Set on the operation byte of the calls that threw
+    static final int FAILED_FLAG = 0x80;
+
+    private static final int FLUSH_INTERVAL = 256;
+
+    // --- Fields ---
+
+    private final DataOutputStream out;
+    private final long startMillis;
+    private final long startNanos;
+    private long previousStartMicros;
+    private int unflushed;
+
+    // --- Constructor ---
+
+    /**
+     * Starts a trace, now.
+     *
+     * @param stream the stream to write the trace to, closed with the writer
+     * @throws IOException if the header could not be written
+     */
+    public WorkloadTraceWriter(OutputStream stream) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream));
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(startMillis);
+    }
+
+    // --- Writing ---
+
+    /**
+     * Gets the start of the trace, the origin of the start of the calls.
+     *
+     * @return the start, in the time base of {@link System#nanoTime()}
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Appends a call to the trace.
+     *
+     * @param call the call
+     * @throws IOException if the call could not be written
+     */
+    public synchronized void write(WorkloadCall call) throws IOException {
+        WorkloadCall.Operation operation = call.getOperation();
+        out.writeByte(operation.ordinal() | (call.isFailed() ? FAILED_FLAG : 0));
+        long startMicros = call.getStartNanos() / 1000;
+        // Calls are written when they end: concurrent ones may go back in time
+        writeSignedVarLong(startMicros - previousStartMicros);
+        previousStartMicros = startMicros;
+        writeVarLong(Math.max(0, call.getDurationNanos() / 1000));
+
+        switch (operation) {
+            case GET_REVIEWS_SINCE:
+            case DELETE_REVIEW:
+                writeSignedVarLong(call.getArgument());
+                break;
+            case ADD_REVIEW:
+            case ADD_REVIEWS:
+            case UPDATE_REVIEW:
+                writeVarLong(call.getReviews().size());
+                for (Review review : call.getReviews()) {
+                    writeReview(review);
+                }
+                break;
+            case QUERY_REVIEWS:
+                writeQuery(call.getQuery());
+                break;
+            default:
+                break;
+        }
+
+        if (++unflushed == FLUSH_INTERVAL) {
+            out.flush();
+            unflushed = 0;
+        }
+    }
+
+    /**
+     * Writes the buffered calls and closes the stream.
+     *
+     * @throws IOException if the calls could not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void writeReview(Review review) throws IOException {
+        writeSignedVarLong(review.getId());
+        out.writeByte(review.getRate());
+        writeSignedVarLong(review.getCreatedAt() - startMillis);
+        writeVarLong(length(review.getUsername()));
+        writeVarLong(length(review.getPicture()));
+        writeVarLong(length(review.getComment()));
+    }
+
+    private void writeQuery(ReviewQuery query) throws IOException {
+        out.writeByte(query.getMinRating());
+        out.writeByte(query.getMaxRating());
+        out.writeByte(query.getSortOrder().ordinal());
+        writeVarLong(query.getOffset());
+        writeVarLong(query.getLimit());
+        // Filters change the access path: their texts are kept
+        writeOptionalText(query.getAuthor());
+        writeOptionalText(query.getText());
+    }
+
+    private void writeOptionalText(String text) throws IOException {
+        out.writeBoolean(text != null);
+        if (text != null) {
+            out.writeUTF(text);
+        }
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+
+    // --- Variable-length numbers ---
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    // Zigzag encoding: small negative numbers, such as NO_CURSOR, stay short
+    private void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+}
@@ -1,13 +1,36 @@
 package com.openclassrooms.tajmahal.di;
 
+import android.content.Context;
+import android.util.Log;
+
+import com.openclassrooms.tajmahal.BuildConfig;
+import com.openclassrooms.tajmahal.data.scheduler.MainThreadExecutor;
+import com.openclassrooms.tajmahal.data.scheduler.MeteredExecutor;
+import com.openclassrooms.tajmahal.data.scheduler.NamedThreadFactory;
+import com.openclassrooms.tajmahal.data.scheduler.PrioritizedExecutor;
+import com.openclassrooms.tajmahal.data.service.HttpRestaurantApi;
 import com.openclassrooms.tajmahal.data.service.RestaurantApi;
 import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.data.service.SyntheticRestaurantApi;
+import com.openclassrooms.tajmahal.data.trace.RecordingRestaurantApi;
+import com.openclassrooms.tajmahal.data.trace.WorkloadTraceWriter;
+import com.openclassrooms.tajmahal.domain.model.BayesianPrior;
+import com.openclassrooms.tajmahal.domain.ranking.RestaurantRanking;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
 import dagger.hilt.InstallIn;
+import dagger.hilt.android.qualifiers.ApplicationContext;
 import dagger.hilt.components.SingletonComponent;
 
 /**
@@ -20,16 +43,114 @@ import dagger.hilt.components.SingletonComponent;
 @InstallIn(SingletonComponent.class)
 public class AppModule {
 
+    private static final String TAG = "AppModule";
+
+    // Number of venues kept in each leaderboard.
+    private static final int LEADERBOARD_SIZE = 10;
+
+    // A venue is ranked as if it had 10 extra reviews rated 3.5.
+    private static final float RANKING_PRIOR_MEAN = 3.5f;
+    private static final float RANKING_PRIOR_WEIGHT = 10f;
+
+    // I/O threads mostly wait on the network or the disk.
+    private static final int IO_THREADS = 4;
+
     /**
      * Provides a singleton instance of the RestaurantApi. In this example,
      * a fake implementation of the API is being used, which can be helpful
      * during testing or mock scenarios.
+     * <p>
+     * Builds made with {@code -PsyntheticReviews=N} serve N generated reviews instead,
+     * to profile the app at production-like volumes, and builds made with
+     * {@code -PreviewServer=URL} call the review server of the server module over HTTP.
+     * Builds made with {@code -PrecordWorkload=true} also record every call to a workload
+     * trace in {@code files/traces}, to replay it on the JVM with the server module.
+     * </p>
+     *
+     * @param context the application context, where workload traces are written
+     * @return A singleton instance of the RestaurantFakeApi, SyntheticRestaurantApi or HttpRestaurantApi.
+     */
+    @Provides
+    @Singleton
+    public RestaurantApi provideRestaurantApi(@ApplicationContext Context context) {
+        RestaurantApi api;
+        if (!BuildConfig.REVIEW_SERVER_URL.isEmpty()) {
+            api = new HttpRestaurantApi(BuildConfig.REVIEW_SERVER_URL);
+        } else if (BuildConfig.SYNTHETIC_REVIEW_COUNT > 0) {
+            api = new SyntheticRestaurantApi.Builder(BuildConfig.SYNTHETIC_REVIEW_COUNT).build();
+        } else {
+            api = new RestaurantFakeApi();
+        }
+        if (BuildConfig.RECORD_WORKLOAD) {
+            File traces = new File(context.getFilesDir(), "traces");
+            File trace = new File(traces, "workload-" + System.currentTimeMillis() + ".trace");
+            try {
+                if (!traces.isDirectory() && !traces.mkdirs()) {
+                    throw new IOException("could not create " + traces);
+                }
+                return new RecordingRestaurantApi(api, new WorkloadTraceWriter(new FileOutputStream(trace)));
+            } catch (IOException e) {
+                Log.w(TAG, "Could not start recording the workload", e);
+            }
+        }
+        return api;
+    }
+
+    /**
+     * Provides the cross-venue ranking shared by the whole app.
+     * Scores are smoothed with a Bayesian prior so that venues with few reviews
+     * do not dominate the leaderboards.
+     *
+     * @return A singleton instance of the RestaurantRanking.
+     */
+    @Provides
+    @Singleton
+    public RestaurantRanking provideRestaurantRanking() {
+        return new RestaurantRanking(LEADERBOARD_SIZE,
+                new BayesianPrior(RANKING_PRIOR_MEAN, RANKING_PRIOR_WEIGHT));
+    }
+
+    // --- Executors ---
+
+    /**
+     * Provides the executor running tasks on the main thread.
+     *
+     * @return A singleton executor posting to the main thread, with queue metrics.
+     */
+    @Provides
+    @Singleton
+    @MainExecutor
+    public Executor provideMainExecutor() {
+        return new MeteredExecutor("main", new MainThreadExecutor());
+    }
+
+    /**
+     * Provides the executor for blocking I/O. Its threads mostly wait, so the pool is
+     * sized independently of the CPU count, and idle threads stop after a while.
+     *
+     * @return A singleton bounded I/O pool, with queue metrics.
+     */
+    @Provides
+    @Singleton
+    @IoExecutor
+    public Executor provideIoExecutor() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("io"));
+        pool.allowCoreThreadTimeOut(true);
+        return new MeteredExecutor("io", pool);
+    }
+
+    /**
+     * Provides the pool for CPU-bound work. One core is left to the main thread, and
+     * user-visible tasks are served before background ones.
      *
-     * @return A singleton instance of the RestaurantFakeApi.
+     * @return A singleton prioritized compute pool.
      */
     @Provides
     @Singleton
-    public RestaurantApi provideRestaurantApi() {
-        return new RestaurantFakeApi();
+    @ComputeExecutor
+    public PrioritizedExecutor provideComputeExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        return new PrioritizedExecutor("compute", threads);
     }
 }
@@ -0,0 +1,17 @@
+package com.openclassrooms.tajmahal.di;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import javax.inject.Qualifier;
+
+/**
+ * Qualifies the {@link com.openclassrooms.tajmahal.data.scheduler.PrioritizedExecutor} dedicated to
+ * CPU-bound work, shared by user-visible and background tasks.
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ComputeExecutor {
+}
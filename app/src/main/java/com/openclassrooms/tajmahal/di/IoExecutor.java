@@ -0,0 +1,16 @@
+package com.openclassrooms.tajmahal.di;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import javax.inject.Qualifier;
+
+/**
+ * Qualifies the executor dedicated to blocking I/O, such as network calls, disk reads and writes.
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+public @interface IoExecutor {
+}
@@ -0,0 +1,75 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+/**
+ * Prior used to smooth an average rating towards a reference value.
+ * <p>
+ * A Bayesian average behaves as if {@code weight} extra reviews rated {@code mean} had been
+ * added to the real ones. A restaurant with a single 5-star review therefore stays close to
+ * the prior, while a restaurant with hundreds of reviews keeps its own average.
+ * </p>
+ * <p>
+ * Example: with a prior of 3.5 and a weight of 10, one 5-star review gives
+ * {@code (3.5 * 10 + 5) / (10 + 1) = 3.64}.
+ * </p>
+ */
+public class BayesianPrior {
+
+    // --- Fields ---
+
+    private final float mean;
+    private final float weight;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a new BayesianPrior.
+     *
+     * @param mean   the rating assumed before any review is known (1-5)
+     * @param weight the number of virtual reviews the prior is worth, must not be negative
+     */
+    public BayesianPrior(float mean, float weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative: " + weight);
+        }
+        this.mean = mean;
+        this.weight = weight;
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the prior mean rating.
+     *
+     * @return the prior mean
+     */
+    public float getMean() {
+        return mean;
+    }
+
+    /**
+     * Gets the weight of the prior, expressed as a number of virtual reviews.
+     *
+     * @return the prior weight
+     */
+    public float getWeight() {
+        return weight;
+    }
+
+    // --- Scoring ---
+
+    /**
+     * Computes the smoothed average from a rating sum and a review count.
+     * Runs in O(1), so it can be evaluated on every update.
+     *
+     * @param ratingSum the sum of all ratings
+     * @param count     the number of ratings in the sum
+     * @return the Bayesian average, or the prior mean when there is nothing to smooth
+     */
+    public float average(double ratingSum, int count) {
+        double denominator = weight + count;
+        if (denominator == 0) {
+            return mean;
+        }
+        return (float) ((mean * weight + ratingSum) / denominator);
+    }
+}
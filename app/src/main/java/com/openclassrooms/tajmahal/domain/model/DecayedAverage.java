@@ -0,0 +1,127 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+/**
+ * Average of timestamped values where each value loses half of its weight every half-life,
+ * maintained in O(1) per added or removed value.
+ * <p>
+ * This is forward decay: a value observed at time {@code t} gets the weight
+ * {@code 2^((t - landmark) / halfLife)}, which grows with {@code t} instead of shrinking with
+ * the age of the value. The ratio between two weights only depends on the time between the two
+ * values, so the weighted average equals the classic exponentially decayed average at any query
+ * time, while the sums never have to be decayed again when time passes. When new values push the
+ * weights too high, the landmark moves forward and both sums are scaled down once.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class DecayedAverage {
+
+    // Weight exponent (in half-lives) above which the landmark moves forward, well below the
+    // 1023 limit of doubles so that sums of many values cannot overflow
+    private static final double MAX_EXPONENT = 512;
+
+    // --- Fields ---
+
+    private final double halfLifeMillis;
+    private long landmark;
+    private boolean landmarkSet;
+    private double weightedSum;
+    private double weightSum;
+    private int count;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs an empty average.
+     *
+     * @param halfLifeMillis the time after which a value weighs half as much as a new one, in milliseconds
+     */
+    public DecayedAverage(long halfLifeMillis) {
+        if (halfLifeMillis <= 0) {
+            throw new IllegalArgumentException("halfLifeMillis must be > 0");
+        }
+        this.halfLifeMillis = halfLifeMillis;
+    }
+
+    // --- Updates ---
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @param time  the time of the value, in milliseconds since the epoch
+     */
+    public void add(double value, long time) {
+        if (!landmarkSet) {
+            landmark = time;
+            landmarkSet = true;
+        }
+        double exponent = (time - landmark) / halfLifeMillis;
+        if (exponent > MAX_EXPONENT) {
+            moveLandmark(time);
+            exponent = 0;
+        }
+        double weight = Math.pow(2, exponent);
+        weightedSum += weight * value;
+        weightSum += weight;
+        count++;
+    }
+
+    /**
+     * Removes a value previously added with the same time.
+     *
+     * @param value the value
+     * @param time  the time the value was added with
+     */
+    public void remove(double value, long time) {
+        if (count == 0) {
+            throw new IllegalStateException("no value to remove");
+        }
+        if (--count == 0) {
+            // Start again from exact zeros rather than from rounding errors
+            clear();
+            return;
+        }
+        double weight = Math.pow(2, (time - landmark) / halfLifeMillis);
+        weightedSum -= weight * value;
+        weightSum -= weight;
+    }
+
+    /**
+     * Removes every value.
+     */
+    public void clear() {
+        landmarkSet = false;
+        weightedSum = 0;
+        weightSum = 0;
+        count = 0;
+    }
+
+    // --- Reads ---
+
+    /**
+     * Gets the decayed average.
+     *
+     * @return the average, weighted towards the most recent values, or 0 if there is no value
+     */
+    public double getValue() {
+        return count == 0 || weightSum <= 0 ? 0 : weightedSum / weightSum;
+    }
+
+    /**
+     * Gets the number of values in the average.
+     *
+     * @return the value count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private void moveLandmark(long newLandmark) {
+        double scale = Math.pow(2, -(newLandmark - landmark) / halfLifeMillis);
+        weightedSum *= scale;
+        weightSum *= scale;
+        landmark = newLandmark;
+    }
+}
@@ -0,0 +1,347 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Rating distribution that several devices update offline and merge without coordination,
+ * from which {@link ReviewStats} are derived.
+ * <p>
+ * Each rating bucket is a PN-counter, a conflict-free replicated data type: every device only
+ * increments its own added and removed counts, and a merge keeps, for each device, the largest
+ * counts known. Merging is therefore commutative, associative and idempotent: devices can
+ * exchange their counters in any order, any number of times, and all end up with the same
+ * distribution, each review counted once. A merge costs O(buckets × devices).
+ * </p>
+ * <p>
+ * The recent average is kept the same way, as per-device sums of forward-decay weights (see
+ * {@link DecayedAverage}) relative to a fixed landmark, which also only grow. The encoded
+ * counters take {@value #BYTES_PER_DEVICE} bytes per device plus its identifier, a few hundred
+ * bytes for a venue, instead of its review list.
+ * </p>
+ * <p>
+ * A bucket may be uncounted more than it was counted, when a device removes a review counted
+ * by a device whose counters it has not merged yet, or one counted by no device: such buckets
+ * read as empty until the missing counts are merged.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class RatingCounters {
+
+    // Ratings 1-5, then reviews whose rating is invalid: counted, but not in the averages
+    private static final int RATINGS = 5;
+    private static final int BUCKETS = RATINGS + 1;
+
+    // Forward-decay landmark shared by every device: 2020-01-01T00:00:00Z. Weights double every
+    // half-life since then: with half-lives of a month or more, they stay far from the limits of
+    // doubles for decades
+    private static final long DECAY_LANDMARK_MILLIS = 1_577_836_800_000L;
+
+    /** Shortest half-life of the recent average: 30 days. */
+    public static final long MIN_HALF_LIFE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    // Incremented when the encoding changes; counters of another version are rejected
+    private static final int FORMAT_VERSION = 1;
+
+    /** Encoded size of the counters of one device, without its identifier. */
+    public static final int BYTES_PER_DEVICE = 2 * BUCKETS * 8 + 2 * RATINGS * 8;
+
+    /**
+     * Counters of one device, which only grow.
+     */
+    private static final class DeviceCounters {
+        final long[] added = new long[BUCKETS];
+        final long[] removed = new long[BUCKETS];
+        final double[] addedWeight = new double[RATINGS];
+        final double[] removedWeight = new double[RATINGS];
+
+        void mergeFrom(DeviceCounters other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                added[i] = Math.max(added[i], other.added[i]);
+                removed[i] = Math.max(removed[i], other.removed[i]);
+            }
+            for (int i = 0; i < RATINGS; i++) {
+                addedWeight[i] = Math.max(addedWeight[i], other.addedWeight[i]);
+                removedWeight[i] = Math.max(removedWeight[i], other.removedWeight[i]);
+            }
+        }
+    }
+
+    // --- Fields ---
+
+    private final String deviceId;
+    private final long halfLifeMillis;
+    // Sorted, so that equal counters encode to equal bytes
+    private final Map<String, DeviceCounters> devices = new TreeMap<>();
+
+    // --- Constructors ---
+
+    /**
+     * Constructs empty counters updated by a device, with the default half-life of the
+     * recent average.
+     *
+     * @param deviceId the identifier of the device, unique among the devices merging their counters
+     */
+    public RatingCounters(String deviceId) {
+        this(deviceId, ReviewStatsAccumulator.DEFAULT_HALF_LIFE_MILLIS);
+    }
+
+    /**
+     * Constructs empty counters updated by a device.
+     *
+     * @param deviceId       the identifier of the device, unique among the devices merging their counters
+     * @param halfLifeMillis the half-life of the recent average, the same on every device, at
+     *                       least {@link #MIN_HALF_LIFE_MILLIS}
+     */
+    public RatingCounters(String deviceId, long halfLifeMillis) {
+        if (halfLifeMillis < MIN_HALF_LIFE_MILLIS) {
+            throw new IllegalArgumentException("halfLifeMillis must be >= " + MIN_HALF_LIFE_MILLIS);
+        }
+        this.deviceId = deviceId;
+        this.halfLifeMillis = halfLifeMillis;
+    }
+
+    // --- Local updates ---
+
+    /**
+     * Counts a review collected by this device.
+     *
+     * @param review the review
+     */
+    public void add(Review review) {
+        DeviceCounters own = own();
+        int bucket = bucket(review.getRate());
+        own.added[bucket]++;
+        if (bucket < RATINGS) {
+            own.addedWeight[bucket] += weight(review.getCreatedAt());
+        }
+    }
+
+    /**
+     * Counts every review of a list collected by this device.
+     *
+     * @param reviews the reviews
+     */
+    public void addAll(List<Review> reviews) {
+        for (Review review : reviews) {
+            add(review);
+        }
+    }
+
+    /**
+     * Uncounts a review, deleted or edited on this device. The review may have been counted
+     * by another device: the removal is recorded by this one, and cancels it once merged.
+     *
+     * @param review the review, with the rating and date it was counted with
+     */
+    public void remove(Review review) {
+        DeviceCounters own = own();
+        int bucket = bucket(review.getRate());
+        own.removed[bucket]++;
+        if (bucket < RATINGS) {
+            own.removedWeight[bucket] += weight(review.getCreatedAt());
+        }
+    }
+
+    private DeviceCounters own() {
+        if (deviceId == null) {
+            throw new IllegalStateException("decoded counters are updated by no device");
+        }
+        DeviceCounters own = devices.get(deviceId);
+        if (own == null) {
+            own = new DeviceCounters();
+            devices.put(deviceId, own);
+        }
+        return own;
+    }
+
+    // --- Merge ---
+
+    /**
+     * Merges the counters of another device into these ones, in O(buckets × devices).
+     * Merging the same counters again, or in another order, gives the same result.
+     *
+     * @param other the counters received from another device
+     * @throws IllegalArgumentException if the other counters use another half-life
+     */
+    public void merge(RatingCounters other) {
+        if (other.halfLifeMillis != halfLifeMillis) {
+            throw new IllegalArgumentException("cannot merge counters with half-lives "
+                    + halfLifeMillis + " and " + other.halfLifeMillis);
+        }
+        for (Map.Entry<String, DeviceCounters> entry : other.devices.entrySet()) {
+            DeviceCounters mine = devices.get(entry.getKey());
+            if (mine == null) {
+                mine = new DeviceCounters();
+                devices.put(entry.getKey(), mine);
+            }
+            mine.mergeFrom(entry.getValue());
+        }
+    }
+
+    // --- Reads ---
+
+    /**
+     * Gets the identifier of the device updating these counters.
+     *
+     * @return the device identifier
+     */
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Gets the devices whose counts are known.
+     *
+     * @return the device identifiers, sorted
+     */
+    public Set<String> getDevices() {
+        return Collections.unmodifiableSet(devices.keySet());
+    }
+
+    /**
+     * Gets the number of reviews counted by every known device.
+     *
+     * @return the review count, never negative
+     */
+    public int getCount() {
+        int count = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            count += bucketCount(bucket);
+        }
+        return count;
+    }
+
+    /**
+     * Derives the statistics of the merged counts.
+     *
+     * @param prior the prior of the Bayesian average
+     * @return the statistics, as a {@link ReviewStatsAccumulator} fed with the same reviews gives
+     */
+    public ReviewStats toStats(BayesianPrior prior) {
+        int[] ratings = new int[RATINGS];
+        long ratingSum = 0;
+        int rated = 0;
+        double weightedSum = 0;
+        double weightSum = 0;
+        for (int i = 0; i < RATINGS; i++) {
+            ratings[i] = bucketCount(i);
+            ratingSum += (long) ratings[i] * (i + 1);
+            rated += ratings[i];
+            double weight = 0;
+            for (DeviceCounters counters : devices.values()) {
+                weight += counters.addedWeight[i] - counters.removedWeight[i];
+            }
+            weight = ratings[i] == 0 ? 0 : Math.max(0, weight);
+            weightedSum += weight * (i + 1);
+            weightSum += weight;
+        }
+        int count = rated + bucketCount(RATINGS);
+
+        float bayesianAverage = prior.average(ratingSum, rated);
+        if (count == 0) {
+            return new ReviewStats(0f, 0, new int[RATINGS], new int[RATINGS], bayesianAverage, 0f);
+        }
+        int[] percent = new int[RATINGS];
+        for (int i = 0; i < RATINGS; i++) {
+            percent[i] = (int) ((ratings[i] * 100f) / count);
+        }
+        float recentAverage = rated == 0 || weightSum <= 0 ? 0f : (float) (weightedSum / weightSum);
+        return new ReviewStats((float) ratingSum / count, count, ratings, percent, bayesianAverage, recentAverage);
+    }
+
+    /**
+     * Counts the reviews of a bucket, clamped to zero while more removals than additions are known.
+     */
+    private int bucketCount(int bucket) {
+        long count = 0;
+        for (DeviceCounters counters : devices.values()) {
+            count += counters.added[bucket] - counters.removed[bucket];
+        }
+        return (int) Math.max(0, count);
+    }
+
+    // --- Encoding ---
+
+    /**
+     * Encodes the counters, to send them to the other devices.
+     *
+     * @return the encoded counters
+     */
+    public byte[] toBytes() {
+        int size = 4 + 8 + 4;
+        for (String device : devices.keySet()) {
+            size += 2 + device.getBytes(StandardCharsets.UTF_8).length + BYTES_PER_DEVICE;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(FORMAT_VERSION).putLong(halfLifeMillis).putInt(devices.size());
+        for (Map.Entry<String, DeviceCounters> entry : devices.entrySet()) {
+            byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) id.length).put(id);
+            DeviceCounters counters = entry.getValue();
+            for (int i = 0; i < BUCKETS; i++) {
+                out.putLong(counters.added[i]).putLong(counters.removed[i]);
+            }
+            for (int i = 0; i < RATINGS; i++) {
+                out.putDouble(counters.addedWeight[i]).putDouble(counters.removedWeight[i]);
+            }
+        }
+        return out.array();
+    }
+
+    /**
+     * Decodes counters received from another device, to merge them.
+     *
+     * @param bytes the counters encoded by {@link #toBytes()}
+     * @return the counters, updated by no device
+     * @throws IllegalArgumentException if the bytes are not valid counters
+     */
+    public static RatingCounters fromBytes(byte[] bytes) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            if (in.getInt() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("unknown counters format");
+            }
+            RatingCounters decoded = new RatingCounters(null, in.getLong());
+            int deviceCount = in.getInt();
+            for (int d = 0; d < deviceCount; d++) {
+                byte[] id = new byte[in.getShort() & 0xFFFF];
+                in.get(id);
+                DeviceCounters counters = new DeviceCounters();
+                for (int i = 0; i < BUCKETS; i++) {
+                    counters.added[i] = in.getLong();
+                    counters.removed[i] = in.getLong();
+                }
+                for (int i = 0; i < RATINGS; i++) {
+                    counters.addedWeight[i] = in.getDouble();
+                    counters.removedWeight[i] = in.getDouble();
+                }
+                decoded.devices.put(new String(id, StandardCharsets.UTF_8), counters);
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("unexpected bytes after the counters");
+            }
+            return decoded;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated counters", e);
+        }
+    }
+
+    // --- Helpers ---
+
+    private static int bucket(int rate) {
+        return rate >= 1 && rate <= RATINGS ? rate - 1 : RATINGS;
+    }
+
+    private double weight(long time) {
+        return Math.pow(2, (time - DECAY_LANDMARK_MILLIS) / (double) halfLifeMillis);
+    }
+}
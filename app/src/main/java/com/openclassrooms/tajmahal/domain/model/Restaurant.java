@@ -21,6 +21,17 @@ import java.util.Objects;
  */
 public class Restaurant {
 
+    // Flags of the attributes, combined by diff() to tell which ones changed.
+    public static final int FIELD_NAME = 1;
+    public static final int FIELD_TYPE = 1 << 1;
+    public static final int FIELD_HOURS = 1 << 2;
+    public static final int FIELD_ADDRESS = 1 << 3;
+    public static final int FIELD_WEBSITE = 1 << 4;
+    public static final int FIELD_PHONE_NUMBER = 1 << 5;
+    public static final int FIELD_DINE_IN = 1 << 6;
+    public static final int FIELD_TAKE_AWAY = 1 << 7;
+    public static final int ALL_FIELDS = (1 << 8) - 1;
+
     // Member variables representing attributes of a restaurant.
     private String name;
     private String type;
@@ -67,6 +78,27 @@ public class Restaurant {
         return Objects.hash(name, type, hours, address, website, phoneNumber, dineIn, takeAway);
     }
 
+    /**
+     * Tells which attributes differ from another restaurant, so that a screen only
+     * rebinds the views of the attributes that changed.
+     *
+     * @param other the restaurant to compare with, may be null
+     * @return the FIELD_ flags of the differing attributes, ALL_FIELDS if other is null
+     */
+    public int diff(Restaurant other) {
+        if (other == null) return ALL_FIELDS;
+        int changed = 0;
+        if (!Objects.equals(name, other.name)) changed |= FIELD_NAME;
+        if (!Objects.equals(type, other.type)) changed |= FIELD_TYPE;
+        if (!Objects.equals(hours, other.hours)) changed |= FIELD_HOURS;
+        if (!Objects.equals(address, other.address)) changed |= FIELD_ADDRESS;
+        if (!Objects.equals(website, other.website)) changed |= FIELD_WEBSITE;
+        if (!Objects.equals(phoneNumber, other.phoneNumber)) changed |= FIELD_PHONE_NUMBER;
+        if (dineIn != other.dineIn) changed |= FIELD_DINE_IN;
+        if (takeAway != other.takeAway) changed |= FIELD_TAKE_AWAY;
+        return changed;
+    }
+
     /**
      * Getters and setters form member variables.
      * name, type, hours, address, website, phoneNumber, dineIn, takeAway
@@ -0,0 +1,70 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+/**
+ * Restaurant details stamped with a version.
+ * <p>
+ * The repository gives a new version only to details that differ from the previous ones, so
+ * equal versions mean equal details. A screen remembers the snapshot it bound and asks
+ * {@link #changesSince(RestaurantSnapshot)} which attributes to rebind: nothing when the same
+ * snapshot is delivered again, for example when the screen becomes visible again.
+ * </p>
+ */
+public class RestaurantSnapshot {
+
+    // --- Fields ---
+
+    private final long version;
+    private final Restaurant restaurant;
+
+    // --- Constructors ---
+
+    /**
+     * Constructs a snapshot.
+     *
+     * @param version    the version of the details, increasing with each change
+     * @param restaurant the details, which must not be modified afterwards
+     */
+    public RestaurantSnapshot(long version, Restaurant restaurant) {
+        this.version = version;
+        this.restaurant = restaurant;
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the version of the details.
+     *
+     * @return the version, starting at 1
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the restaurant details.
+     *
+     * @return the details
+     */
+    public Restaurant getRestaurant() {
+        return restaurant;
+    }
+
+    // --- Change detection ---
+
+    /**
+     * Tells which attributes changed since a previous snapshot.
+     * Versions are compared first, so delivering the same details again costs nothing.
+     *
+     * @param previous the snapshot bound before, or null if none was
+     * @return the {@code Restaurant.FIELD_} flags of the changed attributes, 0 if none changed
+     */
+    public int changesSince(RestaurantSnapshot previous) {
+        if (previous == null) {
+            return Restaurant.ALL_FIELDS;
+        }
+        if (previous.version == version) {
+            return 0;
+        }
+        return restaurant.diff(previous.restaurant);
+    }
+}
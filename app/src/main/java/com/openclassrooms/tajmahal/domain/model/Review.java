@@ -7,20 +7,28 @@ import java.util.Objects;
  * Represents a user review.
  * This class encapsulates all the details of a review, including the username of the reviewer,
  * their profile picture, the comment they left, and the rating they gave.
+ * <p>
+ * Each review also carries an identifier, assigned by the API when the review is stored
+ * ({@code 0} until then), and its creation date, used to order reviews by recency.
+ * A review shown before the API confirmed it is {@link ReviewSyncState#PENDING}.
+ * </p>
  */
 public class Review {
 
     //--- Fields ---
 
+    private long id;
     private String username;
     private String picture;
     private String comment;
     private int rate;
+    private long createdAt;
+    private ReviewSyncState syncState = ReviewSyncState.CONFIRMED;
 
     // --- Constructor ---
 
     /**
-     * Constructs a new Review instance.
+     * Constructs a new Review instance, created now and not stored yet.
      *
      * @param username the name of the user leaving the review
      * @param picture  the profile picture URL or path of the user
@@ -28,14 +36,39 @@ public class Review {
      * @param rate     the rating given by the user
      */
     public Review(String username, String picture, String comment, int rate) {
+        this(0, username, picture, comment, rate, System.currentTimeMillis());
+    }
+
+    /**
+     * Constructs a Review instance with all its attributes, typically an already stored review.
+     *
+     * @param id        the identifier of the review
+     * @param username  the name of the user leaving the review
+     * @param picture   the profile picture URL or path of the user
+     * @param comment   the feedback or comment from the user
+     * @param rate      the rating given by the user
+     * @param createdAt the creation date, in milliseconds since the epoch
+     */
+    public Review(long id, String username, String picture, String comment, int rate, long createdAt) {
+        this.id = id;
         this.username = username;
         this.picture = picture;
         this.comment = comment;
         this.rate = rate;
+        this.createdAt = createdAt;
     }
 
     //--- getters  ---
 
+    /**
+     * Gets the identifier of the review.
+     *
+     * @return the identifier, or 0 if the review has not been stored yet
+     */
+    public long getId() {
+        return id;
+    }
+
     /**
      * Gets the username of the reviewer.
      *
@@ -72,8 +105,44 @@ public class Review {
         return rate;
     }
 
+    /**
+     * Gets the creation date of the review.
+     *
+     * @return the creation date, in milliseconds since the epoch
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Gets the synchronization state of the review.
+     *
+     * @return {@link ReviewSyncState#PENDING} while the review is being stored
+     */
+    public ReviewSyncState getSyncState() {
+        return syncState;
+    }
+
+    /**
+     * Tells whether the review is still being stored.
+     *
+     * @return true if the review is pending
+     */
+    public boolean isPending() {
+        return syncState == ReviewSyncState.PENDING;
+    }
+
     // --- Setters ---
 
+    /**
+     * Sets the identifier of the review.
+     *
+     * @param id the identifier to set
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
     /**
      * Sets the username of the reviewer.
      *
@@ -110,11 +179,32 @@ public class Review {
         this.rate = rate;
     }
 
+    /**
+     * Sets the creation date of the review.
+     *
+     * @param createdAt the creation date to set, in milliseconds since the epoch
+     */
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Sets the synchronization state of the review.
+     *
+     * @param syncState the state to set
+     */
+    public void setSyncState(ReviewSyncState syncState) {
+        this.syncState = syncState;
+    }
+
     // --- Object methods ---
 
     /**
      * Compares this review with another object for equality.
-     * Two reviews are considered equal if all their fields are identical.
+     * Two reviews are considered equal if they have the same content: author, picture, comment,
+     * rating and creation date. The identifier and the synchronization state, which change while
+     * a review is stored, are left out, so that a review keeps its place in hashed collections;
+     * callers compare them explicitly where they matter.
      *
      * @param o the object to be compared with
      * @return true if the objects are equal, false otherwise
@@ -125,16 +215,16 @@ public class Review {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Review review = (Review) o;
-        return rate == review.rate && Objects.equals(username, review.username) && Objects.equals(picture, review.picture) && Objects.equals(comment, review.comment);
+        return rate == review.rate && createdAt == review.createdAt && Objects.equals(username, review.username) && Objects.equals(picture, review.picture) && Objects.equals(comment, review.comment);
     }
 
     /**
-     * Generates a hash code for this review based on its fields.
+     * Generates a hash code for this review based on its content.
      *
      * @return the generated hash code
      */
     @Override
     public int hashCode() {
-        return Objects.hash(username, picture, comment, rate);
+        return Objects.hash(username, picture, comment, rate, createdAt);
     }
 }
@@ -0,0 +1,61 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+/**
+ * A review the API could not store, with the operation that failed, so that the screen can
+ * tell the user what did not happen.
+ */
+public class ReviewFailure {
+
+    /**
+     * The operation the API refused.
+     */
+    public enum Kind {
+
+        /** A new review, removed again from the list. */
+        ADD,
+
+        /** An edit of a stored review, which keeps its previous version. */
+        EDIT,
+
+        /** A deletion of a stored review, which stays in the list. */
+        DELETE
+    }
+
+    // --- Fields ---
+
+    private final Kind kind;
+    private final Review review;
+
+    // --- Constructors ---
+
+    /**
+     * Constructs a failure.
+     *
+     * @param kind   the operation that failed
+     * @param review the review added, the new version of the edited review, or the review to delete
+     */
+    public ReviewFailure(Kind kind, Review review) {
+        this.kind = kind;
+        this.review = review;
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the operation that failed.
+     *
+     * @return the kind of the failure
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the review of the failed operation.
+     *
+     * @return the review added, the new version of the edited review, or the review to delete
+     */
+    public Review getReview() {
+        return review;
+    }
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+/**
+ * The orders in which a list of reviews can be displayed.
+ * <p>
+ * The declaration order matches the entries of the sort selector of the reviews screen.
+ * </p>
+ */
+public enum ReviewSortOrder {
+
+    /** Most recent review first. */
+    NEWEST,
+
+    /** Oldest review first. */
+    OLDEST,
+
+    /** Best rating first, most recent first among equal ratings. */
+    HIGHEST_RATING,
+
+    /** Worst rating first, oldest first among equal ratings. */
+    LOWEST_RATING
+}
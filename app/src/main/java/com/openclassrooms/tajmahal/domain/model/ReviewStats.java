@@ -1,11 +1,18 @@
 package com.openclassrooms.tajmahal.domain.model;
 
+import java.util.Arrays;
+
 /**
  * Represents aggregated statistics calculated from customer reviews.
  * <p>
  * This business model encapsulates all computed statistics about reviews,
  * providing data ready to be displayed in the UI.
  * </p>
+ * <p>
+ * Besides the flat average, two scores fix its weaknesses: the Bayesian average, smoothed
+ * towards a prior so that a handful of reviews cannot outrank hundreds, and the recent average,
+ * where the weight of a review halves with each half-life of age.
+ * </p>
  */
 public class ReviewStats {
 
@@ -15,11 +22,14 @@ public class ReviewStats {
     private final int reviewCount;
     private final int[] ratingDistribution;
     private final int[] percentDistribution;
+    private final float bayesianAverage;
+    private final float recentAverage;
 
-    // --- Constructor ---
+    // --- Constructors ---
 
     /**
-     * Constructs a new ReviewStats instance with calculated statistics.
+     * Constructs a new ReviewStats instance with calculated statistics, whose weighted
+     * scores are the flat average.
      *
      * @param averageRating       the average rating across all reviews
      * @param reviewCount         the total number of reviews
@@ -28,10 +38,27 @@ public class ReviewStats {
      */
     public ReviewStats(float averageRating, int reviewCount,
                        int[] ratingDistribution, int[] percentDistribution) {
+        this(averageRating, reviewCount, ratingDistribution, percentDistribution, averageRating, averageRating);
+    }
+
+    /**
+     * Constructs a new ReviewStats instance with calculated statistics and weighted scores.
+     *
+     * @param averageRating       the average rating across all reviews
+     * @param reviewCount         the total number of reviews
+     * @param ratingDistribution  array containing count of reviews for each rating (1-5 stars)
+     * @param percentDistribution array containing percentage of reviews for each rating (1-5 stars)
+     * @param bayesianAverage     the average smoothed towards a prior
+     * @param recentAverage       the average weighted towards recent reviews
+     */
+    public ReviewStats(float averageRating, int reviewCount, int[] ratingDistribution,
+                       int[] percentDistribution, float bayesianAverage, float recentAverage) {
         this.averageRating = averageRating;
         this.reviewCount = reviewCount;
         this.ratingDistribution = ratingDistribution;
         this.percentDistribution = percentDistribution;
+        this.bayesianAverage = bayesianAverage;
+        this.recentAverage = recentAverage;
     }
 
     // --- Getters ---
@@ -79,4 +106,38 @@ public class ReviewStats {
     public int[] getPercentDistribution() {
         return percentDistribution;
     }
+
+    /**
+     * Gets the Bayesian average: the average rating as if a number of virtual reviews
+     * rated at a prior mean were added, see {@link BayesianPrior}.
+     *
+     * @return the smoothed average, the prior mean when there is no review
+     */
+    public float getBayesianAverage() {
+        return bayesianAverage;
+    }
+
+    /**
+     * Gets the recency-weighted average, where older reviews weigh exponentially less.
+     *
+     * @return the decayed average, or 0 when there is no review
+     */
+    public float getRecentAverage() {
+        return recentAverage;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReviewStats that = (ReviewStats) o;
+        return Float.compare(averageRating, that.averageRating) == 0 && reviewCount == that.reviewCount && Arrays.equals(ratingDistribution, that.ratingDistribution) && Arrays.equals(percentDistribution, that.percentDistribution)
+                && Float.compare(bayesianAverage, that.bayesianAverage) == 0 && Float.compare(recentAverage, that.recentAverage) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 31 * (31 * (31 * Float.floatToIntBits(averageRating) + reviewCount) + Arrays.hashCode(ratingDistribution)) + Arrays.hashCode(percentDistribution);
+        return 31 * (31 * result + Float.floatToIntBits(bayesianAverage)) + Float.floatToIntBits(recentAverage);
+    }
 }
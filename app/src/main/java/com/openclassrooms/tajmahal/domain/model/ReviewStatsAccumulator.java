@@ -0,0 +1,187 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.List;
+
+/**
+ * Running aggregate of review ratings from which {@link ReviewStats} snapshots are built.
+ * <p>
+ * Instead of scanning the whole review list every time a review arrives, the accumulator keeps
+ * the rating distribution, the rating sum and a {@link DecayedAverage} of the ratings up to date
+ * in O(1) per review. A snapshot is then built in O(5), whatever the number of reviews, with its
+ * Bayesian average derived from the rating sum and the prior.
+ * </p>
+ * <p>
+ * This class is not thread-safe: callers are expected to confine it to a single owner
+ * (the repository).
+ * </p>
+ */
+public class ReviewStatsAccumulator {
+
+    /** Prior used when none is given: as if 10 reviews rated 3.5 were added. */
+    public static final BayesianPrior DEFAULT_PRIOR = new BayesianPrior(3.5f, 10f);
+
+    /** Half-life of the recent average when none is given: 90 days. */
+    public static final long DEFAULT_HALF_LIFE_MILLIS = 90L * 24 * 60 * 60 * 1000;
+
+    // --- Fields ---
+
+    private final BayesianPrior prior;
+    private final int[] distribution = new int[5];
+    private long ratingSum;
+    private int count;
+    private final DecayedAverage recentRatings;
+
+    // --- Constructors ---
+
+    /**
+     * Constructs an empty accumulator with the default prior and half-life.
+     */
+    public ReviewStatsAccumulator() {
+        this(DEFAULT_PRIOR, DEFAULT_HALF_LIFE_MILLIS);
+    }
+
+    /**
+     * Constructs an empty accumulator.
+     *
+     * @param prior          the prior of the Bayesian average
+     * @param halfLifeMillis the age at which a review weighs half as much as a new one in the
+     *                       recent average, in milliseconds
+     */
+    public ReviewStatsAccumulator(BayesianPrior prior, long halfLifeMillis) {
+        this.prior = prior;
+        this.recentRatings = new DecayedAverage(halfLifeMillis);
+    }
+
+    // --- Updates ---
+
+    /**
+     * Adds every review of the given list to the aggregate.
+     *
+     * @param reviews the reviews to add
+     */
+    public void addAll(List<Review> reviews) {
+        for (Review review : reviews) {
+            add(review);
+        }
+    }
+
+    /**
+     * Adds one review to the aggregate.
+     * <p>
+     * Ratings outside 1-5 are counted as reviews but do not contribute to the
+     * distribution nor to the averages.
+     * </p>
+     *
+     * @param review the review to add
+     */
+    public void add(Review review) {
+        count++;
+        int rate = review.getRate();
+        if (isValid(rate)) {
+            distribution[rate - 1]++;
+            ratingSum += rate;
+            recentRatings.add(rate, review.getCreatedAt());
+        }
+    }
+
+    /**
+     * Removes one review previously added to the aggregate, in O(1).
+     * Used when a review is deleted, or could not be stored.
+     *
+     * @param review the review to remove, with the rating and date it was added with
+     */
+    public void remove(Review review) {
+        if (count == 0) {
+            throw new IllegalStateException("no rating to remove");
+        }
+        count--;
+        int rate = review.getRate();
+        if (isValid(rate)) {
+            distribution[rate - 1]--;
+            ratingSum -= rate;
+            recentRatings.remove(rate, review.getCreatedAt());
+        }
+    }
+
+    /**
+     * Replaces one review previously added to the aggregate with its new version, in O(1).
+     * Used when a review is edited: the review count does not change.
+     *
+     * @param previous the previous version of the review
+     * @param updated  the new version of the review
+     */
+    public void replace(Review previous, Review updated) {
+        remove(previous);
+        add(updated);
+    }
+
+    /**
+     * Clears the aggregate.
+     */
+    public void clear() {
+        for (int i = 0; i < distribution.length; i++) {
+            distribution[i] = 0;
+        }
+        ratingSum = 0;
+        count = 0;
+        recentRatings.clear();
+    }
+
+    // --- Snapshot ---
+
+    /**
+     * Gets the sum of all valid ratings.
+     *
+     * @return the rating sum
+     */
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    /**
+     * Gets the number of reviews added so far.
+     *
+     * @return the review count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Builds an immutable {@link ReviewStats} from the current aggregate.
+     *
+     * @return the statistics of all the reviews added so far
+     */
+    public ReviewStats snapshot() {
+        float bayesianAverage = prior.average(ratingSum, recentRatings.getCount());
+        if (count == 0) {
+            return new ReviewStats(0f, 0, new int[5], new int[5], bayesianAverage, 0f);
+        }
+        int[] ratings = distribution.clone();
+        int[] percent = new int[5];
+        for (int i = 0; i < 5; i++) {
+            percent[i] = (int) ((ratings[i] * 100f) / count);
+        }
+        return new ReviewStats((float) ratingSum / count, count, ratings, percent,
+                bayesianAverage, (float) recentRatings.getValue());
+    }
+
+    /**
+     * Computes the statistics of a list of reviews in a single pass, with the default
+     * prior and half-life.
+     *
+     * @param reviews the reviews to aggregate
+     * @return the statistics of the given reviews
+     */
+    public static ReviewStats of(List<Review> reviews) {
+        ReviewStatsAccumulator accumulator = new ReviewStatsAccumulator();
+        if (reviews != null) {
+            accumulator.addAll(reviews);
+        }
+        return accumulator.snapshot();
+    }
+
+    private static boolean isValid(int rate) {
+        return rate >= 1 && rate <= 5;
+    }
+}
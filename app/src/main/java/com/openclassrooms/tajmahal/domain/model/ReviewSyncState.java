@@ -0,0 +1,13 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+/**
+ * Whether a review is stored by the API or still being sent.
+ */
+public enum ReviewSyncState {
+
+    /** Shown optimistically while the API stores it; removed again if storing fails. */
+    PENDING,
+
+    /** Stored by the API. */
+    CONFIRMED
+}
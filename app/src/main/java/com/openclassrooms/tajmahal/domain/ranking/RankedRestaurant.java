@@ -0,0 +1,92 @@
+package com.openclassrooms.tajmahal.domain.ranking;
+
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import java.util.Comparator;
+
+/**
+ * A restaurant entry of a leaderboard, together with the statistics it was ranked from.
+ * <p>
+ * Instances are immutable: every stats update produces a new entry, which keeps the heap
+ * ordering of {@link TopKLeaderboard} stable while an entry is stored in it.
+ * </p>
+ */
+public class RankedRestaurant {
+
+    /**
+     * Orders entries from the lowest to the highest score.
+     * Ties are broken on the venue key so that the order is total and deterministic.
+     */
+    static final Comparator<RankedRestaurant> ASCENDING = new Comparator<RankedRestaurant>() {
+        @Override
+        public int compare(RankedRestaurant a, RankedRestaurant b) {
+            int byScore = Float.compare(a.score, b.score);
+            if (byScore != 0) return byScore;
+            // Reverse on the key so that, for equal scores, "A" ranks above "B"
+            return b.key.compareTo(a.key);
+        }
+    };
+
+    // --- Fields ---
+
+    private final String key;
+    private final Restaurant restaurant;
+    private final ReviewStats stats;
+    private final float score;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs a new RankedRestaurant.
+     *
+     * @param key        the unique key of the venue
+     * @param restaurant the restaurant being ranked
+     * @param stats      the review statistics of the restaurant
+     * @param score      the smoothed score used for ranking
+     */
+    public RankedRestaurant(String key, Restaurant restaurant, ReviewStats stats, float score) {
+        this.key = key;
+        this.restaurant = restaurant;
+        this.stats = stats;
+        this.score = score;
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the unique key of the venue.
+     *
+     * @return the venue key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the ranked restaurant.
+     *
+     * @return the restaurant
+     */
+    public Restaurant getRestaurant() {
+        return restaurant;
+    }
+
+    /**
+     * Gets the review statistics the score was computed from.
+     *
+     * @return the review statistics
+     */
+    public ReviewStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets the Bayesian-smoothed score of the restaurant.
+     *
+     * @return the ranking score
+     */
+    public float getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,158 @@
+package com.openclassrooms.tajmahal.domain.ranking;
+
+import com.openclassrooms.tajmahal.domain.model.BayesianPrior;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cross-venue ranking of restaurants by their Bayesian-smoothed rating.
+ * <p>
+ * Each venue reports its {@link ReviewStats} whenever they change. The ranking keeps one
+ * bounded {@link TopKLeaderboard} over all venues and one per cuisine type, and updates them
+ * incrementally: a new review costs O(log k) instead of re-sorting every venue.
+ * </p>
+ * <p>
+ * Scores come from a {@link BayesianPrior}, so that a venue with a handful of perfect reviews
+ * does not outrank one with hundreds of very good reviews.
+ * </p>
+ * <p>
+ * All methods are synchronized, so the ranking can be fed from any thread.
+ * </p>
+ */
+public class RestaurantRanking {
+
+    // --- Fields ---
+
+    private final int capacity;
+    private final BayesianPrior prior;
+
+    // Every known venue, by key
+    private final Map<String, RankedRestaurant> venues = new HashMap<>();
+    // Venues grouped by cuisine type, needed to rebuild a stale type leaderboard
+    private final Map<String, Map<String, RankedRestaurant>> venuesByType = new HashMap<>();
+
+    private final TopKLeaderboard overall;
+    private final Map<String, TopKLeaderboard> leaderboardsByType = new HashMap<>();
+
+    // --- Constructor ---
+
+    /**
+     * Constructs an empty ranking.
+     *
+     * @param capacity the number of venues kept in each leaderboard
+     * @param prior    the prior used to smooth the average ratings
+     */
+    public RestaurantRanking(int capacity, BayesianPrior prior) {
+        this.capacity = capacity;
+        this.prior = prior;
+        this.overall = new TopKLeaderboard(capacity);
+    }
+
+    // --- Updates ---
+
+    /**
+     * Records the latest statistics of a venue and updates the leaderboards.
+     *
+     * @param restaurant the venue, identified by its name
+     * @param stats      the current review statistics of the venue
+     * @return the entry stored for the venue
+     */
+    public synchronized RankedRestaurant update(Restaurant restaurant, ReviewStats stats) {
+        String key = restaurant.getName();
+        String type = typeOf(restaurant);
+        RankedRestaurant entry = new RankedRestaurant(key, restaurant, stats, score(stats));
+
+        RankedRestaurant previous = venues.put(key, entry);
+        if (previous != null && !typeOf(previous.getRestaurant()).equals(type)) {
+            // The venue moved to another cuisine type
+            String previousType = typeOf(previous.getRestaurant());
+            Map<String, RankedRestaurant> previousVenues = venuesByType.get(previousType);
+            previousVenues.remove(key);
+            leaderboardsByType.get(previousType).remove(key, previousVenues.size());
+        }
+
+        Map<String, RankedRestaurant> typeVenues = venuesByType.get(type);
+        if (typeVenues == null) {
+            typeVenues = new HashMap<>();
+            venuesByType.put(type, typeVenues);
+        }
+        typeVenues.put(key, entry);
+
+        TopKLeaderboard typeLeaderboard = leaderboardsByType.get(type);
+        if (typeLeaderboard == null) {
+            typeLeaderboard = new TopKLeaderboard(capacity);
+            leaderboardsByType.put(type, typeLeaderboard);
+        }
+
+        overall.offer(entry, venues.size());
+        typeLeaderboard.offer(entry, typeVenues.size());
+        return entry;
+    }
+
+    // --- Read access ---
+
+    /**
+     * Returns the best rated venues, all types included.
+     *
+     * @return at most {@code k} venues, best score first
+     */
+    public synchronized List<RankedRestaurant> getTop() {
+        if (overall.isStale()) {
+            overall.rebuild(venues.values());
+        }
+        return overall.snapshot();
+    }
+
+    /**
+     * Returns the best rated venues of a cuisine type.
+     *
+     * @param type the cuisine type, as returned by {@link Restaurant#getType()}
+     * @return at most {@code k} venues of that type, best score first
+     */
+    public synchronized List<RankedRestaurant> getTopByType(String type) {
+        String key = type == null ? "" : type;
+        TopKLeaderboard leaderboard = leaderboardsByType.get(key);
+        if (leaderboard == null) {
+            return Collections.emptyList();
+        }
+        if (leaderboard.isStale()) {
+            leaderboard.rebuild(venuesByType.get(key).values());
+        }
+        return leaderboard.snapshot();
+    }
+
+    /**
+     * Gets the prior used to smooth the average ratings.
+     *
+     * @return the prior
+     */
+    public BayesianPrior getPrior() {
+        return prior;
+    }
+
+    /**
+     * Computes the ranking score of a venue from its rating distribution.
+     *
+     * @param stats the review statistics of the venue
+     * @return the Bayesian average of the valid ratings
+     */
+    public float score(ReviewStats stats) {
+        int[] distribution = stats.getRatingDistribution();
+        long sum = 0;
+        int count = 0;
+        for (int i = 0; i < distribution.length; i++) {
+            sum += (long) (i + 1) * distribution[i];
+            count += distribution[i];
+        }
+        return prior.average(sum, count);
+    }
+
+    private static String typeOf(Restaurant restaurant) {
+        return restaurant.getType() == null ? "" : restaurant.getType();
+    }
+}
@@ -0,0 +1,137 @@
+package com.openclassrooms.tajmahal.domain.ranking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded leaderboard keeping only the {@code k} best entries of a larger set of venues.
+ * <p>
+ * Entries are stored in a min-heap of size {@code k}: the weakest member sits at the head, so
+ * deciding whether a new score enters the leaderboard costs one comparison and an insertion
+ * costs O(log k). Nothing is ever sorted on update; the ordered list is only produced when the
+ * leaderboard is read, in O(k log k).
+ * </p>
+ * <p>
+ * The only case a heap cannot handle on its own is a member whose score goes down: a venue
+ * outside the heap may now deserve its place. The leaderboard is then flagged as stale and the
+ * owner rebuilds it from the full set with {@link #rebuild(Collection)}, in O(n log k). This is
+ * rare in practice, since most reviews only move a venue up or leave it outside the top k.
+ * </p>
+ * <p>
+ * This class is not thread-safe; {@link RestaurantRanking} guards every access.
+ * </p>
+ */
+class TopKLeaderboard {
+
+    // --- Fields ---
+
+    private final int capacity;
+    private final PriorityQueue<RankedRestaurant> heap;
+    private final Map<String, RankedRestaurant> members = new HashMap<>();
+    private boolean stale;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs an empty leaderboard.
+     *
+     * @param capacity the maximum number of entries kept, must be positive
+     */
+    TopKLeaderboard(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(capacity, RankedRestaurant.ASCENDING);
+    }
+
+    // --- Updates ---
+
+    /**
+     * Offers a new or updated entry to the leaderboard.
+     *
+     * @param entry        the entry to offer
+     * @param universeSize the number of venues the leaderboard is drawn from
+     */
+    void offer(RankedRestaurant entry, int universeSize) {
+        RankedRestaurant previous = members.remove(entry.getKey());
+        if (previous != null) {
+            heap.remove(previous);
+            if (entry.getScore() < previous.getScore() && universeSize > capacity) {
+                // A venue outside the heap may now rank above this one
+                stale = true;
+            }
+            insert(entry);
+            return;
+        }
+        if (heap.size() < capacity) {
+            insert(entry);
+        } else if (RankedRestaurant.ASCENDING.compare(entry, heap.peek()) > 0) {
+            members.remove(heap.poll().getKey());
+            insert(entry);
+        }
+    }
+
+    /**
+     * Removes a venue from the leaderboard.
+     *
+     * @param key          the key of the venue to remove
+     * @param universeSize the number of venues left once the venue is removed
+     */
+    void remove(String key, int universeSize) {
+        RankedRestaurant previous = members.remove(key);
+        if (previous != null) {
+            heap.remove(previous);
+            if (universeSize > heap.size()) {
+                // The freed slot belongs to a venue that is not in the heap yet
+                stale = true;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the leaderboard from the full set of venues and clears the stale flag.
+     *
+     * @param entries every venue the leaderboard is drawn from
+     */
+    void rebuild(Collection<RankedRestaurant> entries) {
+        heap.clear();
+        members.clear();
+        stale = false;
+        for (RankedRestaurant entry : entries) {
+            offer(entry, 0);
+        }
+    }
+
+    private void insert(RankedRestaurant entry) {
+        heap.add(entry);
+        members.put(entry.getKey(), entry);
+    }
+
+    // --- Read access ---
+
+    /**
+     * Tells whether the leaderboard must be rebuilt before being read.
+     *
+     * @return true if a member lost score while other venues were waiting outside the heap
+     */
+    boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Returns the entries of the leaderboard, best score first.
+     *
+     * @return a new list of at most {@code k} entries
+     */
+    List<RankedRestaurant> snapshot() {
+        List<RankedRestaurant> ranked = new ArrayList<>(heap);
+        Collections.sort(ranked, Collections.reverseOrder(RankedRestaurant.ASCENDING));
+        return ranked;
+    }
+}
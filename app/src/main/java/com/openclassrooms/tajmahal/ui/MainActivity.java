@@ -7,12 +7,18 @@ import android.view.View;
 import com.openclassrooms.tajmahal.R;
 import com.openclassrooms.tajmahal.databinding.ActivityMainBinding;
 import com.openclassrooms.tajmahal.ui.restaurant.DetailsFragment;
+import com.openclassrooms.tajmahal.ui.widget.RatingWidgetPublisher;
+
+import javax.inject.Inject;
 
 import dagger.hilt.android.AndroidEntryPoint;
 
 @AndroidEntryPoint
 public class MainActivity extends AppCompatActivity {
 
+    @Inject
+    RatingWidgetPublisher ratingWidgetPublisher;
+
     private ActivityMainBinding binding;
 
     @Override
@@ -21,6 +27,8 @@ public class MainActivity extends AppCompatActivity {
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         View view = binding.getRoot();
         setContentView(view);
+        // Keep the home-screen widget in sync with the statistics while the app runs
+        ratingWidgetPublisher.start();
         if (savedInstanceState == null) {
             getSupportFragmentManager().beginTransaction()
                     .replace(R.id.container, DetailsFragment.newInstance())
@@ -0,0 +1,91 @@
+package com.openclassrooms.tajmahal.ui.avatar;
+
+import java.util.Locale;
+
+/**
+ * Appearance of the avatar drawn for a user name: its initials and its background color.
+ * <p>
+ * Both are derived from the name only, so a user keeps the same avatar across rows, screens
+ * and launches without any lookup. Names differing only by case or surrounding spaces get the
+ * same avatar.
+ * </p>
+ */
+public final class AvatarStyle {
+
+    /**
+     * Background colors (ARGB), dark enough for white initials.
+     */
+    private static final int[] PALETTE = {
+            0xFFC62828, // Red
+            0xFFAD1457, // Pink
+            0xFF6A1B9A, // Purple
+            0xFF4527A0, // Deep purple
+            0xFF283593, // Indigo
+            0xFF1565C0, // Blue
+            0xFF00838F, // Cyan
+            0xFF00695C, // Teal
+            0xFF2E7D32, // Green
+            0xFF558B2F, // Light green
+            0xFFEF6C00, // Orange
+            0xFF6D4C41, // Brown
+    };
+
+    private static final String UNKNOWN_INITIALS = "?";
+
+    private AvatarStyle() {
+    }
+
+    /**
+     * Gets the initials of a name: the first letter of its first and last words, upper-cased.
+     *
+     * @param name the user name, may be null
+     * @return one or two letters, or "?" if the name has no letter
+     */
+    public static String initialsOf(String name) {
+        String[] words = normalize(name).split("\\s+");
+        String first = firstLetter(words[0]);
+        if (first == null) {
+            return UNKNOWN_INITIALS;
+        }
+        String last = words.length > 1 ? firstLetter(words[words.length - 1]) : null;
+        return (last == null ? first : first + last).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets the background color of a name.
+     *
+     * @param name the user name, may be null
+     * @return an opaque ARGB color of the palette
+     */
+    public static int colorFor(String name) {
+        return PALETTE[Math.floorMod(normalize(name).hashCode(), PALETTE.length)];
+    }
+
+    /**
+     * Gets the key identifying the avatar of a name at a size, for caches.
+     *
+     * @param name   the user name, may be null
+     * @param sizePx the size of the avatar, in pixels
+     * @return the cache key
+     */
+    public static String cacheKey(String name, int sizePx) {
+        return normalize(name) + "@" + sizePx;
+    }
+
+    // --- Helpers ---
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String firstLetter(String word) {
+        for (int i = 0; i < word.length(); ) {
+            int codePoint = word.codePointAt(i);
+            if (Character.isLetter(codePoint)) {
+                return new String(Character.toChars(codePoint));
+            }
+            i += Character.charCount(codePoint);
+        }
+        return null;
+    }
+}
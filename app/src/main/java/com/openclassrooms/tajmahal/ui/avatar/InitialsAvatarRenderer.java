@@ -0,0 +1,120 @@
+package com.openclassrooms.tajmahal.ui.avatar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.hilt.android.qualifiers.ApplicationContext;
+
+/**
+ * Draws round avatars showing the initials of a user on the color of its name, see {@link AvatarStyle}.
+ * <p>
+ * Avatars are shown while the remote picture loads and when it cannot be loaded (offline, broken
+ * URL), so every row has an avatar without any I/O. Rendered bitmaps are taken from the Glide
+ * bitmap pool and kept in a memory cache shared by every screen, keyed by name and size: a user
+ * appearing in many rows is drawn once.
+ * </p>
+ * <p>
+ * Bitmaps leaving the cache are not returned to the pool, as a view may still display them.
+ * This class must be used from the main thread.
+ * </p>
+ */
+@Singleton
+public class InitialsAvatarRenderer {
+
+    // Memory used by the cached avatars, about 300 avatars of 40dp on a xxhdpi screen
+    private static final int CACHE_SIZE_BYTES = 2 * 1024 * 1024;
+    // Height of the initials, relative to the size of the avatar
+    private static final float TEXT_SIZE_RATIO = 0.4f;
+
+    // --- Fields ---
+
+    private final Context context;
+    private final BitmapPool bitmapPool;
+    private final LruCache<String, Bitmap> cache = new LruCache<String, Bitmap>(CACHE_SIZE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+    private final Paint backgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    // --- Constructor ---
+
+    /**
+     * Constructs the renderer.
+     *
+     * @param context the application context
+     */
+    @Inject
+    public InitialsAvatarRenderer(@ApplicationContext Context context) {
+        this.context = context;
+        this.bitmapPool = Glide.get(context).getBitmapPool();
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    // --- Rendering ---
+
+    /**
+     * Gets the avatar of a user as a drawable, for Glide placeholders and fallbacks.
+     *
+     * @param name   the user name, may be null
+     * @param sizePx the size of the avatar, in pixels
+     * @return a drawable showing the avatar
+     */
+    public Drawable drawable(String name, int sizePx) {
+        return new BitmapDrawable(context.getResources(), bitmap(name, sizePx));
+    }
+
+    /**
+     * Gets the avatar of a user, drawing it if it is not cached yet.
+     *
+     * @param name   the user name, may be null
+     * @param sizePx the size of the avatar, in pixels
+     * @return a square bitmap with a round avatar on a transparent background
+     */
+    public Bitmap bitmap(String name, int sizePx) {
+        if (sizePx <= 0) {
+            throw new IllegalArgumentException("sizePx must be > 0");
+        }
+        String key = AvatarStyle.cacheKey(name, sizePx);
+        Bitmap bitmap = cache.get(key);
+        if (bitmap == null) {
+            bitmap = render(name, sizePx);
+            cache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    private Bitmap render(String name, int sizePx) {
+        // Bitmaps from the pool are cleared to transparent
+        Bitmap bitmap = bitmapPool.get(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        float center = sizePx / 2f;
+
+        backgroundPaint.setColor(AvatarStyle.colorFor(name));
+        canvas.drawCircle(center, center, center, backgroundPaint);
+
+        // Centers the initials vertically on their visual bounds
+        textPaint.setTextSize(sizePx * TEXT_SIZE_RATIO);
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        float baseline = center - (metrics.ascent + metrics.descent) / 2f;
+        canvas.drawText(AvatarStyle.initialsOf(name), center, baseline, textPaint);
+        return bitmap;
+    }
+}
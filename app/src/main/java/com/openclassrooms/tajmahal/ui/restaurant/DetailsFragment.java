@@ -15,11 +15,15 @@ import android.view.ViewGroup;
 import android.widget.Toast;
 
 import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.adapter.ReviewRowPrewarmer;
 import com.openclassrooms.tajmahal.databinding.FragmentDetailsBinding;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.RestaurantSnapshot;
 import com.openclassrooms.tajmahal.domain.model.ReviewStats;
 import com.openclassrooms.tajmahal.ui.reviews.ReviewFragment;
 
+import javax.inject.Inject;
+
 import dagger.hilt.android.AndroidEntryPoint;
 
 /**
@@ -34,9 +38,15 @@ import dagger.hilt.android.AndroidEntryPoint;
 @AndroidEntryPoint
 public class DetailsFragment extends Fragment {
 
+    @Inject
+    ReviewRowPrewarmer rowPrewarmer;
+
     private FragmentDetailsBinding binding;
     private DetailsViewModel detailsViewModel;
 
+    // Restaurant details bound to the views, null until the first binding
+    private RestaurantSnapshot boundRestaurant;
+
     //--- Lifecycle methods ---
 
     /**
@@ -69,9 +79,22 @@ public class DetailsFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
         setupViewModel();
+        setupActionButtons();
         observeRestaurant();
         observeReviewStats();
         setupNavigation();
+        // Inflate the rows of the reviews screen while the user reads the details
+        rowPrewarmer.prewarm();
+    }
+
+    /**
+     * Called when the fragment is visible to the user.
+     * The cached data is already displayed; stale data is refreshed in the background.
+     */
+    @Override
+    public void onResume() {
+        super.onResume();
+        detailsViewModel.refreshIfStale();
     }
 
 
@@ -80,6 +103,8 @@ public class DetailsFragment extends Fragment {
         super.onDestroyView();
         // Avoid memory leaks related to binding
         binding = null;
+        // The next views start empty
+        boundRestaurant = null;
     }
 
 
@@ -92,13 +117,28 @@ public class DetailsFragment extends Fragment {
         detailsViewModel = new ViewModelProvider(this).get(DetailsViewModel.class);
     }
 
+    /**
+     * Sets up the action buttons once. They act on the details bound at the time of the click.
+     */
+    private void setupActionButtons() {
+        binding.buttonAdress.setOnClickListener(v -> {
+            if (boundRestaurant != null) openMap(boundRestaurant.getRestaurant().getAddress());
+        });
+        binding.buttonPhone.setOnClickListener(v -> {
+            if (boundRestaurant != null) dialPhoneNumber(boundRestaurant.getRestaurant().getPhoneNumber());
+        });
+        binding.buttonWebsite.setOnClickListener(v -> {
+            if (boundRestaurant != null) openBrowser(boundRestaurant.getRestaurant().getWebsite());
+        });
+    }
+
     // --- ViewModel observation ---
 
     /**
      * Observes restaurant data from the ViewModel and updates the UI.
      */
     private void observeRestaurant() {
-        detailsViewModel.getTajMahalRestaurant().observe(getViewLifecycleOwner(), this::updateRestaurantUI);
+        detailsViewModel.getRestaurantSnapshot().observe(getViewLifecycleOwner(), this::updateRestaurantUI);
     }
 
     /**
@@ -113,30 +153,48 @@ public class DetailsFragment extends Fragment {
 
     /**
      * Updates the UI with restaurant information.
+     * Only the views of the attributes that changed since the last binding are updated.
      *
-     * @param restaurant the restaurant data to display
+     * @param snapshot the versioned restaurant data to display
      */
-    private void updateRestaurantUI(Restaurant restaurant) {
-        if (restaurant == null) return;
+    private void updateRestaurantUI(RestaurantSnapshot snapshot) {
+        if (snapshot == null) return;
+        int changes = snapshot.changesSince(boundRestaurant);
+        if (changes == 0) return;
+        boolean firstBinding = boundRestaurant == null;
+        boundRestaurant = snapshot;
+        Restaurant restaurant = snapshot.getRestaurant();
 
         // Display restaurant information
-        binding.tvRestaurantName.setText(restaurant.getName());
-        binding.tvRestaurantDay.setText(detailsViewModel.getCurrentDay(requireContext()));
-        binding.tvRestaurantType.setText(String.format("%s %s", getString(R.string.restaurant), restaurant.getType()));
-        binding.tvRestaurantHours.setText(restaurant.getHours());
-        binding.tvRestaurantAddress.setText(restaurant.getAddress());
-        binding.tvRestaurantWebsite.setText(restaurant.getWebsite());
-        binding.tvRestaurantPhoneNumber.setText(restaurant.getPhoneNumber());
+        if ((changes & Restaurant.FIELD_NAME) != 0) {
+            binding.tvRestaurantName.setText(restaurant.getName());
+        }
+        if (firstBinding) {
+            binding.tvRestaurantDay.setText(detailsViewModel.getCurrentDay(requireContext()));
+        }
+        if ((changes & Restaurant.FIELD_TYPE) != 0) {
+            binding.tvRestaurantType.setText(String.format("%s %s", getString(R.string.restaurant), restaurant.getType()));
+        }
+        if ((changes & Restaurant.FIELD_HOURS) != 0) {
+            binding.tvRestaurantHours.setText(restaurant.getHours());
+        }
+        if ((changes & Restaurant.FIELD_ADDRESS) != 0) {
+            binding.tvRestaurantAddress.setText(restaurant.getAddress());
+        }
+        if ((changes & Restaurant.FIELD_WEBSITE) != 0) {
+            binding.tvRestaurantWebsite.setText(restaurant.getWebsite());
+        }
+        if ((changes & Restaurant.FIELD_PHONE_NUMBER) != 0) {
+            binding.tvRestaurantPhoneNumber.setText(restaurant.getPhoneNumber());
+        }
 
         // Show/hide service type chips
-        binding.chipOnPremise.setVisibility(restaurant.isDineIn() ? View.VISIBLE : View.GONE);
-        binding.chipTakeAway.setVisibility(restaurant.isTakeAway() ? View.VISIBLE : View.GONE);
-
-        // Setup action buttons
-        binding.buttonAdress.setOnClickListener(v -> openMap(restaurant.getAddress()));
-        binding.buttonPhone.setOnClickListener(v -> dialPhoneNumber(restaurant.getPhoneNumber()));
-        binding.buttonWebsite.setOnClickListener(v -> openBrowser(restaurant.getWebsite()));
-
+        if ((changes & Restaurant.FIELD_DINE_IN) != 0) {
+            binding.chipOnPremise.setVisibility(restaurant.isDineIn() ? View.VISIBLE : View.GONE);
+        }
+        if ((changes & Restaurant.FIELD_TAKE_AWAY) != 0) {
+            binding.chipTakeAway.setVisibility(restaurant.isTakeAway() ? View.VISIBLE : View.GONE);
+        }
     }
 
     /**
@@ -152,6 +210,10 @@ public class DetailsFragment extends Fragment {
         binding.tvAverageRating.setText(String.format("%.1f", stats.getAverageRating()));
         binding.tvReviewCount.setText(String.format("(%d)", stats.getReviewCount()));
 
+        // Scores robust to few reviews, and weighted towards recent reviews
+        binding.tvWeightedRatings.setText(getString(R.string.weighted_ratings,
+                stats.getBayesianAverage(), stats.getRecentAverage()));
+
         // update distribution
         binding.progressBar5.setProgress(stats.getPercentDistribution()[4]);
         binding.progressBar4.setProgress(stats.getPercentDistribution()[3]);
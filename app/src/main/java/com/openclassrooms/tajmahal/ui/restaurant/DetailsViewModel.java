@@ -3,12 +3,12 @@ package com.openclassrooms.tajmahal.ui.restaurant;
 import android.content.Context;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.openclassrooms.tajmahal.R;
 import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.RestaurantSnapshot;
 import com.openclassrooms.tajmahal.domain.model.Review;
 
 import com.openclassrooms.tajmahal.domain.model.ReviewStats;
@@ -32,58 +32,16 @@ public class DetailsViewModel extends ViewModel {
 
     private final RestaurantRepository restaurantRepository;
 
-    // --- Computed LiveData ---
-
-    /**
-     * MediatorLiveData that automatically calculates review statistics
-     * whenever the review list changes.
-     */
-    private final MediatorLiveData<ReviewStats> reviewStats = new MediatorLiveData<>();
-
     // --- Constructor ---
 
     /**
      * Constructs a DetailsViewModel with the required repository.
-     * Initializes the computed LiveData for review statistics.
      *
      * @param restaurantRepository the repository for accessing restaurant and review data
      */
     @Inject
     public DetailsViewModel(RestaurantRepository restaurantRepository) {
         this.restaurantRepository = restaurantRepository;
-
-
-        // Setup computed LiveData for review statistics
-        reviewStats.addSource(getReviews(), reviews -> {
-            // Handle empty or null reviews
-            if (reviews == null || reviews.isEmpty()) {
-                reviewStats.setValue(new ReviewStats(0f, 0, new int[5], new int[5]));
-                return;
-            }
-
-            // Calculate rating distribution
-            float sum = 0f;
-            int[] distribution = new int[5];
-            for (Review r : reviews) {
-                int rate = r.getRate();
-                if (rate >= 1 && rate <= 5) {
-                    distribution[rate - 1]++;
-                    sum += rate;
-                }
-            }
-
-            // Calculate average rating
-            int count = reviews.size();
-            float average = sum / count;
-
-            // Calculate percentage distribution
-            int[] percent = new int[5];
-            for (int i = 0; i < 5; i++) {
-                percent[i] = (int) ((distribution[i] * 100f) / count);
-            }
-            // Update LiveData with calculated statistics
-            reviewStats.setValue(new ReviewStats(average, count, distribution, percent));
-        });
     }
 
     // --- Data access methods ---
@@ -97,6 +55,16 @@ public class DetailsViewModel extends ViewModel {
         return restaurantRepository.getRestaurant();
     }
 
+    /**
+     * Fetches the details of the Taj Mahal restaurant stamped with their version.
+     * A new version is only published when the details change.
+     *
+     * @return LiveData object containing the versioned details of the restaurant.
+     */
+    public LiveData<RestaurantSnapshot> getRestaurantSnapshot() {
+        return restaurantRepository.getRestaurantSnapshot();
+    }
+
     /**
      * Retrieves the list of customer reviews.
      *
@@ -111,13 +79,21 @@ public class DetailsViewModel extends ViewModel {
      * <p>
      * This LiveData is automatically updated whenever the review list changes.
      * It provides aggregated data including average rating, review count,
-     * and rating distribution.
+     * and rating distribution. The same aggregates feed the cross-venue ranking.
      * </p>
      *
      * @return LiveData containing the computed review statistics
      */
     public LiveData<ReviewStats> getReviewStats() {
-        return reviewStats;
+        return restaurantRepository.getReviewStats();
+    }
+
+    /**
+     * Refreshes in the background the data older than its time-to-live.
+     * Observers keep receiving the cached data until the new data arrives.
+     */
+    public void refreshIfStale() {
+        restaurantRepository.refreshIfStale();
     }
 
     // --- Utility methods ---
@@ -1,25 +1,37 @@
 package com.openclassrooms.tajmahal.ui.reviews;
 
 import android.graphics.Color;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.widget.PopupMenu;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.Window;
+import android.widget.AdapterView;
 import android.widget.Toast;
 
 import com.bumptech.glide.Glide;
+import com.openclassrooms.tajmahal.R;
 import com.openclassrooms.tajmahal.adapter.ReviewAdapter;
+import com.openclassrooms.tajmahal.adapter.ReviewRowPrewarmer;
+import com.openclassrooms.tajmahal.data.cache.TieredReviewCache;
 import com.openclassrooms.tajmahal.databinding.FragmentReviewBinding;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+import com.openclassrooms.tajmahal.ui.avatar.InitialsAvatarRenderer;
+import com.openclassrooms.tajmahal.ui.text.CommentTextCache;
 
-import java.util.ArrayList;
+import javax.inject.Inject;
 
 import dagger.hilt.android.AndroidEntryPoint;
 
@@ -32,9 +44,31 @@ import dagger.hilt.android.AndroidEntryPoint;
 @AndroidEntryPoint
 public class ReviewFragment extends Fragment {
 
+    // Number of remaining rows below which the next page of reviews is loaded
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    // Items of the menu of the user's reviews
+    private static final int ACTION_EDIT = 1;
+    private static final int ACTION_DELETE = 2;
+
+    @Inject
+    InitialsAvatarRenderer avatarRenderer;
+
+    @Inject
+    CommentTextCache commentTextCache;
+
+    @Inject
+    ReviewRowPrewarmer rowPrewarmer;
+
     private FragmentReviewBinding binding;
     private ReviewViewModel reviewViewModel;
     private ReviewAdapter adapter;
+    private ReviewAdapter myReviewsAdapter;
+    // Generation of the displayed review list, to keep the scroll position within one
+    private long displayedGeneration = -1;
+    // Review of the user being edited in the form, or null when the form adds a new review
+    private Review editedReview;
+    private CharSequence addReviewLabel;
 
 // ---lifecycle methods ---
 
@@ -55,6 +89,8 @@ public class ReviewFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
         setupViewModel();
         setupRecyclerView();
+        setupSortSelector();
+        setupRatingFilter();
         setupUI();
         setupRestaurantInfo();
         observeViewModelData();
@@ -63,6 +99,13 @@ public class ReviewFragment extends Fragment {
 
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        // Render from the cache, refresh stale reviews in the background
+        reviewViewModel.refreshIfStale();
+    }
+
     // ---setup methods ---
 
     /**
@@ -74,13 +117,82 @@ public class ReviewFragment extends Fragment {
 
     /**
      * Sets up the RecyclerView with its adapter.
-     * Configures vertical layout for displaying the review list.
+     * Configures vertical layout for displaying the review list, and the pool of rows
+     * shared by both lists.
      */
     private void setupRecyclerView() {
-        adapter = new ReviewAdapter();
+        adapter = new ReviewAdapter(avatarRenderer, commentTextCache, rowPrewarmer);
         binding.rvReviews.setAdapter(adapter);
-        binding.rvReviews.setLayoutManager(new LinearLayoutManager(requireContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        binding.rvReviews.setLayoutManager(layoutManager);
+
+        // Load the next page when the user scrolls close to the end of the list, and keep
+        // the pages of the visible rows in memory
+        binding.rvReviews.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                reviewViewModel.onReviewsVisible(layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition()
+                        >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    reviewViewModel.loadMoreReviews();
+                }
+            }
+        });
 
+        // "My reviews" section, hidden while the user has not posted anything
+        myReviewsAdapter = new ReviewAdapter(avatarRenderer, commentTextCache, rowPrewarmer);
+        binding.rvMyReviews.setAdapter(myReviewsAdapter);
+        binding.rvMyReviews.setLayoutManager(new LinearLayoutManager(requireContext()));
+        myReviewsAdapter.setOnReviewLongClickListener(this::showReviewActions);
+
+        // Both lists take their rows from the ones inflated while the details were displayed
+        rowPrewarmer.attach(binding.rvReviews, adapter);
+        rowPrewarmer.attach(binding.rvMyReviews, myReviewsAdapter);
+    }
+
+    /**
+     * Sets up the sort order selector.
+     * Entries of the selector follow the declaration order of {@link ReviewSortOrder}.
+     */
+    private void setupSortSelector() {
+        ReviewSortOrder current = reviewViewModel.getSortOrder().getValue();
+        if (current != null) {
+            binding.spSortOrder.setSelection(current.ordinal(), false);
+        }
+        binding.spSortOrder.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                reviewViewModel.setSortOrder(ReviewSortOrder.values()[position]);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+                // Keep the current order
+            }
+        });
+    }
+
+    /**
+     * Sets up the rating filter.
+     * The first entry displays every rating, the following ones 5 stars down to 1 star.
+     */
+    private void setupRatingFilter() {
+        Integer current = reviewViewModel.getRatingFilter().getValue();
+        if (current != null && current > 0) {
+            binding.spRatingFilter.setSelection(6 - current, false);
+        }
+        binding.spRatingFilter.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                reviewViewModel.setRatingFilter(position == 0 ? 0 : 6 - position);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+                // Keep the current filter
+            }
+        });
     }
 
     /**
@@ -107,9 +219,14 @@ public class ReviewFragment extends Fragment {
      * Loads username and profile picture.
      */
     private void setupRestaurantInfo() {
-        binding.tvUserName.setText(reviewViewModel.getCurrentUserName());
+        String userName = reviewViewModel.getCurrentUserName();
+        binding.tvUserName.setText(userName);
+        Drawable avatar = avatarRenderer.drawable(userName, binding.ivAvatarUser.getLayoutParams().width);
         Glide.with(requireContext())
                 .load(reviewViewModel.getCurrentUserPicture())
+                .placeholder(avatar)
+                .error(avatar)
+                .fallback(avatar)
                 .circleCrop()
                 .into(binding.ivAvatarUser);
     }
@@ -126,13 +243,38 @@ public class ReviewFragment extends Fragment {
             binding.tvRestaurantName.setText(restaurant.getName());
         });
 
-        // Observe review list updates
-        reviewViewModel.getReviews().observe(getViewLifecycleOwner(), reviews -> {
-            adapter.submitList(new ArrayList<>(reviews), () -> {
-                binding.rvReviews.smoothScrollToPosition(0);
+        // Observe review list updates, in the selected order and filter
+        reviewViewModel.getDisplayedReviews().observe(getViewLifecycleOwner(), reviews -> {
+            // New pages and pages scrolled back into view keep the scroll position; a reloaded
+            // list (new order, filter or review) is shown from the top
+            long generation = reviews instanceof TieredReviewCache.Snapshot
+                    ? ((TieredReviewCache.Snapshot) reviews).getGeneration() : -1;
+            boolean sameList = generation >= 0 && generation == displayedGeneration
+                    && !adapter.getCurrentList().isEmpty();
+            displayedGeneration = generation;
+            // Snapshots are immutable, so they are submitted without a copy
+            adapter.submitList(reviews, () -> {
+                if (!sameList) {
+                    binding.rvReviews.smoothScrollToPosition(0);
+                }
             });
         });
 
+        // Observe the current user's reviews
+        reviewViewModel.getMyReviews().observe(getViewLifecycleOwner(), myReviews -> {
+            int visibility = myReviews.isEmpty() ? View.GONE : View.VISIBLE;
+            binding.tvMyReviewsTitle.setVisibility(visibility);
+            binding.rvMyReviews.setVisibility(visibility);
+            myReviewsAdapter.submitList(myReviews);
+        });
+
+        // Observe the new reviews, edits and deletions that could not be stored
+        reviewViewModel.getReviewWriteError().observe(getViewLifecycleOwner(), error -> {
+            if (error != null) {
+                Toast.makeText(requireContext(), error, Toast.LENGTH_LONG).show();
+            }
+        });
+
         // Observe comment validation errors
         reviewViewModel.getCommentError().observe(getViewLifecycleOwner(), error -> {
             binding.etUserComment.setError(error);
@@ -152,7 +294,12 @@ public class ReviewFragment extends Fragment {
                 // Réinitialisation de l'UI si l'ajout a réussi - C'EST UNE MANIPULATION D'UI
                 binding.etUserComment.setText("");
                 binding.rbRatingBarUser.setRating(0);
-                Toast.makeText(requireContext(), "Avis ajouté avec succès", Toast.LENGTH_SHORT).show();
+                String message = "Avis ajouté avec succès";
+                Integer rank = reviewViewModel.getLastReviewRank().getValue();
+                if (rank != null && rank > 0) {
+                    message += "\n" + getString(R.string.review_rank, rank);
+                }
+                Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show();
 
                 // Reset success event to prevent re-triggering on rotation
                 reviewViewModel.resetSuccessEvent();
@@ -164,17 +311,89 @@ public class ReviewFragment extends Fragment {
 
     /**
      * Sets up the review submission button.
-     * Extracts user input and triggers review validation and addition.
+     * Extracts user input and triggers review validation and addition, or the edit of the
+     * review being edited.
      */
     private void setupAddReviewButton() {
+        addReviewLabel = binding.btValidation.getText();
         binding.btValidation.setOnClickListener(v -> {
             // Get user input
             String comment = binding.etUserComment.getText().toString().trim();
             float rating = binding.rbRatingBarUser.getRating();
 
             // Process review through ViewModel
-            reviewViewModel.processNewReview(comment, (int) rating);
+            if (editedReview == null) {
+                reviewViewModel.processNewReview(comment, (int) rating);
+            } else if (reviewViewModel.editReview(editedReview, comment, (int) rating)) {
+                stopEditing();
+            }
+        });
+    }
+
+    /**
+     * Shows the actions on one of the user's reviews, below its row.
+     *
+     * @param review the long-pressed review
+     * @param row    the row of the review
+     */
+    private void showReviewActions(Review review, View row) {
+        if (review.isPending()) {
+            // Not stored yet: nothing to edit or delete
+            return;
+        }
+        PopupMenu menu = new PopupMenu(requireContext(), row);
+        menu.getMenu().add(0, ACTION_EDIT, 0, R.string.edit_review);
+        menu.getMenu().add(0, ACTION_DELETE, 1, R.string.delete_review);
+        menu.setOnMenuItemClickListener(item -> {
+            if (item.getItemId() == ACTION_EDIT) {
+                startEditing(review);
+            } else {
+                confirmDeletion(review);
+            }
+            return true;
         });
+        menu.show();
+    }
+
+    /**
+     * Fills the form with one of the user's reviews, so that its validation saves the edit.
+     *
+     * @param review the review to edit
+     */
+    private void startEditing(Review review) {
+        editedReview = review;
+        binding.etUserComment.setText(review.getComment());
+        binding.rbRatingBarUser.setRating(review.getRate());
+        binding.btValidation.setText(R.string.save_review);
+        binding.etUserComment.requestFocus();
+    }
+
+    /**
+     * Clears the form and makes it add new reviews again.
+     */
+    private void stopEditing() {
+        editedReview = null;
+        binding.etUserComment.setText("");
+        binding.rbRatingBarUser.setRating(0);
+        binding.btValidation.setText(addReviewLabel);
+    }
+
+    /**
+     * Asks the user to confirm the deletion of one of their reviews, then deletes it.
+     *
+     * @param review the review to delete
+     */
+    private void confirmDeletion(Review review) {
+        new AlertDialog.Builder(requireContext())
+                .setMessage(R.string.delete_review_confirmation)
+                .setPositiveButton(R.string.delete_review, (dialog, which) -> {
+                    if (editedReview != null && editedReview.getId() == review.getId()) {
+                        stopEditing();
+                    }
+                    reviewViewModel.deleteReview(review);
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
     }
 
     /**
@@ -1,14 +1,23 @@
 package com.openclassrooms.tajmahal.ui.reviews;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.openclassrooms.tajmahal.data.cache.TieredReviewCache;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
 import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+import com.openclassrooms.tajmahal.di.IoExecutor;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewFailure;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 
@@ -17,7 +26,11 @@ import dagger.hilt.android.lifecycle.HiltViewModel;
 @HiltViewModel
 public class ReviewViewModel extends ViewModel {
 
+    /** Number of reviews fetched per page. */
+    static final int PAGE_SIZE = 20;
+
     private final RestaurantRepository restaurantRepository;
+    private final Executor ioExecutor;
 
     // --- LiveData for UI state management ---
 
@@ -39,16 +52,70 @@ public class ReviewViewModel extends ViewModel {
      */
     private final MutableLiveData<Boolean> reviewAddSuccessEvent = new MutableLiveData<>();
 
+    /**
+     * Order selected by the user to display the reviews.
+     */
+    private final MutableLiveData<ReviewSortOrder> sortOrder = new MutableLiveData<>(ReviewSortOrder.NEWEST);
+
+    /**
+     * Rating the displayed reviews must have, 0 to display every rating.
+     */
+    private final MutableLiveData<Integer> ratingFilter = new MutableLiveData<>(0);
+
+    /**
+     * 1-based position of the last added review in the selected order, 0 if unknown.
+     */
+    private final MutableLiveData<Integer> lastReviewRank = new MutableLiveData<>();
+
+    /**
+     * Pages of reviews loaded so far, in the selected order and filter. Created on first access.
+     */
+    private MediatorLiveData<List<Review>> displayedReviews;
+
+    /**
+     * Memory-bounded cache of the loaded pages, created with the displayed reviews.
+     * Only accessed on the io executor, while holding its lock.
+     */
+    private TieredReviewCache reviewCache;
+
+    /**
+     * Query of the selected order and filter, set on the main thread before each reload.
+     */
+    private volatile ReviewQuery selectedQuery;
+
+    /**
+     * Query of the pages in the cache, from {@link #selectedQuery} when the cache was reloaded.
+     * Guarded by the lock of the cache.
+     */
+    private ReviewQuery cacheQuery;
+
+    /**
+     * Whether a page is being appended, so that scrolling near the end appends a single one.
+     */
+    private final AtomicBoolean loadingMore = new AtomicBoolean();
+
+    /**
+     * Whether the cache was closed. Guarded by the lock of the cache.
+     */
+    private boolean cleared;
+
+    /**
+     * Error shown when a new review, an edit or a deletion could not be stored. Created on first access.
+     */
+    private MediatorLiveData<String> reviewWriteError;
+
     // --- Constructor ---
 
     /**
      * Constructs a ReviewViewModel with the required repository.
      *
      * @param restaurantRepository the repository for accessing restaurant and review data
+     * @param ioExecutor           the executor loading the pages of the displayed reviews
      */
     @Inject
-    public ReviewViewModel(RestaurantRepository restaurantRepository) {
+    public ReviewViewModel(RestaurantRepository restaurantRepository, @IoExecutor Executor ioExecutor) {
         this.restaurantRepository = restaurantRepository;
+        this.ioExecutor = ioExecutor;
     }
 
     // --- Data access méthods ---
@@ -71,6 +138,105 @@ public class ReviewViewModel extends ViewModel {
         return restaurantRepository.getReviews();
     }
 
+    /**
+     * Retrieves the customer reviews to display, in the order selected with
+     * {@link #setSortOrder} and filtered with {@link #setRatingFilter}.
+     * <p>
+     * Reviews are fetched one page at a time through a repository query, so only the
+     * displayed reviews are read; {@link #loadMoreReviews()} appends the next page. The
+     * list is reloaded from its first page when the order or the filter changes. When the
+     * reviews change, only the pages around the visible rows are reloaded at once, the others
+     * when they are scrolled back into view.
+     * </p>
+     * <p>
+     * Only the pages around the visible rows, reported with {@link #onReviewsVisible}, are
+     * kept in memory: the rows of the other pages are null until they are scrolled back into view.
+     * </p>
+     * <p>
+     * Pages are loaded, and evicted pages read back from disk, on the io executor; the list is
+     * updated when they are.
+     * </p>
+     *
+     * @return LiveData containing the displayed reviews
+     */
+    public LiveData<List<Review>> getDisplayedReviews() {
+        if (displayedReviews == null) {
+            displayedReviews = new MediatorLiveData<>();
+            // Before any work on the cache, which is then the only one to read it
+            cacheQuery = buildQuery();
+            reviewCache = restaurantRepository.createReviewCache((offset, limit) ->
+                    restaurantRepository.queryReviews(new ReviewQuery.Builder(cacheQuery).page(offset, limit).build()));
+            displayedReviews.addSource(restaurantRepository.getReviews(), reviews -> reloadReviews(false));
+            displayedReviews.addSource(sortOrder, order -> reloadReviews(true));
+            displayedReviews.addSource(ratingFilter, rating -> reloadReviews(true));
+        }
+        return displayedReviews;
+    }
+
+    /**
+     * Retrieves the reviews written by the current user, newest first.
+     * <p>
+     * Looked up in the author index once per review list by the repository, in the background,
+     * and shared with every other screen, so recreating this ViewModel after a rotation does not
+     * look them up again.
+     * </p>
+     *
+     * @return LiveData containing the current user's reviews
+     */
+    public LiveData<List<Review>> getMyReviews() {
+        return restaurantRepository.selectReviewsByAuthor(getCurrentUserName());
+    }
+
+    /**
+     * Gets the order selected to display the reviews.
+     *
+     * @return LiveData containing the selected order
+     */
+    public LiveData<ReviewSortOrder> getSortOrder() {
+        return sortOrder;
+    }
+
+    /**
+     * Selects the order in which the reviews are displayed.
+     *
+     * @param order the new order
+     */
+    public void setSortOrder(ReviewSortOrder order) {
+        if (order != sortOrder.getValue()) {
+            sortOrder.setValue(order);
+        }
+    }
+
+    /**
+     * Gets the rating the displayed reviews must have.
+     *
+     * @return LiveData containing the rating (1-5), or 0 when every rating is displayed
+     */
+    public LiveData<Integer> getRatingFilter() {
+        return ratingFilter;
+    }
+
+    /**
+     * Displays only the reviews with the given rating.
+     *
+     * @param rating the rating to keep (1-5), or 0 to display every rating
+     */
+    public void setRatingFilter(int rating) {
+        Integer current = ratingFilter.getValue();
+        if (current == null || current != rating) {
+            ratingFilter.setValue(rating);
+        }
+    }
+
+    /**
+     * Gets the position of the last added review in the selected order.
+     *
+     * @return LiveData containing the 1-based position, or 0 if unknown
+     */
+    public LiveData<Integer> getLastReviewRank() {
+        return lastReviewRank;
+    }
+
     /**
      * Gets the comment validation error LiveData.
      *
@@ -89,6 +255,40 @@ public class ReviewViewModel extends ViewModel {
         return ratingError;
     }
 
+    /**
+     * Gets the error raised when a new review, an edit or a deletion could not be stored.
+     * A new review has already been removed from the list and the statistics when it is
+     * emitted; an edited or deleted review is left as it was.
+     *
+     * @return LiveData containing the error message, matching the operation that failed
+     */
+    public LiveData<String> getReviewWriteError() {
+        if (reviewWriteError == null) {
+            reviewWriteError = new MediatorLiveData<>();
+            reviewWriteError.addSource(restaurantRepository.getFailedReviews(), failure ->
+                    reviewWriteError.setValue(messageOf(failure.getKind())));
+        }
+        return reviewWriteError;
+    }
+
+    /**
+     * Builds the error message of a failed operation on a review.
+     *
+     * @param kind the operation that failed
+     * @return the message to show
+     */
+    private static String messageOf(ReviewFailure.Kind kind) {
+        switch (kind) {
+            case EDIT:
+                return "Votre avis n'a pas pu être modifié, veuillez réessayer";
+            case DELETE:
+                return "Votre avis n'a pas pu être supprimé, veuillez réessayer";
+            case ADD:
+            default:
+                return "Votre avis n'a pas pu être enregistré, veuillez réessayer";
+        }
+    }
+
     /**
      * Gets the review addition success event LiveData.
      *
@@ -126,7 +326,12 @@ public class ReviewViewModel extends ViewModel {
 
     /**
      * Validates user input and adds the review if valid.
+     * A user who already reviewed the restaurant gets a comment error instead.
      * Updates error LiveData and success event accordingly.
+     * <p>
+     * The review is displayed at once as pending and stored in the background, so this
+     * method never waits for the storage; see {@link #getReviewWriteError()} for failures.
+     * </p>
      *
      * @param comment the review comment text
      * @param rating  the review rating (1-5)
@@ -152,6 +357,12 @@ public class ReviewViewModel extends ViewModel {
         String username = getCurrentUserName();
         String picture = getCurrentUserPicture();
 
+        // Only one review per user (O(1) lookup in the author index)
+        if (restaurantRepository.hasReviewed(username)) {
+            commentError.setValue("Vous avez déjà donné votre avis sur ce restaurant");
+            return;
+        }
+
         // Add review via repository
         addReview(username, picture, comment, rating);
 
@@ -169,6 +380,171 @@ public class ReviewViewModel extends ViewModel {
     private void addReview(String username, String picture, String comment, int rate) {
         Review newReview = new Review(username, picture, comment, rate);
         restaurantRepository.addReview(newReview);
+        lastReviewRank.setValue(restaurantRepository.getReviewRank(newReview, sortOrder.getValue()));
+    }
+
+    /**
+     * Validates an edit of one of the user's reviews and saves it in the background.
+     * Updates the error LiveData like {@link #processNewReview(String, int)}; failures of
+     * the storage are reported by {@link #getReviewWriteError()}.
+     *
+     * @param review  the review to edit, as displayed
+     * @param comment the new comment text
+     * @param rating  the new rating (1-5)
+     * @return true if the edit is being saved, false if it was rejected
+     */
+    public boolean editReview(Review review, String comment, int rating) {
+        if (comment.isEmpty()) {
+            commentError.setValue("Désolés, le commentaire ne peut pas être vide");
+            ratingError.setValue(null);
+            return false;
+        }
+        commentError.setValue(null);
+        if (rating == 0) {
+            ratingError.setValue("Merci de donner une note");
+            return false;
+        }
+        ratingError.setValue(null);
+        if (review.isPending()) {
+            commentError.setValue("Votre avis est en cours d'envoi, veuillez réessayer dans un instant");
+            return false;
+        }
+
+        // The stored review is replaced, not modified: it keeps its identifier and date
+        restaurantRepository.updateReview(new Review(review.getId(), review.getUsername(),
+                review.getPicture(), comment, rating, review.getCreatedAt()));
+        return true;
+    }
+
+    /**
+     * Deletes one of the user's reviews in the background. Pending reviews are ignored.
+     * Failures are reported by {@link #getReviewWriteError()}.
+     *
+     * @param review the review to delete, as displayed
+     */
+    public void deleteReview(Review review) {
+        if (!review.isPending()) {
+            restaurantRepository.deleteReview(review);
+        }
+    }
+
+    /**
+     * Refreshes in the background the reviews older than their time-to-live.
+     * The displayed reviews are reloaded when the refreshed ones arrive.
+     */
+    public void refreshIfStale() {
+        restaurantRepository.refreshIfStale();
+    }
+
+    /**
+     * Appends the next page of reviews to the displayed ones in the background, if any.
+     * Called by the View when the user scrolls near the end of the list; ignored while a
+     * page is already being appended.
+     */
+    public void loadMoreReviews() {
+        if (displayedReviews == null || !loadingMore.compareAndSet(false, true)) {
+            return;
+        }
+        runOnCache(() -> {
+            try {
+                if (reviewCache.loadMore(PAGE_SIZE)) {
+                    displayedReviews.postValue(reviewCache.getReviews());
+                }
+            } finally {
+                loadingMore.set(false);
+            }
+        });
+    }
+
+    /**
+     * Tells which reviews are on screen, so that their pages are kept in memory, and the
+     * pages scrolled back into view are loaded again in the background. Called by the View
+     * when the list scrolls.
+     *
+     * @param first the position of the first visible review
+     * @param last  the position of the last visible review
+     */
+    public void onReviewsVisible(int first, int last) {
+        if (displayedReviews == null || first < 0) {
+            return;
+        }
+        runOnCache(() -> {
+            if (reviewCache.setVisibleRange(first, last)) {
+                displayedReviews.postValue(reviewCache.getReviews());
+            }
+        });
+    }
+
+    /**
+     * Reloads the displayed reviews in the background.
+     *
+     * @param fromFirstPage true to go back to a single page (new order or filter), false to keep
+     *                      as many reviews as already displayed and reload the visible ones only
+     *                      (reviews added, edited or deleted)
+     */
+    private void reloadReviews(boolean fromFirstPage) {
+        // The order and the filter are read on the main thread; the last reload uses the last ones
+        selectedQuery = buildQuery();
+        runOnCache(() -> {
+            cacheQuery = selectedQuery;
+            if (fromFirstPage || reviewCache.size() == 0) {
+                reviewCache.reset();
+                reviewCache.loadMore(PAGE_SIZE);
+            } else {
+                reviewCache.invalidate();
+            }
+            displayedReviews.postValue(reviewCache.getReviews());
+        });
+    }
+
+    /**
+     * Runs work on the reviews cache on the io executor, one task at a time: pages are loaded
+     * from the repository and read back from the spill file, which must not block the main thread.
+     *
+     * @param work the work, run while holding the lock of the cache unless it was closed
+     */
+    private void runOnCache(Runnable work) {
+        TieredReviewCache cache = reviewCache;
+        ioExecutor.execute(() -> {
+            synchronized (cache) {
+                if (!cleared) {
+                    work.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Builds the query matching the selected order and filter, without its page.
+     *
+     * @return the query
+     */
+    private ReviewQuery buildQuery() {
+        ReviewQuery.Builder builder = new ReviewQuery.Builder()
+                .sortBy(sortOrder.getValue());
+        Integer rating = ratingFilter.getValue();
+        if (rating != null && rating > 0) {
+            builder.ratingBetween(rating, rating);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Deletes the reviews evicted to disk when the screen is closed for good, once the
+     * pending work on the cache is done.
+     */
+    @Override
+    protected void onCleared() {
+        if (reviewCache != null) {
+            runOnCache(() -> {
+                cleared = true;
+                try {
+                    reviewCache.close();
+                } catch (IOException e) {
+                    // Deleted with the cache directory anyway
+                }
+            });
+        }
     }
 
     /**
@@ -0,0 +1,113 @@
+package com.openclassrooms.tajmahal.ui.text;
+
+import android.util.LruCache;
+
+import androidx.core.text.PrecomputedTextCompat;
+
+import com.openclassrooms.tajmahal.data.scheduler.PrioritizedExecutor;
+import com.openclassrooms.tajmahal.data.scheduler.TaskPriority;
+import com.openclassrooms.tajmahal.di.ComputeExecutor;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Measures the comments of the reviews off the main thread with {@link PrecomputedTextCompat}.
+ * <p>
+ * Measuring the glyphs of a long comment is the costly part of laying it out. Here it runs on the
+ * compute executor with a UI-critical priority, ideally as soon as a list is submitted, and the
+ * result is kept in a memory cache shared by every screen, keyed by review id. A row then only
+ * breaks the lines of an already measured text, whatever its width, and collapsing or expanding
+ * a comment reuses the same measurement.
+ * </p>
+ * <p>
+ * The measurement depends on the text metrics of the row (font, size, hyphenation), not on its
+ * width: a cached text is measured again only if the comment was edited or the metrics changed,
+ * for example after a font scale change. This class must be used from the main thread.
+ * </p>
+ */
+@Singleton
+public class CommentTextCache {
+
+    // Number of comments kept measured, several screens of long comments
+    private static final int CACHE_SIZE = 200;
+
+    /**
+     * Measurement of a comment, with what it was measured from.
+     */
+    private static final class Entry {
+        final String comment;
+        final PrecomputedTextCompat.Params params;
+        final Future<PrecomputedTextCompat> text;
+
+        Entry(String comment, PrecomputedTextCompat.Params params, Future<PrecomputedTextCompat> text) {
+            this.comment = comment;
+            this.params = params;
+            this.text = text;
+        }
+    }
+
+    // --- Fields ---
+
+    private final Executor executor;
+    private final LruCache<Long, Entry> cache = new LruCache<>(CACHE_SIZE);
+
+    // --- Constructor ---
+
+    /**
+     * Constructs the cache.
+     *
+     * @param computeExecutor the executor measuring the comments
+     */
+    @Inject
+    public CommentTextCache(@ComputeExecutor PrioritizedExecutor computeExecutor) {
+        this.executor = computeExecutor.withPriority(TaskPriority.UI_CRITICAL);
+    }
+
+    // --- Measurement ---
+
+    /**
+     * Gets the measured comment of a review, starting its measurement if needed.
+     * The result is meant for {@code AppCompatTextView.setTextFuture}, which waits for it
+     * only when the row is laid out.
+     *
+     * @param review the review
+     * @param params the text metrics of the row displaying the comment
+     * @return the pending or completed measurement
+     */
+    public Future<PrecomputedTextCompat> get(Review review, PrecomputedTextCompat.Params params) {
+        String comment = review.getComment() == null ? "" : review.getComment();
+        Entry entry = cache.get(review.getId());
+        if (entry == null || !entry.comment.equals(comment) || !entry.params.equals(params)) {
+            FutureTask<PrecomputedTextCompat> task =
+                    new FutureTask<>(() -> PrecomputedTextCompat.create(comment, params));
+            executor.execute(task);
+            entry = new Entry(comment, params, task);
+            cache.put(review.getId(), entry);
+        }
+        return entry.text;
+    }
+
+    /**
+     * Starts measuring the comments of reviews about to be displayed, so that binding their
+     * rows finds them ready.
+     *
+     * @param reviews the reviews, with null for the rows not loaded yet
+     * @param params  the text metrics of the rows displaying the comments
+     */
+    public void prefetch(List<Review> reviews, PrecomputedTextCompat.Params params) {
+        int count = Math.min(reviews.size(), CACHE_SIZE / 2);
+        for (int i = 0; i < count; i++) {
+            Review review = reviews.get(i);
+            if (review != null) {
+                get(review, params);
+            }
+        }
+    }
+}
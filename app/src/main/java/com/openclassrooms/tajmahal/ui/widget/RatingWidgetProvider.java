@@ -0,0 +1,72 @@
+package com.openclassrooms.tajmahal.ui.widget;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.Context;
+import android.content.Intent;
+import android.widget.RemoteViews;
+
+import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.data.io.ReviewStatsFile;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.ui.MainActivity;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Home-screen widget showing the average rating and the number of reviews of the restaurant.
+ * <p>
+ * The widget is updated from the {@link ReviewStatsFile} written by {@link RatingWidgetPublisher}
+ * whenever the statistics change. On its own updates it reads that file only: it is not an
+ * injection target and never creates the repository or loads the reviews.
+ * </p>
+ */
+public class RatingWidgetProvider extends AppWidgetProvider {
+
+    private static final String STATS_FILE_NAME = "widget_review_stats.bin";
+
+    /**
+     * Gets the file holding the statistics displayed by the widget.
+     *
+     * @param context any context of the app
+     * @return the statistics file
+     */
+    public static ReviewStatsFile statsFile(Context context) {
+        return new ReviewStatsFile(new File(context.getFilesDir(), STATS_FILE_NAME));
+    }
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        update(context, appWidgetManager, appWidgetIds, statsFile(context).read());
+    }
+
+    /**
+     * Displays statistics in widgets.
+     *
+     * @param context          any context of the app
+     * @param appWidgetManager the widget manager
+     * @param appWidgetIds     the widgets to update
+     * @param stats            the statistics, or null while none were computed
+     */
+    static void update(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds, ReviewStats stats) {
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_rating);
+        if (stats == null) {
+            views.setTextViewText(R.id.tvWidgetRating, "–");
+            views.setTextViewText(R.id.tvWidgetReviewCount, "");
+        } else {
+            views.setTextViewText(R.id.tvWidgetRating,
+                    String.format(Locale.getDefault(), "%.1f ★", stats.getAverageRating()));
+            views.setTextViewText(R.id.tvWidgetReviewCount, context.getResources().getQuantityString(
+                    R.plurals.widget_review_count, stats.getReviewCount(), stats.getReviewCount()));
+        }
+
+        // Opens the details of the restaurant
+        Intent intent = new Intent(context, MainActivity.class);
+        views.setOnClickPendingIntent(R.id.widgetRoot, PendingIntent.getActivity(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE));
+
+        appWidgetManager.updateAppWidget(appWidgetIds, views);
+    }
+}
@@ -0,0 +1,101 @@
+package com.openclassrooms.tajmahal.ui.widget;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.Log;
+
+import com.openclassrooms.tajmahal.data.io.ReviewStatsFile;
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+import com.openclassrooms.tajmahal.data.stream.BackpressureStrategy;
+import com.openclassrooms.tajmahal.di.IoExecutor;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.hilt.android.qualifiers.ApplicationContext;
+
+/**
+ * Keeps the rating widget up to date while the app runs.
+ * <p>
+ * Each change of the review statistics is written to the widget's {@link ReviewStatsFile} on the
+ * I/O executor, then pushed to the widgets already placed. Bursts of changes, such as an import,
+ * are conflated into the latest statistics, so the file is written at most once at a time.
+ * </p>
+ */
+@Singleton
+public class RatingWidgetPublisher {
+
+    private static final String TAG = "RatingWidgetPublisher";
+
+    // --- Fields ---
+
+    private final Context context;
+    private final RestaurantRepository restaurantRepository;
+    private final Executor ioExecutor;
+    private final ReviewStatsFile statsFile;
+    private boolean started;
+    // Statistics in the file, only accessed on the delivering executor
+    private ReviewStats written;
+
+    // --- Constructor ---
+
+    /**
+     * Constructs the publisher.
+     *
+     * @param context              the application context
+     * @param restaurantRepository the repository publishing the statistics
+     * @param ioExecutor           the executor writing the file
+     */
+    @Inject
+    public RatingWidgetPublisher(@ApplicationContext Context context, RestaurantRepository restaurantRepository,
+                                 @IoExecutor Executor ioExecutor) {
+        this.context = context;
+        this.restaurantRepository = restaurantRepository;
+        this.ioExecutor = ioExecutor;
+        this.statsFile = RatingWidgetProvider.statsFile(context);
+    }
+
+    // --- Publishing ---
+
+    /**
+     * Starts following the statistics. Later calls do nothing.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        restaurantRepository.getReviewStatsStream()
+                .observeOn(ioExecutor, BackpressureStrategy.CONFLATE)
+                .subscribe(this::publish);
+    }
+
+    private void publish(ReviewStats stats) {
+        if (stats.equals(written)) {
+            return;
+        }
+        if (written == null && stats.equals(statsFile.read())) {
+            // Same statistics as when the app last ran
+            written = stats;
+            return;
+        }
+        try {
+            statsFile.write(stats);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write the widget statistics", e);
+            return;
+        }
+        written = stats;
+
+        AppWidgetManager manager = AppWidgetManager.getInstance(context);
+        int[] ids = manager.getAppWidgetIds(new ComponentName(context, RatingWidgetProvider.class));
+        if (ids.length > 0) {
+            RatingWidgetProvider.update(context, manager, ids, stats);
+        }
+    }
+}
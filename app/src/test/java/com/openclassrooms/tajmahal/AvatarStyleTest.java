@@ -0,0 +1,36 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.ui.avatar.AvatarStyle;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for AvatarStyle.
+ */
+public class AvatarStyleTest {
+
+    /**
+     * Test 1: Initials use the first letters of the first and last words.
+     */
+    @Test
+    public void initialsOf_shouldUseFirstAndLastWords() {
+        assertEquals("MG", AvatarStyle.initialsOf("Manon Garcia"));
+        assertEquals("JD", AvatarStyle.initialsOf("  jean  pierre dupont "));
+        assertEquals("É", AvatarStyle.initialsOf("émilie"));
+        assertEquals("?", AvatarStyle.initialsOf("  "));
+        assertEquals("?", AvatarStyle.initialsOf(null));
+    }
+
+    /**
+     * Test 2: Colors and cache keys only depend on the normalized name.
+     */
+    @Test
+    public void colorFor_shouldBeDeterministic() {
+        assertEquals(AvatarStyle.colorFor("Manon Garcia"), AvatarStyle.colorFor(" manon garcia"));
+        assertEquals(0xFF, AvatarStyle.colorFor("Manon Garcia") >>> 24);
+        assertEquals(AvatarStyle.cacheKey("Manon Garcia", 120), AvatarStyle.cacheKey("MANON GARCIA ", 120));
+        assertNotEquals(AvatarStyle.cacheKey("Manon Garcia", 120), AvatarStyle.cacheKey("Manon Garcia", 90));
+    }
+}
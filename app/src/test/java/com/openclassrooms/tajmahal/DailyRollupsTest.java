@@ -0,0 +1,123 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.index.DailyRollups;
+import com.openclassrooms.tajmahal.data.io.DailyRollupFile;
+import com.openclassrooms.tajmahal.domain.model.BayesianPrior;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.model.ReviewStatsAccumulator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for DailyRollups, the per-day rating table, and its DailyRollupFile.
+ */
+public class DailyRollupsTest {
+
+    private static final TimeZone PARIS = TimeZone.getTimeZone("Europe/Paris");
+    private static final long DAY = DailyRollups.DAY_MILLIS;
+    // 2024-03-01T00:00:00+01:00
+    private static final long START = 1_709_247_600_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Review review(long id, int rate, long createdAt) {
+        return new Review(id, "User " + id, "", "Comment " + id, rate, createdAt);
+    }
+
+    /**
+     * Test 1: Rollups maintained through adds, edits and deletes equal the ones recomputed from the reviews.
+     */
+    @Test
+    public void incrementalUpdates_shouldMatchRecomputedRollups() {
+        Random random = new Random(48);
+        List<Review> reviews = new ArrayList<>();
+        DailyRollups rollups = new DailyRollups(PARIS);
+        for (int i = 0; i < 500; i++) {
+            Review added = review(i, random.nextInt(6), START + (long) (random.nextDouble() * 40 * DAY));
+            reviews.add(added);
+            rollups.add(added);
+        }
+        for (int i = 0; i < 100; i++) {
+            int index = random.nextInt(reviews.size());
+            Review previous = reviews.get(index);
+            if (i % 2 == 0) {
+                Review edited = review(previous.getId(), 1 + random.nextInt(5), previous.getCreatedAt());
+                reviews.set(index, edited);
+                rollups.replace(previous, edited);
+            } else {
+                reviews.remove(index);
+                rollups.remove(previous);
+            }
+        }
+
+        assertEquals(DailyRollups.of(PARIS, reviews), rollups);
+    }
+
+    /**
+     * Test 2: Range statistics count the reviews of whole local days, like an accumulator fed with them.
+     */
+    @Test
+    public void getStats_shouldMatchReviewsOfTheRange() {
+        List<Review> reviews = new ArrayList<>();
+        // Just before midnight in Paris, still on the previous local day
+        reviews.add(review(1, 5, START - 1));
+        reviews.add(review(2, 4, START));
+        reviews.add(review(3, 2, START + DAY - 1));
+        reviews.add(review(4, 3, START + 2 * DAY + 12 * 60 * 60 * 1000L));
+        reviews.add(review(5, 0, START + 2 * DAY));
+        reviews.add(review(6, 1, START + 3 * DAY));
+        DailyRollups rollups = DailyRollups.of(PARIS, reviews);
+        BayesianPrior prior = new BayesianPrior(3.5f, 5f);
+
+        ReviewStats stats = rollups.getStats(START + 3600_000L, START + 2 * DAY + 5, prior,
+                ReviewStatsAccumulator.DEFAULT_HALF_LIFE_MILLIS);
+
+        ReviewStatsAccumulator expected = new ReviewStatsAccumulator(prior,
+                ReviewStatsAccumulator.DEFAULT_HALF_LIFE_MILLIS);
+        expected.addAll(reviews.subList(1, 5));
+        ReviewStats reference = expected.snapshot();
+        assertEquals(4, stats.getReviewCount());
+        assertArrayEquals(reference.getRatingDistribution(), stats.getRatingDistribution());
+        assertArrayEquals(reference.getPercentDistribution(), stats.getPercentDistribution());
+        assertEquals(reference.getAverageRating(), stats.getAverageRating(), 0.0001f);
+        assertEquals(reference.getBayesianAverage(), stats.getBayesianAverage(), 0.0001f);
+        // Only the days with reviews have a rollup
+        assertEquals(2, rollups.getDays(START, START + 2 * DAY).size());
+        assertEquals(0, rollups.getStats(START + 10 * DAY, START + 20 * DAY, prior,
+                ReviewStatsAccumulator.DEFAULT_HALF_LIFE_MILLIS).getReviewCount());
+    }
+
+    /**
+     * Test 3: Written rollups are read back identical; a missing file reads as no rollups.
+     */
+    @Test
+    public void file_shouldRoundTrip() throws Exception {
+        File file = new File(folder.getRoot(), "rollups.bin");
+        DailyRollupFile rollupFile = new DailyRollupFile(file);
+        assertNull(rollupFile.read());
+
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            reviews.add(review(i, 1 + i % 5, START + i * DAY / 3));
+        }
+        DailyRollups rollups = DailyRollups.of(PARIS, reviews);
+        rollupFile.write(rollups);
+
+        DailyRollups read = rollupFile.read();
+        assertEquals(rollups, read);
+        assertEquals(PARIS.getID(), read.getTimeZone().getID());
+        assertEquals(10, read.size());
+    }
+}
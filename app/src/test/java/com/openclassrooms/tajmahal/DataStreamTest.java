@@ -0,0 +1,129 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.stream.BackpressureStrategy;
+import com.openclassrooms.tajmahal.data.stream.StreamSource;
+import com.openclassrooms.tajmahal.data.stream.Subscription;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for DataStream operators and backpressure strategies.
+ * <p>
+ * Deliveries moved with observeOn are queued on a manual executor, so that each test
+ * decides when the consumer catches up with the producer.
+ * </p>
+ */
+public class DataStreamTest {
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+    private StreamSource<Integer> source;
+
+    @Before
+    public void setup() {
+        source = new StreamSource<>();
+    }
+
+    /**
+     * Test 1: New subscribers receive the latest value, then the following ones, transformed.
+     */
+    @Test
+    public void subscribe_shouldReplayLatestValueThroughOperators() {
+        source.emit(1);
+        List<String> received = new ArrayList<>();
+
+        source.map(value -> "#" + value).subscribe(received::add);
+        source.emit(2);
+
+        assertEquals(Arrays.asList("#1", "#2"), received);
+    }
+
+    /**
+     * Test 2: Consecutive duplicates are skipped and cancelled subscribers receive nothing.
+     */
+    @Test
+    public void distinctUntilChanged_shouldSkipRepeatedValues() {
+        List<Integer> received = new ArrayList<>();
+        Subscription subscription = source.distinctUntilChanged().subscribe(received::add);
+
+        source.emit(1);
+        source.emit(1);
+        source.emit(2);
+        source.emit(1);
+        subscription.cancel();
+        source.emit(3);
+
+        assertEquals(Arrays.asList(1, 2, 1), received);
+    }
+
+    /**
+     * Test 3: Each strategy handles a burst produced while the consumer is busy.
+     */
+    @Test
+    public void observeOn_shouldApplyBackpressureStrategy() {
+        List<Integer> buffered = new ArrayList<>();
+        List<Integer> conflated = new ArrayList<>();
+        List<Integer> dropped = new ArrayList<>();
+        source.observeOn(pendingTasks::add, BackpressureStrategy.BUFFER).subscribe(buffered::add);
+        source.observeOn(pendingTasks::add, BackpressureStrategy.CONFLATE).subscribe(conflated::add);
+        source.observeOn(pendingTasks::add, BackpressureStrategy.DROP, 2).subscribe(dropped::add);
+
+        for (int i = 1; i <= 5; i++) {
+            source.emit(i);
+        }
+        // One drain task per subscriber, however many values were emitted
+        assertEquals(3, pendingTasks.size());
+        runPendingTasks();
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), buffered);
+        assertEquals(Collections.singletonList(5), conflated);
+        assertEquals(Arrays.asList(1, 2), dropped);
+    }
+
+    /**
+     * Test 4: A burst of values collapses into its last value once the stream is quiet.
+     */
+    @Test
+    public void debounce_shouldDeliverLastValueOfBurst() throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch delivered = new CountDownLatch(1);
+            source.debounce(50, scheduler).subscribe(value -> {
+                received.add(value);
+                delivered.countDown();
+            });
+
+            for (int i = 1; i <= 10; i++) {
+                source.emit(i);
+            }
+
+            assertTrue(delivered.await(2, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(Collections.singletonList(10), received);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // --- Helpers ---
+
+    private void runPendingTasks() {
+        List<Runnable> tasks = new ArrayList<>(pendingTasks);
+        pendingTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.query.PagedReviews;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.service.SyntheticRestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PagedReviews, the reviews of a query read page by page.
+ */
+public class PagedReviewsTest {
+
+    /**
+     * Test 1: Iterating reads every matching review in order, one query per page, and only when iterated.
+     */
+    @Test
+    public void iterator_shouldReadEveryReviewPageByPage() {
+        // Arrange
+        SyntheticRestaurantApi api = new SyntheticRestaurantApi.Builder(1234).build();
+        int[] queries = new int[1];
+        PagedReviews reviews = new PagedReviews(query -> {
+            queries[0]++;
+            return api.queryReviews(query);
+        }, new ReviewQuery.Builder().page(0, 100).build());
+        assertEquals(0, queries[0]);
+
+        // Act
+        List<Review> read = new ArrayList<>();
+        for (Review review : reviews) {
+            read.add(review);
+        }
+
+        // Assert
+        assertEquals(api.getReviews(), read);
+        assertEquals(13, queries[0]);
+    }
+
+    /**
+     * Test 2: Filters and the starting offset of the query are kept from page to page.
+     */
+    @Test
+    public void iterator_shouldKeepFiltersAndOffset() {
+        SyntheticRestaurantApi api = new SyntheticRestaurantApi.Builder(1000).build();
+        List<Review> expected = new ArrayList<>();
+        for (Review review : api.getReviews()) {
+            if (review.getRate() == 5) {
+                expected.add(review);
+            }
+        }
+
+        List<Review> read = new ArrayList<>();
+        for (Review review : new PagedReviews(api::queryReviews,
+                new ReviewQuery.Builder().ratingBetween(5, 5).page(10, 7).build())) {
+            read.add(review);
+        }
+
+        assertEquals(expected.subList(10, expected.size()), read);
+    }
+}
@@ -0,0 +1,107 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.scheduler.ExecutorMetrics;
+import com.openclassrooms.tajmahal.data.scheduler.PrioritizedExecutor;
+import com.openclassrooms.tajmahal.data.scheduler.TaskPriority;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PrioritizedExecutor.
+ * <p>
+ * The pool has a single thread, blocked by a first task while the others are queued,
+ * so that the order in which the queued tasks run is deterministic.
+ * </p>
+ */
+public class PrioritizedExecutorTest {
+
+    private PrioritizedExecutor executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    @Before
+    public void setup() throws InterruptedException {
+        executor = new PrioritizedExecutor("test", 1);
+        executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        }, TaskPriority.BACKGROUND);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    /**
+     * Test 1: Queued UI-critical tasks run before background ones, each priority in submission order.
+     */
+    @Test
+    public void execute_shouldRunUiCriticalTasksFirst() throws InterruptedException {
+        // Arrange
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        executor.execute(() -> order.add("index"), TaskPriority.BACKGROUND);
+        executor.execute(() -> order.add("sync"));
+        executor.execute(() -> order.add("stats"), TaskPriority.UI_CRITICAL);
+        executor.withPriority(TaskPriority.UI_CRITICAL).execute(() -> order.add("page"));
+
+        // Act
+        release.countDown();
+        executor.shutdown();
+
+        // Assert
+        assertTrue(executor.awaitTermination(2, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("stats", "page", "index", "sync"), order);
+    }
+
+    /**
+     * Test 2: Queue depth and wait time are reported per priority.
+     */
+    @Test
+    public void metrics_shouldReportQueueDepthAndWaitTime() throws InterruptedException {
+        // Arrange
+        executor.execute(() -> { }, TaskPriority.BACKGROUND);
+        executor.execute(() -> { }, TaskPriority.BACKGROUND);
+        executor.execute(() -> { }, TaskPriority.UI_CRITICAL);
+        ExecutorMetrics background = executor.getMetrics(TaskPriority.BACKGROUND);
+        ExecutorMetrics uiCritical = executor.getMetrics(TaskPriority.UI_CRITICAL);
+        assertEquals(2, background.getQueueDepth());
+        assertEquals(1, uiCritical.getQueueDepth());
+
+        // Act
+        Thread.sleep(20);
+        release.countDown();
+        executor.shutdown();
+
+        // Assert
+        assertTrue(executor.awaitTermination(2, TimeUnit.SECONDS));
+        assertEquals(0, background.getQueueDepth());
+        assertEquals(2, background.getPeakQueueDepth());
+        assertEquals(3, background.getStartedTaskCount()); // Including the blocking task
+        assertEquals(1, uiCritical.getStartedTaskCount());
+        assertTrue(uiCritical.getMaxWaitMillis() >= 20);
+    }
+
+    // --- Helpers ---
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.domain.model.BayesianPrior;
+import com.openclassrooms.tajmahal.domain.model.RatingCounters;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.model.ReviewStatsAccumulator;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the mergeable rating counters.
+ */
+public class RatingCountersTest {
+
+    private static final BayesianPrior PRIOR = new BayesianPrior(3.5f, 10f);
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final List<Review> tabletAReviews = Arrays.asList(
+            new Review(1, "A", "", "Top", 5, NOW - 200 * DAY),
+            new Review(2, "B", "", "Bien", 4, NOW - 10 * DAY),
+            new Review(3, "C", "", "Bof", 2, NOW));
+    private final List<Review> tabletBReviews = Arrays.asList(
+            new Review(4, "D", "", "Moyen", 3, NOW - 30 * DAY),
+            new Review(5, "E", "", "Top", 5, NOW - DAY));
+
+    /**
+     * Test 1: The statistics derived from the counters match the ones of the accumulator.
+     */
+    @Test
+    public void toStats_shouldMatchAccumulator() {
+        RatingCounters counters = new RatingCounters("tablet-a");
+        counters.addAll(tabletAReviews);
+        counters.remove(tabletAReviews.get(1));
+
+        ReviewStatsAccumulator accumulator = new ReviewStatsAccumulator(PRIOR,
+                ReviewStatsAccumulator.DEFAULT_HALF_LIFE_MILLIS);
+        accumulator.addAll(tabletAReviews);
+        accumulator.remove(tabletAReviews.get(1));
+
+        assertStatsEqual(accumulator.snapshot(), counters.toStats(PRIOR));
+    }
+
+    /**
+     * Test 2: Merging is commutative and idempotent: every review is counted once.
+     */
+    @Test
+    public void merge_shouldConvergeWithoutDoubleCounting() {
+        RatingCounters tabletA = new RatingCounters("tablet-a");
+        RatingCounters tabletB = new RatingCounters("tablet-b");
+        tabletA.addAll(tabletAReviews);
+        tabletB.addAll(tabletBReviews);
+
+        tabletA.merge(tabletB);
+        tabletB.merge(tabletA);
+        tabletA.merge(tabletB);
+        tabletA.merge(tabletA);
+
+        assertEquals(5, tabletA.getCount());
+        assertArrayEquals(tabletA.toBytes(), tabletB.toBytes());
+        ReviewStats expected = ReviewStatsAccumulator.of(concat(tabletAReviews, tabletBReviews));
+        assertStatsEqual(expected, tabletA.toStats(ReviewStatsAccumulator.DEFAULT_PRIOR));
+    }
+
+    /**
+     * Test 3: A review deleted on another device than the one that counted it is uncounted once merged.
+     */
+    @Test
+    public void remove_onOtherDevice_shouldCancelOnceMerged() {
+        RatingCounters tabletA = new RatingCounters("tablet-a");
+        RatingCounters tabletB = new RatingCounters("tablet-b");
+        tabletA.addAll(tabletAReviews);
+        tabletB.merge(tabletA);
+
+        tabletB.remove(tabletAReviews.get(0));
+        tabletA.merge(tabletB);
+
+        assertEquals(2, tabletA.getCount());
+        assertEquals(0, tabletA.toStats(PRIOR).getRatingDistribution()[4]);
+    }
+
+    /**
+     * Test 4: Counters survive encoding, in a few hundred bytes.
+     */
+    @Test
+    public void toBytes_shouldRoundTripCompactly() {
+        RatingCounters tabletA = new RatingCounters("tablet-a");
+        RatingCounters tabletB = new RatingCounters("tablet-b");
+        tabletA.addAll(tabletAReviews);
+        tabletB.addAll(tabletBReviews);
+        tabletA.merge(tabletB);
+
+        byte[] bytes = tabletA.toBytes();
+        RatingCounters decoded = RatingCounters.fromBytes(bytes);
+
+        assertTrue(bytes.length < 512);
+        assertEquals(tabletA.getDevices(), decoded.getDevices());
+        assertStatsEqual(tabletA.toStats(PRIOR), decoded.toStats(PRIOR));
+        assertArrayEquals(bytes, decoded.toBytes());
+    }
+
+    /**
+     * Test 5: A bucket uncounted more than counted reads as empty until the missing counts are merged.
+     */
+    @Test
+    public void toStats_withMoreRemovalsThanAdditions_shouldClampToZero() {
+        RatingCounters tabletA = new RatingCounters("tablet-a");
+        RatingCounters tabletB = new RatingCounters("tablet-b");
+        tabletA.addAll(tabletAReviews);
+        tabletB.add(tabletBReviews.get(0));
+        tabletB.remove(tabletAReviews.get(2));
+
+        ReviewStats stats = tabletB.toStats(PRIOR);
+        assertEquals(1, tabletB.getCount());
+        assertEquals(1, stats.getReviewCount());
+        assertArrayEquals(new int[]{0, 0, 1, 0, 0}, stats.getRatingDistribution());
+        assertEquals(3f, stats.getRecentAverage(), 0.001f);
+
+        tabletB.merge(tabletA);
+        assertEquals(3, tabletB.getCount());
+    }
+
+    // --- Helpers ---
+
+    private static void assertStatsEqual(ReviewStats expected, ReviewStats actual) {
+        assertEquals(expected.getReviewCount(), actual.getReviewCount());
+        assertArrayEquals(expected.getRatingDistribution(), actual.getRatingDistribution());
+        assertArrayEquals(expected.getPercentDistribution(), actual.getPercentDistribution());
+        assertEquals(expected.getAverageRating(), actual.getAverageRating(), 1e-4f);
+        assertEquals(expected.getBayesianAverage(), actual.getBayesianAverage(), 1e-4f);
+        assertEquals(expected.getRecentAverage(), actual.getRecentAverage(), 1e-4f);
+    }
+
+    private static List<Review> concat(List<Review> first, List<Review> second) {
+        Review[] all = new Review[first.size() + second.size()];
+        for (int i = 0; i < first.size(); i++) {
+            all[i] = first.get(i);
+        }
+        for (int i = 0; i < second.size(); i++) {
+            all[first.size() + i] = second.get(i);
+        }
+        return Arrays.asList(all);
+    }
+}
@@ -0,0 +1,120 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.cache.RefreshingCache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RefreshingCache.
+ * <p>
+ * Loads are queued on a manual executor and time is controlled by a fake clock,
+ * so that each test decides when the background work runs.
+ * </p>
+ */
+public class RefreshingCacheTest {
+
+    private static final long TTL = 1000;
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+    private final AtomicInteger loadCount = new AtomicInteger();
+    private final List<String> refreshedValues = new ArrayList<>();
+    private long now;
+
+    private RefreshingCache<String> cache;
+
+    @Before
+    public void setup() throws Exception {
+        cache = new RefreshingCache<>(TTL, () -> "v" + loadCount.incrementAndGet(), pendingTasks::add, () -> now);
+        cache.setListener(new RefreshingCache.Listener<String>() {
+            @Override
+            public void onRefreshed(String value) {
+                refreshedValues.add(value);
+            }
+
+            @Override
+            public void onRefreshFailed(Exception error) {
+                fail("unexpected failure: " + error);
+            }
+        });
+        cache.load();
+    }
+
+    /**
+     * Test 1: A fresh value is served without starting any load.
+     */
+    @Test
+    public void get_whenFresh_shouldNotRefresh() {
+        now = TTL - 1;
+
+        assertEquals("v1", cache.get());
+        assertTrue(pendingTasks.isEmpty());
+    }
+
+    /**
+     * Test 2: A stale value is served at once while a refresh runs in the background.
+     */
+    @Test
+    public void get_whenStale_shouldServeCachedValueAndRefresh() {
+        now = TTL;
+
+        assertEquals("v1", cache.get());
+        assertTrue(cache.isRefreshing());
+
+        runPendingTasks();
+
+        assertEquals("v2", cache.peek());
+        assertEquals(1, refreshedValues.size());
+        assertFalse(cache.isStale());
+    }
+
+    /**
+     * Test 3: Repeated refresh requests share a single in-flight load.
+     */
+    @Test
+    public void refresh_whenInFlight_shouldCoalesce() {
+        Future<String> first = cache.refresh();
+        Future<String> second = cache.refresh();
+        now = TTL * 2;
+        cache.get();
+
+        assertSame(first, second);
+        assertEquals(1, pendingTasks.size());
+
+        runPendingTasks();
+
+        assertEquals(2, loadCount.get());
+    }
+
+    /**
+     * Test 4: A local write made during a load is not overwritten by that load.
+     */
+    @Test
+    public void update_duringLoad_shouldWinOverLoadedValue() {
+        cache.refresh();
+        cache.update("local");
+
+        runPendingTasks();
+
+        assertEquals("local", cache.peek());
+        assertTrue(refreshedValues.isEmpty());
+        assertTrue(cache.isStale());
+    }
+
+    // --- Helpers ---
+
+    private void runPendingTasks() {
+        List<Runnable> tasks = new ArrayList<>(pendingTasks);
+        pendingTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.domain.model.BayesianPrior;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.ranking.RankedRestaurant;
+import com.openclassrooms.tajmahal.domain.ranking.RestaurantRanking;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for RestaurantRanking.
+ * <p>
+ * Checks the Bayesian smoothing and the incremental maintenance of the bounded leaderboards.
+ * </p>
+ */
+public class RestaurantRankingTest {
+
+    private RestaurantRanking ranking;
+
+    /**
+     * Creates a ranking keeping the top 2 venues, with a prior of 3.5 worth 10 reviews.
+     */
+    @Before
+    public void setup() {
+        ranking = new RestaurantRanking(2, new BayesianPrior(3.5f, 10f));
+    }
+
+    /**
+     * Test 1: A single perfect review does not beat many very good reviews.
+     */
+    @Test
+    public void getTop_fewPerfectReviews_rankBelowManyGoodReviews() {
+        // Arrange
+        ranking.update(restaurant("Solo", "Indien"), stats(0, 0, 0, 0, 1));
+        ranking.update(restaurant("Popular", "Indien"), stats(0, 0, 0, 100, 400));
+
+        // Act
+        List<RankedRestaurant> top = ranking.getTop();
+
+        // Assert
+        assertEquals(2, top.size());
+        assertEquals("Popular", top.get(0).getKey());
+        assertEquals("Solo", top.get(1).getKey());
+    }
+
+    /**
+     * Test 2: Only the k best venues are kept, and a better newcomer evicts the weakest one.
+     */
+    @Test
+    public void update_betterVenue_evictsWeakestMember() {
+        // Arrange
+        ranking.update(restaurant("A", "Indien"), stats(0, 0, 10, 0, 0));
+        ranking.update(restaurant("B", "Indien"), stats(0, 0, 0, 10, 0));
+
+        // Act
+        ranking.update(restaurant("C", "Italien"), stats(0, 0, 0, 0, 10));
+
+        // Assert
+        List<RankedRestaurant> top = ranking.getTop();
+        assertEquals(2, top.size());
+        assertEquals("C", top.get(0).getKey());
+        assertEquals("B", top.get(1).getKey());
+    }
+
+    /**
+     * Test 3: When a member loses score, a venue waiting outside the heap takes its place.
+     */
+    @Test
+    public void update_memberScoreDrops_outsiderTakesItsPlace() {
+        // Arrange
+        ranking.update(restaurant("A", "Indien"), stats(0, 0, 0, 0, 10));
+        ranking.update(restaurant("B", "Indien"), stats(0, 0, 0, 10, 0));
+        ranking.update(restaurant("C", "Indien"), stats(0, 0, 10, 0, 0));
+
+        // Act - "A" receives many bad reviews
+        ranking.update(restaurant("A", "Indien"), stats(50, 0, 0, 0, 10));
+
+        // Assert
+        List<RankedRestaurant> top = ranking.getTop();
+        assertEquals("B", top.get(0).getKey());
+        assertEquals("C", top.get(1).getKey());
+    }
+
+    /**
+     * Test 4: Leaderboards per cuisine type only contain venues of that type.
+     */
+    @Test
+    public void getTopByType_returnsOnlyVenuesOfThatType() {
+        // Arrange
+        ranking.update(restaurant("A", "Indien"), stats(0, 0, 0, 0, 10));
+        ranking.update(restaurant("B", "Italien"), stats(0, 0, 0, 10, 0));
+
+        // Act
+        List<RankedRestaurant> indian = ranking.getTopByType("Indien");
+
+        // Assert
+        assertEquals(1, indian.size());
+        assertEquals("A", indian.get(0).getKey());
+        assertTrue(ranking.getTopByType("Japonais").isEmpty());
+    }
+
+    // --- Helpers ---
+
+    private static Restaurant restaurant(String name, String type) {
+        return new Restaurant(name, type, "", "", "", "", true, true);
+    }
+
+    private static ReviewStats stats(int... distribution) {
+        int count = 0;
+        float sum = 0f;
+        for (int i = 0; i < distribution.length; i++) {
+            count += distribution[i];
+            sum += (i + 1) * distribution[i];
+        }
+        return new ReviewStats(count == 0 ? 0f : sum / count, count, distribution, new int[5]);
+    }
+}
@@ -0,0 +1,429 @@
+package com.openclassrooms.tajmahal;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+import com.openclassrooms.tajmahal.data.scheduler.PrioritizedExecutor;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.data.service.SyntheticRestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.BayesianPrior;
+import com.openclassrooms.tajmahal.domain.model.RatingCounters;
+import com.openclassrooms.tajmahal.domain.model.RestaurantSnapshot;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewFailure;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.model.ReviewSyncState;
+import com.openclassrooms.tajmahal.domain.ranking.RestaurantRanking;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the optimistic review insertion of RestaurantRepository.
+ * <p>
+ * API calls are queued on a manual I/O executor, so that each test observes the state
+ * of the repository before and after the review is stored.
+ * </p>
+ */
+public class RestaurantRepositoryTest {
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private final List<Runnable> pendingIo = new ArrayList<>();
+    private PrioritizedExecutor computeExecutor;
+    private boolean failWrites;
+    // Runs after the API stored a review, before the repository is told
+    private Runnable afterWrite;
+    private RestaurantFakeApi api;
+
+    private RestaurantRepository repository;
+    private final List<List<Review>> publishedReviews = new ArrayList<>();
+    private final List<ReviewStats> publishedStats = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        api = new RestaurantFakeApi() {
+            @Override
+            public synchronized void addReview(Review review) {
+                if (failWrites) {
+                    throw new IllegalStateException("storage unavailable");
+                }
+                super.addReview(review);
+                if (afterWrite != null) {
+                    afterWrite.run();
+                }
+            }
+        };
+        computeExecutor = new PrioritizedExecutor("test", 1);
+        repository = new RestaurantRepository(api, new RestaurantRanking(10, new BayesianPrior(3.5f, 10f)),
+                pendingIo::add, computeExecutor);
+        runPendingIo();
+        repository.getReviewStream().subscribe(publishedReviews::add);
+        repository.getReviewStatsStream().subscribe(publishedStats::add);
+    }
+
+    @After
+    public void tearDown() {
+        computeExecutor.shutdown();
+    }
+
+    /**
+     * Test 1: A new review is published at once as pending, then replaced by the stored one.
+     */
+    @Test
+    public void addReview_shouldShowPendingReviewThenConfirmIt() {
+        // Act
+        Review review = new Review("Manon Garcia", "", "Très bon", 5);
+        repository.addReview(review);
+
+        // Assert: displayed before the API is called
+        List<Review> displayed = last(publishedReviews);
+        assertEquals(6, displayed.size());
+        assertSame(review, displayed.get(0));
+        assertEquals(ReviewSyncState.PENDING, review.getSyncState());
+        assertEquals(6, last(publishedStats).getReviewCount());
+        assertTrue(repository.hasReviewed("Manon Garcia"));
+
+        // Act: the API stores the review
+        runPendingIo();
+
+        // Assert
+        Review stored = last(publishedReviews).get(0);
+        assertEquals(ReviewSyncState.CONFIRMED, stored.getSyncState());
+        assertTrue(stored.getId() > 0);
+        assertEquals(6, last(publishedReviews).size());
+        assertEquals(6, last(publishedStats).getReviewCount());
+        assertEquals(1, repository.getReviewsByAuthor("Manon Garcia").size());
+    }
+
+    /**
+     * Test 2: A review that cannot be stored is removed from the list, the indexes and the statistics.
+     */
+    @Test
+    public void addReview_whenStorageFails_shouldRollBack() {
+        // Arrange
+        failWrites = true;
+        ReviewStats before = last(publishedStats);
+        List<ReviewFailure> failed = new ArrayList<>();
+        repository.getFailedReviews().observeForever(failed::add);
+
+        // Act
+        Review review = new Review("Manon Garcia", "", "Très bon", 1);
+        repository.addReview(review);
+        runPendingIo();
+
+        // Assert
+        assertEquals(5, last(publishedReviews).size());
+        assertFalse(last(publishedReviews).contains(review));
+        assertEquals(before, last(publishedStats));
+        assertFalse(repository.hasReviewed("Manon Garcia"));
+        assertEquals(1, failed.size());
+        assertEquals(ReviewFailure.Kind.ADD, failed.get(0).getKind());
+        assertSame(review, failed.get(0).getReview());
+    }
+
+    /**
+     * Test 3: A batch of reviews is published once, with its statistics and indexes.
+     */
+    @Test
+    public void addReviews_shouldPublishOncePerBatch() {
+        // Arrange
+        int publishedBefore = publishedReviews.size();
+        List<Review> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Review("Auteur " + i, "", "Importé", 1 + i % 5));
+        }
+
+        // Act
+        repository.addReviews(batch);
+
+        // Assert
+        assertEquals(publishedBefore + 1, publishedReviews.size());
+        List<Review> displayed = last(publishedReviews);
+        assertEquals(105, displayed.size());
+        assertSame(batch.get(99), displayed.get(0));
+        assertSame(batch.get(0), displayed.get(99));
+        assertEquals(105, last(publishedStats).getReviewCount());
+        assertTrue(repository.hasReviewed("Auteur 42"));
+        assertTrue(batch.get(0).getId() > 0);
+    }
+
+    /**
+     * Test 4: Edits and deletions replace the review in the list, the indexes and the statistics.
+     */
+    @Test
+    public void updateAndDeleteReview_shouldAdjustListAndStats() {
+        // Arrange
+        Review original = last(publishedReviews).get(3); // David John, rated 2
+        int twoStars = last(publishedStats).getRatingDistribution()[1];
+
+        // Act: edit
+        Review edited = new Review(original.getId(), original.getUsername(), original.getPicture(),
+                "Finalement très bon", 5, original.getCreatedAt());
+        repository.updateReview(edited);
+        runPendingIo();
+
+        // Assert
+        assertSame(edited, last(publishedReviews).get(3));
+        assertEquals(5, last(publishedStats).getReviewCount());
+        assertEquals(twoStars - 1, last(publishedStats).getRatingDistribution()[1]);
+        assertEquals(edited, repository.getReviewsByAuthor("David John").get(0));
+
+        // Act: delete
+        repository.deleteReview(edited);
+        runPendingIo();
+
+        // Assert
+        assertEquals(4, last(publishedReviews).size());
+        assertFalse(last(publishedReviews).contains(edited));
+        assertEquals(4, last(publishedStats).getReviewCount());
+        assertFalse(repository.hasReviewed("David John"));
+    }
+
+    /**
+     * Test 5: Reloading unchanged restaurant details publishes no new version.
+     */
+    @Test
+    public void refresh_withUnchangedRestaurant_shouldKeepVersion() {
+        // Arrange
+        List<RestaurantSnapshot> snapshots = new ArrayList<>();
+        repository.getRestaurantSnapshot().observeForever(snapshots::add);
+
+        // Act: the fake API builds equal details on each call
+        repository.refresh();
+        runPendingIo();
+
+        // Assert
+        assertEquals(1, snapshots.size());
+        assertEquals(1, last(snapshots).getVersion());
+        assertEquals(0, last(snapshots).changesSince(snapshots.get(0)));
+    }
+
+    /**
+     * Test 6: A refresh applies only the reviews added, edited and deleted on the server since the last sync.
+     */
+    @Test
+    public void refresh_shouldApplyDeltaSinceLastSync() {
+        // Arrange: other devices change the reviews
+        List<Review> initial = last(publishedReviews);
+        Review added = new Review("Manon Garcia", "", "Très bon", 5);
+        api.addReview(added);
+        Review edited = new Review(initial.get(0).getId(), initial.get(0).getUsername(),
+                initial.get(0).getPicture(), "Finalement moyen", 3, initial.get(0).getCreatedAt());
+        api.updateReview(edited);
+        api.deleteReview(initial.get(1).getId());
+        int published = publishedReviews.size();
+
+        // Act
+        repository.refresh();
+        runPendingIo();
+
+        // Assert: published once, with the statistics and indexes of the merged list
+        assertEquals(published + 1, publishedReviews.size());
+        List<Review> displayed = last(publishedReviews);
+        assertEquals(initial.size(), displayed.size());
+        assertSame(added, displayed.get(0));
+        assertSame(edited, displayed.get(1));
+        assertFalse(displayed.contains(initial.get(1)));
+        assertEquals(initial.size(), last(publishedStats).getReviewCount());
+        assertTrue(repository.hasReviewed("Manon Garcia"));
+
+        // Act: nothing changed since
+        repository.refresh();
+        runPendingIo();
+
+        // Assert
+        assertEquals(published + 1, publishedReviews.size());
+    }
+
+    /**
+     * Test 7: The repository is created without calling the API, and publishes the data once loaded on the I/O executor.
+     */
+    @Test
+    public void constructor_shouldLoadOnIoExecutor() {
+        // Act
+        RestaurantRepository created = new RestaurantRepository(api,
+                new RestaurantRanking(10, new BayesianPrior(3.5f, 10f)), pendingIo::add, computeExecutor);
+        List<List<Review>> reviews = new ArrayList<>();
+        created.getReviewStream().subscribe(reviews::add);
+
+        // Assert: nothing loaded on the calling thread
+        assertTrue(reviews.isEmpty());
+        assertEquals(1, pendingIo.size());
+
+        // Act
+        runPendingIo();
+
+        // Assert
+        assertEquals(5, last(reviews).size());
+        assertTrue(created.hasReviewed("David John"));
+    }
+
+    /**
+     * Test 8: A sync bringing the stored review before it is confirmed leaves it listed, indexed and counted once.
+     */
+    @Test
+    public void addReview_whenSyncedBeforeConfirmed_shouldNotDuplicateIt() {
+        // Arrange: a refresh runs between the API call and the confirmation
+        afterWrite = () -> {
+            afterWrite = null;
+            repository.refresh();
+            runPendingIo();
+        };
+
+        // Act
+        repository.addReview(new Review("Manon Garcia", "", "Très bon", 5));
+        runPendingIo();
+
+        // Assert
+        List<Review> displayed = last(publishedReviews);
+        assertEquals(6, displayed.size());
+        assertEquals(ReviewSyncState.CONFIRMED, displayed.get(0).getSyncState());
+        assertTrue(displayed.get(0).getId() > 0);
+        assertEquals(6, last(publishedStats).getReviewCount());
+        assertEquals(6, repository.getReviewStats(0, Long.MAX_VALUE).getReviewCount());
+        assertEquals(1, repository.getReviewsByAuthor("Manon Garcia").size());
+        assertEquals(1, repository.getReviewRank(displayed.get(0), ReviewSortOrder.NEWEST));
+        assertEquals(2, repository.getReviewRank(displayed.get(1), ReviewSortOrder.NEWEST));
+    }
+
+    /**
+     * Test 9: The base reviews of a snapshot are counted in the statistics without being mirrored.
+     */
+    @Test
+    public void snapshotWithBaseReviews_shouldCountThemWithoutMirroring() {
+        // Arrange
+        SyntheticRestaurantApi synthetic = new SyntheticRestaurantApi.Builder(1000).build();
+        synthetic.addReview(new Review("Manon Garcia", "", "Très bon", 5));
+
+        // Act
+        RestaurantRepository created = new RestaurantRepository(synthetic,
+                new RestaurantRanking(10, new BayesianPrior(3.5f, 10f)), pendingIo::add, computeExecutor);
+        List<List<Review>> reviews = new ArrayList<>();
+        List<ReviewStats> stats = new ArrayList<>();
+        created.getReviewStream().subscribe(reviews::add);
+        created.getReviewStatsStream().subscribe(stats::add);
+        runPendingIo();
+
+        // Assert
+        assertEquals(1, last(reviews).size());
+        assertEquals(1001, last(stats).getReviewCount());
+        assertEquals(1001, created.verifyDailyRollups().getStats(0, Long.MAX_VALUE,
+                new BayesianPrior(3.5f, 10f), Long.MAX_VALUE).getReviewCount());
+        assertEquals(20, created.queryReviews(new ReviewQuery.Builder().page(0, 20).build()).getReviews().size());
+    }
+
+    /**
+     * Test 10: The rating counters count the reviews written on this device, and merge with those of other devices.
+     */
+    @Test
+    public void ratingCounters_shouldCountLocalWritesAndMerge() {
+        // Arrange: another device collected two reviews
+        RatingCounters otherDevice = new RatingCounters("tablet-b");
+        otherDevice.add(new Review(100, "Hugo Petit", "", "Bien", 4, 0));
+        otherDevice.add(new Review(101, "Léa Roux", "", "Bien", 4, 0));
+
+        // Act: a review written here, and a review counted by no device deleted here
+        repository.addReview(new Review("Manon Garcia", "", "Très bon", 5));
+        runPendingIo();
+        repository.deleteReview(last(publishedReviews).get(4));
+        runPendingIo();
+        repository.mergeRatingCounters(otherDevice.toBytes());
+
+        // Assert: synced reviews are not counted, the extra removal reads as an empty bucket
+        ReviewStats merged = repository.getMergedRatingStats();
+        assertEquals(3, merged.getReviewCount());
+        assertArrayEquals(new int[]{0, 0, 0, 2, 1}, merged.getRatingDistribution());
+        assertEquals(2, RatingCounters.fromBytes(repository.getRatingCounters()).getDevices().size());
+    }
+
+    /**
+     * Test 11: The reviews of an author are looked up on the compute executor and shared between callers.
+     */
+    @Test
+    public void selectReviewsByAuthor_shouldLookUpIndexOffTheEmittingThread() throws Exception {
+        // Arrange
+        BlockingQueue<List<Review>> selected = new LinkedBlockingQueue<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        LiveData<List<Review>> mine = repository.selectReviewsByAuthor("Manon Garcia");
+        mine.observeForever(reviews -> {
+            threads.add(Thread.currentThread());
+            selected.add(reviews);
+        });
+        assertTrue(selected.poll(5, TimeUnit.SECONDS).isEmpty());
+
+        // Act
+        Review review = new Review("Manon Garcia", "", "Très bon", 5);
+        repository.addReview(review);
+
+        // Assert
+        List<Review> reviews = selected.poll(5, TimeUnit.SECONDS);
+        assertEquals(1, reviews.size());
+        assertSame(review, reviews.get(0));
+        assertSame(mine, repository.selectReviewsByAuthor("Manon Garcia"));
+        assertFalse(threads.contains(Thread.currentThread()));
+    }
+
+    /**
+     * Test 12: Rolling back a pending review leaves another pending review with the same content.
+     */
+    @Test
+    public void rollBack_withEqualPendingReviews_shouldRemoveOnlyTheFailedOne() {
+        // Arrange: equal contents, told apart by their temporary ids only
+        Review failed = new Review(0, "Manon Garcia", "", "Très bon", 5, 1000);
+        Review stored = new Review(0, "Manon Garcia", "", "Très bon", 5, 1000);
+        repository.addReview(failed);
+        repository.addReview(stored);
+        assertEquals(failed, stored);
+
+        // Act: the first write fails
+        failWrites = true;
+        pendingIo.remove(0).run();
+
+        // Assert
+        List<Review> displayed = last(publishedReviews);
+        assertEquals(6, displayed.size());
+        assertSame(stored, displayed.get(0));
+        assertEquals(ReviewSyncState.PENDING, displayed.get(0).getSyncState());
+
+        // Act: the second write succeeds
+        failWrites = false;
+        runPendingIo();
+
+        // Assert
+        displayed = last(publishedReviews);
+        assertEquals(6, displayed.size());
+        assertEquals(ReviewSyncState.CONFIRMED, displayed.get(0).getSyncState());
+        assertTrue(displayed.get(0).getId() > 0);
+        assertEquals(6, last(publishedStats).getReviewCount());
+    }
+
+    // --- Helpers ---
+
+    private void runPendingIo() {
+        List<Runnable> tasks = new ArrayList<>(pendingIo);
+        pendingIo.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private static <T> T last(List<T> values) {
+        return values.get(values.size() - 1);
+    }
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.RestaurantSnapshot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the change detection of RestaurantSnapshot.
+ */
+public class RestaurantSnapshotTest {
+
+    private static Restaurant tajMahal(String hours, boolean takeAway) {
+        return new Restaurant("Taj Mahal", "Indien", hours, "12 Avenue de la Brique - 75010 Paris",
+                "http://www.tajmahal.fr", "06 12 34 56 78", true, takeAway);
+    }
+
+    /**
+     * Test 1: A first snapshot binds every attribute.
+     */
+    @Test
+    public void changesSince_withoutPrevious_shouldReturnAllFields() {
+        RestaurantSnapshot snapshot = new RestaurantSnapshot(1, tajMahal("11h30 - 22h00", true));
+
+        assertEquals(Restaurant.ALL_FIELDS, snapshot.changesSince(null));
+    }
+
+    /**
+     * Test 2: The same version delivered again changes nothing.
+     */
+    @Test
+    public void changesSince_sameVersion_shouldReturnNoField() {
+        RestaurantSnapshot snapshot = new RestaurantSnapshot(1, tajMahal("11h30 - 22h00", true));
+
+        assertEquals(0, snapshot.changesSince(snapshot));
+    }
+
+    /**
+     * Test 3: A new version only reports the attributes that differ.
+     */
+    @Test
+    public void changesSince_newVersion_shouldReturnChangedFields() {
+        RestaurantSnapshot previous = new RestaurantSnapshot(1, tajMahal("11h30 - 22h00", true));
+        RestaurantSnapshot current = new RestaurantSnapshot(2, tajMahal("12h00 - 23h00", false));
+
+        assertEquals(Restaurant.FIELD_HOURS | Restaurant.FIELD_TAKE_AWAY, current.changesSince(previous));
+    }
+}
@@ -0,0 +1,100 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.index.BloomFilter;
+import com.openclassrooms.tajmahal.data.sync.ReviewChangeLog;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the review change log and the Bloom filter of the incremental sync.
+ */
+public class ReviewChangeLogTest {
+
+    /**
+     * Test 1: A delta lists only the changes after the cursor, in the order of the changes.
+     */
+    @Test
+    public void since_shouldListChangesAfterCursor() {
+        ReviewChangeLog log = new ReviewChangeLog();
+        Review first = new Review(1, "A", "", "Top", 5, 1000);
+        Review second = new Review(2, "B", "", "Bien", 4, 2000);
+        log.recordUpsert(first);
+        long cursor = log.getCursor();
+        log.recordUpsert(second);
+        log.recordDelete(3);
+
+        ReviewDelta delta = log.since(cursor);
+
+        assertFalse(delta.isSnapshot());
+        assertEquals(Collections.singletonList(second), delta.getReviews());
+        assertEquals(Collections.singletonList(3L), delta.getDeletedIds());
+        assertEquals(log.getCursor(), delta.getCursor());
+        assertTrue(log.since(delta.getCursor()).isEmpty());
+    }
+
+    /**
+     * Test 2: Only the last change of a review is sent, whatever the number of edits.
+     */
+    @Test
+    public void since_shouldKeepLastChangePerReview() {
+        ReviewChangeLog log = new ReviewChangeLog();
+        Review edited = new Review(1, "A", "", "Bien", 4, 1000);
+        log.recordUpsert(new Review(1, "A", "", "Top", 5, 1000));
+        log.recordUpsert(edited);
+        log.recordUpsert(new Review(2, "B", "", "Bof", 2, 2000));
+        log.recordDelete(2);
+
+        ReviewDelta delta = log.since(0);
+
+        assertEquals(Collections.singletonList(edited), delta.getReviews());
+        assertEquals(Collections.singletonList(2L), delta.getDeletedIds());
+    }
+
+    /**
+     * Test 3: Clients without a cursor, or older than the remembered deletions, need a snapshot.
+     */
+    @Test
+    public void since_withUnknownCursor_shouldRequireSnapshot() {
+        ReviewChangeLog log = new ReviewChangeLog(1);
+        log.recordUpsert(new Review(1, "A", "", "Top", 5, 1000));
+        long cursor = log.getCursor();
+        log.recordDelete(2);
+        log.recordDelete(3);
+
+        assertNull(log.since(ReviewDelta.NO_CURSOR));
+        assertNull(log.since(cursor));
+        assertNull(log.since(log.getCursor() + 1));
+        assertEquals(Arrays.asList(3L), log.since(log.getCursor() - 1).getDeletedIds());
+    }
+
+    /**
+     * Test 4: The Bloom filter never forgets an identifier, and rejects most unknown ones.
+     */
+    @Test
+    public void bloomFilter_shouldHaveNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000);
+        for (long id = 1; id <= 1000; id++) {
+            filter.add(id);
+        }
+
+        int falsePositives = 0;
+        for (long id = 1; id <= 1000; id++) {
+            assertTrue(filter.mightContain(id));
+            if (filter.mightContain(id + 1000)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 50);
+
+        filter.clear();
+        assertEquals(0, filter.size());
+        assertFalse(filter.mightContain(1));
+    }
+}
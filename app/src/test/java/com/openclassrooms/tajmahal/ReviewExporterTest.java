@@ -0,0 +1,148 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.io.ReviewExporter;
+import com.openclassrooms.tajmahal.data.io.ReviewFormat;
+import com.openclassrooms.tajmahal.data.service.SyntheticRestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ReviewExporter and the ReviewFormat encodings.
+ */
+public class ReviewExporterTest {
+
+    private final List<Review> reviews = Arrays.asList(
+            new Review(2, "Émilie \"Mimi\" Hood", "https://a/b.jpg", "Bon, mais\nlent", 3, 1000L),
+            new Review(1, "David John", "", "Très bon \\o/", 5, 500L));
+
+    /**
+     * Test 1: CSV fields containing separators, quotes or line breaks are quoted.
+     */
+    @Test
+    public void export_csv_shouldQuoteSpecialFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = new ReviewExporter(ReviewFormat.CSV).export(reviews, out, null);
+
+        assertEquals(2, written);
+        assertEquals("id,username,picture,comment,rate,createdAt\r\n"
+                        + "2,\"Émilie \"\"Mimi\"\" Hood\",https://a/b.jpg,\"Bon, mais\nlent\",3,1000\r\n"
+                        + "1,David John,,Très bon \\o/,5,500\r\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test 2: JSON Lines records escape quotes, backslashes and line breaks.
+     */
+    @Test
+    public void export_jsonLines_shouldEscapeStrings() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new ReviewExporter(ReviewFormat.JSON_LINES).export(reviews, out, null);
+
+        assertEquals("{\"id\":2,\"username\":\"Émilie \\\"Mimi\\\" Hood\",\"picture\":\"https://a/b.jpg\","
+                        + "\"comment\":\"Bon, mais\\nlent\",\"rate\":3,\"createdAt\":1000}\n"
+                        + "{\"id\":1,\"username\":\"David John\",\"picture\":\"\","
+                        + "\"comment\":\"Très bon \\\\o/\",\"rate\":5,\"createdAt\":500}\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test 3: A large lazy list is streamed to the channel with regular progress reports.
+     */
+    @Test
+    public void export_shouldStreamLargeDumpWithProgress() throws Exception {
+        List<Review> large = new SyntheticRestaurantApi.Builder(100_000).build().getReviews();
+        CountingChannel channel = new CountingChannel();
+        RecordingListener listener = new RecordingListener();
+
+        long written = new ReviewExporter(ReviewFormat.JSON_LINES).export(large, channel, listener);
+
+        assertEquals(100_000, written);
+        assertEquals(100_000, channel.lines);
+        assertEquals(100, listener.progress.size());
+        assertEquals(Long.valueOf(100_000), listener.progress.get(99));
+        assertTrue(channel.largestWrite <= 64 * 1024);
+    }
+
+    /**
+     * Test 4: Background exports report their outcome and close the stream.
+     */
+    @Test
+    public void exportAsync_shouldReportOutcome() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Future<Long> export = new ReviewExporter(ReviewFormat.CSV)
+                .exportAsync(() -> reviews, out, listener, Runnable::run);
+        Future<Long> failed = new ReviewExporter(ReviewFormat.CSV)
+                .exportAsync(() -> { throw new IOException("offline"); }, out, listener, Runnable::run);
+
+        assertEquals(Long.valueOf(2), export.get());
+        assertEquals(2, listener.exported);
+        assertTrue(failed.isDone());
+        assertTrue(listener.error instanceof IOException);
+    }
+
+    // --- Helpers ---
+
+    private static class CountingChannel implements WritableByteChannel {
+        long lines;
+        int largestWrite;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            largestWrite = Math.max(largestWrite, length);
+            while (src.hasRemaining()) {
+                if (src.get() == '\n') {
+                    lines++;
+                }
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class RecordingListener implements ReviewExporter.Listener {
+        final List<Long> progress = new ArrayList<>();
+        long exported;
+        Exception error;
+
+        @Override
+        public void onProgress(long written, long total) {
+            progress.add(written);
+        }
+
+        @Override
+        public void onExported(long written) {
+            exported = written;
+        }
+
+        @Override
+        public void onExportFailed(Exception error) {
+            this.error = error;
+        }
+    }
+}
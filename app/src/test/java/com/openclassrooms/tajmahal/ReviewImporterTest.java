@@ -0,0 +1,103 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.io.ReviewExporter;
+import com.openclassrooms.tajmahal.data.io.ReviewFormat;
+import com.openclassrooms.tajmahal.data.io.ReviewImporter;
+import com.openclassrooms.tajmahal.data.service.SyntheticRestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ReviewImporter and the ReviewFormat readers.
+ */
+public class ReviewImporterTest {
+
+    /**
+     * Test 1: Exported dumps are read back identically, in batches, in both formats.
+     */
+    @Test
+    public void importFrom_shouldReadExportedDumpsInBatches() throws IOException {
+        List<Review> reviews = new ArrayList<>(new SyntheticRestaurantApi.Builder(1_050).build().getReviews());
+        reviews.set(0, new Review(9, "Émilie \"Mimi\" Hood", "", "Bon, mais\r\nlent \\o/\t\u0001", 3, 1000L));
+
+        for (ReviewFormat format : ReviewFormat.values()) {
+            ByteArrayOutputStream dump = new ByteArrayOutputStream();
+            new ReviewExporter(format).export(reviews, dump, null);
+            List<List<Review>> batches = new ArrayList<>();
+
+            long imported = new ReviewImporter(format, 500)
+                    .importFrom(new ByteArrayInputStream(dump.toByteArray()), batches::add, null);
+
+            assertEquals(1_050, imported);
+            assertEquals(3, batches.size());
+            assertEquals(50, batches.get(2).size());
+            Review first = batches.get(0).get(0);
+            assertEquals(0, first.getId());
+            assertEquals("Émilie \"Mimi\" Hood", first.getUsername());
+            assertEquals("Bon, mais\r\nlent \\o/\t\u0001", first.getComment());
+            Review last = batches.get(2).get(49);
+            Review original = reviews.get(1_049);
+            assertEquals(original.getComment(), last.getComment());
+            assertEquals(original.getRate(), last.getRate());
+            assertEquals(original.getCreatedAt(), last.getCreatedAt());
+        }
+    }
+
+    /**
+     * Test 2: Columns and keys are matched by name, and optional fields may be missing.
+     */
+    @Test
+    public void importFrom_shouldMatchFieldsByName() throws IOException {
+        List<Review> csv = importAll(ReviewFormat.CSV, "rate,username,extra\n\n4,Manon Garcia,x\n");
+        List<Review> json = importAll(ReviewFormat.JSON_LINES,
+                " { \"rate\" : 4 , \"username\":\"Manon Garcia\", \"verified\": true, \"picture\": null }\n\n");
+
+        for (List<Review> reviews : Arrays.asList(csv, json)) {
+            assertEquals(1, reviews.size());
+            assertEquals("Manon Garcia", reviews.get(0).getUsername());
+            assertEquals(4, reviews.get(0).getRate());
+            assertEquals("", reviews.get(0).getComment());
+        }
+    }
+
+    /**
+     * Test 3: Malformed records stop the import with their record number.
+     */
+    @Test
+    public void importFrom_shouldRejectMalformedRecords() {
+        assertMalformed(ReviewFormat.CSV, "username,rate\nA,5\nB,9\n", "record 2: rate out of range: 9");
+        assertMalformed(ReviewFormat.CSV, "username,rate\nA\n", "record 1: expected 2 fields, found 1");
+        assertMalformed(ReviewFormat.JSON_LINES, "{\"username\":\"A\",\"rate\":5}\n{\"rate\":5}\n",
+                "record 2: missing username");
+        assertMalformed(ReviewFormat.JSON_LINES, "{\"username\":\"A\" \"rate\":5}\n",
+                "record 1: expected ',' or '}' at column 17");
+    }
+
+    // --- Helpers ---
+
+    private static List<Review> importAll(ReviewFormat format, String dump) throws IOException {
+        List<Review> reviews = new ArrayList<>();
+        new ReviewImporter(format).importFrom(new StringReader(dump), reviews::addAll, null);
+        return reviews;
+    }
+
+    private static void assertMalformed(ReviewFormat format, String dump, String message) {
+        try {
+            importAll(format, dump);
+            fail("expected an IOException");
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.index.SortedReviewIndex;
+import com.openclassrooms.tajmahal.data.query.AccessPath;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.query.ReviewQueryEngine;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ReviewQueryEngine, checked against a brute-force filter, sort and page.
+ */
+public class ReviewQueryEngineTest {
+
+    private static final String[] AUTHORS = {"Ranjit Singh", "Martyna Siddeswara", "Komala Alanazi", "Manon Garcia"};
+    private static final String[] COMMENTS = {"Délicieux curry", "Service lent", "Très bon naan", "Bof", "Excellent CURRY"};
+
+    private ReviewQueryEngine engine;
+    private List<Review> reviews;
+
+    @Before
+    public void setup() {
+        engine = new ReviewQueryEngine();
+        reviews = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 1; i <= 300; i++) {
+            Review review = new Review(i, AUTHORS[random.nextInt(AUTHORS.length)], "",
+                    COMMENTS[random.nextInt(COMMENTS.length)], 1 + random.nextInt(5), random.nextInt(100_000));
+            reviews.add(review);
+            engine.add(review);
+        }
+    }
+
+    /**
+     * Test 1: Every combination of filters, order and page returns the same page as a full scan.
+     */
+    @Test
+    public void execute_matchesBruteForce() {
+        int[][] ranges = {{1, 5}, {5, 5}, {2, 3}, {1, 1}};
+        String[] authors = {null, "manon garcia "};
+        String[] texts = {null, "curry"};
+        int[][] pages = {{0, 20}, {37, 10}, {250, 100}, {400, 5}};
+
+        for (ReviewSortOrder order : ReviewSortOrder.values()) {
+            for (int[] range : ranges) {
+                for (String author : authors) {
+                    for (String text : texts) {
+                        for (int[] page : pages) {
+                            ReviewQuery query = new ReviewQuery.Builder()
+                                    .ratingBetween(range[0], range[1])
+                                    .author(author)
+                                    .textContains(text)
+                                    .sortBy(order)
+                                    .page(page[0], page[1])
+                                    .build();
+
+                            ReviewPage result = engine.execute(query);
+
+                            List<Review> expected = bruteForce(query);
+                            assertEquals("page of " + describe(query) + " via " + result.getAccessPath(),
+                                    expected.subList(Math.min(page[0], expected.size()),
+                                            Math.min(page[0] + page[1], expected.size())),
+                                    result.getReviews());
+                            assertEquals(page[0] + page[1] < expected.size(), result.hasMore());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test 2: The planner picks the index matching the most selective filter.
+     */
+    @Test
+    public void plan_picksCheapestAccessPath() {
+        for (int i = 1; i <= 3; i++) {
+            engine.add(new Review(1000 + i, "Jean Dupont", "", "Très bon curry", 4, i));
+        }
+        ReviewQuery unfiltered = new ReviewQuery.Builder().build();
+        ReviewQuery byRating = new ReviewQuery.Builder().ratingBetween(1, 1).page(0, 100).build();
+        ReviewQuery byAuthorAndText = new ReviewQuery.Builder().author("Jean Dupont").textContains("curry").build();
+
+        assertEquals(AccessPath.SORTED_INDEX, engine.plan(unfiltered));
+        assertEquals(AccessPath.RATING_BUCKETS, engine.plan(byRating));
+        assertEquals(AccessPath.AUTHOR_INDEX, engine.plan(byAuthorAndText));
+    }
+
+    /**
+     * Test 3: Removed reviews are no longer returned by any access path.
+     */
+    @Test
+    public void remove_excludesReviewFromResults() {
+        Review removed = reviews.get(0);
+        engine.remove(removed);
+        reviews.remove(0);
+
+        ReviewQuery byAuthor = new ReviewQuery.Builder().author(removed.getUsername()).page(0, 300).build();
+        ReviewQuery byRating = new ReviewQuery.Builder()
+                .ratingBetween(removed.getRate(), removed.getRate()).page(0, 300).build();
+
+        assertFalse(engine.execute(byAuthor).getReviews().contains(removed));
+        assertFalse(engine.execute(byRating).getReviews().contains(removed));
+        assertEquals(299, engine.size());
+    }
+
+    // --- Helpers ---
+
+    private List<Review> bruteForce(ReviewQuery query) {
+        List<Review> matches = new ArrayList<>();
+        for (Review review : reviews) {
+            if (query.matches(review)) {
+                matches.add(review);
+            }
+        }
+        Collections.sort(matches, SortedReviewIndex.comparator(query.getSortOrder()));
+        return matches;
+    }
+
+    private static String describe(ReviewQuery query) {
+        return query.getSortOrder() + " " + query.getMinRating() + "-" + query.getMaxRating()
+                + " author=" + query.getAuthor() + " text=" + query.getText()
+                + " page=" + query.getOffset() + "+" + query.getLimit();
+    }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.domain.model.BayesianPrior;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.model.ReviewStatsAccumulator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the weighted scores of ReviewStatsAccumulator.
+ */
+public class ReviewStatsAccumulatorTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    /**
+     * Test 1: A single 5-star review stays close to the prior, many 4.8s do not.
+     */
+    @Test
+    public void snapshot_shouldSmoothFewReviewsTowardsPrior() {
+        ReviewStatsAccumulator single = new ReviewStatsAccumulator(new BayesianPrior(3.5f, 10f), 90 * DAY);
+        single.add(review(5, NOW));
+        ReviewStatsAccumulator many = new ReviewStatsAccumulator(new BayesianPrior(3.5f, 10f), 90 * DAY);
+        for (int i = 0; i < 1000; i++) {
+            many.add(review(i % 5 == 0 ? 4 : 5, NOW - i * DAY));
+        }
+
+        assertEquals(5f, single.snapshot().getAverageRating(), 0.001f);
+        assertEquals(3.636f, single.snapshot().getBayesianAverage(), 0.001f);
+        assertEquals(4.787f, many.snapshot().getBayesianAverage(), 0.001f);
+        assertEquals(3.5f, new ReviewStatsAccumulator().snapshot().getBayesianAverage(), 0f);
+    }
+
+    /**
+     * Test 2: A review one half-life older weighs half as much in the recent average.
+     */
+    @Test
+    public void snapshot_shouldWeightRecentReviewsMore() {
+        ReviewStatsAccumulator accumulator = new ReviewStatsAccumulator(new BayesianPrior(3.5f, 10f), 30 * DAY);
+        Review old = review(1, NOW - 30 * DAY);
+        accumulator.add(old);
+        accumulator.add(review(5, NOW));
+
+        ReviewStats stats = accumulator.snapshot();
+        assertEquals(3f, stats.getAverageRating(), 0.001f);
+        assertEquals((5 + 0.5f) / 1.5f, stats.getRecentAverage(), 0.001f);
+
+        // Removing and editing adjust the score without rescanning
+        accumulator.replace(old, review(5, old.getCreatedAt()));
+        assertEquals(5f, accumulator.snapshot().getRecentAverage(), 0.001f);
+    }
+
+    /**
+     * Test 3: Reviews spread over centuries keep finite weights.
+     */
+    @Test
+    public void snapshot_shouldStayFiniteOverLongPeriods() {
+        ReviewStatsAccumulator accumulator = new ReviewStatsAccumulator(new BayesianPrior(3.5f, 10f), DAY);
+        for (int year = 0; year < 200; year++) {
+            accumulator.add(review(1, NOW + year * 365 * DAY));
+        }
+        accumulator.add(review(5, NOW + 200 * 365 * DAY));
+
+        float recent = accumulator.snapshot().getRecentAverage();
+        assertFalse(Float.isNaN(recent));
+        assertEquals(5f, recent, 0.001f);
+    }
+
+    private static Review review(int rate, long createdAt) {
+        return new Review(0, "Auteur", "", "Avis", rate, createdAt);
+    }
+}
@@ -0,0 +1,52 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.io.ReviewStatsFile;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ReviewStatsFile, the statistics snapshot read by the home-screen widget.
+ */
+public class ReviewStatsFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test 1: Written statistics are read back identical, and the file stays tiny.
+     */
+    @Test
+    public void write_thenRead_shouldRoundTrip() throws Exception {
+        File file = new File(folder.getRoot(), "stats.bin");
+        ReviewStatsFile statsFile = new ReviewStatsFile(file);
+        ReviewStats stats = new ReviewStats(4.2f, 5, new int[]{0, 1, 0, 1, 3},
+                new int[]{0, 20, 0, 20, 60}, 3.8f, 4.4f);
+
+        statsFile.write(stats);
+
+        assertEquals(stats, statsFile.read());
+        assertEquals(60, file.length());
+    }
+
+    /**
+     * Test 2: A missing or truncated file reads as no statistics.
+     */
+    @Test
+    public void read_withoutValidRecord_shouldReturnNull() throws Exception {
+        File file = new File(folder.getRoot(), "stats.bin");
+        assertNull(new ReviewStatsFile(file).read());
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{0, 0, 0, 1});
+        }
+        assertNull(new ReviewStatsFile(file).read());
+    }
+}
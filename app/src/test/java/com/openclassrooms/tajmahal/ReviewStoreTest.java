@@ -0,0 +1,71 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.index.ReviewStore;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ReviewStore.
+ */
+public class ReviewStoreTest {
+
+    /**
+     * Test 1: Replaced reviews keep their position and deleted ones leave the list.
+     */
+    @Test
+    public void replaceAndRemove_shouldKeepOrder() {
+        ReviewStore store = new ReviewStore();
+        for (int id = 1; id <= 3; id++) {
+            store.add(review(id, 3));
+        }
+
+        Review edited = review(2, 5);
+        Review previous = store.replace(edited);
+        Review deleted = store.remove(1);
+
+        assertEquals(3, previous.getRate());
+        assertEquals(1, deleted.getId());
+        assertNull(store.remove(1));
+        assertNull(store.replace(review(9, 1)));
+        assertSame(edited, store.get(2));
+        List<Review> reviews = store.toListNewestFirst();
+        assertEquals(2, reviews.size());
+        assertEquals(3, reviews.get(0).getId());
+        assertSame(edited, reviews.get(1));
+        assertEquals(1, store.getTombstoneCount());
+    }
+
+    /**
+     * Test 2: Tombstones are compacted once they outnumber the live reviews.
+     */
+    @Test
+    public void remove_shouldCompactTombstones() {
+        ReviewStore store = new ReviewStore();
+        for (int id = 1; id <= 200; id++) {
+            store.add(review(id, 1 + id % 5));
+        }
+
+        for (int id = 1; id <= 100; id++) {
+            store.remove(id);
+        }
+        assertEquals(100, store.getTombstoneCount());
+        store.remove(101);
+
+        assertEquals(0, store.getTombstoneCount());
+        assertEquals(99, store.size());
+        assertEquals(200, store.get(200).getId());
+        assertEquals(102, store.toListNewestFirst().get(98).getId());
+        store.remove(150);
+        assertNull(store.get(150));
+        assertEquals(151, store.get(151).getId());
+    }
+
+    private static Review review(long id, int rate) {
+        return new Review(id, "Auteur " + id, "", "Avis " + id, rate, id * 1000);
+    }
+}
@@ -4,6 +4,10 @@ import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.openclassrooms.tajmahal.data.cache.TieredReviewCache;
+import com.openclassrooms.tajmahal.data.query.AccessPath;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
 import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
 import com.openclassrooms.tajmahal.domain.model.Review;
 import com.openclassrooms.tajmahal.ui.reviews.ReviewViewModel;
@@ -48,7 +52,10 @@ public class ReviewViewModelTest {
     @Before
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        viewModel = new ReviewViewModel(mockRepository);
+        // Displayed reviews are cached on the heap only
+        when(mockRepository.createReviewCache(any())).thenAnswer(invocation ->
+                new TieredReviewCache(invocation.getArgument(0), null, Long.MAX_VALUE));
+        viewModel = new ReviewViewModel(mockRepository, Runnable::run);
     }
 
     /**
@@ -190,4 +197,51 @@ public class ReviewViewModelTest {
         // Assert
         assertFalse(viewModel.getReviewAddSuccessEvent().getValue()); // Vérifie que c'est bien false
     }
+
+    /**
+     * Test 8: Verifies that a user who already reviewed the restaurant cannot post again.
+     * Ensures that the repository is not called and that no success event is emitted.
+     */
+    @Test
+    public void processNewReview_whenUserAlreadyReviewed_shouldSetCommentError() {
+        // Arrange
+        when(mockRepository.hasReviewed("Manon Garcia")).thenReturn(true);
+
+        // Act
+        viewModel.processNewReview("Encore un avis", 5);
+
+        // Assert
+        assertEquals("Vous avez déjà donné votre avis sur ce restaurant", viewModel.getCommentError().getValue());
+        verify(mockRepository, never()).addReview(any(Review.class));
+        assertNull(viewModel.getReviewAddSuccessEvent().getValue());
+    }
+
+    /**
+     * Test 9: Verifies that the displayed reviews are fetched page by page with the selected filter.
+     * Ensures that the first page is queried from offset 0 and the next one appended after it.
+     */
+    @Test
+    public void loadMoreReviews_shouldAppendNextPageOfFilteredReviews() {
+        // Arrange
+        Review first = new Review(1, "A", "", "Top", 5, 2000);
+        Review second = new Review(2, "B", "", "Super", 5, 1000);
+        when(mockRepository.getReviews()).thenReturn(new MutableLiveData<>(Arrays.asList(first, second)));
+        when(mockRepository.queryReviews(argThat(query -> query != null && query.getOffset() == 0)))
+                .thenReturn(new ReviewPage(Arrays.asList(first), 0, true, AccessPath.RATING_BUCKETS));
+        when(mockRepository.queryReviews(argThat(query -> query != null && query.getOffset() == 1)))
+                .thenReturn(new ReviewPage(Arrays.asList(second), 1, false, AccessPath.RATING_BUCKETS));
+        viewModel.setRatingFilter(5);
+        LiveData<List<Review>> displayed = viewModel.getDisplayedReviews();
+        displayed.observeForever(reviews -> { });
+
+        // Act
+        viewModel.loadMoreReviews();
+        viewModel.loadMoreReviews(); // No more pages: must not query again
+
+        // Assert
+        assertEquals(Arrays.asList(first, second), displayed.getValue());
+        verify(mockRepository, atLeastOnce()).queryReviews(argThat((ReviewQuery query) ->
+                query != null && query.getMinRating() == 5 && query.getMaxRating() == 5));
+        verify(mockRepository, times(1)).queryReviews(argThat(query -> query != null && query.getOffset() == 1));
+    }
 }
@@ -0,0 +1,68 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.cache.SelectorCache;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for SelectorCache, the memoized values derived from the published reviews.
+ */
+public class SelectorCacheTest {
+
+    private final AtomicInteger computeCount = new AtomicInteger();
+    private final Function<List<Review>, Integer> countSelector = reviews -> {
+        computeCount.incrementAndGet();
+        return reviews.size();
+    };
+
+    /**
+     * Test 1: A selector is computed once per snapshot, whatever the number of callers.
+     */
+    @Test
+    public void select_shouldComputeOncePerSnapshot() {
+        SelectorCache<List<Review>> cache = new SelectorCache<>();
+        cache.publish(Collections.singletonList(new Review(1, "A", "", "Top", 5, 1000)));
+
+        assertEquals(Integer.valueOf(1), cache.select(countSelector));
+        assertEquals(Integer.valueOf(1), cache.select(countSelector));
+        assertEquals(1, computeCount.get());
+    }
+
+    /**
+     * Test 2: Publishing a new snapshot makes the memoized values stale.
+     */
+    @Test
+    public void publish_shouldInvalidateMemoizedValues() {
+        SelectorCache<List<Review>> cache = new SelectorCache<>();
+        cache.publish(Collections.singletonList(new Review(1, "A", "", "Top", 5, 1000)));
+        cache.select(countSelector);
+
+        long version = cache.publish(Arrays.asList(
+                new Review(1, "A", "", "Top", 5, 1000),
+                new Review(2, "B", "", "Bof", 2, 2000)));
+
+        assertEquals(2, version);
+        assertEquals(Integer.valueOf(2), cache.select(countSelector));
+        assertEquals(2, computeCount.get());
+    }
+
+    /**
+     * Test 3: Nothing is computed before the first snapshot.
+     */
+    @Test
+    public void select_beforeFirstSnapshot_shouldReturnNull() {
+        SelectorCache<List<Review>> cache = new SelectorCache<>();
+
+        assertNull(cache.select(countSelector));
+        assertEquals(0, computeCount.get());
+    }
+}
@@ -0,0 +1,112 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.index.SortedReviewIndex;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for SortedReviewIndex and its underlying order-statistic trees.
+ */
+public class SortedReviewIndexTest {
+
+    private SortedReviewIndex index;
+
+    @Before
+    public void setup() {
+        index = new SortedReviewIndex();
+    }
+
+    /**
+     * Test 1: Each order lists the reviews as expected.
+     */
+    @Test
+    public void toList_returnsReviewsInEachOrder() {
+        // Arrange
+        Review old = review(1, 5, 1000);
+        Review middle = review(2, 2, 2000);
+        Review recent = review(3, 4, 3000);
+        index.add(middle);
+        index.add(recent);
+        index.add(old);
+
+        // Act & Assert
+        assertEquals(listOf(recent, middle, old), index.toList(ReviewSortOrder.NEWEST));
+        assertEquals(listOf(old, middle, recent), index.toList(ReviewSortOrder.OLDEST));
+        assertEquals(listOf(old, recent, middle), index.toList(ReviewSortOrder.HIGHEST_RATING));
+        assertEquals(listOf(middle, recent, old), index.toList(ReviewSortOrder.LOWEST_RATING));
+    }
+
+    /**
+     * Test 2: Positional access and rank queries agree with the listed order.
+     */
+    @Test
+    public void getAndIndexOf_matchListedOrder() {
+        // Arrange
+        Random random = new Random(42);
+        for (int i = 1; i <= 500; i++) {
+            index.add(review(i, 1 + random.nextInt(5), random.nextInt(10_000)));
+        }
+
+        // Act & Assert
+        for (ReviewSortOrder order : ReviewSortOrder.values()) {
+            List<Review> listed = index.toList(order);
+            assertEquals(500, listed.size());
+            for (int position = 0; position < listed.size(); position++) {
+                assertSame(listed.get(position), index.get(order, position));
+                assertEquals(position, index.indexOf(order, listed.get(position)));
+            }
+        }
+    }
+
+    /**
+     * Test 3: Removed reviews disappear from every order and the tree stays consistent.
+     */
+    @Test
+    public void remove_keepsEveryOrderConsistent() {
+        // Arrange
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            Review review = review(i, 1 + i % 5, i * 10L);
+            reviews.add(review);
+            index.add(review);
+        }
+
+        // Act - remove every other review
+        for (int i = 0; i < reviews.size(); i += 2) {
+            index.remove(reviews.get(i));
+        }
+
+        // Assert
+        assertEquals(100, index.size());
+        assertEquals(-1, index.indexOf(ReviewSortOrder.NEWEST, reviews.get(0)));
+        List<Review> oldest = index.toList(ReviewSortOrder.OLDEST);
+        for (int i = 0; i < oldest.size(); i++) {
+            assertSame(reviews.get(2 * i + 1), oldest.get(i));
+        }
+        List<Review> newest = index.toList(ReviewSortOrder.NEWEST);
+        Collections.reverse(newest);
+        assertEquals(oldest, newest);
+    }
+
+    // --- Helpers ---
+
+    private static Review review(long id, int rate, long createdAt) {
+        return new Review(id, "User " + id, "", "Comment " + id, rate, createdAt);
+    }
+
+    private static List<Review> listOf(Review... reviews) {
+        List<Review> list = new ArrayList<>();
+        Collections.addAll(list, reviews);
+        return list;
+    }
+}
@@ -0,0 +1,182 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.index.SortedReviewIndex;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.service.SyntheticRestaurantApi;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSortOrder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for SyntheticRestaurantApi.
+ */
+public class SyntheticRestaurantApiTest {
+
+    /**
+     * Test 1: The same seed produces the same reviews, whatever the access order.
+     */
+    @Test
+    public void getReviews_shouldBeDeterministic() {
+        List<Review> first = new SyntheticRestaurantApi.Builder(1_000_000).seed(7).build().getReviews();
+        List<Review> second = new SyntheticRestaurantApi.Builder(1_000_000).seed(7).build().getReviews();
+
+        assertEquals(1_000_000, first.size());
+        assertEquals(first.get(999_999), second.get(999_999));
+        assertEquals(first.get(0), second.get(0));
+        assertEquals(1_000_000, first.get(0).getId());
+        assertEquals(1, first.get(999_999).getId());
+        assertTrue(first.get(0).getCreatedAt() > first.get(1).getCreatedAt());
+        assertNotEquals(first.get(0), new SyntheticRestaurantApi.Builder(1_000_000).seed(8).build().getReviews().get(0));
+    }
+
+    /**
+     * Test 2: Ratings follow the configured distribution and comments the configured length.
+     */
+    @Test
+    public void getReviews_shouldFollowRatingWeightsAndCommentLength() {
+        List<Review> reviews = new SyntheticRestaurantApi.Builder(20_000)
+                .ratingWeights(0, 0, 50, 0, 50)
+                .commentLength(10, 20)
+                .build()
+                .getReviews();
+
+        int fives = 0;
+        for (Review review : reviews) {
+            assertTrue(review.getRate() == 3 || review.getRate() == 5);
+            assertTrue(review.getComment().split(" ").length >= 10);
+            if (review.getRate() == 5) {
+                fives++;
+            }
+        }
+        assertEquals(10_000, fives, 500);
+    }
+
+    /**
+     * Test 3: Added reviews come first, with the next identifiers, in later views only.
+     */
+    @Test
+    public void addReview_shouldStackOnGeneratedReviews() {
+        SyntheticRestaurantApi api = new SyntheticRestaurantApi.Builder(100).build();
+        List<Review> before = api.getReviews();
+
+        Review review = new Review("Manon Garcia", "", "Très bon", 5);
+        api.addReview(review);
+
+        List<Review> after = api.getReviews();
+        assertEquals(100, before.size());
+        assertEquals(101, after.size());
+        assertSame(review, after.get(0));
+        assertEquals(101, review.getId());
+    }
+
+    /**
+     * Test 4: Newest-first pages answered by position equal those of a full scan, with added reviews and rating filters.
+     */
+    @Test
+    public void queryReviews_byPosition_shouldMatchFullScan() {
+        // Arrange: added reviews between, before, after and at the same time as generated ones
+        SyntheticRestaurantApi api = new SyntheticRestaurantApi.Builder(2000).build();
+        List<Review> generated = api.getReviews();
+        api.addReview(new Review(0, "Manon Garcia", "", "Très bon", 5, generated.get(500).getCreatedAt()));
+        api.addReview(new Review(0, "Hugo Petit", "", "Décevant", 1, generated.get(1200).getCreatedAt() + 1));
+        api.addReview(new Review(0, "Léa Roux", "", "Correct", 3, 0));
+        api.addReview(new Review(0, "Paul Henry", "", "Parfait", 4, Long.MAX_VALUE));
+
+        List<Review> all = new ArrayList<>(api.getReviews());
+        Collections.sort(all, SortedReviewIndex.comparator(ReviewSortOrder.NEWEST));
+        int[][] ratings = {{1, 5}, {1, 1}, {3, 3}, {4, 5}};
+        int[] offsets = {0, 490, 1195, 1990, 2010};
+        for (int[] rating : ratings) {
+            List<Review> matches = new ArrayList<>();
+            for (Review review : all) {
+                if (review.getRate() >= rating[0] && review.getRate() <= rating[1]) {
+                    matches.add(review);
+                }
+            }
+            for (int offset : offsets) {
+                // Act
+                ReviewPage page = api.queryReviews(new ReviewQuery.Builder()
+                        .ratingBetween(rating[0], rating[1]).page(offset, 20).build());
+
+                // Assert
+                int from = Math.min(offset, matches.size());
+                int to = Math.min(offset + 20, matches.size());
+                assertEquals(matches.subList(from, to), page.getReviews());
+                assertEquals(to < matches.size(), page.hasMore());
+            }
+        }
+    }
+
+    /**
+     * Test 5: The first sync gets the generated reviews as the base of its snapshot, the next ones only the added reviews.
+     */
+    @Test
+    public void getReviewsSince_shouldSendGeneratedReviewsAsBaseOnce() {
+        SyntheticRestaurantApi api = new SyntheticRestaurantApi.Builder(1_000_000).build();
+        Review first = new Review("Manon Garcia", "", "Très bon", 5);
+        api.addReview(first);
+
+        ReviewDelta snapshot = api.getReviewsSince(ReviewDelta.NO_CURSOR);
+        assertTrue(snapshot.isSnapshot());
+        assertEquals(Collections.singletonList(first), snapshot.getReviews());
+        assertEquals(1_000_000, snapshot.getBaseReviews().size());
+
+        Review second = new Review("Hugo Petit", "", "Correct", 3);
+        api.addReview(second);
+        ReviewDelta delta = api.getReviewsSince(snapshot.getCursor());
+        assertFalse(delta.isSnapshot());
+        assertEquals(Collections.singletonList(second), delta.getReviews());
+        assertTrue(delta.getBaseReviews().isEmpty());
+    }
+
+    /**
+     * Test 6: Edits and deletions apply to added and generated reviews, in lists, pages and syncs.
+     */
+    @Test
+    public void updateAndDeleteReview_shouldApplyToAddedAndGeneratedReviews() {
+        // Arrange
+        SyntheticRestaurantApi api = new SyntheticRestaurantApi.Builder(1000).build();
+        Review added = new Review("Manon Garcia", "", "Très bon", 5);
+        api.addReview(added);
+        long cursor = api.getReviewsSince(ReviewDelta.NO_CURSOR).getCursor();
+        Review generated = api.getReviews().get(11);
+        Review edited = new Review(generated.getId(), generated.getUsername(), generated.getPicture(),
+                "Finalement moyen", 3, generated.getCreatedAt());
+
+        // Act
+        assertTrue(api.updateReview(edited));
+        assertTrue(api.deleteReview(api.getReviews().get(6).getId()));
+        assertTrue(api.deleteReview(added.getId()));
+        assertFalse(api.deleteReview(added.getId()));
+        assertFalse(api.updateReview(new Review(5000, "Hugo Petit", "", "Correct", 3, 0)));
+
+        // Assert: the deleted reviews are gone, the edited one is in place
+        List<Review> reviews = api.getReviews();
+        assertEquals(999, reviews.size());
+        assertSame(edited, reviews.get(9));
+        ReviewPage page = api.queryReviews(new ReviewQuery.Builder().page(5, 10).build());
+        assertEquals(reviews.subList(5, 15), page.getReviews());
+        assertEquals(reviews.get(997), api.queryReviews(new ReviewQuery.Builder().page(997, 10).build())
+                .getReviews().get(0));
+
+        // Assert: a generated review changed, so the sync is a new snapshot
+        ReviewDelta delta = api.getReviewsSince(cursor);
+        assertTrue(delta.isSnapshot());
+        assertTrue(delta.getReviews().isEmpty());
+        assertEquals(reviews, delta.getBaseReviews());
+
+        // Assert: identifiers of deleted reviews are not given again
+        Review next = new Review("Léa Roux", "", "Correct", 3);
+        api.addReview(next);
+        assertEquals(1002, next.getId());
+    }
+}
@@ -0,0 +1,239 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.cache.TieredReviewCache;
+import com.openclassrooms.tajmahal.data.io.ReviewSpillFile;
+import com.openclassrooms.tajmahal.data.query.AccessPath;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewSyncState;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for TieredReviewCache, the memory-bounded cache of the scrolled review list, and
+ * its ReviewSpillFile.
+ */
+public class TieredReviewCacheTest {
+
+    private static final int PAGE_SIZE = 20;
+    // Estimated size of a page of the test reviews: about 4.7 KB. The rows visible at the end of
+    // the list and their margin span three pages
+    private static final long FOUR_PAGES_BYTES = 4 * PAGE_SIZE * (160 + 2 * (8 + 30)) + 1;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Source of 1000 reviews counting the pages it serves.
+     */
+    private static final class CountingSource implements TieredReviewCache.PageSource {
+        final List<Review> reviews = new ArrayList<>();
+        int loads;
+
+        CountingSource() {
+            for (int i = 0; i < 1000; i++) {
+                reviews.add(new Review(i + 1, String.format("User%04d", i), "",
+                        String.format("Comment number %04d of the list", i).substring(0, 30), 1 + i % 5, i));
+            }
+        }
+
+        @Override
+        public ReviewPage load(int offset, int limit) {
+            loads++;
+            int to = Math.min(offset + limit, reviews.size());
+            return new ReviewPage(new ArrayList<>(reviews.subList(offset, to)), offset,
+                    to < reviews.size(), AccessPath.FULL_SCAN);
+        }
+    }
+
+    /**
+     * Test 1: However deep the list is scrolled, only the pages within the heap ceiling stay in memory.
+     */
+    @Test
+    public void loadMore_shouldKeepHeapWithinCeiling() throws Exception {
+        CountingSource source = new CountingSource();
+        TieredReviewCache cache = new TieredReviewCache(source,
+                new ReviewSpillFile(new File(folder.getRoot(), "reviews.spill")), FOUR_PAGES_BYTES);
+
+        while (cache.loadMore(PAGE_SIZE)) {
+            List<Review> reviews = cache.getReviews();
+            cache.setVisibleRange(reviews.size() - 5, reviews.size() - 1);
+            assertTrue(cache.getHeapBytes() <= FOUR_PAGES_BYTES);
+        }
+
+        List<Review> reviews = cache.getReviews();
+        assertEquals(1000, reviews.size());
+        assertFalse(cache.hasMore());
+        assertNull(reviews.get(0));
+        assertNull(reviews.get(500));
+        assertEquals(source.reviews.get(999), reviews.get(999));
+        cache.close();
+    }
+
+    /**
+     * Test 2: Pages scrolled back into view are read back from disk, equal, without querying the source.
+     */
+    @Test
+    public void setVisibleRange_shouldReloadEvictedPagesFromDisk() throws Exception {
+        CountingSource source = new CountingSource();
+        source.reviews.get(3).setSyncState(ReviewSyncState.PENDING);
+        TieredReviewCache cache = new TieredReviewCache(source,
+                new ReviewSpillFile(new File(folder.getRoot(), "reviews.spill")), FOUR_PAGES_BYTES);
+        for (int i = 0; i < 10; i++) {
+            cache.loadMore(PAGE_SIZE);
+            cache.setVisibleRange(cache.size() - 5, cache.size() - 1);
+        }
+        assertNull(cache.getReviews().get(3));
+        int loads = source.loads;
+
+        assertTrue(cache.setVisibleRange(0, 9));
+
+        List<Review> reviews = cache.getReviews();
+        assertEquals(source.loads, loads);
+        assertEquals(source.reviews.subList(0, 60), reviews.subList(0, 60));
+        assertEquals(ReviewSyncState.PENDING, reviews.get(3).getSyncState());
+        assertNull(reviews.get(100));
+        assertFalse(cache.setVisibleRange(0, 9));
+        assertSame(reviews, cache.getReviews());
+        cache.close();
+    }
+
+    /**
+     * Test 3: Without a spill file, evicted pages are loaded again from the source; a reset starts a new generation.
+     */
+    @Test
+    public void withoutSpillFile_shouldReloadFromSource() {
+        CountingSource source = new CountingSource();
+        TieredReviewCache cache = new TieredReviewCache(source, null, FOUR_PAGES_BYTES);
+        for (int i = 0; i < 6; i++) {
+            cache.loadMore(PAGE_SIZE);
+            cache.setVisibleRange(cache.size() - 5, cache.size() - 1);
+        }
+        long generation = cache.getReviews().getGeneration();
+
+        assertTrue(cache.setVisibleRange(0, 0));
+        assertEquals(8, source.loads);
+        assertEquals(source.reviews.get(0), cache.getReviews().get(0));
+        assertEquals(generation, cache.getReviews().getGeneration());
+
+        cache.reset();
+        assertEquals(0, cache.getReviews().size());
+        assertTrue(cache.getReviews().getGeneration() > generation);
+    }
+
+    /**
+     * Test 4: A review added to the source before an evicted page invalidates the list, without shifted rows.
+     */
+    @Test
+    public void withoutSpillFile_shouldReloadListWhenSourceChanged() {
+        CountingSource source = new CountingSource();
+        TieredReviewCache cache = new TieredReviewCache(source, null, FOUR_PAGES_BYTES);
+        for (int i = 0; i < 6; i++) {
+            cache.loadMore(PAGE_SIZE);
+            cache.setVisibleRange(cache.size() - 5, cache.size() - 1);
+        }
+        long generation = cache.getReviews().getGeneration();
+        Review added = new Review(1001, "New", "", "Added at the top of the list", 5, 2000);
+        source.reviews.add(0, added);
+
+        assertTrue(cache.setVisibleRange(0, 0));
+
+        TieredReviewCache.Snapshot reviews = cache.getReviews();
+        assertTrue(reviews.getGeneration() > generation);
+        assertEquals(6 * PAGE_SIZE, reviews.size());
+        assertEquals(source.reviews.subList(0, 41), reviews.subList(0, 41));
+        assertNull(reviews.get(100));
+        assertTrue(cache.getHeapBytes() <= FOUR_PAGES_BYTES);
+        assertFalse(cache.setVisibleRange(0, 0));
+    }
+
+    /**
+     * Test 5: Reviews written to a spill file are read back identical, null texts included.
+     */
+    @Test
+    public void spillFile_shouldRoundTrip() throws Exception {
+        File file = new File(folder.getRoot(), "reviews.spill");
+        ReviewSpillFile spillFile = new ReviewSpillFile(file);
+        List<Review> first = Arrays.asList(new Review(1, "Zoé", null, "Très \"bon\"\n😀", 5, 1000),
+                new Review(2, "Luc", "https://example.com/a.png", "", 0, -5));
+        List<Review> second = Arrays.asList(new Review(3, "Ana", "", "Bien", 4, 2000));
+
+        long firstOffset = spillFile.write(first);
+        long secondOffset = spillFile.write(second);
+
+        assertEquals(second, spillFile.read(secondOffset));
+        assertEquals(first, spillFile.read(firstOffset));
+        spillFile.close();
+        assertFalse(file.exists());
+    }
+
+    /**
+     * Test 6: Invalidating the list loads again only the pages around the visible rows, the others when scrolled back.
+     */
+    @Test
+    public void invalidate_shouldReloadOnlyVisiblePages() throws Exception {
+        // Arrange: ten pages loaded, the end of the list visible
+        CountingSource source = new CountingSource();
+        TieredReviewCache cache = new TieredReviewCache(source,
+                new ReviewSpillFile(new File(folder.getRoot(), "reviews.spill")), FOUR_PAGES_BYTES);
+        for (int i = 0; i < 10; i++) {
+            cache.loadMore(PAGE_SIZE);
+            cache.setVisibleRange(cache.size() - 5, cache.size() - 1);
+        }
+        long generation = cache.getReviews().getGeneration();
+        source.reviews.remove(0);
+        int loads = source.loads;
+
+        // Act
+        cache.invalidate();
+
+        // Assert: the three pages of rows 155 to 199 only
+        TieredReviewCache.Snapshot reviews = cache.getReviews();
+        assertEquals(loads + 3, source.loads);
+        assertTrue(reviews.getGeneration() > generation);
+        assertEquals(10 * PAGE_SIZE, reviews.size());
+        assertEquals(source.reviews.subList(155, 200), reviews.subList(155, 200));
+        assertNull(reviews.get(0));
+
+        // Act: scroll back to the top
+        assertTrue(cache.setVisibleRange(0, 9));
+
+        // Assert
+        assertEquals(source.reviews.subList(0, 50), cache.getReviews().subList(0, 50));
+        assertTrue(cache.getHeapBytes() <= FOUR_PAGES_BYTES);
+        assertTrue(cache.loadMore(PAGE_SIZE));
+        assertEquals(source.reviews.subList(200, 220), cache.getReviews().subList(200, 220));
+        cache.close();
+    }
+
+    /**
+     * Test 7: Invalidating a list the source now ends before cuts the rows after its end.
+     */
+    @Test
+    public void invalidate_whenSourceShrank_shouldCutTheList() {
+        CountingSource source = new CountingSource();
+        TieredReviewCache cache = new TieredReviewCache(source, null, FOUR_PAGES_BYTES);
+        for (int i = 0; i < 10; i++) {
+            cache.loadMore(PAGE_SIZE);
+            cache.setVisibleRange(cache.size() - 5, cache.size() - 1);
+        }
+        source.reviews.subList(150, source.reviews.size()).clear();
+
+        cache.invalidate();
+
+        TieredReviewCache.Snapshot reviews = cache.getReviews();
+        assertEquals(150, reviews.size());
+        assertFalse(cache.hasMore());
+        assertEquals(source.reviews.subList(140, 150), reviews.subList(140, 150));
+        assertFalse(cache.loadMore(PAGE_SIZE));
+    }
+}
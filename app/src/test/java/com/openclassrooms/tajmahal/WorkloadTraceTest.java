@@ -0,0 +1,132 @@
+package com.openclassrooms.tajmahal;
+
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.data.trace.RecordingRestaurantApi;
+import com.openclassrooms.tajmahal.data.trace.WorkloadCall;
+import com.openclassrooms.tajmahal.data.trace.WorkloadReplayer;
+import com.openclassrooms.tajmahal.data.trace.WorkloadReport;
+import com.openclassrooms.tajmahal.data.trace.WorkloadTraceReader;
+import com.openclassrooms.tajmahal.data.trace.WorkloadTraceWriter;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the workload trace: RecordingRestaurantApi, the trace format and WorkloadReplayer.
+ */
+public class WorkloadTraceTest {
+
+    private static List<WorkloadCall> readAll(byte[] trace) throws Exception {
+        List<WorkloadCall> calls = new ArrayList<>();
+        try (WorkloadTraceReader reader = new WorkloadTraceReader(new ByteArrayInputStream(trace))) {
+            WorkloadCall call;
+            while ((call = reader.read()) != null) {
+                calls.add(call);
+            }
+        }
+        return calls;
+    }
+
+    // Adds a review, edits it, deletes an existing one, syncs and queries
+    private static Review record(RecordingRestaurantApi api) {
+        api.getReviewsSince(ReviewDelta.NO_CURSOR);
+        Review added = new Review("Manon Garcia", "", "Très bon", 5);
+        api.addReview(added);
+        api.updateReview(new Review(added.getId(), added.getUsername(), added.getPicture(), "Moyen", 3,
+                added.getCreatedAt()));
+        api.deleteReview(api.getReviews().get(1).getId());
+        api.queryReviews(new ReviewQuery.Builder().ratingBetween(3, 5).author("Manon Garcia").page(0, 5).build());
+        return added;
+    }
+
+    /**
+     * Test 1: Recorded calls are read back with their operation and arguments, texts reduced to their lengths.
+     */
+    @Test
+    public void recordedCalls_shouldBeReadBack() throws Exception {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        RecordingRestaurantApi api = new RecordingRestaurantApi(new RestaurantFakeApi(), new WorkloadTraceWriter(trace));
+        Review added = record(api);
+        api.close();
+
+        List<WorkloadCall> calls = readAll(trace.toByteArray());
+
+        List<WorkloadCall.Operation> operations = new ArrayList<>();
+        for (WorkloadCall call : calls) {
+            operations.add(call.getOperation());
+            assertFalse(call.isFailed());
+            assertTrue(call.getDurationNanos() >= 0);
+        }
+        assertEquals(Arrays.asList(WorkloadCall.Operation.GET_REVIEWS_SINCE, WorkloadCall.Operation.ADD_REVIEW,
+                WorkloadCall.Operation.UPDATE_REVIEW, WorkloadCall.Operation.GET_REVIEWS,
+                WorkloadCall.Operation.DELETE_REVIEW, WorkloadCall.Operation.QUERY_REVIEWS), operations);
+        assertEquals(ReviewDelta.NO_CURSOR, calls.get(0).getArgument());
+        Review recorded = calls.get(1).getReviews().get(0);
+        assertEquals(added.getId(), recorded.getId());
+        assertEquals(5, recorded.getRate());
+        assertEquals(added.getCreatedAt(), recorded.getCreatedAt());
+        assertEquals("xxxxxxxx", recorded.getComment());
+        assertEquals(3, calls.get(2).getReviews().get(0).getRate());
+        assertEquals("Manon Garcia", calls.get(5).getQuery().getAuthor());
+        assertEquals(5, calls.get(5).getQuery().getLimit());
+        assertTrue(calls.get(5).getStartNanos() >= calls.get(0).getStartNanos());
+    }
+
+    /**
+     * Test 2: A trace cut in the middle of a call ends with the previous call.
+     */
+    @Test
+    public void truncatedTrace_shouldEndWithLastCompleteCall() throws Exception {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        RecordingRestaurantApi api = new RecordingRestaurantApi(new RestaurantFakeApi(), new WorkloadTraceWriter(trace));
+        record(api);
+        api.close();
+        byte[] bytes = trace.toByteArray();
+
+        List<WorkloadCall> calls = readAll(Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertEquals(5, calls.size());
+        assertEquals(WorkloadCall.Operation.DELETE_REVIEW, calls.get(4).getOperation());
+    }
+
+    /**
+     * Test 3: Replaying a trace against another API applies the same changes, and reports every call.
+     */
+    @Test
+    public void replay_shouldReproduceWorkload() throws Exception {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        RestaurantFakeApi recordedApi = new RestaurantFakeApi();
+        RecordingRestaurantApi api = new RecordingRestaurantApi(recordedApi, new WorkloadTraceWriter(trace));
+        record(api);
+        api.close();
+
+        RestaurantFakeApi target = new RestaurantFakeApi();
+        WorkloadReport report;
+        try (WorkloadTraceReader reader = new WorkloadTraceReader(new ByteArrayInputStream(trace.toByteArray()))) {
+            report = new WorkloadReplayer(target, false).replay(reader);
+        }
+
+        assertEquals(6, report.getCallCount());
+        assertEquals(0, report.getReplayed(null).getFailures());
+        assertEquals(1, report.getReplayed(WorkloadCall.Operation.ADD_REVIEW).getCount());
+        assertNull(report.getReplayed(WorkloadCall.Operation.ADD_REVIEWS));
+        List<Review> replayed = target.getReviews();
+        List<Review> expected = recordedApi.getReviews();
+        assertEquals(expected.size(), replayed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), replayed.get(i).getId());
+            assertEquals(expected.get(i).getRate(), replayed.get(i).getRate());
+        }
+        assertTrue(report.format().contains("UPDATE_REVIEW"));
+    }
+}
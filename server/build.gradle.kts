@@ -0,0 +1,60 @@
+// Local review server: serves the restaurant and its reviews over HTTP from a plain JVM,
+// to run the app against a real network stack and to load-test it without external services.
+//   ./gradlew :server:run --args="--port 8080 --synthetic 100000"
+//   ./gradlew :server:loadTest --args="--url http://localhost:8080 --clients 2000 --seconds 30"
+//   ./gradlew :server:replay --args="--trace workload.trace --synthetic 100000"
+plugins {
+    id("application")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// The model, indexes, sync log and HTTP protocol are plain Java: the server compiles them from
+// the sources of the app, so that both sides always agree on them.
+val sharedPackages = listOf(
+    "com/openclassrooms/tajmahal/domain/model/**",
+    "com/openclassrooms/tajmahal/data/index/**",
+    "com/openclassrooms/tajmahal/data/io/**",
+    "com/openclassrooms/tajmahal/data/query/**",
+    "com/openclassrooms/tajmahal/data/sync/**",
+    "com/openclassrooms/tajmahal/data/trace/**",
+    "com/openclassrooms/tajmahal/data/service/**"
+)
+
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(sharedPackages + "com/openclassrooms/tajmahal/server/**")
+        }
+    }
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+}
+
+application {
+    mainClass.set("com.openclassrooms.tajmahal.server.ReviewServerMain")
+}
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs concurrent review reads and writes against a running review server."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.openclassrooms.tajmahal.server.ReviewLoadTest")
+}
+
+tasks.register<JavaExec>("replay") {
+    group = "verification"
+    description = "Replays a workload trace recorded by the app and reports its latencies."
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.openclassrooms.tajmahal.server.WorkloadReplayMain")
+}
+
+dependencies {
+    testImplementation("junit:junit:4.13.2")
+}
@@ -0,0 +1,228 @@
+package com.openclassrooms.tajmahal.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * State of one keep-alive client connection of the {@link ReviewServer}.
+ * <p>
+ * Every method runs on the event loop of the server. A connection handles one request at a
+ * time: once a request is complete it stops reading, hands the request to a worker, and waits
+ * for {@link #respond(HttpResponse)}. The response is written as fast as the client reads it,
+ * then the connection reads the next request, which may already be buffered.
+ * </p>
+ */
+final class HttpConnection {
+
+    private static final int INITIAL_BUFFER_BYTES = 8 * 1024;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+
+    // --- Fields ---
+
+    private final ReviewServer server;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+
+    // Bytes received and not parsed yet, in write mode
+    private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+
+    // Bytes to send, in read mode, or null when the response needs its next part
+    private ByteBuffer out;
+
+    // Response being sent, null while reading or processing a request
+    private HttpResponse response;
+    private boolean bodyComplete;
+    private boolean closeAfterResponse;
+
+    // Set from the dispatch of a request until its response is sent
+    private boolean busy;
+
+    private final StringBuilder text = new StringBuilder(HttpResponse.CHUNK_CHARS + 1024);
+
+    HttpConnection(ReviewServer server, SocketChannel channel, SelectionKey key) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+    }
+
+    // --- Reading ---
+
+    /**
+     * Reads the bytes available, and dispatches the request once complete.
+     *
+     * @throws IOException if the connection failed
+     */
+    void onReadable() throws IOException {
+        if (!in.hasRemaining()) {
+            if (in.capacity() >= server.getMaxRequestBytes()) {
+                fail(413, "request too large");
+                return;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(Math.min(in.capacity() * 2, server.getMaxRequestBytes()));
+            in.flip();
+            larger.put(in);
+            in = larger;
+        }
+        if (channel.read(in) < 0) {
+            close();
+            return;
+        }
+        processInput();
+    }
+
+    /**
+     * Dispatches the next buffered request, if complete.
+     */
+    private void processInput() throws IOException {
+        if (busy) {
+            return;
+        }
+        HttpRequest request;
+        in.flip();
+        try {
+            request = HttpRequest.parse(in, server.getMaxRequestBytes());
+        } catch (HttpRequest.BadRequestException e) {
+            in.compact();
+            fail(e.status, e.getMessage());
+            return;
+        }
+        in.compact();
+        if (request == null) {
+            return;
+        }
+        busy = true;
+        closeAfterResponse = !request.isKeepAlive();
+        // Stop reading until the response is sent: a client pipelining requests waits for its turn
+        key.interestOps(0);
+        server.dispatch(this, request);
+    }
+
+    // --- Writing ---
+
+    /**
+     * Starts sending the response of the current request.
+     *
+     * @param response the response
+     */
+    void respond(HttpResponse response) {
+        if (!channel.isOpen()) {
+            return;
+        }
+        this.response = response;
+        String fixedBody = response.getFixedBody();
+        byte[] bodyBytes = fixedBody == null ? null : fixedBody.getBytes(StandardCharsets.UTF_8);
+
+        text.setLength(0);
+        text.append("HTTP/1.1 ").append(response.getStatus()).append(' ').append(response.getReason()).append("\r\n");
+        if (bodyBytes == null) {
+            text.append("Transfer-Encoding: chunked\r\n");
+        } else {
+            text.append("Content-Length: ").append(bodyBytes.length).append("\r\n");
+        }
+        if (bodyBytes == null || bodyBytes.length > 0) {
+            text.append("Content-Type: ").append(response.getContentType()).append("\r\n");
+        }
+        text.append(closeAfterResponse ? "Connection: close\r\n" : "Connection: keep-alive\r\n");
+        text.append("\r\n");
+        byte[] head = text.toString().getBytes(StandardCharsets.ISO_8859_1);
+
+        if (bodyBytes == null) {
+            out = ByteBuffer.wrap(head);
+            bodyComplete = false;
+        } else {
+            out = ByteBuffer.allocate(head.length + bodyBytes.length);
+            out.put(head).put(bodyBytes).flip();
+            bodyComplete = true;
+        }
+        try {
+            onWritable();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Writes as much of the response as the socket accepts, producing the chunks of a
+     * streamed body one at a time.
+     *
+     * @throws IOException if the connection failed
+     */
+    void onWritable() throws IOException {
+        while (true) {
+            if (out != null && out.hasRemaining()) {
+                channel.write(out);
+                if (out.hasRemaining()) {
+                    // The client reads slower than we write: resume when the socket drains
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            if (!bodyComplete) {
+                out = nextChunk();
+                continue;
+            }
+            finishResponse();
+            return;
+        }
+    }
+
+    private ByteBuffer nextChunk() {
+        text.setLength(0);
+        boolean more = response.getBody().writeTo(text);
+        byte[] data = text.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] size = Integer.toHexString(data.length).getBytes(StandardCharsets.ISO_8859_1);
+        bodyComplete = !more;
+        ByteBuffer chunk = ByteBuffer.allocate(size.length + data.length + 4 + (more ? 0 : LAST_CHUNK.length));
+        if (data.length > 0) {
+            // An empty chunk would end the body
+            chunk.put(size).put(CRLF).put(data).put(CRLF);
+        }
+        if (!more) {
+            chunk.put(LAST_CHUNK);
+        }
+        chunk.flip();
+        return chunk;
+    }
+
+    private void finishResponse() throws IOException {
+        response = null;
+        out = null;
+        busy = false;
+        if (closeAfterResponse) {
+            close();
+            return;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+        processInput();
+    }
+
+    // --- Errors ---
+
+    /**
+     * Answers a request that could not be parsed, then closes the connection, since the
+     * following bytes cannot be trusted to start a request.
+     */
+    private void fail(int status, String message) {
+        busy = true;
+        closeAfterResponse = true;
+        key.interestOps(0);
+        respond(HttpResponse.error(status, message));
+    }
+
+    /**
+     * Closes the connection, abandoning any response in progress.
+     */
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        server.onClosed(this);
+    }
+}
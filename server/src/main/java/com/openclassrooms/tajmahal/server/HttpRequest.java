@@ -0,0 +1,186 @@
+package com.openclassrooms.tajmahal.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HTTP/1.1 request read by an {@link HttpConnection}.
+ * <p>
+ * Requests are parsed from the bytes received so far: {@link #parse(ByteBuffer, int)} returns
+ * null until the headers and the whole body arrived, so that a connection never blocks on a
+ * slow client. Bodies must have a {@code Content-Length}; chunked request bodies are refused.
+ * </p>
+ */
+final class HttpRequest {
+
+    /**
+     * Thrown when the received bytes are not a request this server accepts.
+     */
+    static final class BadRequestException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        BadRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // --- Fields ---
+
+    private final String method;
+    private final String path;
+    private final String queryString;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final boolean keepAlive;
+
+    private HttpRequest(String method, String path, String queryString, Map<String, String> headers,
+                        byte[] body, boolean keepAlive) {
+        this.method = method;
+        this.path = path;
+        this.queryString = queryString;
+        this.headers = headers;
+        this.body = body;
+        this.keepAlive = keepAlive;
+    }
+
+    // --- Parsing ---
+
+    /**
+     * Parses the request at the position of a buffer, and moves the position past it.
+     *
+     * @param in           the bytes received, in read mode
+     * @param maxBodyBytes the largest body accepted
+     * @return the request, or null if it is not complete yet; the position is unchanged then
+     * @throws BadRequestException if the request is malformed or too large
+     */
+    static HttpRequest parse(ByteBuffer in, int maxBodyBytes) throws BadRequestException {
+        int start = in.position();
+        int headerEnd = indexOfHeaderEnd(in);
+        if (headerEnd < 0) {
+            return null;
+        }
+        byte[] headerBytes = new byte[headerEnd - start];
+        in.get(headerBytes);
+        String[] lines = new String(headerBytes, StandardCharsets.ISO_8859_1).split("\r\n");
+
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            in.position(start);
+            throw new BadRequestException(400, "malformed request line");
+        }
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                in.position(start);
+                throw new BadRequestException(400, "malformed header");
+            }
+            headers.put(lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT), lines[i].substring(colon + 1).trim());
+        }
+        if (headers.containsKey("transfer-encoding")) {
+            in.position(start);
+            throw new BadRequestException(411, "chunked request bodies are not supported");
+        }
+
+        int length = 0;
+        String contentLength = headers.get("content-length");
+        if (contentLength != null) {
+            try {
+                length = Integer.parseInt(contentLength);
+            } catch (NumberFormatException e) {
+                in.position(start);
+                throw new BadRequestException(400, "invalid content length");
+            }
+            if (length < 0 || length > maxBodyBytes) {
+                in.position(start);
+                throw new BadRequestException(413, "body too large");
+            }
+        }
+        // Skip the blank line ending the headers
+        if (in.remaining() < 4 + length) {
+            in.position(start);
+            return null;
+        }
+        in.position(in.position() + 4);
+        byte[] body = new byte[length];
+        in.get(body);
+
+        String target = requestLine[1];
+        int question = target.indexOf('?');
+        String connection = headers.get("connection");
+        boolean keepAlive = requestLine[2].equals("HTTP/1.1")
+                ? !"close".equalsIgnoreCase(connection)
+                : "keep-alive".equalsIgnoreCase(connection);
+        return new HttpRequest(requestLine[0],
+                question < 0 ? target : target.substring(0, question),
+                question < 0 ? null : target.substring(question + 1),
+                headers, body, keepAlive);
+    }
+
+    /**
+     * Finds the blank line ending the headers, without moving the position.
+     *
+     * @return the index of the CRLF CRLF sequence, or -1 if not received yet
+     */
+    private static int indexOfHeaderEnd(ByteBuffer in) {
+        for (int i = in.position(); i + 3 < in.limit(); i++) {
+            if (in.get(i) == '\r' && in.get(i + 1) == '\n' && in.get(i + 2) == '\r' && in.get(i + 3) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // --- Getters ---
+
+    String getMethod() {
+        return method;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the query string, without the leading question mark.
+     *
+     * @return the query string, or null if the target has none
+     */
+    String getQueryString() {
+        return queryString;
+    }
+
+    /**
+     * Gets a header.
+     *
+     * @param name the name of the header, in lower case
+     * @return the value, or null if absent
+     */
+    String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * Gets the body as text.
+     *
+     * @return the body decoded as UTF-8, empty if there is none
+     */
+    String getBodyText() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tells whether the client keeps the connection open for other requests.
+     *
+     * @return true unless the client asked to close it, or speaks HTTP/1.0 without keep-alive
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+}
@@ -0,0 +1,184 @@
+package com.openclassrooms.tajmahal.server;
+
+import com.openclassrooms.tajmahal.data.io.ReviewFormat;
+import com.openclassrooms.tajmahal.data.service.RestaurantHttpProtocol;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * HTTP response written by an {@link HttpConnection}.
+ * <p>
+ * Small responses have a fixed body sent with a {@code Content-Length}. Lists are streamed with
+ * the chunked transfer encoding: the connection asks the {@link Body} for the next lines only
+ * once the previous chunk was written to the socket, so memory use per connection does not
+ * depend on the size of the list, and a slow client slows down only its own response.
+ * </p>
+ */
+final class HttpResponse {
+
+    // Characters written per chunk of a streamed body
+    static final int CHUNK_CHARS = 16 * 1024;
+
+    /**
+     * Producer of a streamed body.
+     */
+    interface Body {
+        /**
+         * Appends the next part of the body, about {@link #CHUNK_CHARS} characters.
+         *
+         * @param out the text of the next chunk, empty
+         * @return true if more follows, false if this was the last part
+         */
+        boolean writeTo(StringBuilder out);
+    }
+
+    // --- Fields ---
+
+    private final int status;
+    private final String fixedBody;
+    private final Body body;
+
+    private HttpResponse(int status, String fixedBody, Body body) {
+        this.status = status;
+        this.fixedBody = fixedBody;
+        this.body = body;
+    }
+
+    // --- Factories ---
+
+    /**
+     * Creates a response with a fixed body.
+     *
+     * @param status the status code
+     * @param body   the body, in the content type of the protocol
+     * @return the response
+     */
+    static HttpResponse of(int status, String body) {
+        return new HttpResponse(status, body, null);
+    }
+
+    /**
+     * Creates a successful response without body.
+     *
+     * @return the response
+     */
+    static HttpResponse noContent() {
+        return new HttpResponse(204, "", null);
+    }
+
+    /**
+     * Creates an error response, whose body is a line describing the error.
+     *
+     * @param status  the status code
+     * @param message the description of the error
+     * @return the response
+     */
+    static HttpResponse error(int status, String message) {
+        StringBuilder out = new StringBuilder("{\"error\":");
+        ReviewFormat.appendJsonString(message, out);
+        return of(status, out.append("}\n").toString());
+    }
+
+    /**
+     * Creates a streamed response.
+     *
+     * @param body the producer of the body
+     * @return the response
+     */
+    static HttpResponse stream(Body body) {
+        return new HttpResponse(200, null, body);
+    }
+
+    /**
+     * Creates a streamed response writing a header line, then one line per item.
+     *
+     * @param header the header line, with its terminator, or null
+     * @param items  the items, which must not be modified while streamed
+     * @param writer appends the line of an item
+     * @param <T>    the type of the items
+     * @return the response
+     */
+    static <T> HttpResponse lines(final String header, List<T> items, final BiConsumer<T, StringBuilder> writer) {
+        final Iterator<T> iterator = items.iterator();
+        return stream(new Body() {
+            private boolean headerWritten = header == null;
+
+            @Override
+            public boolean writeTo(StringBuilder out) {
+                if (!headerWritten) {
+                    out.append(header);
+                    headerWritten = true;
+                }
+                while (iterator.hasNext() && out.length() < CHUNK_CHARS) {
+                    writer.accept(iterator.next(), out);
+                }
+                return iterator.hasNext();
+            }
+        });
+    }
+
+    // --- Getters ---
+
+    int getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the body of a response that is not streamed.
+     *
+     * @return the body, or null for a streamed response
+     */
+    String getFixedBody() {
+        return fixedBody;
+    }
+
+    /**
+     * Gets the producer of a streamed body.
+     *
+     * @return the producer, or null for a fixed body
+     */
+    Body getBody() {
+        return body;
+    }
+
+    /**
+     * Gets the content type of the body.
+     *
+     * @return the content type of the protocol
+     */
+    String getContentType() {
+        return RestaurantHttpProtocol.CONTENT_TYPE;
+    }
+
+    /**
+     * Gets the reason phrase of the status.
+     *
+     * @return the reason phrase
+     */
+    String getReason() {
+        switch (status) {
+            case 200:
+                return "OK";
+            case 204:
+                return "No Content";
+            case 400:
+                return "Bad Request";
+            case 404:
+                return "Not Found";
+            case 405:
+                return "Method Not Allowed";
+            case 411:
+                return "Length Required";
+            case 413:
+                return "Payload Too Large";
+            case 501:
+                return "Not Implemented";
+            case 503:
+                return "Service Unavailable";
+            default:
+                return status < 500 ? "Error" : "Internal Server Error";
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.openclassrooms.tajmahal.server;
+
+import com.openclassrooms.tajmahal.data.io.JsonObjectParser;
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.service.RestaurantHttpProtocol;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Maps the requests of {@link RestaurantHttpProtocol} to the calls of a {@link RestaurantApi}.
+ * <p>
+ * Runs on the workers of the {@link ReviewServer}: the API is called here, and lists are
+ * returned as streamed responses, written later by the event loop.
+ * </p>
+ */
+final class RestaurantApiHandler {
+
+    private final RestaurantApi api;
+
+    RestaurantApiHandler(RestaurantApi api) {
+        this.api = api;
+    }
+
+    /**
+     * Answers a request.
+     *
+     * @param request the request
+     * @return the response, an error response if the request is invalid or the API failed
+     */
+    HttpResponse handle(HttpRequest request) {
+        try {
+            return route(request);
+        } catch (IOException | IllegalArgumentException e) {
+            return HttpResponse.error(400, String.valueOf(e.getMessage()));
+        } catch (UnsupportedOperationException e) {
+            return HttpResponse.error(501, String.valueOf(e.getMessage()));
+        } catch (RuntimeException e) {
+            return HttpResponse.error(500, e.toString());
+        }
+    }
+
+    private HttpResponse route(HttpRequest request) throws IOException {
+        String path = request.getPath();
+        String method = request.getMethod();
+        switch (path) {
+            case RestaurantHttpProtocol.PATH_RESTAURANT:
+                if (!method.equals("GET")) {
+                    return methodNotAllowed(method);
+                }
+                StringBuilder out = new StringBuilder();
+                RestaurantHttpProtocol.appendRestaurant(api.getRestaurant(), out);
+                return HttpResponse.of(200, out.toString());
+
+            case RestaurantHttpProtocol.PATH_REVIEWS:
+                if (method.equals("GET")) {
+                    return HttpResponse.lines(null, api.getReviews(), RestaurantHttpProtocol::appendReview);
+                }
+                if (method.equals("POST")) {
+                    return addReviews(request);
+                }
+                return methodNotAllowed(method);
+
+            case RestaurantHttpProtocol.PATH_REVIEWS_SINCE:
+                if (!method.equals("GET")) {
+                    return methodNotAllowed(method);
+                }
+                return reviewsSince(request);
+
+            case RestaurantHttpProtocol.PATH_REVIEWS_QUERY:
+                if (!method.equals("GET")) {
+                    return methodNotAllowed(method);
+                }
+                ReviewPage page = api.queryReviews(RestaurantHttpProtocol.parseQuery(
+                        RestaurantHttpProtocol.parseQueryString(request.getQueryString())));
+                StringBuilder header = new StringBuilder();
+                RestaurantHttpProtocol.appendPageHeader(page.getOffset(), page.hasMore(), page.getAccessPath(), header);
+                return HttpResponse.lines(header.toString(), page.getReviews(), RestaurantHttpProtocol::appendReview);
+
+            default:
+                if (path.startsWith(RestaurantHttpProtocol.PATH_REVIEWS + "/")) {
+                    return reviewById(request, path.substring(RestaurantHttpProtocol.PATH_REVIEWS.length() + 1));
+                }
+                return HttpResponse.error(404, "no resource at " + path);
+        }
+    }
+
+    // --- Reviews ---
+
+    private HttpResponse addReviews(HttpRequest request) throws IOException {
+        List<Review> reviews = new ArrayList<>();
+        for (String line : request.getBodyText().split("\n")) {
+            if (!line.trim().isEmpty()) {
+                Review review = RestaurantHttpProtocol.parseReview(JsonObjectParser.parse(line));
+                // The server assigns the identifiers
+                review.setId(0);
+                reviews.add(review);
+            }
+        }
+        if (reviews.size() == 1) {
+            api.addReview(reviews.get(0));
+        } else if (!reviews.isEmpty()) {
+            api.addReviews(reviews);
+        }
+        return HttpResponse.lines(null, reviews, RestaurantHttpProtocol::appendReview);
+    }
+
+    private HttpResponse reviewsSince(HttpRequest request) {
+        String cursor = RestaurantHttpProtocol.parseQueryString(request.getQueryString())
+                .get(RestaurantHttpProtocol.PARAM_CURSOR);
+        final ReviewDelta delta = api.getReviewsSince(cursor == null ? ReviewDelta.NO_CURSOR : Long.parseLong(cursor));
+        final Iterator<Review> reviews = delta.getReviews().iterator();
+        // The protocol has no base section: base reviews are sent after the others, as part of the snapshot
+        final Iterator<Review> baseReviews = delta.getBaseReviews().iterator();
+        final Iterator<Long> deletedIds = delta.getDeletedIds().iterator();
+        return HttpResponse.stream(new HttpResponse.Body() {
+            private boolean headerWritten;
+
+            @Override
+            public boolean writeTo(StringBuilder out) {
+                if (!headerWritten) {
+                    RestaurantHttpProtocol.appendDeltaHeader(delta, out);
+                    headerWritten = true;
+                }
+                while (reviews.hasNext() && out.length() < HttpResponse.CHUNK_CHARS) {
+                    RestaurantHttpProtocol.appendReview(reviews.next(), out);
+                }
+                while (baseReviews.hasNext() && out.length() < HttpResponse.CHUNK_CHARS) {
+                    RestaurantHttpProtocol.appendReview(baseReviews.next(), out);
+                }
+                while (deletedIds.hasNext() && out.length() < HttpResponse.CHUNK_CHARS) {
+                    RestaurantHttpProtocol.appendDeletion(deletedIds.next(), out);
+                }
+                return reviews.hasNext() || baseReviews.hasNext() || deletedIds.hasNext();
+            }
+        });
+    }
+
+    private HttpResponse reviewById(HttpRequest request, String idText) throws IOException {
+        long id = Long.parseLong(idText);
+        switch (request.getMethod()) {
+            case "PUT":
+                Review review = RestaurantHttpProtocol.parseReview(JsonObjectParser.parse(request.getBodyText().trim()));
+                review.setId(id);
+                return api.updateReview(review) ? HttpResponse.noContent() : HttpResponse.error(404, "no review " + id);
+            case "DELETE":
+                return api.deleteReview(id) ? HttpResponse.noContent() : HttpResponse.error(404, "no review " + id);
+            default:
+                return methodNotAllowed(request.getMethod());
+        }
+    }
+
+    private static HttpResponse methodNotAllowed(String method) {
+        return HttpResponse.error(405, method + " not allowed");
+    }
+}
@@ -0,0 +1,123 @@
+package com.openclassrooms.tajmahal.server;
+
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.service.HttpRestaurantApi;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of a running {@link ReviewServer}, through the {@link HttpRestaurantApi} of the app.
+ * <p>
+ * Each client is a thread with its own keep-alive connection, looping until the end of the
+ * test: it posts a review with the write ratio, and otherwise reads the first page of the
+ * reviews or syncs the changes since its previous sync, like the app on screen display and
+ * on refresh. Throughput and latency percentiles are printed at the end.
+ * </p>
+ * <p>
+ * Options: {@code --url U} (http://localhost:8080 by default), {@code --clients N} (1000),
+ * {@code --seconds N} (30) and {@code --writes R}, the ratio of writes between 0 and 1 (0.1).
+ * </p>
+ */
+public final class ReviewLoadTest {
+
+    private ReviewLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        int clients = 1000;
+        int seconds = 30;
+        double writeRatio = 0.1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url":
+                    url = args[i + 1];
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--writes":
+                    writeRatio = Double.parseDouble(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        // HttpURLConnection keeps 5 idle connections per server by default
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+
+        final HttpRestaurantApi api = new HttpRestaurantApi(url);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final double writes = writeRatio;
+        final long[][] latencies = new long[clients][];
+        final AtomicLong failures = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(clients);
+        final ReviewQuery firstPage = new ReviewQuery.Builder().build();
+
+        for (int c = 0; c < clients; c++) {
+            final int client = c;
+            Thread thread = new Thread(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                long cursor = ReviewDelta.NO_CURSOR;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        double dice = random.nextDouble();
+                        if (dice < writes) {
+                            api.addReview(new Review("Load client " + client, "", "Load test review", 1 + random.nextInt(5)));
+                        } else if (dice < writes + (1 - writes) / 2) {
+                            api.queryReviews(firstPage);
+                        } else {
+                            cursor = api.getReviewsSince(cursor).getCursor();
+                        }
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        continue;
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                latencies[client] = Arrays.copyOf(samples, count);
+                done.countDown();
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = 0;
+        for (long[] samples : latencies) {
+            total += samples.length;
+        }
+        long[] all = new long[total];
+        int position = 0;
+        for (long[] samples : latencies) {
+            System.arraycopy(samples, 0, all, position, samples.length);
+            position += samples.length;
+        }
+        Arrays.sort(all);
+        System.out.printf("%d clients, %d s: %d requests (%.0f/s), %d failures%n",
+                clients, seconds, total, total / (double) seconds, failures.get());
+        if (total > 0) {
+            System.out.printf("latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), all[total - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double rank) {
+        return sorted[Math.min(sorted.length - 1, (int) (rank * sorted.length))] / 1e6;
+    }
+}
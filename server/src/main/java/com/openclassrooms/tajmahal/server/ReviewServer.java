@@ -0,0 +1,240 @@
+package com.openclassrooms.tajmahal.server;
+
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP server exposing a {@link RestaurantApi}, see
+ * {@link com.openclassrooms.tajmahal.data.service.RestaurantHttpProtocol}.
+ * <p>
+ * A single event loop multiplexes every connection with a non-blocking NIO {@link Selector}, so
+ * thousands of idle keep-alive clients cost a socket each, not a thread. Requests are handed to
+ * a small pool of workers calling the API, and their responses written back by the event loop,
+ * streaming lists as the clients read them. The API must be thread-safe.
+ * </p>
+ * <pre>
+ * ReviewServer server = new ReviewServer(new RestaurantFakeApi(), new InetSocketAddress(8080));
+ * server.start();
+ * </pre>
+ */
+public class ReviewServer implements Closeable {
+
+    /** Largest request accepted, headers and body included. */
+    public static final int DEFAULT_MAX_REQUEST_BYTES = 1024 * 1024;
+
+    // --- Fields ---
+
+    private final RestaurantApiHandler handler;
+    private final int maxRequestBytes;
+    private final ExecutorService workers;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread loop;
+
+    // Connections open, touched by the event loop only
+    private final Set<HttpConnection> connections = new HashSet<>();
+
+    // Responses computed by the workers, written by the event loop
+    private final Queue<Runnable> loopTasks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running;
+
+    // --- Constructors ---
+
+    /**
+     * Binds a server with a worker per available processor.
+     *
+     * @param api     the API answering the requests, thread-safe
+     * @param address the address to listen to; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public ReviewServer(RestaurantApi api, InetSocketAddress address) throws IOException {
+        this(api, address, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_REQUEST_BYTES);
+    }
+
+    /**
+     * Binds a server.
+     *
+     * @param api             the API answering the requests, thread-safe
+     * @param address         the address to listen to; port 0 picks a free port
+     * @param workerThreads   the number of threads calling the API
+     * @param maxRequestBytes the largest request accepted, headers and body included
+     * @throws IOException if the address cannot be bound
+     */
+    public ReviewServer(RestaurantApi api, InetSocketAddress address, int workerThreads,
+                        int maxRequestBytes) throws IOException {
+        this.handler = new RestaurantApiHandler(api);
+        this.maxRequestBytes = maxRequestBytes;
+        this.workers = Executors.newFixedThreadPool(workerThreads, new DaemonThreadFactory("review-server-worker"));
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        // A deep backlog absorbs bursts of connections opened by load tests
+        serverChannel.bind(address, 4096);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.loop = new Thread(this::runLoop, "review-server-loop");
+    }
+
+    // --- Lifecycle ---
+
+    /**
+     * Starts accepting connections.
+     */
+    public void start() {
+        running = true;
+        loop.start();
+    }
+
+    /**
+     * Gets the port the server listens to.
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops the server: closes every connection, and waits for the event loop to end.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+        serverChannel.close();
+        selector.close();
+    }
+
+    // --- Event loop ---
+
+    private void runLoop() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                break;
+            }
+            Runnable task;
+            while ((task = loopTasks.poll()) != null) {
+                task.run();
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+                HttpConnection connection = (HttpConnection) key.attachment();
+                try {
+                    if (key.isReadable()) {
+                        connection.onReadable();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.onWritable();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // Client gone or misbehaving: only its connection is affected
+                    connection.close();
+                }
+            }
+        }
+        for (HttpConnection connection : new ArrayList<>(connections)) {
+            connection.close();
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel;
+        try {
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                HttpConnection connection = new HttpConnection(this, channel, key);
+                key.attach(connection);
+                connections.add(connection);
+            }
+        } catch (IOException e) {
+            // Out of file descriptors, or the client left: the next select retries
+        }
+    }
+
+    // --- Connection callbacks ---
+
+    /**
+     * Handles a request on a worker, then hands the response back to the event loop.
+     *
+     * @param connection the connection that received the request
+     * @param request    the request
+     */
+    void dispatch(final HttpConnection connection, final HttpRequest request) {
+        try {
+            workers.execute(() -> {
+                final HttpResponse response = handler.handle(request);
+                loopTasks.add(() -> connection.respond(response));
+                selector.wakeup();
+            });
+        } catch (RejectedExecutionException e) {
+            connection.respond(HttpResponse.error(503, "server stopping"));
+        }
+    }
+
+    void onClosed(HttpConnection connection) {
+        connections.remove(connection);
+    }
+
+    int getMaxRequestBytes() {
+        return maxRequestBytes;
+    }
+
+    /**
+     * Names the worker threads, and lets the JVM exit while they wait.
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
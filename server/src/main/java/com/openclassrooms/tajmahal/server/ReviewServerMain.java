@@ -0,0 +1,62 @@
+package com.openclassrooms.tajmahal.server;
+
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.data.service.SyntheticRestaurantApi;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Runs a {@link ReviewServer} until the JVM is stopped.
+ * <p>
+ * Options: {@code --port N} (8080 by default), {@code --host H} (every interface by default),
+ * {@code --workers N}, and {@code --synthetic N} to serve N generated reviews instead of the
+ * fake ones. The emulator reaches the server of the host at {@code http://10.0.2.2:8080}.
+ * </p>
+ */
+public final class ReviewServerMain {
+
+    private ReviewServerMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        String host = "0.0.0.0";
+        int workers = Runtime.getRuntime().availableProcessors();
+        int synthetic = 0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--host":
+                    host = args[i + 1];
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--synthetic":
+                    synthetic = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        RestaurantApi api = synthetic > 0
+                ? new SyntheticRestaurantApi.Builder(synthetic).build()
+                : new RestaurantFakeApi();
+        final ReviewServer server = new ReviewServer(api, new InetSocketAddress(host, port), workers,
+                ReviewServer.DEFAULT_MAX_REQUEST_BYTES);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (Exception e) {
+                // Exiting anyway
+            }
+        }));
+        System.out.println("Review server listening on " + host + ":" + server.getPort());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,68 @@
+package com.openclassrooms.tajmahal.server;
+
+import com.openclassrooms.tajmahal.data.service.HttpRestaurantApi;
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.data.service.SyntheticRestaurantApi;
+import com.openclassrooms.tajmahal.data.trace.WorkloadReplayer;
+import com.openclassrooms.tajmahal.data.trace.WorkloadReport;
+import com.openclassrooms.tajmahal.data.trace.WorkloadTraceReader;
+
+import java.io.FileInputStream;
+
+/**
+ * Replays a workload trace recorded by the app against a {@link RestaurantApi}, and prints the
+ * recorded and replayed latency percentiles of each operation.
+ * <p>
+ * Options: {@code --trace F}, the trace file (required); {@code --url U} to replay against a
+ * running review server, or {@code --synthetic N} against N generated reviews, instead of the
+ * fake API; {@code --paced true} to start the calls at their recorded offsets instead of
+ * back to back.
+ * </p>
+ */
+public final class WorkloadReplayMain {
+
+    private WorkloadReplayMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String trace = null;
+        String url = null;
+        int synthetic = 0;
+        boolean paced = false;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--trace":
+                    trace = args[i + 1];
+                    break;
+                case "--url":
+                    url = args[i + 1];
+                    break;
+                case "--synthetic":
+                    synthetic = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--paced":
+                    paced = Boolean.parseBoolean(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (trace == null) {
+            throw new IllegalArgumentException("missing --trace");
+        }
+
+        RestaurantApi api;
+        if (url != null) {
+            api = new HttpRestaurantApi(url);
+        } else if (synthetic > 0) {
+            api = new SyntheticRestaurantApi.Builder(synthetic).build();
+        } else {
+            api = new RestaurantFakeApi();
+        }
+        try (WorkloadTraceReader reader = new WorkloadTraceReader(new FileInputStream(trace))) {
+            WorkloadReport report = new WorkloadReplayer(api, paced).replay(reader);
+            System.out.print(report.format());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.openclassrooms.tajmahal.server;
+
+import com.openclassrooms.tajmahal.data.query.ReviewPage;
+import com.openclassrooms.tajmahal.data.query.ReviewQuery;
+import com.openclassrooms.tajmahal.data.service.HttpRestaurantApi;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.data.sync.ReviewDelta;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for ReviewServer, through the HTTP client of the app.
+ */
+public class ReviewServerTest {
+
+    private RestaurantFakeApi backend;
+    private ReviewServer server;
+    private HttpRestaurantApi client;
+
+    @Before
+    public void setup() throws Exception {
+        backend = new RestaurantFakeApi();
+        server = new ReviewServer(backend, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = new HttpRestaurantApi("http://localhost:" + server.getPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    /**
+     * Test 1: The client reads the same restaurant and reviews as the API behind the server.
+     */
+    @Test
+    public void reads_shouldMatchBackend() {
+        assertEquals(backend.getRestaurant(), client.getRestaurant());
+        assertEquals(backend.getReviews(), client.getReviews());
+
+        ReviewQuery query = new ReviewQuery.Builder().ratingBetween(4, 5).page(0, 2).build();
+        ReviewPage expected = backend.queryReviews(query);
+        ReviewPage page = client.queryReviews(query);
+        assertEquals(expected.getReviews(), page.getReviews());
+        assertEquals(expected.hasMore(), page.hasMore());
+        assertEquals(expected.getAccessPath(), page.getAccessPath());
+    }
+
+    /**
+     * Test 2: Writes go through to the API, and a sync returns only the changes since its cursor.
+     */
+    @Test
+    public void writes_shouldBeReturnedByNextSync() {
+        ReviewDelta snapshot = client.getReviewsSince(ReviewDelta.NO_CURSOR);
+        assertTrue(snapshot.isSnapshot());
+
+        Review added = new Review("Manon Garcia", "", "Très \"bon\"\nà revenir", 5);
+        client.addReview(added);
+        assertTrue(added.getId() > 0);
+        Review first = snapshot.getReviews().get(0);
+        Review edited = new Review(first.getId(), first.getUsername(), first.getPicture(), "Moyen", 3, first.getCreatedAt());
+        assertTrue(client.updateReview(edited));
+        long deletedId = snapshot.getReviews().get(1).getId();
+        assertTrue(client.deleteReview(deletedId));
+        assertFalse(client.deleteReview(deletedId));
+
+        ReviewDelta delta = client.getReviewsSince(snapshot.getCursor());
+
+        assertFalse(delta.isSnapshot());
+        assertEquals(2, delta.getReviews().size());
+        assertEquals(added, delta.getReviews().get(0));
+        assertEquals(edited, delta.getReviews().get(1));
+        assertEquals(Collections.singletonList(deletedId), delta.getDeletedIds());
+    }
+
+    /**
+     * Test 3: A connection serves successive and pipelined requests, and malformed ones get a 400.
+     */
+    @Test
+    public void connection_shouldStayAliveAcrossRequests() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            String get = "GET /restaurant HTTP/1.1\r\nHost: localhost\r\n\r\n";
+            out.write((get + get + "BROKEN\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            List<String> statusLines = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("HTTP/1.1")) {
+                    statusLines.add(line);
+                }
+            }
+            assertEquals(3, statusLines.size());
+            assertEquals("HTTP/1.1 200 OK", statusLines.get(0));
+            assertEquals("HTTP/1.1 200 OK", statusLines.get(1));
+            assertEquals("HTTP/1.1 400 Bad Request", statusLines.get(2));
+        }
+    }
+
+    /**
+     * Test 4: Concurrent clients read and write without losing any review.
+     */
+    @Test
+    public void concurrentClients_shouldNotLoseWrites() throws Exception {
+        int before = backend.getReviews().size();
+        ExecutorService clients = Executors.newFixedThreadPool(32);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final int n = i;
+            tasks.add(clients.submit(() -> {
+                client.addReview(new Review("Client " + n, "", "Commentaire " + n, 1 + n % 5));
+                client.queryReviews(new ReviewQuery.Builder().build());
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        clients.shutdown();
+
+        assertEquals(before + 200, client.getReviews().size());
+    }
+}
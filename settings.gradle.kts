@@ -15,3 +15,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "TajMahal"
 include(":app")
+include(":server")